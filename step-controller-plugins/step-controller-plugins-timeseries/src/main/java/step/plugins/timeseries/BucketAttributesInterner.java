@@ -0,0 +1,97 @@
+package step.plugins.timeseries;
+
+import step.core.timeseries.BucketAttributes;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Returns a shared {@link BucketAttributes} instance for each distinct combination
+ * of attribute values. This avoids the allocation of a new attribute map for each
+ * ingested point. The returned instances are shared and mustn't be modified.
+ * <p>
+ * The combinations of an execution should be evicted with {@link #evict(String, String)}
+ * once its measurements have been ingested. The cache is cleared if it reaches its maximum
+ * size nevertheless.
+ */
+public class BucketAttributesInterner {
+
+    protected static final int DEFAULT_MAX_SIZE = 100000;
+
+    private final String[] attributes;
+    private final int maxSize;
+    private final Map<List<String>, BucketAttributes> cache = new ConcurrentHashMap<>();
+
+    public BucketAttributesInterner(List<String> attributes) {
+        this(attributes, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param attributes the measurement attributes to be used as bucket attributes
+     * @param maxSize    the maximum number of cached combinations. The cache is cleared when it is reached
+     */
+    public BucketAttributesInterner(List<String> attributes, int maxSize) {
+        this.attributes = attributes.toArray(new String[0]);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param measurement the measurement to get the bucket attributes for
+     * @param extraKey    the key of an additional attribute set for all points of the caller
+     * @param extraValue  the value of the additional attribute
+     * @return the shared {@link BucketAttributes}
+     */
+    public BucketAttributes intern(Map<String, Object> measurement, String extraKey, String extraValue) {
+        String[] values = new String[attributes.length + 1];
+        for (int i = 0; i < attributes.length; i++) {
+            Object value = measurement.get(attributes[i]);
+            values[i] = value != null ? value.toString() : null;
+        }
+        values[attributes.length] = extraValue;
+        List<String> key = Arrays.asList(values);
+        BucketAttributes bucketAttributes = cache.get(key);
+        if (bucketAttributes == null) {
+            bucketAttributes = newBucketAttributes(values, extraKey, extraValue);
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+            BucketAttributes existing = cache.putIfAbsent(key, bucketAttributes);
+            if (existing != null) {
+                bucketAttributes = existing;
+            }
+        }
+        return bucketAttributes;
+    }
+
+    /**
+     * Removes the cached combinations having the provided attribute value
+     *
+     * @param attribute the name of the attribute, typically the execution id
+     * @param value     the value of the attribute
+     */
+    public void evict(String attribute, String value) {
+        int index = Arrays.asList(attributes).indexOf(attribute);
+        if (index >= 0) {
+            cache.keySet().removeIf(key -> Objects.equals(key.get(index), value));
+        }
+    }
+
+    private BucketAttributes newBucketAttributes(String[] values, String extraKey, String extraValue) {
+        Map<String, String> bucketAttributesMap = new HashMap<>();
+        for (int i = 0; i < attributes.length; i++) {
+            if (values[i] != null) {
+                bucketAttributesMap.put(attributes[i], values[i]);
+            }
+        }
+        bucketAttributesMap.put(extraKey, extraValue);
+        return new BucketAttributes(bucketAttributesMap);
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
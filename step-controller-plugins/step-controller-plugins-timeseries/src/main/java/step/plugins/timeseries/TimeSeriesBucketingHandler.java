@@ -8,10 +8,9 @@ import step.core.timeseries.BucketAttributes;
 import step.core.timeseries.TimeSeriesIngestionPipeline;
 import step.plugins.measurements.Measurement;
 import step.plugins.measurements.MeasurementHandler;
+import step.plugins.measurements.MeasurementPlugin;
 
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class TimeSeriesBucketingHandler implements MeasurementHandler {
 
@@ -22,13 +21,29 @@ public class TimeSeriesBucketingHandler implements MeasurementHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(TimeSeriesBucketingHandler.class);
 
-    private final TimeSeriesIngestionPipeline ingestionPipeline;
+    private final List<TimeSeriesIngestionPipeline> ingestionPipelines;
 
-    private final List<String> attributes;
+    private final BucketAttributesInterner bucketAttributesInterner;
 
     public TimeSeriesBucketingHandler(TimeSeriesIngestionPipeline ingestionPipeline, List<String> attributes) {
-        this.ingestionPipeline = ingestionPipeline;
-        this.attributes = attributes;
+        this(List.of(ingestionPipeline), attributes);
+    }
+
+    /**
+     * @param ingestionPipelines the pipelines of the different rollup tiers. Each point is ingested into all of them
+     * @param attributes the measurement attributes to be used as bucket attributes
+     */
+    public TimeSeriesBucketingHandler(List<TimeSeriesIngestionPipeline> ingestionPipelines, List<String> attributes) {
+        this(ingestionPipelines, new BucketAttributesInterner(attributes));
+    }
+
+    /**
+     * @param ingestionPipelines the pipelines of the different rollup tiers. Each point is ingested into all of them
+     * @param bucketAttributesInterner the interner used to map the measurements to bucket attributes. It may be shared between handlers
+     */
+    public TimeSeriesBucketingHandler(List<TimeSeriesIngestionPipeline> ingestionPipelines, BucketAttributesInterner bucketAttributesInterner) {
+        this.ingestionPipelines = ingestionPipelines;
+        this.bucketAttributesInterner = bucketAttributesInterner;
     }
 
     @Override
@@ -45,28 +60,22 @@ public class TimeSeriesBucketingHandler implements MeasurementHandler {
         long begin = measurement.getBegin();
         long value = measurement.getValue();
 
-        BucketAttributes bucketAttributes = measurementToBucketAttributes(measurement);
-        bucketAttributes.put(METRIC_TYPE_KEY, METRIC_TYPE_RESPONSE_TIME);
-        this.ingestionPipeline.ingestPoint(bucketAttributes, begin, value);
+        BucketAttributes bucketAttributes = bucketAttributesInterner.intern(measurement, METRIC_TYPE_KEY, METRIC_TYPE_RESPONSE_TIME);
+        ingestPoint(bucketAttributes, begin, value);
     }
 
-    private BucketAttributes measurementToBucketAttributes(Measurement measurement) {
-        Map<String, String> bucketAttributesMap = new HashMap<>();
-        attributes.forEach(a -> {
-            if (measurement.containsKey(a)) {
-                bucketAttributesMap.put(a,measurement.get(a).toString());
-            }
-        });
-        return new BucketAttributes(bucketAttributesMap);
+    private void ingestPoint(BucketAttributes bucketAttributes, long timestamp, long value) {
+        for (TimeSeriesIngestionPipeline ingestionPipeline : ingestionPipelines) {
+            ingestionPipeline.ingestPoint(bucketAttributes, timestamp, value);
+        }
     }
 
     @Override
     public void processGauges(List<Measurement> measurements) {
         measurements.forEach(measurement -> {
             if (measurement != null) {
-                BucketAttributes bucketAttributes = measurementToBucketAttributes(measurement);
-                bucketAttributes.put(METRIC_TYPE_KEY, METRIC_TYPE_SAMPLER);
-                this.ingestionPipeline.ingestPoint(bucketAttributes, measurement.getBegin(), measurement.getValue());
+                BucketAttributes bucketAttributes = bucketAttributesInterner.intern(measurement, METRIC_TYPE_KEY, METRIC_TYPE_SAMPLER);
+                ingestPoint(bucketAttributes, measurement.getBegin(), measurement.getValue());
             }
         });
     }
@@ -89,5 +98,6 @@ public class TimeSeriesBucketingHandler implements MeasurementHandler {
 
     @Override
     public void afterExecutionEnd(ExecutionContext context) {
+        bucketAttributesInterner.evict(MeasurementPlugin.ATTRIBUTE_EXECUTION_ID, context.getExecutionId());
     }
 }
@@ -1,6 +1,7 @@
 package step.plugins.timeseries;
 
 import ch.exense.commons.app.Configuration;
+import org.rtm.commons.MeasurementAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import step.core.GlobalContext;
@@ -12,12 +13,16 @@ import step.core.timeseries.TimeSeries;
 import step.core.timeseries.TimeSeriesAggregationPipeline;
 import step.core.timeseries.TimeSeriesIngestionPipeline;
 import step.plugins.measurements.GaugeCollectorRegistry;
+import step.plugins.measurements.Measurement;
 import step.plugins.measurements.MeasurementPlugin;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 @Plugin
 public class TimeSeriesControllerPlugin extends AbstractControllerPlugin {
@@ -28,8 +33,19 @@ public class TimeSeriesControllerPlugin extends AbstractControllerPlugin {
     public static String TIME_SERIES_ATTRIBUTES_PROPERTY = "plugins.timeseries.attributes";
     public static String TIME_SERIES_ATTRIBUTES_DEFAULT = "eId,taskId,planId,metricType,origin,name,rnStatus,project,type";
 
+    // Comma separated list of the resolutions in ms of the rollup tiers written in addition to the base resolution.
+    // Each tier adds an ingestion pipeline per measurement. Disabled by default, e.g. "60000,3600000" to enable
+    public static String ROLLUP_RESOLUTIONS_PROPERTY = "plugins.timeseries.rollup.resolutions";
+    public static String ROLLUP_RESOLUTIONS_DEFAULT = "";
+    // Per tier properties. The placeholder is replaced by the resolution of the tier
+    public static String TIER_FLUSH_PERIOD_PROPERTY = "plugins.timeseries.tier.%d.flush.period";
+    public static String TIER_RETENTION_DAYS_PROPERTY = "plugins.timeseries.tier.%d.retention.days";
+    public static String RETENTION_CHECK_PERIOD_PROPERTY = "plugins.timeseries.retention.check.period.minutes";
+    public static String REBUILD_THREADS_PROPERTY = "plugins.timeseries.rebuild.threads";
+
     private static final Logger logger = LoggerFactory.getLogger(TimeSeriesControllerPlugin.class);
-    private TimeSeriesIngestionPipeline mainIngestionPipeline;
+    private TimeSeriesRollups rollups;
+    private ScheduledExecutorService retentionScheduler;
 
     @Override
     public void serverStart(GlobalContext context) {
@@ -39,16 +55,40 @@ public class TimeSeriesControllerPlugin extends AbstractControllerPlugin {
         List<String> attributes = Arrays.asList(configuration.getProperty(TIME_SERIES_ATTRIBUTES_PROPERTY, TIME_SERIES_ATTRIBUTES_DEFAULT).split(","));
         CollectionFactory collectionFactory = context.getCollectionFactory();
 
-        TimeSeries timeSeries = new TimeSeries(collectionFactory, TIME_SERIES_COLLECTION_PROPERTY, Set.of(), resolutionPeriod);
+        rollups = createRollups(configuration, collectionFactory, resolutionPeriod, flushPeriod);
+        TimeSeriesRollupTier baseTier = rollups.getBaseTier();
+        TimeSeries timeSeries = baseTier.getTimeSeries();
         context.put(TimeSeries.class, timeSeries);
-        mainIngestionPipeline = timeSeries.newIngestionPipeline(flushPeriod);
+        context.put(TimeSeriesRollups.class, rollups);
+        TimeSeriesIngestionPipeline mainIngestionPipeline = baseTier.getIngestionPipeline();
         TimeSeriesAggregationPipeline aggregationPipeline = timeSeries.getAggregationPipeline();
 
         context.put(TimeSeriesIngestionPipeline.class, mainIngestionPipeline);
         context.put(TimeSeriesAggregationPipeline.class, aggregationPipeline);
 
+        int rebuildThreads = configuration.getPropertyAsInteger(REBUILD_THREADS_PROPERTY, Runtime.getRuntime().availableProcessors());
+        TimeSeriesRebuilder rebuilder = new TimeSeriesRebuilder(
+                collectionFactory.getCollection(MeasurementAccessor.ENTITY_NAME, Measurement.class),
+                collectionFactory.getCollection(TimeSeriesRebuilder.CHECKPOINT_COLLECTION, TimeSeriesRebuildCheckpoint.class),
+                rollups, attributes, rebuildThreads);
+        context.put(TimeSeriesRebuilder.class, rebuilder);
+
+        long retentionCheckPeriod = configuration.getPropertyAsLong(RETENTION_CHECK_PERIOD_PROPERTY, 60L);
+        retentionScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "TimeSeriesRetention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retentionScheduler.scheduleAtFixedRate(() -> {
+            try {
+                rollups.applyRetention(System.currentTimeMillis());
+            } catch (Exception e) {
+                logger.error("Error while applying the retention of the time series", e);
+            }
+        }, retentionCheckPeriod, retentionCheckPeriod, TimeUnit.MINUTES);
+
         context.getServiceRegistrationCallback().registerService(TimeSeriesService.class);
-        TimeSeriesBucketingHandler handler = new TimeSeriesBucketingHandler(mainIngestionPipeline, attributes);
+        TimeSeriesBucketingHandler handler = new TimeSeriesBucketingHandler(rollups.getIngestionPipelines(), attributes);
         MeasurementPlugin.registerMeasurementHandlers(handler);
         GaugeCollectorRegistry.getInstance().registerHandler(handler);
 
@@ -57,8 +97,36 @@ public class TimeSeriesControllerPlugin extends AbstractControllerPlugin {
 
     }
 
+    private TimeSeriesRollups createRollups(Configuration configuration, CollectionFactory collectionFactory, int resolutionPeriod, long flushPeriod) {
+        List<TimeSeriesRollupTier> tiers = new ArrayList<>();
+        // the base tier keeps the historical collection name
+        tiers.add(createTier(configuration, collectionFactory, TIME_SERIES_COLLECTION_PROPERTY, resolutionPeriod, flushPeriod));
+        String rollupResolutions = configuration.getProperty(ROLLUP_RESOLUTIONS_PROPERTY, ROLLUP_RESOLUTIONS_DEFAULT);
+        for (String rollupResolution : rollupResolutions.split(",")) {
+            if (!rollupResolution.isBlank()) {
+                int resolution = Integer.parseInt(rollupResolution.trim());
+                if (resolution > resolutionPeriod && resolution % resolutionPeriod == 0) {
+                    // buckets of rollup tiers are written once per resolution period by default, i.e. when they close
+                    tiers.add(createTier(configuration, collectionFactory, TIME_SERIES_COLLECTION_PROPERTY + "_" + resolution, resolution, resolution));
+                } else {
+                    logger.warn("Ignoring rollup resolution " + resolution + ". Rollup resolutions have to be multiples of the base resolution " + resolutionPeriod);
+                }
+            }
+        }
+        return new TimeSeriesRollups(tiers);
+    }
+
+    private TimeSeriesRollupTier createTier(Configuration configuration, CollectionFactory collectionFactory, String collectionName, int resolution, long defaultFlushPeriod) {
+        long tierFlushPeriod = configuration.getPropertyAsLong(String.format(TIER_FLUSH_PERIOD_PROPERTY, resolution), defaultFlushPeriod);
+        long retentionDays = configuration.getPropertyAsLong(String.format(TIER_RETENTION_DAYS_PROPERTY, resolution), 0L);
+        return new TimeSeriesRollupTier(collectionFactory, collectionName, resolution, tierFlushPeriod, TimeUnit.DAYS.toMillis(retentionDays));
+    }
+
     @Override
     public void serverStop(GlobalContext context) {
-        mainIngestionPipeline.close();
+        if (retentionScheduler != null) {
+            retentionScheduler.shutdownNow();
+        }
+        rollups.close();
     }
 }
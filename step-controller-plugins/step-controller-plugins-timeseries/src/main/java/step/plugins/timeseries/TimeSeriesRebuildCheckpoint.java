@@ -0,0 +1,67 @@
+package step.plugins.timeseries;
+
+import step.core.accessors.AbstractIdentifiableObject;
+
+/**
+ * Persisted state of a time range partition of a time series rebuild. It allows
+ * an interrupted rebuild to resume with the partitions that haven't completed.
+ */
+public class TimeSeriesRebuildCheckpoint extends AbstractIdentifiableObject {
+
+    private String executionId;
+    private long start;
+    private long end;
+    private boolean completed;
+    private long measurementCount;
+
+    public TimeSeriesRebuildCheckpoint() {
+        super();
+    }
+
+    public TimeSeriesRebuildCheckpoint(String executionId, long start, long end) {
+        super();
+        this.executionId = executionId;
+        this.start = start;
+        this.end = end;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void setExecutionId(String executionId) {
+        this.executionId = executionId;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(boolean completed) {
+        this.completed = completed;
+    }
+
+    public long getMeasurementCount() {
+        return measurementCount;
+    }
+
+    public void setMeasurementCount(long measurementCount) {
+        this.measurementCount = measurementCount;
+    }
+}
@@ -0,0 +1,282 @@
+package step.plugins.timeseries;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import step.controller.services.async.AsyncTaskHandle;
+import step.core.collections.Collection;
+import step.core.collections.Filter;
+import step.core.collections.Filters;
+import step.core.collections.SearchOrder;
+import step.core.timeseries.TimeSeriesIngestionPipeline;
+import step.plugins.measurements.Measurement;
+import step.plugins.measurements.MeasurementPlugin;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Rebuilds the time series of an execution from its measurements.
+ * <p>
+ * The time range of the measurements is split into partitions aligned on the
+ * base resolution. The partitions are rebuilt in parallel and a
+ * {@link TimeSeriesRebuildCheckpoint} is persisted for each of them. If a
+ * rebuild is interrupted, the next rebuild of the same execution only processes
+ * the partitions that haven't completed, after having removed the buckets they
+ * might already have written.
+ * <p>
+ * A partition only writes the buckets of the rollup tiers that lie entirely within
+ * it. The buckets of the rollup tiers overlapping several partitions are rebuilt
+ * once all the partitions have completed.
+ */
+public class TimeSeriesRebuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimeSeriesRebuilder.class);
+
+    public static final String CHECKPOINT_COLLECTION = "timeSeriesRebuildCheckpoints";
+
+    private static final String CHECKPOINT_EXECUTION_ID = "executionId";
+    private static final String BUCKET_EXECUTION_ID = "attributes." + MeasurementPlugin.ATTRIBUTE_EXECUTION_ID;
+    private static final String BUCKET_BEGIN = "begin";
+    private static final int PARTITIONS_PER_THREAD = 4;
+    private static final int PROGRESS_UPDATE_INTERVAL = 10000;
+    // the pipelines are flushed explicitly at the end of each partition
+    private static final long PIPELINE_FLUSH_PERIOD = 3000;
+
+    private final Collection<Measurement> measurementCollection;
+    private final Collection<TimeSeriesRebuildCheckpoint> checkpointCollection;
+    private final TimeSeriesRollups rollups;
+    private final BucketAttributesInterner bucketAttributesInterner;
+    private final int threads;
+    private final Set<String> runningRebuilds = ConcurrentHashMap.newKeySet();
+
+    public TimeSeriesRebuilder(Collection<Measurement> measurementCollection, Collection<TimeSeriesRebuildCheckpoint> checkpointCollection,
+                               TimeSeriesRollups rollups, List<String> attributes, int threads) {
+        this.measurementCollection = measurementCollection;
+        this.checkpointCollection = checkpointCollection;
+        this.rollups = rollups;
+        this.bucketAttributesInterner = new BucketAttributesInterner(attributes);
+        this.threads = Math.max(threads, 1);
+        checkpointCollection.createOrUpdateIndex(CHECKPOINT_EXECUTION_ID);
+    }
+
+    /**
+     * @param executionId the id of the execution
+     * @return true if a previous rebuild of this execution has been interrupted and can be resumed
+     */
+    public boolean hasPendingPartitions(String executionId) {
+        return getCheckpoints(executionId).stream().anyMatch(c -> !c.isCompleted());
+    }
+
+    /**
+     * Marks the rebuild of the provided execution as running
+     *
+     * @param executionId the id of the execution
+     * @return false if a rebuild of this execution is already running
+     */
+    public boolean tryStart(String executionId) {
+        return runningRebuilds.add(executionId);
+    }
+
+    /**
+     * Marks the rebuild of the provided execution as finished
+     *
+     * @param executionId the id of the execution
+     */
+    public void finish(String executionId) {
+        runningRebuilds.remove(executionId);
+    }
+
+    /**
+     * Rebuilds or resumes the rebuild of the time series of an execution. The
+     * rebuild has to be marked as running with {@link #tryStart(String)} before
+     *
+     * @param executionId the id of the execution
+     * @param firstBegin  the begin of the first measurement of the execution
+     * @param lastBegin   the begin of the last measurement of the execution
+     * @param handle      the handle used to report the progress
+     * @return the number of measurements processed
+     */
+    public long rebuild(String executionId, long firstBegin, long lastBegin, AsyncTaskHandle handle) throws InterruptedException, ExecutionException {
+        try {
+            List<TimeSeriesRebuildCheckpoint> checkpoints = getCheckpoints(executionId);
+            if (checkpoints.isEmpty()) {
+                checkpoints = createPartitions(executionId, firstBegin, lastBegin);
+                checkpointCollection.save(checkpoints);
+            } else {
+                logger.info("Resuming the time series rebuild of execution " + executionId);
+            }
+
+            long total = measurementCollection.count(Filters.equals(MeasurementPlugin.ATTRIBUTE_EXECUTION_ID, executionId), null);
+            LongAdder processed = new LongAdder();
+            List<TimeSeriesRebuildCheckpoint> pendingPartitions = new ArrayList<>();
+            for (TimeSeriesRebuildCheckpoint checkpoint : checkpoints) {
+                if (checkpoint.isCompleted()) {
+                    processed.add(checkpoint.getMeasurementCount());
+                } else {
+                    pendingPartitions.add(checkpoint);
+                }
+            }
+
+            BasicThreadFactory factory = new BasicThreadFactory.Builder().namingPattern("timeseries-rebuild-" + executionId + "-%d").build();
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(pendingPartitions.size(), 1)), factory);
+            try {
+                List<Future<?>> futures = pendingPartitions.stream()
+                        .map(partition -> executor.submit(() -> {
+                            rebuildPartition(partition, processed, total, handle);
+                            return null;
+                        }))
+                        .collect(Collectors.toList());
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+            rebuildBoundaryBuckets(executionId, checkpoints);
+
+            // the rebuild is complete. The checkpoints aren't needed anymore
+            checkpointCollection.remove(Filters.equals(CHECKPOINT_EXECUTION_ID, executionId));
+            return processed.sum();
+        } finally {
+            bucketAttributesInterner.evict(MeasurementPlugin.ATTRIBUTE_EXECUTION_ID, executionId);
+            finish(executionId);
+        }
+    }
+
+    private void rebuildPartition(TimeSeriesRebuildCheckpoint partition, LongAdder processed, long total, AsyncTaskHandle handle) throws InterruptedException {
+        String executionId = partition.getExecutionId();
+        List<TimeSeriesRollupTier> tiers = rollups.getTiers();
+        // remove the buckets that might have been written by an interrupted rebuild of this partition
+        tiers.forEach(tier -> {
+            long resolution = tier.getResolution();
+            long ownedStart = partition.getStart() + Math.floorMod(-partition.getStart(), resolution);
+            long ownedEnd = partition.getEnd() - Math.floorMod(partition.getEnd(), resolution);
+            if (ownedStart < ownedEnd) {
+                tier.removeBuckets(bucketFilter(executionId, ownedStart, ownedEnd));
+            }
+        });
+
+        long count = 0;
+        List<TimeSeriesIngestionPipeline> ingestionPipelines = rollups.newIngestionPipelines(PIPELINE_FLUSH_PERIOD);
+        try {
+            // one handler per tier as the measurements aren't ingested into the buckets overlapping other partitions
+            List<TimeSeriesBucketingHandler> handlers = ingestionPipelines.stream()
+                    .map(pipeline -> new TimeSeriesBucketingHandler(List.of(pipeline), bucketAttributesInterner))
+                    .collect(Collectors.toList());
+            try (Stream<Measurement> measurements = measurementCollection.find(measurementFilter(executionId, partition.getStart(), partition.getEnd()),
+                    new SearchOrder(MeasurementPlugin.BEGIN, 1), null, null, 0)) {
+                Iterator<Measurement> iterator = measurements.iterator();
+                while (iterator.hasNext()) {
+                    Measurement measurement = iterator.next();
+                    for (int i = 0; i < tiers.size(); i++) {
+                        if (isWithinPartition(tiers.get(i), partition, measurement.getBegin())) {
+                            handlers.get(i).ingestExistingMeasurement(measurement);
+                        }
+                    }
+                    count++;
+                    if (count % PROGRESS_UPDATE_INTERVAL == 0) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new InterruptedException("The time series rebuild of execution " + executionId + " has been interrupted");
+                        }
+                        handle.updateProgress(progress(processed.sum() + count, total));
+                    }
+                }
+            }
+            ingestionPipelines.forEach(TimeSeriesIngestionPipeline::flush);
+        } finally {
+            ingestionPipelines.forEach(TimeSeriesIngestionPipeline::close);
+        }
+
+        partition.setCompleted(true);
+        partition.setMeasurementCount(count);
+        checkpointCollection.save(partition);
+        processed.add(count);
+        handle.updateProgress(progress(processed.sum(), total));
+    }
+
+    private static boolean isWithinPartition(TimeSeriesRollupTier tier, TimeSeriesRebuildCheckpoint partition, long begin) {
+        long bucketBegin = begin - Math.floorMod(begin, tier.getResolution());
+        return bucketBegin >= partition.getStart() && bucketBegin + tier.getResolution() <= partition.getEnd();
+    }
+
+    /**
+     * Rebuilds the buckets of the rollup tiers that overlap several partitions and
+     * haven't therefore been written by any of them
+     */
+    private void rebuildBoundaryBuckets(String executionId, List<TimeSeriesRebuildCheckpoint> partitions) {
+        List<TimeSeriesRollupTier> tiers = rollups.getTiers();
+        for (TimeSeriesRollupTier tier : tiers.subList(1, tiers.size())) {
+            long resolution = tier.getResolution();
+            Set<Long> boundaryBuckets = new TreeSet<>();
+            for (TimeSeriesRebuildCheckpoint partition : partitions) {
+                if (Math.floorMod(partition.getStart(), resolution) != 0) {
+                    boundaryBuckets.add(partition.getStart() - Math.floorMod(partition.getStart(), resolution));
+                }
+                if (Math.floorMod(partition.getEnd(), resolution) != 0) {
+                    boundaryBuckets.add(partition.getEnd() - Math.floorMod(partition.getEnd(), resolution));
+                }
+            }
+            for (long bucketBegin : boundaryBuckets) {
+                tier.removeBuckets(bucketFilter(executionId, bucketBegin, bucketBegin + resolution));
+                TimeSeriesIngestionPipeline ingestionPipeline = tier.getTimeSeries().newIngestionPipeline(PIPELINE_FLUSH_PERIOD);
+                try {
+                    TimeSeriesBucketingHandler handler = new TimeSeriesBucketingHandler(List.of(ingestionPipeline), bucketAttributesInterner);
+                    try (Stream<Measurement> measurements = measurementCollection.find(measurementFilter(executionId, bucketBegin, bucketBegin + resolution), null, null, null, 0)) {
+                        measurements.forEach(handler::ingestExistingMeasurement);
+                    }
+                    ingestionPipeline.flush();
+                } finally {
+                    ingestionPipeline.close();
+                }
+            }
+        }
+    }
+
+    private static Filter bucketFilter(String executionId, long start, long end) {
+        return Filters.and(List.of(Filters.equals(BUCKET_EXECUTION_ID, executionId),
+                Filters.gte(BUCKET_BEGIN, start), Filters.lt(BUCKET_BEGIN, end)));
+    }
+
+    private static Filter measurementFilter(String executionId, long start, long end) {
+        return Filters.and(List.of(Filters.equals(MeasurementPlugin.ATTRIBUTE_EXECUTION_ID, executionId),
+                Filters.gte(MeasurementPlugin.BEGIN, start), Filters.lt(MeasurementPlugin.BEGIN, end)));
+    }
+
+    private float progress(long processed, long total) {
+        return total > 0 ? Math.min((float) processed / total, 1f) : 0f;
+    }
+
+    private List<TimeSeriesRebuildCheckpoint> getCheckpoints(String executionId) {
+        try (Stream<TimeSeriesRebuildCheckpoint> stream = checkpointCollection.find(Filters.equals(CHECKPOINT_EXECUTION_ID, executionId), null, null, null, 0)) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
+    protected List<TimeSeriesRebuildCheckpoint> createPartitions(String executionId, long firstBegin, long lastBegin) {
+        // align the partitions on the base resolution so that each bucket of the base tier belongs to exactly one partition
+        long alignment = rollups.getBaseTier().getResolution();
+        long start = firstBegin - Math.floorMod(firstBegin, alignment);
+        long end = lastBegin - Math.floorMod(lastBegin, alignment) + alignment;
+        long alignedPeriods = (end - start) / alignment;
+        long periodsPerPartition = Math.max(1, (alignedPeriods + threads * PARTITIONS_PER_THREAD - 1) / (threads * PARTITIONS_PER_THREAD));
+        long partitionSize = periodsPerPartition * alignment;
+
+        List<TimeSeriesRebuildCheckpoint> partitions = new ArrayList<>();
+        for (long partitionStart = start; partitionStart < end; partitionStart += partitionSize) {
+            partitions.add(new TimeSeriesRebuildCheckpoint(executionId, partitionStart, Math.min(partitionStart + partitionSize, end)));
+        }
+        return partitions;
+    }
+}
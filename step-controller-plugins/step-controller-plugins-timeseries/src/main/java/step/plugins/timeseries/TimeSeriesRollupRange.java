@@ -0,0 +1,120 @@
+package step.plugins.timeseries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split of a queried range between a {@link TimeSeriesRollupTier} and the base tier.
+ * The windows are aligned on the window size which is the requested interval rounded
+ * down to a multiple of the resolution of the tier. The window containing the start
+ * of the range (if it isn't aligned) and the windows after the last flushed bucket of
+ * the tier are served by the base tier so that the result contains exactly the data
+ * of the requested range.
+ */
+public class TimeSeriesRollupRange {
+
+    private final long start;
+    private final long end;
+    private final long window;
+    private final long firstWindow;
+    private final long tierStart;
+    private final long tierEnd;
+
+    /**
+     * @param start             the start of the queried range
+     * @param end               the end of the queried range
+     * @param requestedInterval the requested interval size. Has to be greater or equal to the resolution of the tier
+     * @param tierResolution    the resolution of the rollup tier
+     * @param tierFlushedEnd    the time before which all the buckets of the tier have been flushed
+     */
+    public TimeSeriesRollupRange(long start, long end, long requestedInterval, long tierResolution, long tierFlushedEnd) {
+        if (requestedInterval < tierResolution) {
+            throw new IllegalArgumentException("The requested interval " + requestedInterval + " is lower than the resolution of the tier " + tierResolution);
+        }
+        this.start = start;
+        this.end = end;
+        this.window = requestedInterval - requestedInterval % tierResolution;
+        this.firstWindow = start - start % window;
+        this.tierStart = start == firstWindow ? start : firstWindow + window;
+        long flushedEnd = Math.min(tierFlushedEnd, end);
+        this.tierEnd = flushedEnd - (flushedEnd - firstWindow) % window;
+    }
+
+    /**
+     * @return true if no window of the range can be served by the rollup tier
+     */
+    public boolean isTierEmpty() {
+        return tierEnd <= tierStart;
+    }
+
+    /**
+     * @return true if the first window of the range is only partially covered by it and has to be queried from the base tier
+     */
+    public boolean hasHead() {
+        return tierStart > start;
+    }
+
+    /**
+     * @return true if the end of the range has to be queried from the base tier
+     */
+    public boolean hasTail() {
+        return tierEnd < end;
+    }
+
+    /**
+     * @param time a time within the range
+     * @return the begin of the window containing the provided time
+     */
+    public long getWindowBegin(long time) {
+        return time - Math.floorMod(time - firstWindow, window);
+    }
+
+    /**
+     * @param time a time
+     * @return true if the provided time lies within the first window of the range
+     */
+    public boolean isInFirstWindow(long time) {
+        return getWindowBegin(time) == firstWindow;
+    }
+
+    /**
+     * @return the begins of the windows of the range
+     */
+    public List<Long> getAxis() {
+        List<Long> axis = new ArrayList<>();
+        for (long index = firstWindow; index < end; index += window) {
+            axis.add(index);
+        }
+        return axis;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public long getFirstWindow() {
+        return firstWindow;
+    }
+
+    /**
+     * @return the start of the part of the range served by the rollup tier, aligned on the windows
+     */
+    public long getTierStart() {
+        return tierStart;
+    }
+
+    /**
+     * @return the end of the part of the range served by the rollup tier, aligned on the windows
+     */
+    public long getTierEnd() {
+        return tierEnd;
+    }
+}
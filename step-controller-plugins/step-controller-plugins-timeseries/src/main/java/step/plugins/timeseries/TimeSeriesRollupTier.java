@@ -0,0 +1,106 @@
+package step.plugins.timeseries;
+
+import step.core.collections.Collection;
+import step.core.collections.CollectionFactory;
+import step.core.collections.Filter;
+import step.core.collections.Filters;
+import step.core.timeseries.Bucket;
+import step.core.timeseries.TimeSeries;
+import step.core.timeseries.TimeSeriesAggregationPipeline;
+import step.core.timeseries.TimeSeriesIngestionPipeline;
+
+import java.util.Set;
+
+/**
+ * A time series stored at a given resolution in its own collection.
+ */
+public class TimeSeriesRollupTier {
+
+    private final int resolution;
+    private final long flushPeriod;
+    private final long retentionMs;
+    private final TimeSeries timeSeries;
+    private final Collection<Bucket> collection;
+    private final TimeSeriesIngestionPipeline ingestionPipeline;
+
+    /**
+     * @param collectionFactory the {@link CollectionFactory} used to create the collection of this tier
+     * @param collectionName    the name of the collection of this tier
+     * @param resolution        the resolution of the buckets in ms
+     * @param flushPeriod       the flush period of the ingestion pipeline in ms
+     * @param retentionMs       the period in ms after which the buckets of this tier are deleted. 0 to keep them forever
+     */
+    public TimeSeriesRollupTier(CollectionFactory collectionFactory, String collectionName, int resolution, long flushPeriod, long retentionMs) {
+        this.resolution = resolution;
+        this.flushPeriod = flushPeriod;
+        this.retentionMs = retentionMs;
+        this.timeSeries = new TimeSeries(collectionFactory, collectionName, Set.of(), resolution);
+        this.collection = collectionFactory.getCollection(collectionName, Bucket.class);
+        this.ingestionPipeline = timeSeries.newIngestionPipeline(flushPeriod);
+    }
+
+    public int getResolution() {
+        return resolution;
+    }
+
+    public long getFlushPeriod() {
+        return flushPeriod;
+    }
+
+    public long getRetentionMs() {
+        return retentionMs;
+    }
+
+    public TimeSeries getTimeSeries() {
+        return timeSeries;
+    }
+
+    public TimeSeriesIngestionPipeline getIngestionPipeline() {
+        return ingestionPipeline;
+    }
+
+    public TimeSeriesAggregationPipeline getAggregationPipeline() {
+        return timeSeries.getAggregationPipeline();
+    }
+
+    /**
+     * @param start the start of the queried range
+     * @param now   the current time
+     * @return true if the buckets of this tier starting at the provided time haven't been purged yet
+     */
+    public boolean isRetained(long start, long now) {
+        return retentionMs <= 0 || start >= now - retentionMs;
+    }
+
+    /**
+     * @param now the current time
+     * @return the time, aligned on the resolution of this tier, before which all the buckets
+     * of this tier have been flushed and are therefore complete
+     */
+    public long getFlushedEnd(long now) {
+        long flushedEnd = now - flushPeriod;
+        return flushedEnd - flushedEnd % resolution;
+    }
+
+    /**
+     * Deletes the buckets that are older than the retention period of this tier
+     *
+     * @param now the current time
+     */
+    public void applyRetention(long now) {
+        if (retentionMs > 0) {
+            collection.remove(Filters.lt("begin", now - retentionMs));
+        }
+    }
+
+    /**
+     * @param filter the filter of the buckets to be removed from the collection of this tier
+     */
+    public void removeBuckets(Filter filter) {
+        collection.remove(filter);
+    }
+
+    public void close() {
+        ingestionPipeline.close();
+    }
+}
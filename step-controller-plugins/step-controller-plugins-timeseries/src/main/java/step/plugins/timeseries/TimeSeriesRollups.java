@@ -0,0 +1,98 @@
+package step.plugins.timeseries;
+
+import step.core.timeseries.TimeSeriesIngestionPipeline;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The set of {@link TimeSeriesRollupTier} of the controller. Points are ingested
+ * into every tier so that each tier is written incrementally at its own resolution
+ * and queries are served by the coarsest tier matching the requested interval.
+ */
+public class TimeSeriesRollups {
+
+    private final List<TimeSeriesRollupTier> tiers;
+
+    /**
+     * @param tiers the tiers. The tier with the finest resolution is used as base tier
+     */
+    public TimeSeriesRollups(List<TimeSeriesRollupTier> tiers) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one tier has to be defined");
+        }
+        List<TimeSeriesRollupTier> sortedTiers = new ArrayList<>(tiers);
+        sortedTiers.sort(Comparator.comparingInt(TimeSeriesRollupTier::getResolution));
+        this.tiers = List.copyOf(sortedTiers);
+    }
+
+    /**
+     * @return the tiers sorted by ascending resolution
+     */
+    public List<TimeSeriesRollupTier> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * @return the tier with the finest resolution
+     */
+    public TimeSeriesRollupTier getBaseTier() {
+        return tiers.get(0);
+    }
+
+    /**
+     * @return the tier with the coarsest resolution
+     */
+    public TimeSeriesRollupTier getCoarsestTier() {
+        return tiers.get(tiers.size() - 1);
+    }
+
+    /**
+     * @return the ingestion pipelines of all the tiers
+     */
+    public List<TimeSeriesIngestionPipeline> getIngestionPipelines() {
+        return tiers.stream().map(TimeSeriesRollupTier::getIngestionPipeline).collect(Collectors.toList());
+    }
+
+    /**
+     * Creates a new ingestion pipeline for each tier
+     *
+     * @param flushPeriod the flush period of the pipelines
+     * @return the list of new pipelines. These have to be closed by the caller
+     */
+    public List<TimeSeriesIngestionPipeline> newIngestionPipelines(long flushPeriod) {
+        return tiers.stream().map(t -> t.getTimeSeries().newIngestionPipeline(flushPeriod)).collect(Collectors.toList());
+    }
+
+    /**
+     * Selects the coarsest tier whose resolution is lower or equal to the requested interval,
+     * which still retains the start of the requested range and which has already flushed
+     * some buckets after it. Falls back to the base tier if none matches.
+     * The part of the range that hasn't been flushed yet by the selected tier
+     * (see {@link TimeSeriesRollupTier#getFlushedEnd(long)}) has to be queried from the base tier.
+     *
+     * @param start             the start of the queried range
+     * @param requestedInterval the requested interval size or 0 if not specified
+     * @param now               the current time
+     * @return the selected tier
+     */
+    public TimeSeriesRollupTier selectTier(long start, long requestedInterval, long now) {
+        for (int i = tiers.size() - 1; i > 0; i--) {
+            TimeSeriesRollupTier tier = tiers.get(i);
+            if (tier.getResolution() <= requestedInterval && tier.isRetained(start, now) && tier.getFlushedEnd(now) > start) {
+                return tier;
+            }
+        }
+        return getBaseTier();
+    }
+
+    public void applyRetention(long now) {
+        tiers.forEach(t -> t.applyRetention(now));
+    }
+
+    public void close() {
+        tiers.forEach(TimeSeriesRollupTier::close);
+    }
+}
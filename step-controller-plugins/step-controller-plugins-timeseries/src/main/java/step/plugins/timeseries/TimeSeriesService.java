@@ -25,11 +25,8 @@ import step.plugins.measurements.MeasurementPlugin;
 import step.plugins.timeseries.api.*;
 
 import java.util.*;
-import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
-import static step.plugins.timeseries.TimeSeriesControllerPlugin.TIME_SERIES_ATTRIBUTES_DEFAULT;
-import static step.plugins.timeseries.TimeSeriesControllerPlugin.TIME_SERIES_ATTRIBUTES_PROPERTY;
 import static step.plugins.timeseries.TimeSeriesExecutionPlugin.TIMESERIES_FLAG;
 
 @Singleton
@@ -38,9 +35,9 @@ import static step.plugins.timeseries.TimeSeriesExecutionPlugin.TIMESERIES_FLAG;
 public class TimeSeriesService extends AbstractStepServices {
 
     private AsyncTaskManager asyncTaskManager;
-    private TimeSeriesAggregationPipeline aggregationPipeline;
+    private TimeSeriesRollups rollups;
+    private TimeSeriesRebuilder rebuilder;
     private Collection<Measurement> measurementCollection;
-    private TimeSeries timeSeries;
 
     private ExecutionAccessor executionAccessor;
 
@@ -48,10 +45,10 @@ public class TimeSeriesService extends AbstractStepServices {
     public void init() throws Exception {
         super.init();
         GlobalContext context = getContext();
-        aggregationPipeline = context.require(TimeSeriesAggregationPipeline.class);
+        rollups = context.require(TimeSeriesRollups.class);
+        rebuilder = context.require(TimeSeriesRebuilder.class);
         asyncTaskManager = context.require(AsyncTaskManager.class);
         measurementCollection = context.getCollectionFactory().getCollection(MeasurementAccessor.ENTITY_NAME, Measurement.class);
-        timeSeries = context.require(TimeSeries.class);
         executionAccessor = context.getExecutionAccessor();
     }
 
@@ -62,14 +59,18 @@ public class TimeSeriesService extends AbstractStepServices {
     @Produces(MediaType.APPLICATION_JSON)
     public TimeSeriesAPIResponse getBuckets(FetchBucketsRequest request) {
         validateFetchRequest(request);
-        TimeSeriesAggregationQuery query = mapToQuery(request);
-        TimeSeriesAggregationResponse response = query.run();
+        long now = System.currentTimeMillis();
+        TimeSeriesRollupTier tier = rollups.selectTier(request.getStart(), getRequestedInterval(request), now);
+        SeriesResult result = tier != rollups.getBaseTier() ? queryRollupTier(request, tier, now) : null;
+        if (result == null) {
+            result = queryBaseTier(request);
+        }
 
-        Map<BucketAttributes, Map<Long, Bucket>> series = response.getSeries();
-        long intervalSize = response.getResolution();
-        List<Long> axis = response.getAxis();
-        Long start = axis.get(0);
-        Long end = axis.get(axis.size() - 1) + intervalSize;
+        Map<BucketAttributes, Map<Long, Bucket>> series = result.series;
+        long intervalSize = result.intervalSize;
+        List<Long> axis = result.axis;
+        long start = result.start;
+        long end = result.end;
 
         List<BucketAttributes> matrixKeys = new ArrayList<>();
         List<List<BucketResponse>> matrix = new ArrayList<>();
@@ -114,18 +115,96 @@ public class TimeSeriesService extends AbstractStepServices {
         }
     }
 
-    private TimeSeriesAggregationQuery mapToQuery(FetchBucketsRequest request) {
-        TimeSeriesAggregationQuery timeSeriesAggregationQuery = aggregationPipeline.newQuery()
-                .range(request.getStart(), request.getEnd())
-                .filter(request.getParams() != null ? request.getParams() : Collections.emptyMap())
-                .groupBy(request.getGroupDimensions());
+    private SeriesResult queryBaseTier(FetchBucketsRequest request) {
+        TimeSeriesAggregationQuery timeSeriesAggregationQuery = newQuery(rollups.getBaseTier(), request, request.getStart(), request.getEnd());
         if (request.getIntervalSize() > 0) {
             timeSeriesAggregationQuery.window(request.getIntervalSize());
         }
         if (request.getNumberOfBuckets() != null) {
             timeSeriesAggregationQuery.split(request.getNumberOfBuckets());
         }
-        return timeSeriesAggregationQuery;
+        TimeSeriesAggregationResponse response = timeSeriesAggregationQuery.run();
+        long intervalSize = response.getResolution();
+        List<Long> axis = response.getAxis();
+        return new SeriesResult(response.getSeries(), axis, intervalSize, axis.get(0), axis.get(axis.size() - 1) + intervalSize);
+    }
+
+    /**
+     * Queries the flushed part of the requested range from the provided rollup tier and the rest of it from the base tier.
+     * See {@link TimeSeriesRollupRange} for the split of the range.
+     *
+     * @return the merged result or null if no window of the requested range can be served by the rollup tier
+     */
+    private SeriesResult queryRollupTier(FetchBucketsRequest request, TimeSeriesRollupTier tier, long now) {
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(request.getStart(), request.getEnd(),
+                getRequestedInterval(request), tier.getResolution(), tier.getFlushedEnd(now));
+        if (range.isTierEmpty()) {
+            return null;
+        }
+
+        long window = range.getWindow();
+        Map<BucketAttributes, Map<Long, Bucket>> series = new LinkedHashMap<>();
+        if (range.hasHead()) {
+            // the head of the range lies in the first window. Its bucket is keyed by the aligned begin of this window
+            TimeSeriesAggregationQuery headQuery = newQuery(rollups.getBaseTier(), request, range.getStart(), range.getTierStart());
+            headQuery.window(window);
+            headQuery.run().getSeries().forEach((key, buckets) -> buckets.values().forEach(bucket -> {
+                if (!range.isInFirstWindow(bucket.getBegin())) {
+                    throw new IllegalStateException("The bucket " + bucket.getBegin() + " of the head query lies outside of the first window " + range.getFirstWindow());
+                }
+                series.computeIfAbsent(key, k -> new HashMap<>()).put(range.getFirstWindow(), bucket);
+            }));
+        }
+        TimeSeriesAggregationQuery tierQuery = newQuery(tier, request, range.getTierStart(), range.getTierEnd());
+        tierQuery.window(window);
+        mergeSeries(series, tierQuery.run().getSeries());
+        if (range.hasTail()) {
+            TimeSeriesAggregationQuery tailQuery = newQuery(rollups.getBaseTier(), request, range.getTierEnd(), range.getEnd());
+            tailQuery.window(window);
+            mergeSeries(series, tailQuery.run().getSeries());
+        }
+
+        return new SeriesResult(series, range.getAxis(), window, range.getStart(), range.getEnd());
+    }
+
+    private TimeSeriesAggregationQuery newQuery(TimeSeriesRollupTier tier, FetchBucketsRequest request, long start, long end) {
+        return tier.getAggregationPipeline().newQuery()
+                .range(start, end)
+                .filter(request.getParams() != null ? request.getParams() : Collections.emptyMap())
+                .groupBy(request.getGroupDimensions());
+    }
+
+    private static void mergeSeries(Map<BucketAttributes, Map<Long, Bucket>> target, Map<BucketAttributes, Map<Long, Bucket>> source) {
+        source.forEach((key, buckets) -> target.computeIfAbsent(key, k -> new HashMap<>()).putAll(buckets));
+    }
+
+    private static class SeriesResult {
+        private final Map<BucketAttributes, Map<Long, Bucket>> series;
+        private final List<Long> axis;
+        private final long intervalSize;
+        private final long start;
+        private final long end;
+
+        private SeriesResult(Map<BucketAttributes, Map<Long, Bucket>> series, List<Long> axis, long intervalSize, long start, long end) {
+            this.series = series;
+            this.axis = axis;
+            this.intervalSize = intervalSize;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * @return the interval size of the buckets to be returned or 0 if the query has to be performed at the base resolution
+     */
+    private long getRequestedInterval(FetchBucketsRequest request) {
+        if (request.getIntervalSize() > 0) {
+            return request.getIntervalSize();
+        } else if (request.getNumberOfBuckets() != null && request.getNumberOfBuckets() > 0) {
+            return (request.getEnd() - request.getStart()) / request.getNumberOfBuckets();
+        } else {
+            return 0;
+        }
     }
 
     @Operation(operationId = "rebuildTimeSeries", description = "Rebuild a time series based on the provided request")
@@ -136,7 +215,9 @@ public class TimeSeriesService extends AbstractStepServices {
     @Produces(MediaType.APPLICATION_JSON)
     public AsyncTaskStatus<Object> rebuildTimeSeries(TimeSeriesRebuildRequest request) {
         String executionId = Objects.requireNonNull(request.getExecutionId(), "executionId not specified");
-        if (this.timeSeriesExists(executionId)) {
+        // an interrupted rebuild can be resumed even though the time series flag has already been set
+        boolean resume = rebuilder.hasPendingPartitions(executionId);
+        if (this.timeSeriesExists(executionId) && !resume) {
             throw new ControllerServiceException("Time series already exist for this execution. Unable to rebuild it");
         } else {
             //Update execution
@@ -150,23 +231,17 @@ public class TimeSeriesService extends AbstractStepServices {
             Measurement lastMeasurement = measurementCollection.find(measurementFilter,
                     new SearchOrder(MeasurementPlugin.BEGIN, -1), 0, 1, 0).findFirst().orElse(null);
             if (firstMeasurement != null && lastMeasurement != null) {
-                return asyncTaskManager.scheduleAsyncTask(t -> {
-                    // the flushing period can be a big value, because we will force flush every time.
-                    // we create a new pipeline for every migration
-                    try (TimeSeriesIngestionPipeline ingestionPipeline = timeSeries.newIngestionPipeline(3000)) {
-                        List<String> attributes = Arrays.asList(configuration.getProperty(TIME_SERIES_ATTRIBUTES_PROPERTY, TIME_SERIES_ATTRIBUTES_DEFAULT).split(","));
-                        TimeSeriesBucketingHandler timeSeriesBucketingHandler = new TimeSeriesBucketingHandler(ingestionPipeline, attributes);
-                        LongAdder count = new LongAdder();
-                        SearchOrder searchOrder = new SearchOrder("begin", 1);
-                        // Iterate over each measurement and ingest it again
-                        measurementCollection.find(measurementFilter, searchOrder, null, null, 0).forEach(measurement -> {
-                            count.increment();
-                            timeSeriesBucketingHandler.ingestExistingMeasurement(measurement);
-                        });
-                        ingestionPipeline.flush();
-                        return new TimeSeriesRebuildResponse(count.longValue());
-                    }
-                });
+                if (!rebuilder.tryStart(executionId)) {
+                    throw new ControllerServiceException("A rebuild of the time series of this execution is already running");
+                }
+                long firstBegin = firstMeasurement.getBegin();
+                long lastBegin = lastMeasurement.getBegin();
+                try {
+                    return asyncTaskManager.scheduleAsyncTask(t -> new TimeSeriesRebuildResponse(rebuilder.rebuild(executionId, firstBegin, lastBegin, t)));
+                } catch (RuntimeException e) {
+                    rebuilder.finish(executionId);
+                    throw e;
+                }
             } else {
                 throw new ControllerServiceException("No measurement found matching this execution id");
             }
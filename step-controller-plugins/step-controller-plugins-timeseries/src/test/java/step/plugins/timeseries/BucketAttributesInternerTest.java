@@ -0,0 +1,52 @@
+package step.plugins.timeseries;
+
+import org.junit.Test;
+import step.core.timeseries.BucketAttributes;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BucketAttributesInternerTest {
+
+    @Test
+    public void testIntern() {
+        BucketAttributesInterner interner = new BucketAttributesInterner(List.of("eId", "name"));
+        BucketAttributes attributes = interner.intern(Map.of("eId", "e1", "name", "n1"), "metricType", "response-time");
+        assertEquals("e1", attributes.get("eId"));
+        assertEquals("n1", attributes.get("name"));
+        assertEquals("response-time", attributes.get("metricType"));
+        assertSame(attributes, interner.intern(Map.of("eId", "e1", "name", "n1", "other", "x"), "metricType", "response-time"));
+        assertNotSame(attributes, interner.intern(Map.of("eId", "e1", "name", "n1"), "metricType", "sampler"));
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void testEvict() {
+        BucketAttributesInterner interner = new BucketAttributesInterner(List.of("eId", "name"));
+        BucketAttributes attributes = interner.intern(Map.of("eId", "e1", "name", "n1"), "metricType", "response-time");
+        interner.intern(Map.of("eId", "e1", "name", "n2"), "metricType", "response-time");
+        interner.intern(Map.of("eId", "e2", "name", "n1"), "metricType", "response-time");
+        assertEquals(3, interner.size());
+
+        interner.evict("eId", "e1");
+        assertEquals(1, interner.size());
+        assertNotSame(attributes, interner.intern(Map.of("eId", "e1", "name", "n1"), "metricType", "response-time"));
+        // unknown attributes are ignored
+        interner.evict("unknown", "e2");
+        assertEquals(2, interner.size());
+    }
+
+    @Test
+    public void testMaxSize() {
+        BucketAttributesInterner interner = new BucketAttributesInterner(List.of("eId"), 2);
+        interner.intern(Map.of("eId", "e1"), "metricType", "response-time");
+        interner.intern(Map.of("eId", "e2"), "metricType", "response-time");
+        assertEquals(2, interner.size());
+        // the cache is cleared when full and keeps interning the new combinations
+        BucketAttributes attributes = interner.intern(Map.of("eId", "e3"), "metricType", "response-time");
+        assertEquals(1, interner.size());
+        assertSame(attributes, interner.intern(Map.of("eId", "e3"), "metricType", "response-time"));
+    }
+}
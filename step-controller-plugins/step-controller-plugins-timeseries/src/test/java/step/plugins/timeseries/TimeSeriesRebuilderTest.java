@@ -0,0 +1,135 @@
+package step.plugins.timeseries;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import step.controller.services.async.AsyncTaskHandle;
+import step.controller.services.async.AsyncTaskStatus;
+import step.core.collections.Collection;
+import step.core.collections.Filters;
+import step.core.collections.inmemory.InMemoryCollectionFactory;
+import step.core.timeseries.Bucket;
+import step.core.timeseries.TimeSeriesAggregationResponse;
+import step.plugins.measurements.Measurement;
+import step.plugins.measurements.MeasurementPlugin;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class TimeSeriesRebuilderTest {
+
+    private static final String EXECUTION_ID = "execution1";
+    private static final long HOUR = 3600 * 1000L;
+
+    private Collection<Measurement> measurementCollection;
+    private Collection<TimeSeriesRebuildCheckpoint> checkpointCollection;
+    private TimeSeriesRollups rollups;
+    private TimeSeriesRebuilder rebuilder;
+
+    @Before
+    public void setUp() {
+        InMemoryCollectionFactory collectionFactory = new InMemoryCollectionFactory(null);
+        measurementCollection = collectionFactory.getCollection("measurements", Measurement.class);
+        checkpointCollection = collectionFactory.getCollection(TimeSeriesRebuilder.CHECKPOINT_COLLECTION, TimeSeriesRebuildCheckpoint.class);
+        rollups = new TimeSeriesRollups(List.of(
+                new TimeSeriesRollupTier(collectionFactory, "timeseries", 1000, 1000, 0),
+                new TimeSeriesRollupTier(collectionFactory, "timeseries_60000", 60000, 60000, 0)));
+        rebuilder = new TimeSeriesRebuilder(measurementCollection, checkpointCollection, rollups, List.of("eId", "name"), 4);
+    }
+
+    @After
+    public void tearDown() {
+        rollups.close();
+    }
+
+    @Test
+    public void testPartitions() {
+        List<TimeSeriesRebuildCheckpoint> partitions = rebuilder.createPartitions(EXECUTION_ID, 30500, 3 * HOUR + 30500);
+        // 10801 aligned seconds split into 16 partitions of 676 seconds
+        assertEquals(16, partitions.size());
+        assertEquals(30000, partitions.get(0).getStart());
+        for (int i = 1; i < partitions.size(); i++) {
+            assertEquals(partitions.get(i - 1).getEnd(), partitions.get(i).getStart());
+            assertEquals(0, partitions.get(i).getStart() % 1000);
+        }
+        assertEquals(3 * HOUR + 31000, partitions.get(partitions.size() - 1).getEnd());
+
+        // executions shorter than the resolution of the rollup tiers are split too
+        assertEquals(13, rebuilder.createPartitions(EXECUTION_ID, 0, 50000).size());
+    }
+
+    @Test
+    public void testRebuild() throws Exception {
+        int measurementCount = 1000;
+        saveMeasurements(measurementCount);
+        long lastBegin = (measurementCount - 1) * 10000L;
+
+        assertTrue(rebuilder.tryStart(EXECUTION_ID));
+        assertEquals(measurementCount, rebuilder.rebuild(EXECUTION_ID, 0, lastBegin, new AsyncTaskHandle(new AsyncTaskStatus<>("task1"))));
+
+        // the buckets of the minute tier overlapping several partitions have been written once
+        for (TimeSeriesRollupTier tier : rollups.getTiers()) {
+            assertEquals(measurementCount, countIngestedPoints(tier, lastBegin));
+        }
+    }
+
+    @Test
+    public void testRebuildAndResume() throws Exception {
+        int measurementCount = 1000;
+        saveMeasurements(measurementCount);
+        long lastBegin = (measurementCount - 1) * 10000L;
+
+        // simulate an interrupted rebuild for which only the first partition completed
+        List<TimeSeriesRebuildCheckpoint> partitions = rebuilder.createPartitions(EXECUTION_ID, 0, lastBegin);
+        TimeSeriesRebuildCheckpoint firstPartition = partitions.get(0);
+        firstPartition.setCompleted(true);
+        firstPartition.setMeasurementCount(measurementCollection.count(Filters.lt(MeasurementPlugin.BEGIN, firstPartition.getEnd()), null));
+        checkpointCollection.save(partitions);
+        assertTrue(rebuilder.hasPendingPartitions(EXECUTION_ID));
+
+        AsyncTaskStatus<Object> status = new AsyncTaskStatus<>("task1");
+        assertTrue(rebuilder.tryStart(EXECUTION_ID));
+        assertFalse(rebuilder.tryStart(EXECUTION_ID));
+        long processed = rebuilder.rebuild(EXECUTION_ID, 0, lastBegin, new AsyncTaskHandle(status));
+
+        assertEquals(measurementCount, processed);
+        assertEquals(1f, status.getProgress(), 0f);
+        assertFalse(rebuilder.hasPendingPartitions(EXECUTION_ID));
+        assertEquals(0, checkpointCollection.count(Filters.empty(), null));
+        assertTrue(rebuilder.tryStart(EXECUTION_ID));
+        rebuilder.finish(EXECUTION_ID);
+
+        // only the measurements of the resumed partitions have been ingested into the base tier
+        long expectedCount = measurementCount - firstPartition.getMeasurementCount();
+        assertEquals(expectedCount, countIngestedPoints(rollups.getBaseTier(), lastBegin));
+        // the minute bucket overlapping the end of the first partition has been rebuilt entirely
+        long boundaryBucket = firstPartition.getEnd() - firstPartition.getEnd() % 60000;
+        long boundaryCount = measurementCollection.count(Filters.and(List.of(Filters.gte(MeasurementPlugin.BEGIN, boundaryBucket),
+                Filters.lt(MeasurementPlugin.BEGIN, firstPartition.getEnd()))), null);
+        assertTrue(boundaryCount > 0);
+        assertEquals(expectedCount + boundaryCount, countIngestedPoints(rollups.getTiers().get(1), lastBegin));
+    }
+
+    private void saveMeasurements(int measurementCount) {
+        for (int i = 0; i < measurementCount; i++) {
+            Measurement measurement = new Measurement();
+            measurement.put(MeasurementPlugin.ATTRIBUTE_EXECUTION_ID, EXECUTION_ID);
+            measurement.setName("keyword");
+            measurement.setType("custom");
+            measurement.setBegin(i * 10000L);
+            measurement.setValue(i);
+            measurementCollection.save(measurement);
+        }
+    }
+
+    private long countIngestedPoints(TimeSeriesRollupTier tier, long lastBegin) {
+        TimeSeriesAggregationResponse response = tier.getAggregationPipeline().newQuery().range(0, lastBegin + HOUR)
+                .filter(Map.of("eId", EXECUTION_ID)).groupBy(Set.of()).run();
+        return response.getSeries().values().stream().flatMap(s -> s.values().stream())
+                .collect(Collectors.summingLong(Bucket::getCount));
+    }
+}
@@ -0,0 +1,102 @@
+package step.plugins.timeseries;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimeSeriesRollupRangeTest {
+
+    private static final long MINUTE = 60000;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long T0 = 1000 * HOUR;
+
+    @Test
+    public void testAlignedRangeFullyFlushed() {
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(T0, T0 + 3 * HOUR, HOUR, MINUTE, T0 + 4 * HOUR);
+        assertFalse(range.isTierEmpty());
+        assertFalse(range.hasHead());
+        assertFalse(range.hasTail());
+        assertEquals(HOUR, range.getWindow());
+        assertEquals(T0, range.getTierStart());
+        assertEquals(T0 + 3 * HOUR, range.getTierEnd());
+        assertEquals(List.of(T0, T0 + HOUR, T0 + 2 * HOUR), range.getAxis());
+    }
+
+    @Test
+    public void testPartialFirstWindow() {
+        long start = T0 + 20 * MINUTE;
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(start, T0 + 3 * HOUR, HOUR, MINUTE, T0 + 4 * HOUR);
+        assertTrue(range.hasHead());
+        assertFalse(range.hasTail());
+        // the head [start, T0 + 1h) is served by the base tier and keyed by the begin of the first window
+        assertEquals(T0, range.getFirstWindow());
+        assertEquals(T0 + HOUR, range.getTierStart());
+        assertEquals(T0 + 3 * HOUR, range.getTierEnd());
+        assertEquals(List.of(T0, T0 + HOUR, T0 + 2 * HOUR), range.getAxis());
+        assertTrue(range.isInFirstWindow(start));
+        assertTrue(range.isInFirstWindow(T0 + HOUR - 1));
+        assertFalse(range.isInFirstWindow(T0 + HOUR));
+        assertFalse(range.isInFirstWindow(T0 - 1));
+    }
+
+    @Test
+    public void testPartialLastWindow() {
+        long end = T0 + 2 * HOUR + 10 * MINUTE;
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(T0, end, HOUR, MINUTE, T0 + 4 * HOUR);
+        assertFalse(range.hasHead());
+        assertTrue(range.hasTail());
+        // the last window is only partially covered by the range: it is served by the base tier
+        assertEquals(T0 + 2 * HOUR, range.getTierEnd());
+        assertEquals(List.of(T0, T0 + HOUR, T0 + 2 * HOUR), range.getAxis());
+        assertEquals(T0 + 2 * HOUR, range.getWindowBegin(end - 1));
+    }
+
+    @Test
+    public void testRangeCrossingFlushedEnd() {
+        long start = T0 + 30 * MINUTE;
+        long end = T0 + 5 * HOUR + 30 * MINUTE;
+        // the tier has only been flushed until the middle of the 3rd window
+        long flushedEnd = T0 + 2 * HOUR + 45 * MINUTE;
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(start, end, HOUR, MINUTE, flushedEnd);
+        assertTrue(range.hasHead());
+        assertTrue(range.hasTail());
+        assertEquals(T0 + HOUR, range.getTierStart());
+        // the window containing the flushed end is served entirely by the base tier
+        assertEquals(T0 + 2 * HOUR, range.getTierEnd());
+        assertEquals(6, range.getAxis().size());
+        // the windows served by the tier and the base tier are contiguous and aligned on the axis
+        assertEquals(range.getTierStart(), range.getWindowBegin(range.getTierStart()));
+        assertEquals(range.getTierEnd(), range.getWindowBegin(range.getTierEnd()));
+        assertTrue(range.getAxis().contains(range.getTierEnd()));
+    }
+
+    @Test
+    public void testIntervalRoundedDownToTierResolution() {
+        long start = T0 + 7 * MINUTE;
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(start, T0 + HOUR, 10 * MINUTE + 30000, MINUTE, T0 + HOUR);
+        assertEquals(10 * MINUTE, range.getWindow());
+        assertEquals(T0, range.getFirstWindow());
+        assertEquals(T0 + 10 * MINUTE, range.getTierStart());
+        assertEquals(T0 + HOUR, range.getTierEnd());
+        assertEquals(6, range.getAxis().size());
+    }
+
+    @Test
+    public void testNothingFlushedInRange() {
+        // nothing flushed after the first full window
+        TimeSeriesRollupRange range = new TimeSeriesRollupRange(T0 + 20 * MINUTE, T0 + 3 * HOUR, HOUR, MINUTE, T0 + HOUR + 30 * MINUTE);
+        assertTrue(range.isTierEmpty());
+        // the range lies within a single window
+        range = new TimeSeriesRollupRange(T0 + 20 * MINUTE, T0 + 40 * MINUTE, HOUR, MINUTE, T0 + 4 * HOUR);
+        assertTrue(range.isTierEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIntervalLowerThanResolution() {
+        new TimeSeriesRollupRange(T0, T0 + HOUR, 30000, MINUTE, T0 + HOUR);
+    }
+}
@@ -0,0 +1,70 @@
+package step.plugins.timeseries;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import step.core.collections.inmemory.InMemoryCollectionFactory;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class TimeSeriesRollupsTest {
+
+    private static final long ONE_DAY = 24 * 3600 * 1000L;
+
+    private TimeSeriesRollups rollups;
+    private TimeSeriesRollupTier secondTier;
+    private TimeSeriesRollupTier minuteTier;
+    private TimeSeriesRollupTier hourTier;
+
+    @Before
+    public void setUp() {
+        InMemoryCollectionFactory collectionFactory = new InMemoryCollectionFactory(null);
+        secondTier = new TimeSeriesRollupTier(collectionFactory, "timeseries", 1000, 1000, 0);
+        hourTier = new TimeSeriesRollupTier(collectionFactory, "timeseries_3600000", 3600000, 3600000, 0);
+        minuteTier = new TimeSeriesRollupTier(collectionFactory, "timeseries_60000", 60000, 60000, ONE_DAY);
+        rollups = new TimeSeriesRollups(List.of(secondTier, hourTier, minuteTier));
+    }
+
+    @After
+    public void tearDown() {
+        rollups.close();
+    }
+
+    @Test
+    public void testTierOrder() {
+        assertSame(secondTier, rollups.getBaseTier());
+        assertEquals(List.of(secondTier, minuteTier, hourTier), rollups.getTiers());
+        assertEquals(3, rollups.getIngestionPipelines().size());
+    }
+
+    @Test
+    public void testSelectTier() {
+        long now = 10 * ONE_DAY;
+        long start = now - 12 * 3600 * 1000L;
+        // no interval specified: base resolution
+        assertSame(secondTier, rollups.selectTier(start, 0, now));
+        assertSame(secondTier, rollups.selectTier(start, 30000, now));
+        assertSame(minuteTier, rollups.selectTier(start, 60000, now));
+        assertSame(minuteTier, rollups.selectTier(start, 1800000, now));
+        // the end of the range doesn't matter: the unflushed tail is queried from the base tier
+        assertSame(hourTier, rollups.selectTier(start, 3600000, now));
+        // nothing has been flushed yet to the hour tier after the start of the range
+        assertSame(minuteTier, rollups.selectTier(now - 1800000, 3600000, now));
+        // nothing has been flushed yet to any rollup tier after the start of the range
+        assertSame(secondTier, rollups.selectTier(now - 30000, 3600000, now));
+        // the start of the range is older than the retention of the minute tier
+        assertSame(secondTier, rollups.selectTier(now - 2 * ONE_DAY, 60000, now));
+        assertSame(hourTier, rollups.selectTier(now - 2 * ONE_DAY, 3600000, now));
+    }
+
+    @Test
+    public void testFlushedEnd() {
+        long now = 10 * ONE_DAY + 90 * 60 * 1000L + 500;
+        assertEquals(now - 500 - 1000, secondTier.getFlushedEnd(now));
+        assertEquals(10 * ONE_DAY + 89 * 60 * 1000L, minuteTier.getFlushedEnd(now));
+        assertEquals(10 * ONE_DAY, hourTier.getFlushedEnd(now));
+    }
+}
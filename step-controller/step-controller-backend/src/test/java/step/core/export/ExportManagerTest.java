@@ -19,6 +19,9 @@
 package step.core.export;
 
 import ch.exense.commons.io.FileHelper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.types.ObjectId;
 import org.junit.Before;
 import org.junit.Test;
 import step.artefacts.CallFunction;
@@ -33,6 +36,7 @@ import step.core.Controller;
 import step.core.accessors.AbstractAccessor;
 import step.core.accessors.AbstractOrganizableObject;
 import step.core.accessors.Accessor;
+import step.core.accessors.DefaultJacksonMapperProvider;
 import step.core.artefacts.AbstractArtefact;
 import step.core.collections.inmemory.InMemoryCollection;
 import step.core.dynamicbeans.DynamicJsonObjectResolver;
@@ -42,6 +46,7 @@ import step.core.encryption.EncryptionManager;
 import step.core.encryption.EncryptionManagerException;
 import step.core.entities.Entity;
 import step.core.entities.EntityManager;
+import step.core.entities.EntityReferencesMap;
 import step.core.imports.ImportConfiguration;
 import step.core.imports.ImportManager;
 import step.core.imports.ImportResult;
@@ -77,6 +82,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipFile;
 
 import static org.junit.Assert.*;
 import static step.planbuilder.BaseArtefacts.callPlan;
@@ -340,6 +346,47 @@ public class ExportManagerTest {
 		}
 	}
 
+	@Test
+	public void testExportInBatches() throws Exception {
+		// More parameters than fetched per query, referenced in reverse order of creation
+		List<String> referencedIds = new ArrayList<>();
+		for (int i = 0; i < ExportManager.FETCH_BATCH_SIZE * 2 + 1; i++) {
+			referencedIds.add(0, parameterAccessor.save(new Parameter(null, "key" + i, "Value", "desc")).getId().toString());
+		}
+		String missingId = new ObjectId().toString();
+		// The references of a type are exported in reverse order of addition (see EntityReferencesMap.getReferencesByType)
+		List<String> expectedIds = new ArrayList<>(referencedIds);
+		Collections.reverse(expectedIds);
+
+		File testExportFile = new File("testExport.zip");
+		try (FileOutputStream outputStream = new FileOutputStream(testExportFile)) {
+			ExportManager exportManager = newExportManager();
+			ExportConfiguration exportConfig = new ExportConfiguration(outputStream, buildMetadata(), dummyObjectPredicate(), Parameter.ENTITY_NAME, false, null);
+			ExportResult exportResult = exportManager.export(exportConfig, c -> {
+				EntityReferencesMap references = c.getReferences();
+				referencedIds.subList(0, ExportManager.FETCH_BATCH_SIZE).forEach(id -> references.addElementTo(Parameter.ENTITY_NAME, id));
+				references.addElementTo(Parameter.ENTITY_NAME, missingId);
+				referencedIds.subList(ExportManager.FETCH_BATCH_SIZE, referencedIds.size()).forEach(id -> references.addElementTo(Parameter.ENTITY_NAME, id));
+			});
+			assertEquals(Set.of("Referenced entity with id '" + missingId + "' and type '" + Parameter.ENTITY_NAME + "' is missing"), exportResult.getMessages());
+
+			// The entities are written in the order of the references, across the fetch batches
+			List<String> actualIds = new ArrayList<>();
+			try (ZipFile zipFile = new ZipFile(testExportFile)) {
+				ObjectMapper mapper = DefaultJacksonMapperProvider.getObjectMapper();
+				JsonNode export = mapper.readTree(zipFile.getInputStream(zipFile.getEntry("export.json")));
+				export.get(Parameter.ENTITY_NAME).forEach(node -> actualIds.add(mapper.convertValue(node, Parameter.class).getId().toString()));
+			}
+			assertEquals(expectedIds, actualIds);
+
+			ImportManager importManager = createNewContextAndGetImportManager();
+			importManager.importAll(new ImportConfiguration(testExportFile, dummyObjectEnricher(), List.of(Parameter.ENTITY_NAME), true));
+			expectedIds.forEach(id -> assertNotNull(parameterAccessor.get(id)));
+		} finally {
+			testExportFile.delete();
+		}
+	}
+
 	@Test
 	public void testImportNewEncryptionManager() throws Exception {
 		Parameter paramProtectedEncrypted = new Parameter(null,"key_pwd","Value","desc");
@@ -22,6 +22,7 @@ import step.core.GlobalContext;
 import step.core.plugins.AbstractControllerPlugin;
 import step.core.plugins.Plugin;
 import step.datapool.excel.ExcelFunctions;
+import step.datapool.jdbc.SQLConnectionPool;
 
 @Plugin
 public class DataPoolPlugin extends AbstractControllerPlugin {
@@ -34,4 +35,9 @@ public class DataPoolPlugin extends AbstractControllerPlugin {
 		ExcelFunctions.setConfiguration(context.getConfiguration());
 	}
 
+	@Override
+	public void serverStop(GlobalContext context) {
+		SQLConnectionPool.closeAll();
+	}
+
 }
@@ -28,6 +28,7 @@ import step.core.accessors.AbstractOrganizableObject;
 import step.core.artefacts.AbstractArtefact;
 import step.core.artefacts.reports.ReportNode;
 import step.core.deployment.AbstractStepServices;
+import step.core.dynamicbeans.DynamicBeanResolver;
 import step.framework.server.security.Secured;
 import step.core.encryption.EncryptionManager;
 import step.core.execution.AbstractExecutionEngineContext;
@@ -40,8 +41,7 @@ import step.core.objectenricher.ObjectHookRegistry;
 import step.core.objectenricher.ObjectPredicate;
 import step.core.objectenricher.ObjectPredicateFactory;
 import step.core.plans.Plan;
-import step.core.plans.PlanAccessor;
-import step.core.plans.PlanNavigator;
+import step.core.plans.PlanNavigatorCache;
 import step.core.plans.builder.PlanBuilder;
 import step.core.plans.runner.PlanRunnerResult;
 import step.engine.plugins.AbstractExecutionEnginePlugin;
@@ -76,7 +76,8 @@ public class InteractiveServices extends AbstractStepServices {
 	private final Timer sessionExpirationTimer;
 	private ExecutionEngine executionEngine;
 	private final ExecutorService executorService;
-	private PlanAccessor planAccessor;
+	private PlanNavigatorCache planNavigatorCache;
+	private DynamicBeanResolver dynamicBeanResolver;
 	private ObjectPredicateFactory objectPredicateFactory;
 	private FunctionTableScreenInputs functionTableScreenInputs;
 	private FunctionManager functionManager;
@@ -133,7 +134,8 @@ public class InteractiveServices extends AbstractStepServices {
 	public void init() throws Exception {
 		super.init();
 		GlobalContext context = getContext();
-		planAccessor = context.getPlanAccessor();
+		planNavigatorCache = PlanNavigatorCache.getOrCreate(context);
+		dynamicBeanResolver = context.getDynamicBeanResolver();
 		ObjectHookRegistry objectHookRegistry = context.require(ObjectHookRegistry.class);
 		// the encryption manager might be null
 		EncryptionManager encryptionManager = context.get(EncryptionManager.class);
@@ -215,8 +217,9 @@ public class InteractiveServices extends AbstractStepServices {
 	}
 
 	protected AbstractArtefact findArtefactInPlan(String planId, String artefactId) {
-		Plan plan = planAccessor.get(planId);
-		return new PlanNavigator(plan).findArtefactById(artefactId);
+		AbstractArtefact artefact = planNavigatorCache.findArtefactById(planId, artefactId);
+		// The artefacts of the cached plans are shared. Work on a copy of the dynamic values that are evaluated by the execution
+		return dynamicBeanResolver.cloneDynamicValues(artefact);
 	}
 	
 	public static class FunctionTestingSession {
@@ -18,69 +18,63 @@
  ******************************************************************************/
 package step.plugins.quotamanager;
 
-import java.io.IOException;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.codehaus.groovy.runtime.InvokerHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-import groovy.lang.Binding;
-import groovy.lang.GroovyClassLoader;
-import groovy.lang.Script;
 import step.plugins.quotamanager.config.Quota;
 
 public class QuotaHandler {
 	
+	private static final Logger logger = LoggerFactory.getLogger(QuotaHandler.class);
+	
+	public static final long DEFAULT_SEMAPHORE_IDLE_TIMEOUT_MS = 600000;
+	
 	private ConcurrentHashMap<String, QuotaSemaphore> semaphores = new ConcurrentHashMap<>();
 	
 	private Quota config;
 		
-	private Class<?> scriptClass;
+	private final QuotaKeyFunction keyFunction;
+	
+	private final long semaphoreIdleTimeoutMs;
+	private final AtomicLong lastEviction = new AtomicLong(System.currentTimeMillis());
+	
+	private final QuotaWaitTimeHistogram waitTimeHistogram = new QuotaWaitTimeHistogram();
 	
 	public QuotaHandler(Quota config) {
+		this(config, DEFAULT_SEMAPHORE_IDLE_TIMEOUT_MS);
+	}
+	
+	/**
+	 * @param config the configuration of the quota
+	 * @param semaphoreIdleTimeoutMs the time after which the semaphore of a quota key that isn't used anymore is evicted
+	 */
+	public QuotaHandler(Quota config, long semaphoreIdleTimeoutMs) {
 		super();
 		this.config = config;
-		GroovyClassLoader groovyClassLoader = new GroovyClassLoader(); 
-		try {
-			scriptClass = groovyClassLoader.parseClass(config.getQuotaKeyFunction());
-		} finally {
-			try {
-				groovyClassLoader.close();
-			} catch (IOException e) {}
-		}
+		this.semaphoreIdleTimeoutMs = semaphoreIdleTimeoutMs;
+		this.keyFunction = new QuotaKeyFunction(config.getQuotaKeyFunction());
 	}
 
 	public Quota getConfig() {
 		return config;
 	}
 	
+	public QuotaKeyFunction getKeyFunction() {
+		return keyFunction;
+	}
+
 	public String acquirePermit(Map<String, Object> bindingVariables) throws Exception {
 		String quotaKey = computeQuotaKey(bindingVariables);
 		if(quotaKey!=null) {
-			QuotaSemaphore semaphore = getOrCreateSemaphore(quotaKey);
-			
 			Long acquireTimeoutMs = config.getAcquireTimeoutMs();
-			if(acquireTimeoutMs!=null) {
-				boolean acquired;
-				if(acquireTimeoutMs<0) {
-					 semaphore.acquire();
-					 acquired = true;
-				} else {
-					 acquired = semaphore.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
-				}
-				if(!acquired) {
-					throw new TimeoutException("A timeout occurred while trying to acquire permit for quota: " + config.toString());
-				} else {
-					semaphore.incrementLoad();
-				}
-			} else {
-				semaphore.acquire();
-				semaphore.incrementLoad();
-			}
-			
+			acquire(quotaKey, acquireTimeoutMs!=null && acquireTimeoutMs>=0 ? acquireTimeoutMs : null);
 		}
 		return quotaKey;
 	}
@@ -88,52 +82,99 @@ public class QuotaHandler {
 	public String tryAcquirePermit(Map<String, Object> bindingVariables, long timeout) throws Exception {
 		String quotaKey = computeQuotaKey(bindingVariables);
 		if(quotaKey!=null) {
-			QuotaSemaphore semaphore = getOrCreateSemaphore(quotaKey);
-			
-			boolean acquired = semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS);				
-			if(!acquired) {
-				throw new TimeoutException("A timeout occurred while trying to acquire permit for quota: " + config.toString());
+			acquire(quotaKey, timeout);
+		}
+		return quotaKey;
+	}
+	
+	/**
+	 * @param quotaKey the quota key to acquire a permit for
+	 * @param timeoutMs the acquisition timeout in ms or null to wait without timeout
+	 */
+	private void acquire(String quotaKey, Long timeoutMs) throws InterruptedException, TimeoutException {
+		QuotaSemaphore semaphore = pinSemaphore(quotaKey);
+		boolean acquired = false;
+		long t1 = System.nanoTime();
+		try {
+			if(timeoutMs == null) {
+				semaphore.acquire();
+				acquired = true;
 			} else {
-				semaphore.incrementLoad();
+				acquired = semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+			}
+		} finally {
+			waitTimeHistogram.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - t1));
+			if(!acquired) {
+				semaphore.unpin();
 			}
-				
 		}
-		return quotaKey;
+		if(!acquired) {
+			throw new TimeoutException("A timeout occurred while trying to acquire permit for quota: " + config.toString());
+		} else {
+			semaphore.incrementLoad();
+		}
 	}
 	
 	public void releasePermit(String quotaKey) {
-		QuotaSemaphore semaphore = getOrCreateSemaphore(quotaKey);
-		semaphore.decrementLoad();
-		semaphore.release();
+		// the semaphore is pinned as long as the permit is held
+		QuotaSemaphore semaphore = semaphores.get(quotaKey);
+		if(semaphore != null) {
+			semaphore.decrementLoad();
+			semaphore.release();
+			semaphore.unpin();
+		} else {
+			logger.warn("No semaphore found for quota key " + quotaKey + " of quota " + config.toString());
+		}
+		evictIdleSemaphoresIfNeeded();
 	}
 	
-	private QuotaSemaphore getOrCreateSemaphore(String key) {
-		QuotaSemaphore semaphore = semaphores.get(key);
-		if(semaphore == null) {
-			QuotaSemaphore newInstance = new QuotaSemaphore(config.getPermits(), false);
-			semaphore = semaphores.putIfAbsent(key, newInstance);
-			if(semaphore == null) {
-				semaphore = newInstance;
+	/**
+	 * Returns the semaphore of the provided key and prevents it from being evicted
+	 * until {@link QuotaSemaphore#unpin()} is called
+	 */
+	private QuotaSemaphore pinSemaphore(String key) {
+		while(true) {
+			QuotaSemaphore semaphore = semaphores.computeIfAbsent(key, k -> new QuotaSemaphore(config.getPermits(), false));
+			if(semaphore.pin()) {
+				return semaphore;
 			}
+			// the semaphore has just been evicted. Remove it if not done yet and retry with a new one
+			semaphores.remove(key, semaphore);
 		}
-		return semaphore;
 	}
 	
-	protected String computeQuotaKey(Map<String, Object> bindingVariables) throws Exception {
-		Binding binding = new Binding(bindingVariables);
-		Script script = InvokerHelper.createScript(scriptClass, binding);
-		Object result = script.run();
-		if(result!=null) {
-			return result.toString();
-		} else {
-			return null;
+	private void evictIdleSemaphoresIfNeeded() {
+		long now = System.currentTimeMillis();
+		long last = lastEviction.get();
+		// sweep at most twice per idle timeout and in one thread at a time
+		if(now - last >= semaphoreIdleTimeoutMs / 2 && lastEviction.compareAndSet(last, now)) {
+			evictIdleSemaphores(now - semaphoreIdleTimeoutMs);
 		}
 	}
 	
+	protected void evictIdleSemaphores(long idleSince) {
+		for(Entry<String, QuotaSemaphore> entry:semaphores.entrySet()) {
+			QuotaSemaphore semaphore = entry.getValue();
+			if(semaphore.tryEvict(idleSince)) {
+				semaphores.remove(entry.getKey(), semaphore);
+			}
+		}
+	}
+	
+	protected int getSemaphoreCount() {
+		return semaphores.size();
+	}
+	
+	protected String computeQuotaKey(Map<String, Object> bindingVariables) throws Exception {
+		return keyFunction.apply(bindingVariables);
+	}
+	
 	public QuotaHandlerStatus getStatus() {
 		QuotaHandlerStatus status = new QuotaHandlerStatus();
 		status.permitsByQuotaKey = config.getPermits();
 		status.configuration = config;
+		status.waitTimeHistogram = waitTimeHistogram.getCountsByBin();
+		status.totalWaitTimeMs = waitTimeHistogram.getTotalWaitTimeMs();
 		for(Entry<String, QuotaSemaphore> entry:semaphores.entrySet()) {
 			int peak = entry.getValue().getPeak();
 			int usage = config.getPermits()-entry.getValue().availablePermits();
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.quotamanager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Index of the {@link QuotaHandler}s by the guard of their key function. It
+ * returns the handlers that may apply to a set of bindings, skipping the ones
+ * whose guard cannot match, in the order of the configuration.
+ */
+public class QuotaHandlerIndex {
+
+	private final List<QuotaHandler> handlers;
+	private final BitSet unguardedHandlers = new BitSet();
+	// guard variable -> handlers guarded by this variable
+	private final Map<String, BitSet> handlersByGuardVariable = new HashMap<>();
+	// guard variable -> guard value -> handlers
+	private final Map<String, Map<String, BitSet>> handlersByGuard = new HashMap<>();
+
+	public QuotaHandlerIndex(List<QuotaHandler> handlers) {
+		super();
+		this.handlers = new ArrayList<>(handlers);
+		for (int i = 0; i < handlers.size(); i++) {
+			QuotaKeyFunction keyFunction = handlers.get(i).getKeyFunction();
+			String guardVariable = keyFunction.getGuardVariable();
+			if (guardVariable == null) {
+				unguardedHandlers.set(i);
+			} else {
+				handlersByGuardVariable.computeIfAbsent(guardVariable, k -> new BitSet()).set(i);
+				handlersByGuard.computeIfAbsent(guardVariable, k -> new HashMap<>())
+						.computeIfAbsent(keyFunction.getGuardValue(), k -> new BitSet()).set(i);
+			}
+		}
+	}
+
+	public List<QuotaHandler> getHandlers() {
+		return handlers;
+	}
+
+	/**
+	 * @param bindingVariables the bindings of the permit request
+	 * @return the handlers that may apply to the provided bindings in configuration order
+	 */
+	public List<QuotaHandler> getCandidates(Map<String, Object> bindingVariables) {
+		if (handlersByGuardVariable.isEmpty()) {
+			return handlers;
+		}
+		BitSet candidates = (BitSet) unguardedHandlers.clone();
+		for (Entry<String, BitSet> entry : handlersByGuardVariable.entrySet()) {
+			String guardVariable = entry.getKey();
+			if (!bindingVariables.containsKey(guardVariable)) {
+				// let the key function report the missing variable
+				candidates.or(entry.getValue());
+			} else {
+				Object value = bindingVariables.get(guardVariable);
+				if (value instanceof CharSequence) {
+					BitSet matchingHandlers = handlersByGuard.get(guardVariable).get(value.toString());
+					if (matchingHandlers != null) {
+						candidates.or(matchingHandlers);
+					}
+				} else if (value != null) {
+					// the equality of other types is left to the evaluation of the key function
+					candidates.or(entry.getValue());
+				}
+			}
+		}
+		List<QuotaHandler> result = new ArrayList<>(candidates.cardinality());
+		for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+			result.add(handlers.get(i));
+		}
+		return result;
+	}
+}
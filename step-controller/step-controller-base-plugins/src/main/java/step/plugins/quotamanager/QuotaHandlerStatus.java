@@ -20,6 +20,7 @@ package step.plugins.quotamanager;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import step.plugins.quotamanager.config.Quota;
 
@@ -31,6 +32,10 @@ public class QuotaHandlerStatus {
 	
 	List<QuotaHandlerStatusEntry> entries = new ArrayList<>();
 	
+	Map<String, Long> waitTimeHistogram;
+	
+	long totalWaitTimeMs;
+	
 	public Quota getConfiguration() {
 		return configuration;
 	}
@@ -48,6 +53,17 @@ public class QuotaHandlerStatus {
 		return entries;
 	}
 
+	/**
+	 * @return the number of permit requests by wait time range
+	 */
+	public Map<String, Long> getWaitTimeHistogram() {
+		return waitTimeHistogram;
+	}
+
+	public long getTotalWaitTimeMs() {
+		return totalWaitTimeMs;
+	}
+
 	public class QuotaHandlerStatusEntry {
 		
 		String quotaKey;
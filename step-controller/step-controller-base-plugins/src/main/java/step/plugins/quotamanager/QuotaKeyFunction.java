@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.quotamanager;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.codehaus.groovy.runtime.InvokerHelper;
+
+import groovy.lang.Binding;
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.Script;
+
+/**
+ * A quota key function compiled once and evaluated without creating a new
+ * script instance per call.
+ * <p>
+ * Two common forms of expressions are recognized in order to avoid the
+ * evaluation of the Groovy script where possible:
+ * <ul>
+ * <li>A single variable (for instance <code>user</code>) is resolved directly
+ * from the bindings</li>
+ * <li>A guarded expression of the form <code>(variable=='value')?expression:null</code>
+ * exposes its guard so that the {@link QuotaHandlerIndex} can skip the handler if
+ * the guard cannot match</li>
+ * </ul>
+ */
+public class QuotaKeyFunction {
+
+	private static final Pattern VARIABLE_PATTERN = Pattern.compile("^\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*$");
+	private static final Pattern GUARD_PATTERN = Pattern.compile("^\\s*\\(?\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*==\\s*(['\"])([^'\"\\\\$]*)\\2\\s*\\)?\\s*\\?[^?:]*:\\s*null\\s*$");
+
+	private final String expression;
+	private final String variable;
+	private final String guardVariable;
+	private final String guardValue;
+	private final Class<?> scriptClass;
+	// Script instances aren't thread safe. Each thread reuses its own instance
+	private final ThreadLocal<Script> scripts;
+
+	public QuotaKeyFunction(String expression) {
+		super();
+		this.expression = expression;
+
+		Matcher variableMatcher = VARIABLE_PATTERN.matcher(expression);
+		variable = variableMatcher.matches() ? variableMatcher.group(1) : null;
+
+		Matcher guardMatcher = GUARD_PATTERN.matcher(expression);
+		if (guardMatcher.matches()) {
+			guardVariable = guardMatcher.group(1);
+			guardValue = guardMatcher.group(3);
+		} else {
+			guardVariable = null;
+			guardValue = null;
+		}
+
+		GroovyClassLoader groovyClassLoader = new GroovyClassLoader();
+		try {
+			scriptClass = groovyClassLoader.parseClass(expression);
+		} finally {
+			try {
+				groovyClassLoader.close();
+			} catch (IOException e) {}
+		}
+		scripts = ThreadLocal.withInitial(() -> InvokerHelper.createScript(scriptClass, new Binding()));
+	}
+
+	public String getExpression() {
+		return expression;
+	}
+
+	/**
+	 * @return the name of the variable of the guard of this function or null if
+	 *         the function isn't a guarded expression
+	 */
+	public String getGuardVariable() {
+		return guardVariable;
+	}
+
+	/**
+	 * @return the value the guard variable has to be equal to for the function to return a key
+	 */
+	public String getGuardValue() {
+		return guardValue;
+	}
+
+	/**
+	 * @param bindingVariables the bindings to evaluate the function against
+	 * @return the quota key or null if the quota doesn't apply
+	 * @throws Exception if the evaluation of the script fails
+	 */
+	public String apply(Map<String, Object> bindingVariables) throws Exception {
+		if (variable != null && bindingVariables.containsKey(variable)) {
+			Object value = bindingVariables.get(variable);
+			return value != null ? value.toString() : null;
+		}
+
+		Script script = scripts.get();
+		script.setBinding(new Binding(bindingVariables));
+		try {
+			Object result = script.run();
+			return result != null ? result.toString() : null;
+		} finally {
+			// don't retain the bindings of the caller
+			script.setBinding(new Binding());
+		}
+	}
+}
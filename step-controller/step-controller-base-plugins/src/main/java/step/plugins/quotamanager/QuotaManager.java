@@ -40,7 +40,7 @@ public class QuotaManager {
 		
 	private volatile QuotaManagerConfig config;
 	private volatile boolean enabled = false;
-	private volatile List<QuotaHandler> quotaHandlers;
+	private volatile QuotaHandlerIndex quotaHandlerIndex = new QuotaHandlerIndex(new ArrayList<>());
 	
 	private final ConcurrentHashMap<UUID, List<Permit>> permits = new ConcurrentHashMap<>();
 	private final Object paceLockObject = new Object();
@@ -84,16 +84,19 @@ public class QuotaManager {
 	}
 
 	private void createHandlers() {
-		quotaHandlers = new ArrayList<>();
+		List<QuotaHandler> quotaHandlers = new ArrayList<>();
+		long semaphoreIdleTimeoutMs = config.getSemaphoreIdleTimeoutMs() != null ? config.getSemaphoreIdleTimeoutMs()
+				: QuotaHandler.DEFAULT_SEMAPHORE_IDLE_TIMEOUT_MS;
 		if(config.getQuotas()!=null) {
 			for(Quota quota:config.getQuotas()) {
 				// avoid adding handlers with 0 permit and no timeout
 				if (quota.getPermits() > 0 || quota.getAcquireTimeoutMs() != null) {
-					QuotaHandler quotaHandler = new QuotaHandler(quota);
+					QuotaHandler quotaHandler = new QuotaHandler(quota, semaphoreIdleTimeoutMs);
 					quotaHandlers.add(quotaHandler);
 				}
 			}
 		}
+		quotaHandlerIndex = new QuotaHandlerIndex(quotaHandlers);
 	}
 	
 	public UUID acquirePermit(Map<String, Object> bindingVariables) throws Exception {
@@ -106,10 +109,13 @@ public class QuotaManager {
 			return permitID;
 		}
 		
-		logger.debug("Permit request. Binding variables: " + bindingVariables.toString());
+		if(logger.isDebugEnabled()) {
+			logger.debug("Permit request. Binding variables: " + bindingVariables.toString());
+		}
 		List<Permit> acquiredPermits = new ArrayList<>();
 		try {
-			for(QuotaHandler quotaHandler: quotaHandlers) {
+			// only the handlers whose key function may match are evaluated, in configuration order
+			for(QuotaHandler quotaHandler: quotaHandlerIndex.getCandidates(bindingVariables)) {
 				try {
 					
 					long t1 = System.currentTimeMillis();
@@ -163,7 +169,7 @@ public class QuotaManager {
 	
 	public List<QuotaHandlerStatus> getStatus() {
 		List<QuotaHandlerStatus> statusList = new ArrayList<>();
-		for(QuotaHandler quotaHandler: quotaHandlers) {
+		for(QuotaHandler quotaHandler: quotaHandlerIndex.getHandlers()) {
 			statusList.add(quotaHandler.getStatus());
 		}
 		return statusList;
@@ -49,6 +49,7 @@ public class QuotaManagerServices extends AbstractStepServices {
 					writer.write("    Key \"" + quotaKeyStatus.getQuotaKey() + "\". Quota usage: " + quotaKeyStatus.getUsage() + "/" + 
 							status.getConfiguration().getPermits() + " (Peak: " + peakDisplay + ")" + "\n");
 				}
+				writer.write("    Wait time distribution: " + status.getWaitTimeHistogram() + ". Total wait time: " + status.getTotalWaitTimeMs() + "ms\n");
 				
 			}			
 		} else {
@@ -23,12 +23,16 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 class QuotaSemaphore extends Semaphore {
 	private static final long serialVersionUID = -3808791893658360762L;
-	
-	private final Object lockCounterObject = new Object();
+
+	private static final int EVICTED = -1;
 
 	AtomicInteger load = new AtomicInteger(0);
 	AtomicInteger peak = new AtomicInteger(0);
-	
+
+	// number of callers waiting for or holding a permit of this semaphore. EVICTED once removed from its handler
+	private final AtomicInteger users = new AtomicInteger(0);
+	private volatile long lastUsed = System.currentTimeMillis();
+
 	public QuotaSemaphore(int permits) {
 		super(permits);
 	}
@@ -43,11 +47,7 @@ class QuotaSemaphore extends Semaphore {
 	}
 
 	public void decrementLoad() {
-		synchronized (lockCounterObject) {
-			load.decrementAndGet();
-			load.set(Math.max(0, load.intValue()));
-			peak.set(Math.max(peak.intValue(), load.intValue()));
-		}
+		load.updateAndGet(l -> Math.max(0, l - 1));
 	}
 
 	public int getLoad() {
@@ -59,11 +59,38 @@ class QuotaSemaphore extends Semaphore {
 	}
 
 	public void incrementLoad() {
-		synchronized (lockCounterObject) {
-			load.incrementAndGet();
-			peak.set(Math.max(peak.intValue(), load.intValue()));
+		int currentLoad = load.incrementAndGet();
+		peak.accumulateAndGet(currentLoad, Math::max);
+	}
+
+	/**
+	 * Registers a caller of this semaphore. A semaphore cannot be evicted as long as it has callers
+	 * 
+	 * @return false if this semaphore has already been evicted and cannot be used anymore
+	 */
+	boolean pin() {
+		while (true) {
+			int currentUsers = users.get();
+			if (currentUsers == EVICTED) {
+				return false;
+			}
+			if (users.compareAndSet(currentUsers, currentUsers + 1)) {
+				return true;
+			}
 		}
-		
+	}
+
+	void unpin() {
+		lastUsed = System.currentTimeMillis();
+		users.decrementAndGet();
+	}
+
+	/**
+	 * @param idleSince the time before which the semaphore has to have been used last to be evicted
+	 * @return true if the semaphore had no caller since the provided time and has been marked as evicted
+	 */
+	boolean tryEvict(long idleSince) {
+		return lastUsed <= idleSince && users.compareAndSet(0, EVICTED);
 	}
 
 	@Override
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.quotamanager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the time spent by the callers of a quota waiting for a permit
+ */
+public class QuotaWaitTimeHistogram {
+
+	// upper bounds (exclusive) of the bins in ms. The last bin contains the higher values
+	protected static final long[] BOUNDS_MS = new long[] { 1, 10, 100, 1000, 10000, 60000 };
+
+	private final LongAdder[] counts = new LongAdder[BOUNDS_MS.length + 1];
+	private final LongAdder totalWaitTimeMs = new LongAdder();
+
+	public QuotaWaitTimeHistogram() {
+		super();
+		for (int i = 0; i < counts.length; i++) {
+			counts[i] = new LongAdder();
+		}
+	}
+
+	public void record(long waitTimeMs) {
+		int bin = 0;
+		while (bin < BOUNDS_MS.length && waitTimeMs >= BOUNDS_MS[bin]) {
+			bin++;
+		}
+		counts[bin].increment();
+		totalWaitTimeMs.add(waitTimeMs);
+	}
+
+	public long getCount() {
+		long count = 0;
+		for (LongAdder binCount : counts) {
+			count += binCount.sum();
+		}
+		return count;
+	}
+
+	public long getTotalWaitTimeMs() {
+		return totalWaitTimeMs.sum();
+	}
+
+	/**
+	 * @return the number of permit requests by wait time bin. The keys are the labels of the bins
+	 */
+	public Map<String, Long> getCountsByBin() {
+		Map<String, Long> result = new LinkedHashMap<>();
+		for (int i = 0; i < counts.length; i++) {
+			String label = i < BOUNDS_MS.length ? "<" + BOUNDS_MS[i] + "ms" : ">=" + BOUNDS_MS[BOUNDS_MS.length - 1] + "ms";
+			result.put(label, counts[i].sum());
+		}
+		return result;
+	}
+}
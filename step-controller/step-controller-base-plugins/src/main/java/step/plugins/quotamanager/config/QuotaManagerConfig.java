@@ -25,6 +25,9 @@ public class QuotaManagerConfig {
 	String id;
 	
 	List<Quota> quotas;
+	
+	// time after which the semaphore of an unused quota key is evicted. Defaults to QuotaHandler.DEFAULT_SEMAPHORE_IDLE_TIMEOUT_MS
+	Long semaphoreIdleTimeoutMs;
 
 	public QuotaManagerConfig(String id) {
 		super();
@@ -46,4 +49,12 @@ public class QuotaManagerConfig {
 	public void setQuotas(List<Quota> quotas) {
 		this.quotas = quotas;
 	}
+
+	public Long getSemaphoreIdleTimeoutMs() {
+		return semaphoreIdleTimeoutMs;
+	}
+
+	public void setSemaphoreIdleTimeoutMs(Long semaphoreIdleTimeoutMs) {
+		this.semaphoreIdleTimeoutMs = semaphoreIdleTimeoutMs;
+	}
 }
@@ -0,0 +1,88 @@
+package step.plugins.table;
+
+import org.apache.commons.beanutils.PropertyUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accessor of an exported column. The getters of each property of the column
+ * path are resolved once per class instead of once per cell.
+ * This class isn't thread safe.
+ */
+class TableExportColumn {
+
+    private static final Method MISSING_PROPERTY;
+
+    static {
+        try {
+            MISSING_PROPERTY = Object.class.getMethod("toString");
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final String field;
+    private final String[] path;
+    // Indexed and mapped properties are delegated to PropertyUtils
+    private final boolean simplePath;
+    private final Map<Class<?>, Method>[] getters;
+
+    @SuppressWarnings("unchecked")
+    TableExportColumn(String field) {
+        this.field = field;
+        this.path = field.split("\\.");
+        this.simplePath = field.indexOf('[') < 0 && field.indexOf('(') < 0;
+        this.getters = new Map[path.length];
+        for (int i = 0; i < path.length; i++) {
+            getters[i] = new HashMap<>();
+        }
+    }
+
+    /**
+     * @param bean the row object
+     * @return the value of the column for the provided row or an empty string if the
+     * property doesn't exist or is null
+     */
+    String getFormattedValue(Object bean) {
+        try {
+            Object value = simplePath ? getValue(bean) : PropertyUtils.getProperty(bean, field);
+            return value != null ? value.toString() : "";
+        } catch (NoSuchMethodException e) {
+            return "";
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new RuntimeException("Error while writing column " + field, e);
+        }
+    }
+
+    private Object getValue(Object bean) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        Object value = bean;
+        for (int i = 0; i < path.length && value != null; i++) {
+            if (value instanceof Map) {
+                value = ((Map<?, ?>) value).get(path[i]);
+            } else {
+                Method getter = getGetter(i, value);
+                if (getter == MISSING_PROPERTY) {
+                    throw new NoSuchMethodException("Unknown property '" + path[i] + "' on " + value.getClass());
+                }
+                value = getter.invoke(value);
+            }
+        }
+        return value;
+    }
+
+    private Method getGetter(int index, Object value) throws IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        Class<?> beanClass = value.getClass();
+        Method getter = getters[index].get(beanClass);
+        if (getter == null) {
+            PropertyDescriptor descriptor = PropertyUtils.getPropertyDescriptor(value, path[index]);
+            Method readMethod = descriptor != null ? PropertyUtils.getReadMethod(descriptor) : null;
+            getter = readMethod != null ? readMethod : MISSING_PROPERTY;
+            getters[index].put(beanClass, getter);
+        }
+        return getter;
+    }
+}
@@ -1,31 +1,51 @@
 package step.plugins.table;
 
-import org.apache.commons.beanutils.PropertyUtils;
 import step.controller.services.async.AsyncTask;
 import step.controller.services.async.AsyncTaskHandle;
 import step.framework.server.Session;
-import step.framework.server.tables.service.TableResponse;
+import step.framework.server.tables.Table;
+import step.framework.server.tables.TableRegistry;
+import step.framework.server.tables.service.TableRequest;
 import step.framework.server.tables.service.TableService;
+import step.framework.server.tables.service.TableServiceException;
 import step.resources.Resource;
 import step.resources.ResourceManager;
 import step.resources.ResourceRevisionContainer;
 
-import java.io.PrintWriter;
-import java.lang.reflect.InvocationTargetException;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.AbstractList;
 import java.util.List;
+import java.util.stream.Collectors;
 
+/**
+ * Exports the rows of a table to a CSV resource.
+ * <p>
+ * The rows are requested once through the {@link TableService} which applies the access right,
+ * filters and result enricher of the table and reads the rows through a single cursor.
+ * Instead of collecting the rows in memory, the result list of the request writes each row
+ * to the CSV as soon as it is added.
+ */
 public class TableExportTask implements AsyncTask<Resource> {
 
     private static final String END_OF_LINE = "\n";
     private static final String DELIMITER = ";";
+    protected static final int PROGRESS_UPDATE_INTERVAL = 1000;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
     private final TableExportRequest exportRequest;
     private final String tableName;
     private final ResourceManager resourceManager;
-    private final step.framework.server.tables.service.TableService tableService;
+    private final TableService tableService;
+    private final TableRegistry tableRegistry;
     private final Session session;
 
-    public TableExportTask(TableService tableService, ResourceManager resourceManager, String tableName, TableExportRequest exportRequest, Session session) {
+    public TableExportTask(TableService tableService, TableRegistry tableRegistry, ResourceManager resourceManager,
+                           String tableName, TableExportRequest exportRequest, Session session) {
         this.tableService = tableService;
+        this.tableRegistry = tableRegistry;
         this.resourceManager = resourceManager;
         this.tableName = tableName;
         this.exportRequest = exportRequest;
@@ -34,37 +54,29 @@ public class TableExportTask implements AsyncTask<Resource> {
 
     @Override
     public Resource apply(AsyncTaskHandle exportTaskHandle) throws Exception {
+        @SuppressWarnings("unchecked")
+        Table<Object> table = (Table<Object>) tableRegistry.get(tableName);
+        if (table == null) {
+            throw new TableServiceException("The table " + tableName + " doesn't exist");
+        }
+        TableRequest tableRequest = exportRequest.getTableRequest();
+
         ResourceRevisionContainer resourceContainer = resourceManager.createResourceContainer(ResourceManager.RESOURCE_TYPE_TEMP, "export.csv");
-        PrintWriter writer = new PrintWriter(resourceContainer.getOutputStream());
+        Writer writer = new BufferedWriter(new OutputStreamWriter(resourceContainer.getOutputStream()), WRITE_BUFFER_SIZE);
 
         List<String> fields = exportRequest.getFields();
-
-        // Write headers
-        fields.forEach(field -> writer.append(field).append(DELIMITER));
-        writer.append(END_OF_LINE);
         try {
-            TableResponse response = tableService.request(tableName, exportRequest.getTableRequest(), session);
-            response.getData().forEach(o -> {
-                // Write row
-                fields.forEach(field -> {
-                    Object property;
-                    String formattedValue;
-                    try {
-                        property = PropertyUtils.getProperty(o, field);
-                        if (property != null) {
-                            formattedValue = property.toString();
-                        } else {
-                            formattedValue = "";
-                        }
-                    } catch (NoSuchMethodException e) {
-                        formattedValue = "";
-                    } catch (IllegalAccessException | InvocationTargetException e) {
-                        throw new RuntimeException("Error while writing column " + field, e);
-                    }
-                    writer.append(formattedValue).append(DELIMITER);
-                });
-                writer.append(END_OF_LINE);
-            });
+            // Write headers
+            for (String field : fields) {
+                writer.append(field).append(DELIMITER);
+            }
+            writer.append(END_OF_LINE);
+
+            RowWriter rowWriter = new RowWriter(writer, fields, getEstimatedRowCount(table, tableRequest), exportTaskHandle);
+            tableService.request(newExportTable(table, rowWriter), tableRequest, session);
+            exportTaskHandle.updateProgress(1f);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         } finally {
             writer.close();
             resourceContainer.save(null);
@@ -72,4 +84,73 @@ public class TableExportTask implements AsyncTask<Resource> {
 
         return resourceContainer.getResource();
     }
+
+    /**
+     * @return a copy of the provided table whose result list writes the rows with the provided writer
+     */
+    private static Table<Object> newExportTable(Table<Object> table, RowWriter rowWriter) {
+        Table<Object> exportTable = new Table<>(table.getCollection(), table.getRequiredAccessRight(), table.isFiltered())
+                .withResultListFactory(() -> rowWriter);
+        table.getTableFiltersFactory().ifPresent(exportTable::withTableFiltersFactory);
+        table.getResultItemEnricher().ifPresent(exportTable::withResultItemEnricher);
+        table.getMaxFindDuration().ifPresent(exportTable::withMaxFindDuration);
+        table.getCountLimit().ifPresent(exportTable::withCountLimit);
+        return exportTable;
+    }
+
+    /**
+     * @return the estimated number of exported rows used to report the progress. The filters aren't taken into account
+     */
+    private static long getEstimatedRowCount(Table<?> table, TableRequest tableRequest) {
+        int skip = tableRequest.getSkip() != null ? tableRequest.getSkip() : 0;
+        long total = Math.max(table.getCollection().estimatedCount() - skip, 0);
+        Integer limit = tableRequest.getLimit();
+        return limit != null ? Math.min(total, limit) : total;
+    }
+
+    /**
+     * Result list of the export request writing the rows to the CSV instead of holding them
+     */
+    private static class RowWriter extends AbstractList<Object> {
+
+        private final Writer writer;
+        private final List<TableExportColumn> columns;
+        private final long estimatedRowCount;
+        private final AsyncTaskHandle exportTaskHandle;
+        private int written = 0;
+
+        private RowWriter(Writer writer, List<String> fields, long estimatedRowCount, AsyncTaskHandle exportTaskHandle) {
+            this.writer = writer;
+            this.columns = fields.stream().map(TableExportColumn::new).collect(Collectors.toList());
+            this.estimatedRowCount = estimatedRowCount;
+            this.exportTaskHandle = exportTaskHandle;
+        }
+
+        @Override
+        public boolean add(Object row) {
+            try {
+                for (TableExportColumn column : columns) {
+                    writer.append(column.getFormattedValue(row)).append(DELIMITER);
+                }
+                writer.append(END_OF_LINE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written++;
+            if (estimatedRowCount > 0 && written % PROGRESS_UPDATE_INTERVAL == 0) {
+                exportTaskHandle.updateProgress(Math.min(1f, (float) written / estimatedRowCount));
+            }
+            return true;
+        }
+
+        @Override
+        public Object get(int index) {
+            throw new UnsupportedOperationException("The exported rows aren't kept");
+        }
+
+        @Override
+        public int size() {
+            return written;
+        }
+    }
 }
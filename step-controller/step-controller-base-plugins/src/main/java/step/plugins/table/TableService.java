@@ -30,6 +30,7 @@ import step.controller.services.async.AsyncTaskStatus;
 import step.core.GlobalContext;
 import step.core.deployment.ApplicationServices;
 import step.framework.server.security.Secured;
+import step.framework.server.tables.TableRegistry;
 import step.framework.server.tables.service.TableRequest;
 import step.framework.server.tables.service.TableResponse;
 import step.framework.server.tables.service.TableServiceException;
@@ -44,6 +45,7 @@ public class TableService extends ApplicationServices {
     private static final Logger logger = LoggerFactory.getLogger(TableService.class);
 
     private step.framework.server.tables.service.TableService tableService;
+    private TableRegistry tableRegistry;
     private AsyncTaskManager asyncTaskManager;
     private ResourceManager resourceManager;
 
@@ -54,6 +56,7 @@ public class TableService extends ApplicationServices {
         asyncTaskManager = context.require(AsyncTaskManager.class);
         resourceManager = context.getResourceManager();
         tableService = context.require(step.framework.server.tables.service.TableService.class);
+        tableRegistry = context.require(TableRegistry.class);
     }
 
     @POST
@@ -71,6 +74,6 @@ public class TableService extends ApplicationServices {
     @Produces(MediaType.APPLICATION_JSON)
     @Secured
     public AsyncTaskStatus<Resource> createExport(@PathParam("tableName") String tableName, TableExportRequest exportRequest) throws Exception {
-        return asyncTaskManager.scheduleAsyncTask(new TableExportTask(tableService, resourceManager, tableName, exportRequest, getSession()));
+        return asyncTaskManager.scheduleAsyncTask(new TableExportTask(tableService, tableRegistry, resourceManager, tableName, exportRequest, getSession()));
     }
 }
@@ -19,12 +19,10 @@
 package step.plugins.threadmanager;
 
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -41,24 +39,40 @@ public class ThreadManager {
 	
 	private static final Logger logger = LoggerFactory.getLogger(ThreadManager.class);
 	
-	private List<Pattern> matchingPatterns = new ArrayList<>();
+	private final List<Pattern> matchingPatterns = new ArrayList<>();
+	// Alternation of all the registered patterns compiled once at registration
+	private volatile Pattern combinedPattern;
 	
+	/**
+	 * @param pattern a pattern matching the fully qualified method names of the
+	 *                operations that should be interrupted at the end of an
+	 *                execution. The patterns are combined in a single pattern:
+	 *                flags have to be specified inline
+	 */
 	public void registerPattern(Pattern pattern) {
-		matchingPatterns.add(pattern);
+		synchronized (matchingPatterns) {
+			matchingPatterns.add(pattern);
+			combinedPattern = Pattern.compile(matchingPatterns.stream().map(p -> "(?:" + p.pattern() + ")").collect(Collectors.joining("|")));
+		}
 	}
 	
 	public void registerClass(Class<?> clazz) {
-		matchingPatterns.add(Pattern.compile(clazz.getName().replace(".", "\\.")+".*"));
+		registerPattern(Pattern.compile(clazz.getName().replace(".", "\\.")+".*"));
 	}
 	
 	private boolean matches(StackTraceElement[] stacktrace) {
-		for(Pattern p:matchingPatterns) {
-			Matcher m = p.matcher("");
-			for(StackTraceElement el:stacktrace) {
-				m.reset(el.getClassName()+"."+el.getMethodName());
-				if(m.matches()) {
-					return true;
-				}
+		Pattern pattern = combinedPattern;
+		if(pattern == null) {
+			return false;
+		}
+		Matcher m = pattern.matcher("");
+		StringBuilder methodName = new StringBuilder();
+		for(StackTraceElement el:stacktrace) {
+			methodName.setLength(0);
+			methodName.append(el.getClassName()).append('.').append(el.getMethodName());
+			m.reset(methodName);
+			if(m.matches()) {
+				return true;
 			}
 		}
 		return false;
@@ -67,56 +81,92 @@ public class ThreadManager {
 	private static final String SET_KEY = "ThreadManagerPlugin_SetKey";
 	
 	@SuppressWarnings("unchecked")
-	private HashSet<Thread> getRegister(ExecutionContext context) {
-		return (HashSet<Thread>) context.get(SET_KEY);
+	private Set<Thread> getRegister(ExecutionContext context) {
+		return (Set<Thread>) context.get(SET_KEY);
 	}
 	
 	public void associateThread(ExecutionContext context, Thread thread, long parentThreadId) {
 		logger.debug("associate Thread: " + thread.getId() + ", and parent thread id: " + parentThreadId);
 		
 		// associate the thread ID to all the report nodes associated to the parentThreadId 
-		reportNodeIdToThreadId.entrySet().stream().filter(e->{
-			return e.getValue().contains(parentThreadId);
-		}).forEach(e->e.getValue().add(thread.getId()));;
+		long threadId = thread.getId();
+		Set<String> parentReportNodeIds = threadIdToReportNodeIds.get(parentThreadId);
+		if(parentReportNodeIds != null) {
+			parentReportNodeIds.forEach(reportNodeId -> {
+				// Only associate the report nodes that are still running
+				reportNodeIdToThreadIds.computeIfPresent(reportNodeId, (k, threadIds) -> {
+					threadIds.add(threadId);
+					addReportNodeToThread(threadId, reportNodeId);
+					return threadIds;
+				});
+			});
+		}
 		
 		associateThread(context, thread);
 	}
 	
 	public void associateThread(ExecutionContext context, Thread thread) {
 		Set<Thread> associatedThreads = getRegister(context);
-		
-		synchronized (context) {
-			if(associatedThreads==null) {
-				associatedThreads = new HashSet<>();
-				context.put(SET_KEY, associatedThreads);
-			}			
-		}
-		
-		synchronized(associatedThreads) {
-			associatedThreads.add(thread);
+		if(associatedThreads==null) {
+			synchronized (context) {
+				associatedThreads = getRegister(context);
+				if(associatedThreads==null) {
+					associatedThreads = ConcurrentHashMap.newKeySet();
+					context.put(SET_KEY, associatedThreads);
+				}
+			}
 		}
+		associatedThreads.add(thread);
 	}
 	
 	// Track all the threads (parent + children) associated to a report node
-	private Map<String, List<Long>> reportNodeIdToThreadId = new ConcurrentHashMap<>();
+	private final Map<String, Set<Long>> reportNodeIdToThreadIds = new ConcurrentHashMap<>();
+	// Reverse index: the report nodes a thread is currently associated to
+	private final Map<Long, Set<String>> threadIdToReportNodeIds = new ConcurrentHashMap<>();
+	
+	private void addReportNodeToThread(long threadId, String reportNodeId) {
+		threadIdToReportNodeIds.compute(threadId, (k, reportNodeIds) -> {
+			if(reportNodeIds == null) {
+				reportNodeIds = ConcurrentHashMap.newKeySet();
+			}
+			reportNodeIds.add(reportNodeId);
+			return reportNodeIds;
+		});
+	}
+	
+	private void removeReportNodeFromThread(long threadId, String reportNodeId) {
+		threadIdToReportNodeIds.computeIfPresent(threadId, (k, reportNodeIds) -> {
+			reportNodeIds.remove(reportNodeId);
+			return reportNodeIds.isEmpty() ? null : reportNodeIds;
+		});
+	}
 	
 	public void beforeReportNodeExecution(ExecutionContext context, ReportNode node) {
 		// Associate the current thread ID to this report node
 		String reportNodeId = node.getId().toString();
 		long threadId = Thread.currentThread().getId();
-		List<Long> threads = reportNodeIdToThreadId.computeIfAbsent(reportNodeId, k->new CopyOnWriteArrayList<>());
-		threads.add(threadId);
+		reportNodeIdToThreadIds.compute(reportNodeId, (k, threadIds) -> {
+			if(threadIds == null) {
+				threadIds = ConcurrentHashMap.newKeySet();
+			}
+			threadIds.add(threadId);
+			return threadIds;
+		});
+		addReportNodeToThread(threadId, reportNodeId);
 	}
 
 	public void afterReportNodeExecution(ExecutionContext context, ReportNode node) {
-		// Remove the list of threads for this report node
+		// Remove the threads for this report node
 		String reportNodeId = node.getId().toString();
-		reportNodeIdToThreadId.remove(reportNodeId);
+		Set<Long> threadIds = reportNodeIdToThreadIds.remove(reportNodeId);
+		if(threadIds != null) {
+			threadIds.forEach(threadId -> removeReportNodeFromThread(threadId, reportNodeId));
+		}
 	}
 	
 	public List<Operation> getCurrentOperationsByReportNodeId(String reportNodeId) {
 		OperationManager operationManager = OperationManager.getInstance();
-		List<Long> threadIds = reportNodeIdToThreadId.get(reportNodeId);
+		Set<Long> threadIds = reportNodeIdToThreadIds.get(reportNodeId);
 		if(threadIds!=null) {
 			return threadIds.stream().map(threadId->operationManager.getOperation(threadId)).filter(o->o!=null).collect(Collectors.toList());
 		} else {
@@ -126,19 +176,23 @@ public class ThreadManager {
 	
 	public void unassociateThread(ExecutionContext context, Thread thread) {
 		Set<Thread> associatedThreads = getRegister(context);
-
-		synchronized(associatedThreads) {
+		if(associatedThreads != null) {
 			associatedThreads.remove(thread);
 		}
 		
 		long threadId = thread.getId();
-		reportNodeIdToThreadId.entrySet().forEach(e->e.getValue().remove(threadId));
+		Set<String> reportNodeIds = threadIdToReportNodeIds.remove(threadId);
+		if(reportNodeIds != null) {
+			reportNodeIds.forEach(reportNodeId -> reportNodeIdToThreadIds.computeIfPresent(reportNodeId, (k, threadIds) -> {
+				threadIds.remove(threadId);
+				return threadIds;
+			}));
+		}
 	}
 
 	public void beforeExecutionEnd(ExecutionContext context) {
 		Set<Thread> associatedThreads = getRegister(context);
-
-		synchronized(associatedThreads) {
+		if(associatedThreads != null) {
 			for(Thread thread:associatedThreads) {
 				if(matches(thread.getStackTrace())) {
 					thread.interrupt();
@@ -151,12 +205,10 @@ public class ThreadManager {
 		Set<Thread> associatedThreads = getRegister(context);
 		List<Operation> operations = new ArrayList<Operation>();
 		if(associatedThreads!=null) {
-			synchronized(associatedThreads) {
-				for(Thread thread:associatedThreads) {
-					Operation op = OperationManager.getInstance().getOperation(thread.getId());
-					if (op != null) {
-						operations.add(op);
-					}
+			for(Thread thread:associatedThreads) {
+				Operation op = OperationManager.getInstance().getOperation(thread.getId());
+				if (op != null) {
+					operations.add(op);
 				}
 			}
 		}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.views;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import step.artefacts.reports.CallFunctionReportNode;
+import step.artefacts.reports.TestCaseReportNode;
+import step.core.artefacts.reports.ReportNode;
+import step.core.reports.Error;
+
+/**
+ * Creates the copies of the report nodes that are passed to the views. As the
+ * view events are applied asynchronously, the views cannot read the live report
+ * nodes which keep being updated by the execution threads. The copies are taken
+ * when the event is enqueued and only carry the fields read by the views. The
+ * views filter the nodes by type: the copies of {@link CallFunctionReportNode}s
+ * and {@link TestCaseReportNode}s (and their subclasses) have these types, the
+ * other nodes are copied as plain {@link ReportNode}s. The copies aren't
+ * referenced anywhere else and are therefore never modified.
+ */
+class ReportNodeSnapshot {
+
+	static ReportNode of(ReportNode node) {
+		ReportNode snapshot;
+		if (node instanceof CallFunctionReportNode) {
+			snapshot = copyCallFunctionReportNode((CallFunctionReportNode) node);
+		} else if (node instanceof TestCaseReportNode) {
+			snapshot = new TestCaseReportNode();
+		} else {
+			snapshot = new ReportNode();
+		}
+		copyReportNode(node, snapshot);
+		return snapshot;
+	}
+
+	private static CallFunctionReportNode copyCallFunctionReportNode(CallFunctionReportNode node) {
+		CallFunctionReportNode snapshot = new CallFunctionReportNode();
+		Map<String, String> functionAttributes = node.getFunctionAttributes();
+		snapshot.setFunctionAttributes(functionAttributes != null ? new HashMap<>(functionAttributes) : null);
+		return snapshot;
+	}
+
+	private static void copyReportNode(ReportNode node, ReportNode snapshot) {
+		snapshot.setId(node.getId());
+		snapshot.setParentID(node.getParentID());
+		snapshot.setName(node.getName());
+		snapshot.setExecutionID(node.getExecutionID());
+		snapshot.setArtefactID(node.getArtefactID());
+		snapshot.setExecutionTime(node.getExecutionTime());
+		snapshot.setDuration(node.getDuration());
+		snapshot.setStatus(node.getStatus());
+		snapshot.setOrphan(node.isOrphan());
+		// The persistence flag of the resolved artefact is read by the views through persistNode()
+		snapshot.setResolvedArtefact(node.getResolvedArtefact());
+		Error error = node.getError();
+		if (error != null) {
+			// The message of the error is updated in place by ReportNode.addError()
+			Error errorCopy = new Error();
+			errorCopy.setType(error.getType());
+			errorCopy.setLayer(error.getLayer());
+			errorCopy.setMsg(error.getMsg());
+			errorCopy.setCode(error.getCode());
+			errorCopy.setRoot(error.isRoot());
+			snapshot.setError(errorCopy);
+		}
+	}
+}
@@ -39,6 +39,13 @@ public class ViewControllerPlugin extends AbstractControllerPlugin {
 		context.getServiceRegistrationCallback().registerService(ViewPluginServices.class);
 	}
 
+	@Override
+	public void serverStop(GlobalContext context) {
+		if(viewManager != null) {
+			viewManager.close();
+		}
+	}
+
 	@Override
 	public ExecutionEnginePlugin getExecutionEnginePlugin() {
 		return new ViewPlugin(viewManager);
@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.views;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Single-writer event queue of the views of one execution. The execution
+ * threads enqueue view events without locking and the events are applied
+ * to the view models in enqueue order by at most one worker at a time.
+ */
+class ViewEventQueue {
+
+	private static final Logger logger = LoggerFactory.getLogger(ViewEventQueue.class);
+
+	private final String executionId;
+	private final Executor executor;
+	private final Queue<Runnable> events = new ConcurrentLinkedQueue<>();
+	private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+	ViewEventQueue(String executionId, Executor executor) {
+		super();
+		this.executionId = executionId;
+		this.executor = executor;
+	}
+
+	void enqueue(Runnable event) {
+		events.add(event);
+		scheduleIfNeeded();
+	}
+
+	/**
+	 * Waits until all the events enqueued before this call have been applied
+	 * 
+	 * @param timeoutMs the maximum time to wait in ms
+	 * @return true if the events have been applied within the timeout
+	 */
+	boolean awaitApplied(long timeoutMs) {
+		CompletableFuture<Void> barrier = new CompletableFuture<>();
+		enqueue(() -> barrier.complete(null));
+		try {
+			barrier.get(timeoutMs, TimeUnit.MILLISECONDS);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} catch (ExecutionException | TimeoutException e) {
+			logger.warn("Timeout while waiting for the view events of execution " + executionId + " to be applied");
+			return false;
+		}
+	}
+
+	/**
+	 * Runs the provided reader on the worker once all the events enqueued before
+	 * this call have been applied
+	 * 
+	 * @param reader    the function to be run on the worker
+	 * @param timeoutMs the maximum time to wait in ms
+	 * @return the result of the reader
+	 * @throws TimeoutException if the reader couldn't be run within the timeout
+	 */
+	<T> T read(Supplier<T> reader, long timeoutMs) throws TimeoutException, InterruptedException {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		enqueue(() -> {
+			if (result.isCancelled()) {
+				// The caller isn't waiting anymore
+				return;
+			}
+			try {
+				result.complete(reader.get());
+			} catch (RuntimeException e) {
+				result.completeExceptionally(e);
+			}
+		});
+		try {
+			return result.get(timeoutMs, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			throw (RuntimeException) e.getCause();
+		} finally {
+			result.cancel(false);
+		}
+	}
+
+	private void scheduleIfNeeded() {
+		if (scheduled.compareAndSet(false, true)) {
+			executor.execute(this::drain);
+		}
+	}
+
+	private void drain() {
+		do {
+			Runnable event;
+			while ((event = events.poll()) != null) {
+				try {
+					event.run();
+				} catch (Exception e) {
+					logger.error("Error while applying view event for execution " + executionId, e);
+				}
+			}
+			scheduled.set(false);
+			// Events enqueued after the last poll but before the reset of the flag
+			// wouldn't be scheduled by their producer
+		} while (!events.isEmpty() && scheduled.compareAndSet(false, true));
+	}
+}
@@ -18,27 +18,54 @@
  ******************************************************************************/
 package step.plugins.views;
 
+import java.io.IOException;
 import java.util.Collection;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiConsumer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import step.core.accessors.DefaultJacksonMapperProvider;
 import step.core.artefacts.reports.ReportNode;
 import step.core.scanner.CachedAnnotationScanner;
 
+/**
+ * The view hooks are invoked by the execution threads. In order to avoid
+ * contention between the threads of an execution, the hooks only enqueue an
+ * event to the {@link ViewEventQueue} of the execution. The events carry a
+ * copy of the report node taken at hook time (see {@link ReportNodeSnapshot})
+ * and are applied asynchronously to the view models by a single worker per
+ * execution. The models of running executions are only accessed by this
+ * worker: queries are run on the worker once the pending events have been
+ * applied and return a copy of the model. At the end of the execution, the models are saved by the worker once all the
+ * pending events have been applied.
+ */
 public class ViewManager {
 
 	private static final Logger logger = LoggerFactory.getLogger(ViewManager.class);
 	
+	protected static final long CLOSE_BARRIER_TIMEOUT_MS = 60000;
+	protected static final long QUERY_BARRIER_TIMEOUT_MS = 5000;
+	
+	private final ObjectMapper objectMapper = DefaultJacksonMapperProvider.getObjectMapper();
+	
 	private final ConcurrentHashMap<String, AbstractView<ViewModel>> register = new ConcurrentHashMap<>();
+	private final ConcurrentHashMap<String, ViewEventQueue> eventQueues = new ConcurrentHashMap<>();
+	private final ExecutorService viewWorkers;
 	private ViewModelAccessor accessor;
 	
 	public ViewManager(ViewModelAccessor accessor) {
 		super();
 		this.accessor = accessor;
+		BasicThreadFactory factory = new BasicThreadFactory.Builder().namingPattern("view-worker-%d").daemon(true).build();
+		this.viewWorkers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), factory);
 		loadViews();
 	}
 
@@ -76,9 +103,26 @@ public class ViewManager {
 				logger.error("Error while initializing view "+view.getViewId(), e);
 			}
 		}
+		eventQueues.put(executionId, new ViewEventQueue(executionId, viewWorkers));
 	}
 
 	public void closeViewModelsForExecution(String executionId) {
+		ViewEventQueue eventQueue = eventQueues.get(executionId);
+		if (eventQueue != null) {
+			// Save the models on the worker after the pending events in order not to save models that are still being updated
+			eventQueue.enqueue(() -> {
+				eventQueues.remove(executionId);
+				saveAndRemoveViewModels(executionId);
+			});
+			if(!eventQueue.awaitApplied(CLOSE_BARRIER_TIMEOUT_MS)) {
+				logger.warn("The view models of execution " + executionId + " will be saved once the pending view events have been applied");
+			}
+		} else {
+			saveAndRemoveViewModels(executionId);
+		}
+	}
+
+	private void saveAndRemoveViewModels(String executionId) {
 		for(AbstractView<?> view:getViews()) {
 			try {
 				ViewModel model = view.removeModel(executionId);
@@ -94,27 +138,38 @@ public class ViewManager {
 	}
 	
 	public void afterReportNodeSkeletonCreation(ReportNode node) {
-		invokeViewHooks(node, (model, view)->view.afterReportNodeSkeletonCreation(model, node));
+		invokeViewHooks(node, AbstractView::afterReportNodeSkeletonCreation);
 	}
 
 	public void beforeReportNodeExecution(ReportNode node) {
-		invokeViewHooks(node, (model, view)->view.beforeReportNodeExecution(model, node));
+		invokeViewHooks(node, AbstractView::beforeReportNodeExecution);
 	}
 
 	public void afterReportNodeExecution(ReportNode node) {
-		invokeViewHooks(node, (model, view)->view.afterReportNodeExecution(model, node));
+		invokeViewHooks(node, AbstractView::afterReportNodeExecution);
 	}
 	
 	public void rollbackReportNode(ReportNode node) {
-		invokeViewHooks(node, (model, view)->view.rollbackReportNode(model, node));
+		invokeViewHooks(node, AbstractView::rollbackReportNode);
 	}
 	
-	private void invokeViewHooks(ReportNode node, BiConsumer<ViewModel, AbstractView<ViewModel>> consumer) {
+	private void invokeViewHooks(ReportNode node, ViewHook hook) {
+		String executionId = node.getExecutionID();
+		ViewEventQueue eventQueue = eventQueues.get(executionId);
+		// the queue is null if the view models of this execution haven't been created or have already been closed
+		if(eventQueue != null) {
+			// The views are applied later on: pass them the state of the node at hook time
+			ReportNode snapshot = ReportNodeSnapshot.of(node);
+			eventQueue.enqueue(() -> applyViewHooks(executionId, snapshot, hook));
+		}
+	}
+
+	private void applyViewHooks(String executionId, ReportNode node, ViewHook hook) {
 		for(AbstractView<ViewModel> view:getViews()) {
-			ViewModel model = view.getModel(node.getExecutionID());
-			synchronized (model) {
+			ViewModel model = view.getModel(executionId);
+			if(model != null) {
 				try {
-					consumer.accept(model, view);
+					hook.apply(view, model, node);
 				} catch(Exception e) {
 					logger.error("Error while invoking view "+view.getViewId()+" for node "+node.toString(), e);
 				}
@@ -135,10 +190,42 @@ public class ViewManager {
 					return view.init();
 				}
 			} else {
-				return model;
+				ViewEventQueue eventQueue = eventQueues.get(executionId);
+				if(eventQueue != null) {
+					// The model is being updated by the worker of the execution: copy it on the worker once the pending events have been applied
+					ViewModel liveModel = model;
+					try {
+						return eventQueue.read(() -> copy(liveModel), QUERY_BARRIER_TIMEOUT_MS);
+					} catch (TimeoutException e) {
+						throw new RuntimeException("Timeout while waiting for the view events of execution "+executionId+" to be applied");
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RuntimeException("Interrupted while querying view "+viewId+" of execution "+executionId);
+					}
+				} else {
+					// The execution has been closed in the meantime: all the events have been applied
+					return copy(model);
+				}
 			}
 		} else {
 			throw new RuntimeException("Invalid view id: "+ viewId);
 		}
 	}
+
+	private ViewModel copy(ViewModel model) {
+		try {
+			return objectMapper.readValue(objectMapper.writeValueAsBytes(model), ViewModel.class);
+		} catch (IOException e) {
+			throw new RuntimeException("Error while copying view model "+model.getViewId(), e);
+		}
+	}
+
+	public void close() {
+		viewWorkers.shutdown();
+	}
+
+	private interface ViewHook {
+
+		void apply(AbstractView<ViewModel> view, ViewModel model, ReportNode node);
+	}
 }
@@ -282,6 +282,107 @@ public class QuotaManagerTest {
 		Assert.assertEquals(1, status.get(0).getEntries().get(0).getPeak());
 	}
 	
+	@Test
+	public void testIdleSemaphoreEviction() throws Exception {
+		QuotaManagerConfig config = new QuotaManagerConfig("testManager");
+		config.setSemaphoreIdleTimeoutMs(0L);
+		Quota quota = new Quota();
+		quota.setPermits(1);
+		quota.setQuotaKeyFunction("key");
+		List<Quota> quotas = new ArrayList<>();
+		quotas.add(quota);
+		config.setQuotas(quotas);
+		
+		QuotaManager manager = new QuotaManager(config);
+		List<UUID> ids = new ArrayList<>();
+		for(int i=0;i<100;i++) {
+			HashMap<String, Object> bindings = new HashMap<>();
+			bindings.put("key", "key"+i);
+			ids.add(manager.acquirePermit(bindings));
+		}
+		// semaphores of held permits are never evicted
+		Assert.assertEquals(100, manager.getStatus().get(0).getEntries().size());
+		Assert.assertEquals(1, manager.getStatus().get(0).getEntries().get(0).getUsage());
+		
+		for(UUID id:ids) {
+			manager.releasePermit(id);
+		}
+		Assert.assertEquals(0, manager.getStatus().get(0).getEntries().size());
+		
+		// evicted keys can be acquired again
+		HashMap<String, Object> bindings = new HashMap<>();
+		bindings.put("key", "key1");
+		UUID id = manager.acquirePermit(bindings);
+		Assert.assertEquals(1, manager.getStatus().get(0).getEntries().size());
+		manager.releasePermit(id);
+	}
+	
+	@Test
+	public void testQuotaHandlerIndex() throws Exception {
+		List<QuotaHandler> handlers = new ArrayList<>();
+		String[] keyFunctions = new String[] {"(key=='key1')?key:null", "user", "(key=='key2')?key:null", "(type == \"keyword\") ? user : null"};
+		for(String keyFunction:keyFunctions) {
+			Quota quota = new Quota();
+			quota.setPermits(1);
+			quota.setQuotaKeyFunction(keyFunction);
+			handlers.add(new QuotaHandler(quota));
+		}
+		Assert.assertEquals("key", handlers.get(0).getKeyFunction().getGuardVariable());
+		Assert.assertEquals("key1", handlers.get(0).getKeyFunction().getGuardValue());
+		Assert.assertNull(handlers.get(1).getKeyFunction().getGuardVariable());
+		Assert.assertEquals("type", handlers.get(3).getKeyFunction().getGuardVariable());
+		
+		QuotaHandlerIndex index = new QuotaHandlerIndex(handlers);
+		HashMap<String, Object> bindings = new HashMap<>();
+		bindings.put("key", "key2");
+		bindings.put("type", "keyword");
+		bindings.put("user", "user1");
+		Assert.assertEquals(List.of(handlers.get(1), handlers.get(2), handlers.get(3)), index.getCandidates(bindings));
+		
+		// the key functions of the skipped handlers would have returned null
+		Assert.assertNull(handlers.get(0).computeQuotaKey(bindings));
+		Assert.assertEquals("user1", handlers.get(1).computeQuotaKey(bindings));
+		Assert.assertEquals("key2", handlers.get(2).computeQuotaKey(bindings));
+		Assert.assertEquals("user1", handlers.get(3).computeQuotaKey(bindings));
+		
+		// handlers guarded by a missing variable aren't skipped
+		bindings.remove("type");
+		Assert.assertEquals(List.of(handlers.get(1), handlers.get(2), handlers.get(3)), index.getCandidates(bindings));
+		
+		bindings.put("key", "other");
+		bindings.put("type", "other");
+		Assert.assertEquals(List.of(handlers.get(1)), index.getCandidates(bindings));
+	}
+	
+	@Test
+	public void testWaitTimeHistogram() throws Exception {
+		QuotaManagerConfig config = new QuotaManagerConfig("testManager");
+		Quota quota = new Quota();
+		quota.setPermits(1);
+		quota.setAcquireTimeoutMs(50);
+		quota.setQuotaKeyFunction("key");
+		List<Quota> quotas = new ArrayList<>();
+		quotas.add(quota);
+		config.setQuotas(quotas);
+		
+		HashMap<String, Object> bindings = new HashMap<>();
+		bindings.put("key", "key1");
+		
+		QuotaManager manager = new QuotaManager(config);
+		UUID id = manager.acquirePermit(bindings);
+		try {
+			manager.acquirePermit(bindings);
+			Assert.fail();
+		} catch (TimeoutException e) {
+		}
+		manager.releasePermit(id);
+		
+		QuotaHandlerStatus status = manager.getStatus().get(0);
+		Assert.assertEquals(2, status.getWaitTimeHistogram().values().stream().mapToLong(Long::longValue).sum());
+		Assert.assertEquals(1, (long) status.getWaitTimeHistogram().get("<100ms"));
+		Assert.assertTrue(status.getTotalWaitTimeMs() >= 50);
+	}
+	
 	@Test
 	public void testConfigParser() throws Exception {
 		QuotaManagerConfig config = new QuotaManagerConfig("testManager");
@@ -4,11 +4,14 @@ import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import step.controller.services.async.AsyncTaskHandle;
 import step.controller.services.async.AsyncTaskStatus;
+import step.core.collections.Filters;
 import step.core.collections.inmemory.InMemoryCollection;
 import step.core.entities.SimpleBean;
 import step.core.objectenricher.ObjectHookRegistry;
 import step.framework.server.tables.Table;
 import step.framework.server.tables.TableRegistry;
+import step.framework.server.tables.service.Sort;
+import step.framework.server.tables.service.SortDirection;
 import step.framework.server.tables.service.TableRequest;
 import step.framework.server.tables.service.TableService;
 import step.resources.LocalResourceManagerImpl;
@@ -16,6 +19,7 @@ import step.resources.Resource;
 import step.resources.ResourceRevisionFileHandle;
 
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.List;
 
 class TableExportRunnableTest {
@@ -27,15 +31,98 @@ class TableExportRunnableTest {
         collection.save(new SimpleBean("property 1"));
         collection.save(new SimpleBean("property 2"));
         tableRegistry.register("test", new Table<>(collection, null, false));
-        TableService tableService = new TableService(tableRegistry, new ObjectHookRegistry(), null);
         TableExportRequest exportRequest = new TableExportRequest();
         exportRequest.setTableRequest(new TableRequest());
         exportRequest.setFields(List.of("stringProperty"));
         LocalResourceManagerImpl resourceManager = new LocalResourceManagerImpl();
-        TableExportTask exportRunnable = new TableExportTask(tableService, resourceManager, "test", exportRequest, null);
+        TableExportTask exportRunnable = new TableExportTask(new TableService(tableRegistry, new ObjectHookRegistry(), null), tableRegistry, resourceManager, "test", exportRequest, null);
         Resource resource = exportRunnable.apply(new AsyncTaskHandle(new AsyncTaskStatus<>()));
         ResourceRevisionFileHandle resourceFile = resourceManager.getResourceFile(resource.getId().toString());
         List<String> allLines = Files.readAllLines(resourceFile.getResourceFile().toPath());
         Assertions.assertEquals(List.of("stringProperty;", "property 1;", "property 2;"), allLines);
     }
-}
\ No newline at end of file
+
+    @Test
+    void runExportWithTableFiltersAndEnricher() throws Exception {
+        TableRegistry tableRegistry = new TableRegistry();
+        InMemoryCollection<SimpleBean> collection = new InMemoryCollection<>();
+        for (int i = 0; i < 10; i++) {
+            collection.save(new SimpleBean("property " + i));
+        }
+        // The export applies the filters and the enricher of the table like the table requests
+        tableRegistry.register("test", new Table<>(collection, null, false)
+                .withTableFiltersFactory(p -> Filters.in("stringProperty", List.of("property 3", "property 7")))
+                .withResultItemEnricher(b -> {
+                    b.setStringProperty(b.getStringProperty() + " enriched");
+                    return b;
+                }));
+        TableExportRequest exportRequest = new TableExportRequest();
+        exportRequest.setTableRequest(new TableRequest());
+        exportRequest.setFields(List.of("stringProperty"));
+        LocalResourceManagerImpl resourceManager = new LocalResourceManagerImpl();
+        TableExportTask exportRunnable = new TableExportTask(new TableService(tableRegistry, new ObjectHookRegistry(), null), tableRegistry, resourceManager, "test", exportRequest, null);
+        Resource resource = exportRunnable.apply(new AsyncTaskHandle(new AsyncTaskStatus<>()));
+        ResourceRevisionFileHandle resourceFile = resourceManager.getResourceFile(resource.getId().toString());
+        List<String> allLines = Files.readAllLines(resourceFile.getResourceFile().toPath());
+        Assertions.assertEquals(List.of("stringProperty;", "property 3 enriched;", "property 7 enriched;"), allLines);
+    }
+
+    @Test
+    void runLargeExport() throws Exception {
+        TableRegistry tableRegistry = new TableRegistry();
+        InMemoryCollection<SimpleBean> collection = new InMemoryCollection<>();
+        int count = TableExportTask.PROGRESS_UPDATE_INTERVAL * 2 + 500;
+        List<String> expectedRows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            collection.save(new SimpleBean("property " + i));
+            expectedRows.add("property " + i + ";;false;");
+        }
+        tableRegistry.register("test", new Table<>(collection, null, false));
+        TableExportRequest exportRequest = new TableExportRequest();
+        exportRequest.setTableRequest(new TableRequest());
+        // Missing and nested properties
+        exportRequest.setFields(List.of("stringProperty", "missingProperty", "stringProperty.empty"));
+        LocalResourceManagerImpl resourceManager = new LocalResourceManagerImpl();
+        TableExportTask exportRunnable = new TableExportTask(new TableService(tableRegistry, new ObjectHookRegistry(), null), tableRegistry, resourceManager, "test", exportRequest, null);
+        AsyncTaskStatus<Resource> status = new AsyncTaskStatus<>();
+        Resource resource = exportRunnable.apply(new AsyncTaskHandle(status));
+        ResourceRevisionFileHandle resourceFile = resourceManager.getResourceFile(resource.getId().toString());
+        List<String> allLines = Files.readAllLines(resourceFile.getResourceFile().toPath());
+        Assertions.assertEquals("stringProperty;missingProperty;stringProperty.empty;", allLines.get(0));
+        // Each row is exported once in the order of the collection
+        Assertions.assertEquals(expectedRows, allLines.subList(1, allLines.size()));
+        Assertions.assertEquals(1f, status.getProgress());
+    }
+
+    @Test
+    void runSortedExportWithSkipAndLimit() throws Exception {
+        TableRegistry tableRegistry = new TableRegistry();
+        InMemoryCollection<SimpleBean> collection = new InMemoryCollection<>();
+        for (int i = 0; i < 100; i++) {
+            collection.save(new SimpleBean(String.format("property %03d", i)));
+        }
+        tableRegistry.register("test", new Table<>(collection, null, false));
+        TableRequest tableRequest = new TableRequest();
+        Sort sort = new Sort();
+        sort.setField("stringProperty");
+        sort.setDirection(SortDirection.DESCENDING);
+        tableRequest.setSort(sort);
+        tableRequest.setSkip(10);
+        tableRequest.setLimit(20);
+        TableExportRequest exportRequest = new TableExportRequest();
+        exportRequest.setTableRequest(tableRequest);
+        exportRequest.setFields(List.of("stringProperty"));
+        LocalResourceManagerImpl resourceManager = new LocalResourceManagerImpl();
+        TableExportTask exportRunnable = new TableExportTask(new TableService(tableRegistry, new ObjectHookRegistry(), null), tableRegistry, resourceManager, "test", exportRequest, null);
+        AsyncTaskStatus<Resource> status = new AsyncTaskStatus<>();
+        Resource resource = exportRunnable.apply(new AsyncTaskHandle(status));
+        ResourceRevisionFileHandle resourceFile = resourceManager.getResourceFile(resource.getId().toString());
+        List<String> allLines = Files.readAllLines(resourceFile.getResourceFile().toPath());
+        List<String> expectedRows = new ArrayList<>();
+        for (int i = 89; i >= 70; i--) {
+            expectedRows.add(String.format("property %03d;", i));
+        }
+        Assertions.assertEquals(expectedRows, allLines.subList(1, allLines.size()));
+        Assertions.assertEquals(1f, status.getProgress());
+    }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.threadmanager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import step.common.managedoperations.Operation;
+import step.common.managedoperations.OperationManager;
+import step.core.artefacts.reports.ReportNode;
+import step.core.execution.ExecutionContext;
+import step.core.execution.ExecutionEngine;
+
+public class ThreadManagerTest {
+
+	@Test
+	public void testOperationsByReportNode() throws Exception {
+		ThreadManager threadManager = new ThreadManager();
+		ExecutionContext context = ExecutionEngine.builder().build().newExecutionContext();
+
+		ReportNode parentNode = newReportNode();
+		ReportNode childNode = newReportNode();
+		threadManager.beforeReportNodeExecution(context, parentNode);
+		threadManager.beforeReportNodeExecution(context, childNode);
+
+		CountDownLatch operationStarted = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread thread = new Thread(() -> {
+			OperationManager.getInstance().enter("MyOperation", null);
+			operationStarted.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+			} finally {
+				OperationManager.getInstance().exit();
+			}
+		});
+		thread.start();
+		try {
+			// The child thread inherits all the report nodes of its parent thread
+			threadManager.associateThread(context, thread, Thread.currentThread().getId());
+			assertTrue(operationStarted.await(10, TimeUnit.SECONDS));
+
+			assertOperation(threadManager.getCurrentOperationsByReportNodeId(parentNode.getId().toString()));
+			assertOperation(threadManager.getCurrentOperationsByReportNodeId(childNode.getId().toString()));
+			assertOperation(threadManager.getCurrentOperations(context));
+
+			threadManager.afterReportNodeExecution(context, childNode);
+			assertTrue(threadManager.getCurrentOperationsByReportNodeId(childNode.getId().toString()).isEmpty());
+			assertOperation(threadManager.getCurrentOperationsByReportNodeId(parentNode.getId().toString()));
+
+			threadManager.unassociateThread(context, thread);
+			assertTrue(threadManager.getCurrentOperationsByReportNodeId(parentNode.getId().toString()).isEmpty());
+			assertTrue(threadManager.getCurrentOperations(context).isEmpty());
+		} finally {
+			release.countDown();
+			thread.join();
+		}
+		threadManager.afterReportNodeExecution(context, parentNode);
+	}
+
+	@Test
+	public void testBeforeExecutionEnd() throws Exception {
+		ThreadManager threadManager = new ThreadManager();
+		threadManager.registerPattern(Pattern.compile(".*\\.waitUntilInterrupted$"));
+		ExecutionContext context = ExecutionEngine.builder().build().newExecutionContext();
+
+		CountDownLatch started = new CountDownLatch(1);
+		Thread matchingThread = new Thread(() -> waitUntilInterrupted(started));
+		matchingThread.start();
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		threadManager.associateThread(context, matchingThread);
+
+		threadManager.beforeExecutionEnd(context);
+		matchingThread.join(10000);
+		assertFalse(matchingThread.isAlive());
+	}
+
+	private static void waitUntilInterrupted(CountDownLatch started) {
+		started.countDown();
+		try {
+			Thread.sleep(Long.MAX_VALUE);
+		} catch (InterruptedException e) {
+		}
+	}
+
+	private static ReportNode newReportNode() {
+		ReportNode node = new ReportNode();
+		node.setId(new ObjectId());
+		return node;
+	}
+
+	private static void assertOperation(List<Operation> operations) {
+		assertEquals(1, operations.size());
+		assertEquals("MyOperation", operations.get(0).getName());
+	}
+}
@@ -0,0 +1,129 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.views;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import step.artefacts.CallFunction;
+import step.artefacts.reports.CallFunctionReportNode;
+import step.core.artefacts.reports.ReportNode;
+import step.core.artefacts.reports.ReportNodeStatus;
+import step.plugins.views.functions.ErrorDistribution;
+import step.plugins.views.functions.ReportNodeStatusDistribution;
+
+public class ViewManagerTest {
+
+	private static final String VIEW_ID = "statusDistributionForFunctionCalls";
+
+	@Test
+	public void testConcurrentViewHooks() throws InterruptedException {
+		InMemoryViewModelAccessor accessor = new InMemoryViewModelAccessor();
+		ViewManager viewManager = new ViewManager(accessor);
+		try {
+			String executionId = "execution1";
+			viewManager.createViewModelsForExecution(executionId);
+
+			int threadCount = 10;
+			int nodeCount = 1000;
+			List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < threadCount; t++) {
+				Thread thread = new Thread(() -> {
+					for (int i = 0; i < nodeCount; i++) {
+						ReportNode node = newCallFunctionReportNode(executionId);
+						viewManager.afterReportNodeSkeletonCreation(node);
+						viewManager.beforeReportNodeExecution(node);
+						viewManager.afterReportNodeExecution(node);
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+
+			// The events are applied asynchronously but the query waits for the events enqueued before it
+			ReportNodeStatusDistribution distribution = (ReportNodeStatusDistribution) viewManager.queryView(VIEW_ID, executionId);
+			assertEquals(threadCount * nodeCount, distribution.getCount());
+			assertEquals(threadCount * nodeCount, distribution.getDistribution().get(ReportNodeStatus.PASSED).getCount());
+
+			ReportNode node = newCallFunctionReportNode(executionId);
+			viewManager.afterReportNodeExecution(node);
+			assertEquals(threadCount * nodeCount + 1, ((ReportNodeStatusDistribution) viewManager.queryView(VIEW_ID, executionId)).getCount());
+			// The result of a query is a copy which isn't updated by the subsequent events
+			assertEquals(threadCount * nodeCount, distribution.getCount());
+			viewManager.closeViewModelsForExecution(executionId);
+
+			// The pending events have to be drained before the models are persisted
+			ReportNodeStatusDistribution savedDistribution = accessor.get(VIEW_ID, executionId, ReportNodeStatusDistribution.class);
+			assertEquals(threadCount * nodeCount + 1, savedDistribution.getCount());
+
+			// Hooks invoked after the end of the execution are ignored
+			viewManager.afterReportNodeExecution(newCallFunctionReportNode(executionId));
+			savedDistribution = (ReportNodeStatusDistribution) viewManager.queryView(VIEW_ID, executionId);
+			assertEquals(threadCount * nodeCount + 1, savedDistribution.getCount());
+		} finally {
+			viewManager.close();
+		}
+	}
+
+	@Test
+	public void testNodeStateAtHookTime() {
+		InMemoryViewModelAccessor accessor = new InMemoryViewModelAccessor();
+		ViewManager viewManager = new ViewManager(accessor);
+		try {
+			String executionId = "execution2";
+			viewManager.createViewModelsForExecution(executionId);
+
+			for (int i = 0; i < 100; i++) {
+				ReportNode node = newCallFunctionReportNode(executionId);
+				node.addError("error");
+				viewManager.afterReportNodeExecution(node);
+				// Changes made to the node after the hook shouldn't be seen by the views
+				node.setStatus(ReportNodeStatus.FAILED);
+				node.addError("other error");
+			}
+			viewManager.closeViewModelsForExecution(executionId);
+
+			ReportNodeStatusDistribution distribution = accessor.get(VIEW_ID, executionId, ReportNodeStatusDistribution.class);
+			assertEquals(100, distribution.getDistribution().get(ReportNodeStatus.PASSED).getCount());
+			assertEquals(0, distribution.getDistribution().get(ReportNodeStatus.FAILED).getCount());
+			ErrorDistribution errorDistribution = accessor.get("errorDistribution", executionId, ErrorDistribution.class);
+			assertEquals(Integer.valueOf(100), errorDistribution.getCountByErrorMsg().get("error"));
+		} finally {
+			viewManager.close();
+		}
+	}
+
+	private ReportNode newCallFunctionReportNode(String executionId) {
+		ReportNode node = new CallFunctionReportNode();
+		CallFunction callFunction = new CallFunction();
+		node.setArtefactInstance(callFunction);
+		node.setResolvedArtefact(callFunction);
+		node.setExecutionID(executionId);
+		node.setStatus(ReportNodeStatus.PASSED);
+		node.setDuration(1);
+		return node;
+	}
+}
@@ -22,13 +22,14 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.TimeoutException;
 
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.client.Entity;
 import jakarta.ws.rs.client.Invocation.Builder;
 import jakarta.ws.rs.core.MediaType;
 
 import step.client.AbstractRemoteClient;
+import step.client.ControllerClientException;
 import step.client.credentials.ControllerCredentials;
-import ch.exense.commons.io.Poller;
 import step.core.artefacts.reports.ReportNode;
 import step.core.artefacts.reports.ReportNodeStatus;
 import step.core.execution.model.Execution;
@@ -43,6 +44,14 @@ import step.core.repositories.RepositoryObjectReference;
  */
 public class RemoteExecutionManager extends AbstractRemoteClient {
 	
+	// Maximum wait time of each status long polling request
+	protected static final long STATUS_WAIT_TIMEOUT_MS = 30000;
+	protected static final long MIN_POLLING_INTERVAL_MS = 100;
+	protected static final long MAX_POLLING_INTERVAL_MS = 5000;
+	
+	// Set to false as soon as the controller doesn't provide the status long polling endpoint
+	private volatile boolean statusWaitSupported = true;
+	
 	public RemoteExecutionManager() {
 		super();
 	}
@@ -148,17 +157,84 @@ public class RemoteExecutionManager extends AbstractRemoteClient {
 	}
 	
 	/**
-	 * Waits for an execution to terminate
+	 * Waits until the status of an execution differs from the provided one or
+	 * the execution ended. The controller holds the request until the status
+	 * changes or the timeout elapses
+	 * 
+	 * @param executionId the ID of the execution
+	 * @param knownStatus the status of the execution known by the caller. If
+	 *                    null, the current execution is returned immediately
+	 * @param timeout     the maximum time to wait in ms (bounded by the controller)
+	 * @return the {@link Execution} after the status change or its current state
+	 *         after the timeout
+	 */
+	public Execution waitForStatusChange(String executionId, ExecutionStatus knownStatus, long timeout) {
+		Map<String, String> queryParams = new HashMap<>();
+		if(knownStatus != null) {
+			queryParams.put("status", knownStatus.name());
+		}
+		queryParams.put("timeout", Long.toString(timeout));
+		Builder b = requestBuilder("/rest/executions/"+executionId+"/status/wait", queryParams);
+		return executeRequest(()->b.get(Execution.class));
+	}
+	
+	/**
+	 * Waits for an execution to terminate. The status transitions are awaited
+	 * using long polling. For controllers that don't support it, the execution
+	 * is polled with an increasing interval
 	 * 
 	 * @param executionID 
 	 * @param timeout the timeout in ms
-	 * @return 
+	 * @return the ended {@link Execution}
 	 * @throws TimeoutException
 	 * @throws InterruptedException
 	 */
 	public Execution waitForTermination(String executionID, long timeout) throws TimeoutException, InterruptedException {
-		Poller.waitFor(()->get(executionID).getStatus().equals(ExecutionStatus.ENDED), timeout);
-		return get(executionID);
+		long deadline = System.currentTimeMillis() + timeout;
+		ExecutionStatus knownStatus = null;
+		while(statusWaitSupported) {
+			long remaining = Math.max(deadline - System.currentTimeMillis(), 0);
+			Execution execution;
+			try {
+				execution = waitForStatusChange(executionID, knownStatus, Math.min(remaining, STATUS_WAIT_TIMEOUT_MS));
+			} catch(ControllerClientException e) {
+				if(e.getCause() instanceof NotFoundException) {
+					statusWaitSupported = false;
+					break;
+				} else {
+					throw e;
+				}
+			}
+			if(execution == null) {
+				// The execution might not be persisted yet. Poll it
+				break;
+			} else if(execution.getStatus() == ExecutionStatus.ENDED) {
+				return execution;
+			} else if(System.currentTimeMillis() >= deadline) {
+				throw new TimeoutException("Timeout while waiting for the termination of the execution " + executionID);
+			}
+			knownStatus = execution.getStatus();
+			if(Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+		return pollForTermination(executionID, deadline);
+	}
+
+	private Execution pollForTermination(String executionID, long deadline) throws TimeoutException, InterruptedException {
+		long interval = MIN_POLLING_INTERVAL_MS;
+		while(true) {
+			Execution execution = get(executionID);
+			if(execution != null && execution.getStatus() == ExecutionStatus.ENDED) {
+				return execution;
+			}
+			long remaining = deadline - System.currentTimeMillis();
+			if(remaining <= 0) {
+				throw new TimeoutException("Timeout while waiting for the termination of the execution " + executionID);
+			}
+			Thread.sleep(Math.min(interval, remaining));
+			interval = Math.min(interval * 2, MAX_POLLING_INTERVAL_MS);
+		}
 	}
 	
 	/**
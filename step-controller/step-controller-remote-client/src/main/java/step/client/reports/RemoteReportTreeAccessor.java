@@ -18,10 +18,15 @@
  ******************************************************************************/
 package step.client.reports;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
 
 import jakarta.ws.rs.client.Invocation.Builder;
 import jakarta.ws.rs.core.GenericType;
@@ -35,12 +40,26 @@ import step.core.artefacts.reports.ReportTreeAccessor;
 
 public class RemoteReportTreeAccessor extends AbstractRemoteClient implements ReportTreeAccessor {
 
+	private static final int DEFAULT_REPORT_NODES_BATCH_SIZE = 1000;
+
+	private final int reportNodesBatchSize;
+
 	public RemoteReportTreeAccessor(ControllerCredentials credentials) {
+		this(credentials, DEFAULT_REPORT_NODES_BATCH_SIZE);
+	}
+
+	/**
+	 * @param credentials          the credentials of the controller
+	 * @param reportNodesBatchSize the number of report nodes fetched per request when loading all the report nodes of an execution
+	 */
+	public RemoteReportTreeAccessor(ControllerCredentials credentials, int reportNodesBatchSize) {
 		super(credentials);
+		this.reportNodesBatchSize = reportNodesBatchSize;
 	}
 	
 	public RemoteReportTreeAccessor(){
 		super();
+		this.reportNodesBatchSize = DEFAULT_REPORT_NODES_BATCH_SIZE;
 	}
 
 	@Override
@@ -60,6 +79,46 @@ public class RemoteReportTreeAccessor extends AbstractRemoteClient implements Re
 		return skipLimitIterator;			
 	}
 
+	@Override
+	public Iterator<ReportNode> getReportNodesByExecutionID(String executionID) {
+		// The execution time isn't unique. The nodes are therefore paged starting from the execution time
+		// of the last returned node and excluding the nodes already returned for this execution time
+		List<ReportNode> result = new ArrayList<>();
+		Set<ObjectId> returnedIDs = new HashSet<>();
+		Long fromExecutionTime = null;
+		List<String> lastExecutionTimeIDs = new ArrayList<>();
+		List<ReportNode> batch;
+		do {
+			batch = getReportNodesBatch(executionID, fromExecutionTime, lastExecutionTimeIDs);
+			for (ReportNode node : batch) {
+				if (!returnedIDs.add(node.getId())) {
+					// Older controllers ignore the paging parameters and return the first nodes again.
+					// Bulk loading isn't supported in that case and the children are queried per node
+					return null;
+				}
+				if (fromExecutionTime == null || node.getExecutionTime() != fromExecutionTime) {
+					fromExecutionTime = node.getExecutionTime();
+					lastExecutionTimeIDs.clear();
+				}
+				lastExecutionTimeIDs.add(node.getId().toString());
+				result.add(node);
+			}
+		} while (batch.size() >= reportNodesBatchSize);
+		return result.iterator();
+	}
+
+	private List<ReportNode> getReportNodesBatch(String executionID, Long fromExecutionTime, List<String> excludedIDs) {
+		Map<String, String> queryParams = new HashMap<>();
+		if (fromExecutionTime != null) {
+			queryParams.put("from", Long.toString(fromExecutionTime));
+			queryParams.put("exclude", String.join(",", excludedIDs));
+		}
+		queryParams.put("limit", Integer.toString(reportNodesBatchSize));
+		GenericType<List<ReportNode>> genericEntity = new GenericType<List<ReportNode>>() {};
+		Builder b = requestBuilder("/rest/executions/"+executionID+"/reportnodes", queryParams);
+		return executeRequest(()->b.get(genericEntity));
+	}
+
 	@Override
 	public ReportNode get(String id) {
 		Builder b = requestBuilder("/rest/controller/reportnode/"+id);
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.client.executions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import step.client.credentials.ControllerCredentials;
+import step.core.accessors.DefaultJacksonMapperProvider;
+import step.core.execution.model.Execution;
+import step.core.execution.model.ExecutionStatus;
+
+public class RemoteExecutionManagerTest {
+
+	private final ObjectMapper objectMapper = DefaultJacksonMapperProvider.getObjectMapper();
+
+	private HttpServer server;
+	private RemoteExecutionManager executionManager;
+	private Execution execution;
+	private String executionId;
+
+	// The statuses successively returned by the status wait endpoint. Null if the endpoint isn't supported
+	private Queue<ExecutionStatus> waitStatuses;
+	// The statuses successively returned by the execution endpoint
+	private Queue<ExecutionStatus> getStatuses;
+	// The status query parameter of each status wait request
+	private final List<String> waitRequests = new ArrayList<>();
+	private int getRequestCount;
+
+	@Before
+	public void before() throws IOException {
+		execution = new Execution();
+		execution.setStartTime(System.currentTimeMillis());
+		executionId = execution.getId().toString();
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/rest/executions/" + executionId + "/status/wait", this::handleStatusWait);
+		server.createContext("/rest/executions/" + executionId, exchange -> {
+			getRequestCount++;
+			respond(exchange, getStatuses.size() > 1 ? getStatuses.poll() : getStatuses.peek());
+		});
+		server.start();
+		executionManager = new RemoteExecutionManager(new ControllerCredentials("http://localhost:" + server.getAddress().getPort(), null));
+	}
+
+	@After
+	public void after() throws IOException {
+		executionManager.close();
+		server.stop(0);
+	}
+
+	private void handleStatusWait(HttpExchange exchange) throws IOException {
+		Map<String, String> queryParams = new HashMap<>();
+		for (String param : exchange.getRequestURI().getQuery().split("&")) {
+			String[] keyValue = param.split("=");
+			queryParams.put(keyValue[0], keyValue[1]);
+		}
+		String status = queryParams.get("status");
+		waitRequests.add(status);
+		if (waitStatuses == null) {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+			return;
+		}
+		ExecutionStatus nextStatus = waitStatuses.size() > 1 ? waitStatuses.poll() : waitStatuses.peek();
+		if (nextStatus.name().equals(status)) {
+			// Simulate the wait of the controller until the timeout
+			try {
+				Thread.sleep(Long.parseLong(queryParams.get("timeout")));
+			} catch (InterruptedException e) {
+				throw new IOException(e);
+			}
+		}
+		respond(exchange, nextStatus);
+	}
+
+	private void respond(HttpExchange exchange, ExecutionStatus status) throws IOException {
+		execution.setStatus(status);
+		byte[] response = objectMapper.writeValueAsString(execution).getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(response);
+		}
+	}
+
+	@Test
+	public void testWaitForTermination() throws Exception {
+		waitStatuses = new LinkedList<>(List.of(ExecutionStatus.INITIALIZING, ExecutionStatus.RUNNING, ExecutionStatus.ENDED));
+
+		Execution result = executionManager.waitForTermination(executionId, 10000);
+		assertEquals(ExecutionStatus.ENDED, result.getStatus());
+		// Each request passes the last known status
+		assertEquals(Arrays.asList(null, "INITIALIZING", "RUNNING"), waitRequests);
+		assertEquals(0, getRequestCount);
+	}
+
+	@Test
+	public void testWaitForTerminationTimeout() throws Exception {
+		waitStatuses = new LinkedList<>(List.of(ExecutionStatus.RUNNING));
+
+		long t1 = System.currentTimeMillis();
+		assertThrows(TimeoutException.class, () -> executionManager.waitForTermination(executionId, 500));
+		assertTrue(System.currentTimeMillis() - t1 >= 500);
+		// The subsequent requests wait on the controller side until the timeout
+		assertNull(waitRequests.get(0));
+		assertTrue(waitRequests.subList(1, waitRequests.size()).stream().allMatch("RUNNING"::equals));
+		assertTrue(waitRequests.size() <= 2);
+		assertEquals(0, getRequestCount);
+	}
+
+	@Test
+	public void testWaitForTerminationWithoutStatusWait() throws Exception {
+		// Controllers without the status wait endpoint return 404
+		waitStatuses = null;
+		getStatuses = new LinkedList<>(List.of(ExecutionStatus.RUNNING, ExecutionStatus.RUNNING, ExecutionStatus.ENDED));
+
+		Execution result = executionManager.waitForTermination(executionId, 10000);
+		assertEquals(ExecutionStatus.ENDED, result.getStatus());
+		assertEquals(1, waitRequests.size());
+		assertNull(waitRequests.get(0));
+		assertEquals(3, getRequestCount);
+
+		// The fallback is remembered
+		executionManager.waitForTermination(executionId, 10000);
+		assertEquals(1, waitRequests.size());
+		assertEquals(4, getRequestCount);
+	}
+}
@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.client.reports;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import step.client.credentials.ControllerCredentials;
+import step.core.accessors.DefaultJacksonMapperProvider;
+import step.core.artefacts.reports.InMemoryReportNodeAccessor;
+import step.core.artefacts.reports.ReportNode;
+import step.core.artefacts.reports.ReportTreeVisitor;
+
+public class RemoteReportTreeAccessorTest {
+
+	private final ObjectMapper objectMapper = DefaultJacksonMapperProvider.getObjectMapper();
+
+	private HttpServer server;
+	private RemoteReportTreeAccessor reportTreeAccessor;
+	private InMemoryReportNodeAccessor reportNodeAccessor;
+	private String executionId;
+	// If false, the report nodes endpoint ignores the paging parameters like older controllers
+	private boolean pagingSupported;
+	private int reportNodesRequestCount;
+	private int childrenRequestCount;
+
+	@Before
+	public void before() throws IOException {
+		executionId = new ObjectId().toString();
+		reportNodeAccessor = new InMemoryReportNodeAccessor();
+		long startTime = System.currentTimeMillis();
+		ReportNode root = newReportNode(new ObjectId(executionId), startTime);
+		// Many nodes share the same execution time, also across the boundaries of the batches
+		for (int i = 0; i < 50; i++) {
+			ReportNode child = newReportNode(root.getId(), startTime + i / 7);
+			if (i % 10 == 0) {
+				newReportNode(child.getId(), startTime + i / 7);
+			}
+		}
+
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/rest/executions/" + executionId + "/reportnodes", this::handleReportNodes);
+		server.createContext("/rest/controller/reportnode/", this::handleChildren);
+		server.start();
+		reportTreeAccessor = new RemoteReportTreeAccessor(new ControllerCredentials("http://localhost:" + server.getAddress().getPort(), null), 20);
+	}
+
+	@After
+	public void after() throws IOException {
+		reportTreeAccessor.close();
+		server.stop(0);
+	}
+
+	private ReportNode newReportNode(ObjectId parentId, long executionTime) {
+		ReportNode node = new ReportNode();
+		node.setParentID(parentId);
+		node.setExecutionID(executionId);
+		node.setExecutionTime(executionTime);
+		return reportNodeAccessor.save(node);
+	}
+
+	private void handleReportNodes(HttpExchange exchange) throws IOException {
+		reportNodesRequestCount++;
+		Map<String, String> queryParams = getQueryParams(exchange);
+		int limit = Integer.parseInt(queryParams.get("limit"));
+		Iterator<ReportNode> iterator;
+		if (pagingSupported) {
+			String from = queryParams.get("from");
+			String exclude = queryParams.get("exclude");
+			iterator = reportNodeAccessor.getReportNodesByExecutionID(executionId, from != null ? Long.parseLong(from) : null,
+					exclude != null && !exclude.isEmpty() ? Arrays.asList(exclude.split(",")) : null, limit);
+		} else {
+			iterator = reportNodeAccessor.getReportNodesByExecutionID(executionId);
+		}
+		List<ReportNode> result = new ArrayList<>();
+		while (iterator.hasNext() && result.size() < limit) {
+			result.add(iterator.next());
+		}
+		respond(exchange, result);
+	}
+
+	private void handleChildren(HttpExchange exchange) throws IOException {
+		childrenRequestCount++;
+		Map<String, String> queryParams = getQueryParams(exchange);
+		String parentId = exchange.getRequestURI().getPath().split("/")[4];
+		List<ReportNode> result = new ArrayList<>();
+		reportNodeAccessor.getChildren(new ObjectId(parentId), Integer.parseInt(queryParams.get("skip")),
+				Integer.parseInt(queryParams.get("limit"))).forEachRemaining(result::add);
+		respond(exchange, result);
+	}
+
+	private Map<String, String> getQueryParams(HttpExchange exchange) {
+		Map<String, String> queryParams = new HashMap<>();
+		for (String param : exchange.getRequestURI().getRawQuery().split("&")) {
+			String[] keyValue = param.split("=", 2);
+			queryParams.put(keyValue[0], URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8));
+		}
+		return queryParams;
+	}
+
+	private void respond(HttpExchange exchange, List<ReportNode> reportNodes) throws IOException {
+		// The type of the list is required to serialize the type information of the report nodes
+		byte[] response = objectMapper.writerFor(new TypeReference<List<ReportNode>>() {}).writeValueAsBytes(reportNodes);
+		exchange.getResponseHeaders().add("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, response.length);
+		try (OutputStream outputStream = exchange.getResponseBody()) {
+			outputStream.write(response);
+		}
+	}
+
+	private List<ObjectId> visitReportNodeIds(ReportTreeVisitor visitor) {
+		List<ObjectId> ids = new ArrayList<>();
+		visitor.visitNodes(executionId, node -> ids.add(node.getId()));
+		return ids;
+	}
+
+	@Test
+	public void testBulkLoading() {
+		pagingSupported = true;
+		List<ObjectId> expected = visitReportNodeIds(new ReportTreeVisitor(reportNodeAccessor));
+		assertEquals(56, expected.size());
+
+		List<ObjectId> actual = visitReportNodeIds(new ReportTreeVisitor(reportTreeAccessor, true));
+		assertEquals(expected.size(), actual.stream().distinct().count());
+		assertEquals(expected.stream().sorted().collect(Collectors.toList()), actual.stream().sorted().collect(Collectors.toList()));
+		// The nodes are loaded in 3 batches and the children aren't queried per node
+		assertEquals(3, reportNodesRequestCount);
+		assertEquals(0, childrenRequestCount);
+	}
+
+	@Test
+	public void testFallbackIfPagingIsNotSupported() {
+		pagingSupported = false;
+		List<ObjectId> expected = visitReportNodeIds(new ReportTreeVisitor(reportNodeAccessor));
+
+		List<ObjectId> actual = visitReportNodeIds(new ReportTreeVisitor(reportTreeAccessor, true));
+		assertEquals(expected, actual);
+		// The repeated first batch is detected and the children are queried per node
+		assertEquals(2, reportNodesRequestCount);
+		assertTrue(childrenRequestCount > 0);
+	}
+}
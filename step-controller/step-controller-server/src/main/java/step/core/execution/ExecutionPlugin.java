@@ -28,6 +28,8 @@ import step.core.execution.table.RootReportNodeProvider;
 import step.core.execution.type.ExecutionTypePlugin;
 import step.core.plugins.AbstractControllerPlugin;
 import step.core.plugins.Plugin;
+import step.engine.execution.ExecutionManager;
+import step.engine.execution.ExecutionManagerImpl;
 import step.framework.server.tables.Table;
 import step.framework.server.tables.TableRegistry;
 import step.plugins.screentemplating.ScreenTemplatePlugin;
@@ -60,6 +62,21 @@ public class ExecutionPlugin extends AbstractControllerPlugin {
 				.withTableFiltersFactory(new LeafReportNodeTableFilterFactory(context)).withResultListFactory(()->new ArrayList<>(){}));
 		tableRegistry.register("reports", new Table<>(reportsCollection, "execution-read", false)
 				.withResultListFactory(()->new ArrayList<>(){}));
+		ExecutionStatusWatcher executionStatusWatcher = new ExecutionStatusWatcher(context.getExecutionAccessor());
+		ExecutionManager executionManager = context.getExecutionManager();
+		if(executionManager instanceof ExecutionManagerImpl) {
+			((ExecutionManagerImpl) executionManager).addStatusListener(executionStatusWatcher::notifyStatusChange);
+		}
+		context.put(ExecutionStatusWatcher.class, executionStatusWatcher);
+		
 		context.getServiceRegistrationCallback().registerService(ExecutionServices.class);
 	}
+
+	@Override
+	public void serverStop(GlobalContext context) {
+		ExecutionStatusWatcher executionStatusWatcher = context.get(ExecutionStatusWatcher.class);
+		if(executionStatusWatcher != null) {
+			executionStatusWatcher.close();
+		}
+	}
 }
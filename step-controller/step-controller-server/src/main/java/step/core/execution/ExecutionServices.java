@@ -19,6 +19,7 @@
 package step.core.execution;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +34,8 @@ import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
 import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.container.AsyncResponse;
+import jakarta.ws.rs.container.Suspended;
 import jakarta.ws.rs.core.MediaType;
 
 import io.swagger.v3.oas.annotations.Operation;
@@ -48,6 +51,7 @@ import step.core.execution.model.Execution;
 import step.core.execution.model.ExecutionAccessor;
 import step.core.execution.model.ExecutionAccessorImpl;
 import step.core.execution.model.ExecutionParameters;
+import step.core.execution.model.ExecutionStatus;
 import step.core.repositories.RepositoryObjectReference;
 import step.engine.execution.ExecutionLifecycleManager;
 
@@ -56,11 +60,16 @@ import step.engine.execution.ExecutionLifecycleManager;
 @Tag(name = "Executions")
 public class ExecutionServices extends AbstractStepServices {
 
+	// Upper bound of the wait time of the status long polling
+	protected static final long MAX_STATUS_WAIT_TIMEOUT_MS = 60000;
+
 	protected ExecutionAccessor executionAccessor;
+	protected ExecutionStatusWatcher executionStatusWatcher;
 	
 	@PostConstruct
 	public void init() {
 		executionAccessor = getContext().getExecutionAccessor();
+		executionStatusWatcher = getContext().get(ExecutionStatusWatcher.class);
 	}
 
 	@Operation(description = "Starts an execution with the given parameters.")
@@ -94,6 +103,29 @@ public class ExecutionServices extends AbstractStepServices {
 		return executionAccessor.get(id);
 	}
 
+	@Operation(description = "Waits until the status of the execution differs from the provided status or the execution ended and returns the execution. "
+			+ "The current execution is returned after the timeout (in ms, max. 60000).")
+	@GET
+	@Path("/{id}/status/wait")
+	@Produces(MediaType.APPLICATION_JSON)
+	@Secured(right="execution-read")
+	public void waitForStatusChange(@PathParam("id") String id, @QueryParam("status") ExecutionStatus status,
+			@QueryParam("timeout") Long timeout, @Suspended AsyncResponse asyncResponse) {
+		long timeoutMs = timeout != null ? Math.min(Math.max(timeout, 0), MAX_STATUS_WAIT_TIMEOUT_MS) : MAX_STATUS_WAIT_TIMEOUT_MS;
+		if(executionStatusWatcher != null) {
+			// The request thread is released while waiting. The response is resumed by the watcher
+			executionStatusWatcher.waitForStatusChange(id, status, timeoutMs).whenComplete((execution, e) -> {
+				if(e != null) {
+					asyncResponse.resume(e);
+				} else {
+					asyncResponse.resume(execution);
+				}
+			});
+		} else {
+			asyncResponse.resume(executionAccessor.get(id));
+		}
+	}
+
 	@Operation(description = "Stops the execution with the given execution id.")
 	@GET
 	@Path("/{id}/stop")
@@ -143,13 +175,17 @@ public class ExecutionServices extends AbstractStepServices {
 	@Path("/{id}/reportnodes")
 	@Produces(MediaType.APPLICATION_JSON)
 	@Secured(right="execution-read")
-	public List<ReportNode> getReportNodesByExecutionID(@PathParam("id") String executionID, @QueryParam("class") String reportNodeClass, @QueryParam("limit") int limit) {
+	public List<ReportNode> getReportNodesByExecutionID(@PathParam("id") String executionID, @QueryParam("class") String reportNodeClass,
+			@QueryParam("from") Long fromExecutionTime, @QueryParam("exclude") String excludedIDs, @QueryParam("limit") int limit) {
 		List<ReportNode> result = new ArrayList<>();
 		Iterator<ReportNode> iterator;
 		if(reportNodeClass!=null) {
 			iterator =  getContext().getReportAccessor().getReportNodesByExecutionIDAndClass(executionID, reportNodeClass);
 		} else {
-			iterator =  getContext().getReportAccessor().getReportNodesByExecutionID(executionID);
+			// The unfiltered report nodes can be paged with the execution time of the last returned node
+			// and the comma separated IDs of the nodes already returned for this execution time
+			List<String> excludedIDList = excludedIDs != null && !excludedIDs.isEmpty() ? Arrays.asList(excludedIDs.split(",")) : null;
+			iterator =  getContext().getReportAccessor().getReportNodesByExecutionID(executionID, fromExecutionTime, excludedIDList, limit);
 		}
 		int i = 0;
 		while(iterator.hasNext()&&i<limit) {
@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.core.execution;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import step.core.execution.model.Execution;
+import step.core.execution.model.ExecutionAccessor;
+import step.core.execution.model.ExecutionStatus;
+
+/**
+ * Allows clients to wait for the status transitions of an execution instead
+ * of polling it. The waits are asynchronous: no thread is held while waiting.
+ * The watcher is notified of the status changes persisted by the execution
+ * manager. As status changes might also be persisted by other means, the
+ * execution is always read from the accessor and waits are bounded.
+ */
+public class ExecutionStatusWatcher implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ExecutionStatusWatcher.class);
+
+	private final ExecutionAccessor executionAccessor;
+	// The pending waits per execution ID
+	private final Map<String, List<Waiter>> waiters = new HashMap<>();
+	// Completes the waits on timeout and after notifications outside of the notifying thread
+	private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "ExecutionStatusWatcher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public ExecutionStatusWatcher(ExecutionAccessor executionAccessor) {
+		super();
+		this.executionAccessor = executionAccessor;
+	}
+
+	/**
+	 * Notifies the waits for a status change of the provided execution
+	 * 
+	 * @param execution the {@link Execution} whose status has been persisted
+	 */
+	public void notifyStatusChange(Execution execution) {
+		String executionId = execution.getId().toString();
+		boolean hasWaiters;
+		synchronized (waiters) {
+			hasWaiters = waiters.containsKey(executionId);
+		}
+		if (hasWaiters) {
+			executor.submit(() -> checkWaiters(executionId));
+		}
+	}
+
+	/**
+	 * Waits until the status of the execution differs from the provided one or
+	 * the execution ended
+	 * 
+	 * @param executionId the ID of the execution
+	 * @param knownStatus the status of the execution known by the caller
+	 * @param timeout     the maximum time to wait in ms
+	 * @return a future completed with the {@link Execution} after the status
+	 *         change or with its current state after the timeout. Completed with
+	 *         null if the execution doesn't exist
+	 */
+	public CompletableFuture<Execution> waitForStatusChange(String executionId, ExecutionStatus knownStatus, long timeout) {
+		Waiter waiter = new Waiter(knownStatus);
+		// Register the wait before reading the execution to avoid missing a notification
+		addWaiter(executionId, waiter);
+		try {
+			Execution execution = executionAccessor.get(executionId);
+			if (execution == null || waiter.isStatusChanged(execution)) {
+				complete(executionId, waiter, execution);
+			} else {
+				waiter.timeoutTask = executor.schedule(() -> complete(executionId, waiter, executionAccessor.get(executionId)),
+						timeout, TimeUnit.MILLISECONDS);
+				if (waiter.future.isDone()) {
+					// Completed by a notification in the meantime
+					waiter.timeoutTask.cancel(false);
+				}
+			}
+		} catch (RuntimeException e) {
+			removeWaiter(executionId, waiter);
+			waiter.future.completeExceptionally(e);
+		}
+		return waiter.future;
+	}
+
+	private void checkWaiters(String executionId) {
+		List<Waiter> executionWaiters;
+		synchronized (waiters) {
+			List<Waiter> list = waiters.get(executionId);
+			if (list == null) {
+				return;
+			}
+			executionWaiters = new ArrayList<>(list);
+		}
+		try {
+			Execution execution = executionAccessor.get(executionId);
+			for (Waiter waiter : executionWaiters) {
+				if (execution == null || waiter.isStatusChanged(execution)) {
+					complete(executionId, waiter, execution);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.error("Error while reading the execution " + executionId, e);
+		}
+	}
+
+	private void complete(String executionId, Waiter waiter, Execution execution) {
+		removeWaiter(executionId, waiter);
+		if (waiter.timeoutTask != null) {
+			waiter.timeoutTask.cancel(false);
+		}
+		waiter.future.complete(execution);
+	}
+
+	private void addWaiter(String executionId, Waiter waiter) {
+		synchronized (waiters) {
+			waiters.computeIfAbsent(executionId, k -> new ArrayList<>()).add(waiter);
+		}
+	}
+
+	private void removeWaiter(String executionId, Waiter waiter) {
+		synchronized (waiters) {
+			List<Waiter> list = waiters.get(executionId);
+			if (list != null && list.remove(waiter) && list.isEmpty()) {
+				waiters.remove(executionId);
+			}
+		}
+	}
+
+	protected int getWaiterCount() {
+		synchronized (waiters) {
+			return waiters.values().stream().mapToInt(List::size).sum();
+		}
+	}
+
+	@Override
+	public void close() {
+		executor.shutdownNow();
+	}
+
+	private static class Waiter {
+
+		private final ExecutionStatus knownStatus;
+		private final CompletableFuture<Execution> future = new CompletableFuture<>();
+		private volatile ScheduledFuture<?> timeoutTask;
+
+		private Waiter(ExecutionStatus knownStatus) {
+			this.knownStatus = knownStatus;
+		}
+
+		private boolean isStatusChanged(Execution execution) {
+			return execution.getStatus() != knownStatus || execution.getStatus() == ExecutionStatus.ENDED;
+		}
+	}
+}
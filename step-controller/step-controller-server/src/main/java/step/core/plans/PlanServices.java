@@ -56,6 +56,7 @@ public class PlanServices extends AbstractEntityServices<Plan> {
 	protected PlanAccessor planAccessor;
 	protected PlanTypeRegistry planTypeRegistry;
 	protected ObjectPredicateFactory objectPredicateFactory;
+	protected PlanNavigatorCache planNavigatorCache;
 	private ArtefactHandlerRegistry artefactHandlerRegistry;
 
 	public PlanServices() {
@@ -69,6 +70,7 @@ public class PlanServices extends AbstractEntityServices<Plan> {
 		planAccessor = context.getPlanAccessor();
 		planTypeRegistry = context.get(PlanTypeRegistry.class);
 		objectPredicateFactory = context.get(ObjectPredicateFactory.class);
+		planNavigatorCache = PlanNavigatorCache.getOrCreate(context);
 		artefactHandlerRegistry = context.getArtefactHandlerRegistry();
 	}
 
@@ -164,10 +166,8 @@ public class PlanServices extends AbstractEntityServices<Plan> {
 	@Produces(MediaType.APPLICATION_JSON)
 	@Secured(right="{entity}-read")
 	public Plan lookupPlan(@PathParam("id") String id, @PathParam("artefactid") String artefactId) {
-		Plan plan = get(id);
 		Plan result = null;
-		PlanNavigator planNavigator = new PlanNavigator(plan);
-		CallPlan artefact = (CallPlan) planNavigator.findArtefactById(artefactId);
+		CallPlan artefact = (CallPlan) planNavigatorCache.findArtefactById(id, artefactId);
 		DynamicJsonObjectResolver dynamicJsonObjectResolver = new DynamicJsonObjectResolver(new DynamicJsonValueResolver(getContext().getExpressionHandler()));
 		SelectorHelper selectorHelper = new SelectorHelper(dynamicJsonObjectResolver);
 		PlanLocator planLocator = new PlanLocator(getContext().getPlanAccessor(), selectorHelper);
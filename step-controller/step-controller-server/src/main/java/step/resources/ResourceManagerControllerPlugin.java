@@ -19,6 +19,8 @@
 package step.resources;
 
 import ch.exense.commons.app.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import step.core.GlobalContext;
 import step.core.collections.Collection;
 import step.core.entities.EntityManager;
@@ -30,6 +32,8 @@ import step.framework.server.tables.TableRegistry;
 @Plugin()
 public class ResourceManagerControllerPlugin extends AbstractControllerPlugin {
 
+	private static final Logger logger = LoggerFactory.getLogger(ResourceManagerControllerPlugin.class);
+
 	@Override
 	public void serverStart(GlobalContext context) throws Exception {
 		context.getServiceRegistrationCallback().registerService(ResourceServices.class);
@@ -37,6 +41,12 @@ public class ResourceManagerControllerPlugin extends AbstractControllerPlugin {
 		Collection<Resource> collectionDriver = context.getCollectionFactory().getCollection(EntityManager.resources,
 				Resource.class);
 		context.get(TableRegistry.class).register(EntityManager.resources, new Table<>(collectionDriver, null, true));
+
+		// Remove the content left unreferenced by operations interrupted by a previous shutdown
+		int removedFiles = context.getResourceManager().collectUnreferencedContent();
+		if(removedFiles > 0) {
+			logger.info("Removed "+removedFiles+" unreferenced resource files");
+		}
 	}
 
 	public static String getResourceDir(Configuration configuration) {
@@ -40,7 +40,6 @@ import org.bson.types.ObjectId;
 import org.glassfish.jersey.media.multipart.FormDataContentDisposition;
 import org.glassfish.jersey.media.multipart.FormDataParam;
 
-import ch.exense.commons.io.FileHelper;
 import step.core.GlobalContext;
 import step.core.deployment.AbstractStepServices;
 import step.core.deployment.ControllerServiceException;
@@ -158,8 +157,11 @@ public class ResourceServices extends AbstractStepServices {
 		StreamingOutput fileStream = new StreamingOutput() {
 			@Override
 			public void write(java.io.OutputStream output) throws IOException {
-				FileHelper.copy(resourceContent.getResourceStream(), output, 2048);
-				resourceContent.close();
+				try {
+					resourceContent.transferTo(output);
+				} finally {
+					resourceContent.close();
+				}
 			}
 		};
 		
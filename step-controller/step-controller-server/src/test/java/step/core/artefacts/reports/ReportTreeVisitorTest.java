@@ -25,6 +25,7 @@ import static step.core.plans.builder.PlanBuilderTest.artefact;
 import org.junit.Test;
 
 import junit.framework.Assert;
+import step.artefacts.Sequence;
 import step.core.plans.Plan;
 import step.core.plans.builder.PlanBuilder;
 import step.core.plans.runner.DefaultPlanRunner;
@@ -47,11 +48,56 @@ public class ReportTreeVisitorTest {
 	
 	@Test
 	public void test() {
+		test(false);
+	}
+	
+	@Test
+	public void testBulkLoading() {
+		test(true);
+	}
+	
+	@Test
+	public void testBulkLoadingWithHandler() {
 		Plan plan = getDummyPlan();
 		DefaultPlanRunner runner = new DefaultPlanRunner();
 		PlanRunnerResult result = runner.run(plan);
 		ReportTreeAccessor treeAccessor = result.getReportTreeAccessor();
-		ReportTreeVisitor v = new ReportTreeVisitor(treeAccessor);
+		
+		StringBuilder legacyEvents = new StringBuilder();
+		new ReportTreeVisitor(treeAccessor).visit(result.getExecutionId(), new EventRecorder(legacyEvents));
+		StringBuilder bulkEvents = new StringBuilder();
+		new ReportTreeVisitor(treeAccessor, true).visit(result.getExecutionId(), new EventRecorder(bulkEvents));
+		
+		assertEquals("+Root:0+Node1:1-Node1+Node2:1+Node2.1:2-Node2.1-Node2-Root", legacyEvents.toString());
+		assertEquals(legacyEvents.toString(), bulkEvents.toString());
+	}
+	
+	private static class EventRecorder implements ReportNodeVisitorEventHandler {
+		
+		private final StringBuilder events;
+
+		public EventRecorder(StringBuilder events) {
+			super();
+			this.events = events;
+		}
+
+		@Override
+		public void startReportNode(ReportTreeVisitor.ReportNodeEvent reportNodeEvent) {
+			events.append("+" + reportNodeEvent.getNode().getArtefactInstance().getDescription() + ":" + reportNodeEvent.getDepth());
+		}
+
+		@Override
+		public void endReportNode(ReportTreeVisitor.ReportNodeEvent reportNodeEvent) {
+			events.append("-" + reportNodeEvent.getNode().getArtefactInstance().getDescription());
+		}
+	}
+	
+	protected void test(boolean bulkLoading) {
+		Plan plan = getDummyPlan();
+		DefaultPlanRunner runner = new DefaultPlanRunner();
+		PlanRunnerResult result = runner.run(plan);
+		ReportTreeAccessor treeAccessor = result.getReportTreeAccessor();
+		ReportTreeVisitor v = new ReportTreeVisitor(treeAccessor, bulkLoading);
 		
 		v.visit(result.getExecutionId(), e->{
 			ReportNode node = e.getNode();
@@ -75,12 +121,18 @@ public class ReportTreeVisitorTest {
 	}
 	
 	protected Plan getDummyPlan() {
-		Plan plan = PlanBuilder.create().startBlock(artefact("Root"))
+		Plan plan = PlanBuilder.create().startBlock(sequence("Root"))
 				.add(artefact("Node1"))
-				.startBlock(artefact("Node2"))
+				.startBlock(sequence("Node2"))
 				.add(artefact("Node2.1"))
 				.endBlock()
 				.endBlock().build();
 		return plan;
 	}
+	
+	protected static Sequence sequence(String description) {
+		Sequence sequence = new Sequence();
+		sequence.setDescription(description);
+		return sequence;
+	}
 }
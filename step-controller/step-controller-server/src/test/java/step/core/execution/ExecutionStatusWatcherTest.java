@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.core.execution;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import step.core.execution.model.Execution;
+import step.core.execution.model.ExecutionStatus;
+import step.core.execution.model.InMemoryExecutionAccessor;
+import step.engine.execution.ExecutionManagerImpl;
+
+public class ExecutionStatusWatcherTest {
+
+	@Test
+	public void test() throws Exception {
+		InMemoryExecutionAccessor executionAccessor = new InMemoryExecutionAccessor();
+		try (ExecutionStatusWatcher watcher = new ExecutionStatusWatcher(executionAccessor)) {
+			Execution execution = new Execution();
+			execution.setStatus(ExecutionStatus.RUNNING);
+			executionAccessor.save(execution);
+			String executionId = execution.getId().toString();
+
+			// Unknown executions and status changes already happened are returned immediately
+			assertNull(watcher.waitForStatusChange(new Execution().getId().toString(), null, 10000).getNow(null));
+			assertEquals(ExecutionStatus.RUNNING, watcher.waitForStatusChange(executionId, null, 10000).getNow(null).getStatus());
+			assertEquals(ExecutionStatus.RUNNING, watcher.waitForStatusChange(executionId, ExecutionStatus.INITIALIZING, 10000).getNow(null).getStatus());
+			assertEquals(0, watcher.getWaiterCount());
+
+			// The current execution is returned after the timeout
+			long t1 = System.currentTimeMillis();
+			assertEquals(ExecutionStatus.RUNNING, watcher.waitForStatusChange(executionId, ExecutionStatus.RUNNING, 200).get(10, TimeUnit.SECONDS).getStatus());
+			assertTrue(System.currentTimeMillis() - t1 >= 200);
+			assertEquals(0, watcher.getWaiterCount());
+
+			CompletableFuture<Execution> future = watcher.waitForStatusChange(executionId, ExecutionStatus.RUNNING, 60000);
+			// Notifications without status change shouldn't complete the wait
+			watcher.notifyStatusChange(execution);
+			Thread.sleep(100);
+			assertFalse(future.isDone());
+
+			execution.setStatus(ExecutionStatus.ENDED);
+			executionAccessor.save(execution);
+			watcher.notifyStatusChange(execution);
+			assertEquals(ExecutionStatus.ENDED, future.get(10, TimeUnit.SECONDS).getStatus());
+			assertEquals(0, watcher.getWaiterCount());
+		}
+	}
+
+	@Test
+	public void testConcurrentWaits() throws Exception {
+		InMemoryExecutionAccessor executionAccessor = new InMemoryExecutionAccessor();
+		try (ExecutionStatusWatcher watcher = new ExecutionStatusWatcher(executionAccessor)) {
+			Execution execution = new Execution();
+			execution.setStatus(ExecutionStatus.RUNNING);
+			executionAccessor.save(execution);
+			String executionId = execution.getId().toString();
+
+			// The waits don't hold any thread
+			List<CompletableFuture<Execution>> futures = new ArrayList<>();
+			for (int i = 0; i < 1000; i++) {
+				futures.add(watcher.waitForStatusChange(executionId, ExecutionStatus.RUNNING, 60000));
+			}
+			assertEquals(1000, watcher.getWaiterCount());
+
+			execution.setStatus(ExecutionStatus.ENDED);
+			executionAccessor.save(execution);
+			watcher.notifyStatusChange(execution);
+			for (CompletableFuture<Execution> future : futures) {
+				assertEquals(ExecutionStatus.ENDED, future.get(10, TimeUnit.SECONDS).getStatus());
+			}
+			assertEquals(0, watcher.getWaiterCount());
+		}
+	}
+
+	@Test
+	public void testExecutionManagerNotification() throws Exception {
+		InMemoryExecutionAccessor executionAccessor = new InMemoryExecutionAccessor();
+		ExecutionStatusWatcher watcher = new ExecutionStatusWatcher(executionAccessor);
+		ExecutionManagerImpl executionManager = new ExecutionManagerImpl(executionAccessor);
+		executionManager.addStatusListener(watcher::notifyStatusChange);
+
+		ExecutionContext context = ExecutionEngine.builder().build().newExecutionContext();
+		String executionId = context.getExecutionId();
+		Execution execution = new Execution();
+		execution.setId(new ObjectId(executionId));
+		execution.setStatus(ExecutionStatus.INITIALIZING);
+		executionAccessor.save(execution);
+
+		try {
+			CompletableFuture<Execution> future = watcher.waitForStatusChange(executionId, ExecutionStatus.INITIALIZING, 60000);
+			executionManager.updateStatus(context, ExecutionStatus.RUNNING);
+			assertEquals(ExecutionStatus.RUNNING, future.get(10, TimeUnit.SECONDS).getStatus());
+		} finally {
+			watcher.close();
+		}
+	}
+}
@@ -21,14 +21,25 @@ package step.resources;
 public class CustomResourceType implements ResourceType {
 
 	protected final boolean ephemeral;
+	protected final boolean immutable;
 
 	public CustomResourceType(boolean ephemeral) {
+		this(ephemeral, false);
+	}
+
+	public CustomResourceType(boolean ephemeral, boolean immutable) {
 		super();
 		this.ephemeral = ephemeral;
+		this.immutable = immutable;
 	}
 
 	@Override
 	public boolean isEphemeral() {
 		return ephemeral;
 	}
+
+	@Override
+	public boolean isImmutable() {
+		return immutable;
+	}
 }
@@ -28,6 +28,8 @@ public class ResourceRevision extends AbstractIdentifiableObject {
 	
 	protected String checksum;
 
+	protected String contentHash;
+
 	public String getResourceId() {
 		return resourceId;
 	}
@@ -51,4 +53,16 @@ public class ResourceRevision extends AbstractIdentifiableObject {
 	public void setChecksum(String checksum) {
 		this.checksum = checksum;
 	}
+
+	/**
+	 * @return the SHA-256 hash of the content. It is the key of the blob of
+	 *         the revision in the content addressed store
+	 */
+	public String getContentHash() {
+		return contentHash;
+	}
+
+	public void setContentHash(String contentHash) {
+		this.contentHash = contentHash;
+	}
 }
@@ -21,5 +21,13 @@ package step.resources;
 public interface ResourceType {
 	
 	public boolean isEphemeral();
-	
+
+	/**
+	 * @return true if the content of the resources of this type is never modified
+	 *         in place. The identical revisions of such resources can then share
+	 *         the same file
+	 */
+	public default boolean isImmutable() {
+		return false;
+	}
 }
@@ -18,12 +18,17 @@
  ******************************************************************************/
 package step.core.export;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
 import org.slf4j.Logger;
@@ -33,9 +38,12 @@ import com.fasterxml.jackson.core.JsonEncoding;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import step.core.accessors.AbstractAccessor;
 import step.core.accessors.AbstractIdentifiableObject;
+import step.core.accessors.Accessor;
 import step.core.accessors.DefaultJacksonMapperProvider;
 import ch.exense.commons.io.FileHelper;
+import step.core.collections.Filters;
 import step.core.entities.Entity;
 import step.core.entities.EntityManager;
 import step.core.entities.EntityReferencesMap;
@@ -46,6 +54,10 @@ public class ExportManager {
 
 	private static Logger logger = LoggerFactory.getLogger(ExportManager.class);
 
+	private static final String EXPORT_JSON_ENTRY = "export.json";
+	// Number of entities fetched per query
+	protected static final int FETCH_BATCH_SIZE = 500;
+
 	private final ObjectMapper mapper = DefaultJacksonMapperProvider.getObjectMapper();
 	private final EntityManager entityManager;
 	private final ResourceManager resourceManager;
@@ -95,50 +107,89 @@ public class ExportManager {
 		if (entity == null) {
 			throw new RuntimeException("Entity of type " + entityName + " is not supported");
 		}
-		references.getReferencesByType(entityName).forEach(id -> {
-			AbstractIdentifiableObject a = entity.getAccessor().get(id);
-			if (a == null) {
-				logger.warn("Referenced entity with id '" + id + "' and type '" + entityName + "' is missing");
-				references.addReferenceNotFoundWarning(
-						"Referenced entity with id '" + id + "' and type '" + entityName + "' is missing");
-			} else {
-				entityManager.runExportHooks(a, exportContext);
-				try {
-					jGen.writeObject(a);
-				} catch (IOException e) {
-					throw new RuntimeException(
-							"Error while exporting entity of type " + entity.getName() + " with id:" + id, e);
+		@SuppressWarnings("unchecked")
+		Accessor<AbstractIdentifiableObject> accessor = (Accessor<AbstractIdentifiableObject>) entity.getAccessor();
+		Iterator<String> ids = references.getReferencesByType(entityName).iterator();
+		while (ids.hasNext()) {
+			List<String> batch = new ArrayList<>(FETCH_BATCH_SIZE);
+			while (ids.hasNext() && batch.size() < FETCH_BATCH_SIZE) {
+				batch.add(ids.next());
+			}
+			Map<String, AbstractIdentifiableObject> entities = findByIds(accessor, batch);
+			// Write the entities in the order of the references
+			batch.forEach(id -> exportEntity(exportContext, entityName, id, entities.get(id), jGen));
+		}
+	}
+
+	/**
+	 * Fetches the provided entities with a single query if the accessor is
+	 * backed by a collection. Other accessors like the layered ones are
+	 * queried entity by entity
+	 */
+	private Map<String, AbstractIdentifiableObject> findByIds(Accessor<AbstractIdentifiableObject> accessor, List<String> ids) {
+		Map<String, AbstractIdentifiableObject> result = new HashMap<>();
+		if (accessor instanceof AbstractAccessor) {
+			accessor.getCollectionDriver()
+					.find(Filters.or(ids.stream().map(Filters::id).collect(Collectors.toList())), null, null, null, 0)
+					.forEach(e -> result.put(e.getId().toString(), e));
+		} else {
+			ids.forEach(id -> {
+				AbstractIdentifiableObject e = accessor.get(id);
+				if (e != null) {
+					result.put(id, e);
 				}
+			});
+		}
+		return result;
+	}
+
+	private void exportEntity(ExportContext exportContext, String entityName, String id, AbstractIdentifiableObject a, JsonGenerator jGen) {
+		EntityReferencesMap references = exportContext.getReferences();
+		if (a == null) {
+			logger.warn("Referenced entity with id '" + id + "' and type '" + entityName + "' is missing");
+			references.addReferenceNotFoundWarning(
+					"Referenced entity with id '" + id + "' and type '" + entityName + "' is missing");
+		} else {
+			entityManager.runExportHooks(a, exportContext);
+			try {
+				jGen.writeObject(a);
+			} catch (IOException e) {
+				throw new RuntimeException(
+						"Error while exporting entity of type " + entityName + " with id:" + id, e);
 			}
-		});
+		}
 	}
 
 	private void export(ExportContext exportContext) throws FileNotFoundException, IOException {
 		ExportConfiguration exportConfig = exportContext.getExportConfig();
 		EntityReferencesMap references = exportContext.getReferences();
-		ByteArrayOutputStream jsonStream = new ByteArrayOutputStream();
-
-		// Export db content to JSON
-		try (JsonGenerator jGen = mapper.getFactory().createGenerator(jsonStream, JsonEncoding.UTF8)) {
-			// Header with metadata
-			// pretty print
-			jGen.useDefaultPrettyPrinter();
-			jGen.writeStartObject();
-			jGen.writeObjectField("metadata", exportConfig.getMetadata());
-			// start a json array for each entity type
-			references.getTypes().forEach(e -> {
-				try {
-					jGen.writeArrayFieldStart(e);
-					exportEntityByIds(exportContext, e, jGen);
-					jGen.writeEndArray();
-				} catch (IOException e1) {
-					throw new RuntimeException("Error while exporting entity of type " + e, e1);
-				}
-			});
-			jGen.writeEndObject();// end export object
-		}
+
 		try (ZipOutputStream zos = new ZipOutputStream(exportConfig.getOutputStream())) {
-			FileHelper.zipFile(zos, jsonStream, "export.json");
+			// Export db content to JSON. The JSON is written directly to the zip entry
+			// to avoid holding the whole export in memory
+			zos.putNextEntry(new ZipEntry(EXPORT_JSON_ENTRY));
+			try (JsonGenerator jGen = mapper.getFactory().createGenerator(zos, JsonEncoding.UTF8)) {
+				// Closing the generator shouldn't close the zip stream
+				jGen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+				// Header with metadata
+				// pretty print
+				jGen.useDefaultPrettyPrinter();
+				jGen.writeStartObject();
+				jGen.writeObjectField("metadata", exportConfig.getMetadata());
+				// start a json array for each entity type
+				references.getTypes().forEach(e -> {
+					try {
+						jGen.writeArrayFieldStart(e);
+						exportEntityByIds(exportContext, e, jGen);
+						jGen.writeEndArray();
+					} catch (IOException e1) {
+						throw new RuntimeException("Error while exporting entity of type " + e, e1);
+					}
+				});
+				jGen.writeEndObject();// end export object
+			}
+			zos.closeEntry();
+
 			// Export resources (files)
 			List<String> resourceRef = references.getReferencesByType(EntityManager.resources);
 			Entity<?, ?> resourceEntity = entityManager.getEntityByName(EntityManager.resources);
@@ -18,33 +18,116 @@
  ******************************************************************************/
 package step.core.plans;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+
 import step.core.artefacts.AbstractArtefact;
 
+/**
+ * Provides lookups of the artefacts of a {@link Plan} by ID. The artefacts are
+ * indexed by {@link ObjectId} at first lookup. The index reflects the tree of
+ * the plan at that time: a navigator shouldn't be reused after the plan has
+ * been modified
+ */
 public class PlanNavigator {
 
 	protected final Plan plan;
 	
+	private volatile Index index;
+	
 	public PlanNavigator(Plan plan) {
 		super();
 		this.plan = plan;
 	}
 
+	public Plan getPlan() {
+		return plan;
+	}
+
+	/**
+	 * @param id the ID of the artefact as string
+	 * @return the artefact of the plan with the provided ID or null if it
+	 *         doesn't exist or if the ID isn't a valid {@link ObjectId}
+	 */
 	public AbstractArtefact findArtefactById(String id) {
-		return findArtefactByIdRecursive(id, plan.getRoot());
+		return id != null && ObjectId.isValid(id) ? findArtefactById(new ObjectId(id)) : null;
 	}
 	
-	protected AbstractArtefact findArtefactByIdRecursive(String id, AbstractArtefact a) {
-		if(a.getId().toString().equals(id)) {
-			return a;
-		} else {
-			for (AbstractArtefact child : a.getChildren()) {
-				AbstractArtefact result = findArtefactByIdRecursive(id, child);
-				if(result != null) {
-					return result;
+	/**
+	 * @param id the ID of the artefact
+	 * @return the artefact of the plan with the provided ID or null if it doesn't exist
+	 */
+	public AbstractArtefact findArtefactById(ObjectId id) {
+		return getIndex().artefacts.get(id);
+	}
+	
+	/**
+	 * @param id the ID of an artefact of the plan
+	 * @return the parent of the artefact with the provided ID or null if the
+	 *         artefact is the root of the plan or doesn't exist
+	 */
+	public AbstractArtefact findParentById(ObjectId id) {
+		return getIndex().parents.get(id);
+	}
+	
+	private Index getIndex() {
+		Index result = index;
+		if(result == null) {
+			synchronized (this) {
+				result = index;
+				if(result == null) {
+					result = buildIndex();
+					index = result;
 				}
 			}
-			return null;
 		}
+		return result;
 	}
 	
+	private Index buildIndex() {
+		Index result = new Index();
+		AbstractArtefact root = plan.getRoot();
+		if(root != null) {
+			// Iterative traversal to support arbitrarily deep plans
+			Deque<Node> stack = new ArrayDeque<>();
+			stack.push(new Node(root, null));
+			while(!stack.isEmpty()) {
+				Node node = stack.pop();
+				AbstractArtefact artefact = node.artefact;
+				// Keep the first artefact found in depth-first order in case of duplicate IDs
+				if(result.artefacts.putIfAbsent(artefact.getId(), artefact) == null && node.parent != null) {
+					result.parents.put(artefact.getId(), node.parent);
+				}
+				List<AbstractArtefact> children = artefact.getChildren();
+				if(children != null) {
+					for (int i = children.size() - 1; i >= 0; i--) {
+						stack.push(new Node(children.get(i), artefact));
+					}
+				}
+			}
+		}
+		return result;
+	}
+	
+	private static class Node {
+		
+		private final AbstractArtefact artefact;
+		private final AbstractArtefact parent;
+		
+		private Node(AbstractArtefact artefact, AbstractArtefact parent) {
+			this.artefact = artefact;
+			this.parent = parent;
+		}
+	}
+	
+	private static class Index {
+		
+		private final Map<ObjectId, AbstractArtefact> artefacts = new HashMap<>();
+		private final Map<ObjectId, AbstractArtefact> parents = new HashMap<>();
+	}
 }
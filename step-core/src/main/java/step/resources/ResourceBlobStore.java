@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.resources;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.function.Predicate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Content addressed store of the resource revision files.
+ *
+ * Blobs are keyed by the SHA-256 hash of their content and stored once in the
+ * folder {@link #BLOBS_FOLDER} of the resource root folder. The revision files
+ * are hard links to the blobs. The existing revision paths thus remain valid
+ * for the consumers accessing them directly.
+ *
+ * As all the links of a blob share its content, only the revisions of resource
+ * types whose content is never modified in place may be stored here (see
+ * {@link ResourceType#isImmutable()}).
+ *
+ * The store doesn't track the references to the blobs. The caller is responsible
+ * for releasing the blobs that aren't referenced by any revision anymore.
+ *
+ * If the file system doesn't support hard links the store is disabled and the
+ * revision files are kept as plain files.
+ */
+public class ResourceBlobStore {
+
+	public static final String BLOBS_FOLDER = ".blobs";
+
+	private static final Logger logger = LoggerFactory.getLogger(ResourceBlobStore.class);
+
+	private static final int LOCK_STRIPES = 64;
+
+	private final File blobsFolder;
+	private final boolean enabled;
+	private final Object[] locks = new Object[LOCK_STRIPES];
+
+	public ResourceBlobStore(File resourceRootFolder) {
+		super();
+		this.blobsFolder = new File(resourceRootFolder, BLOBS_FOLDER);
+		for (int i = 0; i < LOCK_STRIPES; i++) {
+			locks[i] = new Object();
+		}
+		this.enabled = supportsLinks();
+	}
+
+	private boolean supportsLinks() {
+		Path probe = null;
+		Path link = null;
+		try {
+			Files.createDirectories(blobsFolder.toPath());
+			probe = Files.createTempFile(blobsFolder.toPath(), "probe", null);
+			link = probe.resolveSibling(probe.getFileName() + ".link");
+			Files.createLink(link, probe);
+			return Files.isSameFile(link, probe);
+		} catch (IOException | UnsupportedOperationException | SecurityException e) {
+			logger.info("Hard links aren't supported in " + blobsFolder.getAbsolutePath()
+					+ ". Identical resource revisions won't be deduplicated.");
+			return false;
+		} finally {
+			deleteQuietly(link);
+			deleteQuietly(probe);
+		}
+	}
+
+	private static void deleteQuietly(Path path) {
+		if (path != null) {
+			try {
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				logger.warn("Unable to delete " + path, e);
+			}
+		}
+	}
+
+	private Object getLock(String contentHash) {
+		return locks[Math.floorMod(contentHash.hashCode(), LOCK_STRIPES)];
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public File getBlobFile(String contentHash) {
+		return new File(blobsFolder, contentHash.substring(0, 2) + "/" + contentHash);
+	}
+
+	/**
+	 * Replaces the provided revision file by a link to the blob of the provided
+	 * hash. The blob is created from the revision file if it doesn't exist yet.
+	 * If the link cannot be created the revision file is kept as plain file
+	 *
+	 * @param contentHash  the SHA-256 hash of the content of the revision file
+	 * @param revisionFile the revision file to be stored. Its content mustn't be modified afterwards
+	 * @return true if the revision file has been linked to a blob
+	 */
+	public boolean store(String contentHash, File revisionFile) {
+		if (!enabled) {
+			return false;
+		}
+		Path blob = getBlobFile(contentHash).toPath();
+		Path revision = revisionFile.toPath();
+		synchronized (getLock(contentHash)) {
+			try {
+				if (Files.exists(blob)) {
+					Path link = revision.resolveSibling(revision.getFileName() + ".link");
+					// Create the link first and swap it to keep the revision file if the link cannot be created
+					Files.createLink(link, blob);
+					Files.move(link, revision, StandardCopyOption.REPLACE_EXISTING);
+				} else {
+					Files.createDirectories(blob.getParent());
+					Files.createLink(blob, revision);
+				}
+				return true;
+			} catch (IOException | UnsupportedOperationException e) {
+				logger.warn("Unable to link the resource revision file " + revisionFile.getAbsolutePath()
+						+ " to the blob " + contentHash + ". Keeping it as plain file", e);
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Removes the blob of the provided hash if it isn't referenced anymore.
+	 * The revision files linked to it keep their content
+	 *
+	 * @param contentHash  the SHA-256 hash of the blob
+	 * @param isReferenced the predicate telling if a hash is still referenced by a revision.
+	 *                     It is evaluated while holding the lock of the blob
+	 * @return true if the blob has been removed
+	 * @throws IOException
+	 */
+	public boolean release(String contentHash, Predicate<String> isReferenced) throws IOException {
+		if (!enabled) {
+			return false;
+		}
+		synchronized (getLock(contentHash)) {
+			Path blob = getBlobFile(contentHash).toPath();
+			if (Files.exists(blob) && !isReferenced.test(contentHash)) {
+				Files.delete(blob);
+				return true;
+			} else {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Removes all the blobs that aren't referenced anymore
+	 *
+	 * @param isReferenced the predicate telling if a hash is still referenced by a revision
+	 * @return the number of removed blobs
+	 * @throws IOException
+	 */
+	public int collectGarbage(Predicate<String> isReferenced) throws IOException {
+		if (!enabled || !blobsFolder.isDirectory()) {
+			return 0;
+		}
+		int removed = 0;
+		try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(blobsFolder.toPath(), Files::isDirectory)) {
+			for (Path prefix : prefixes) {
+				try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+					for (Path blob : blobs) {
+						if (release(blob.getFileName().toString(), isReferenced)) {
+							removed++;
+						}
+					}
+				}
+			}
+		}
+		return removed;
+	}
+}
@@ -0,0 +1,81 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.resources;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.google.common.hash.HashCode;
+
+/**
+ * Computes the checksum (MD5) and the content hash (SHA-256) of a resource
+ * revision while its content is being written
+ */
+class ResourceContentDigest {
+
+	private final MessageDigest md5 = getInstance("MD5");
+	private final MessageDigest sha256 = getInstance("SHA-256");
+
+	private String checksum;
+	private String contentHash;
+
+	private static MessageDigest getInstance(String algorithm) {
+		try {
+			return MessageDigest.getInstance(algorithm);
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException(algorithm + " isn't supported by this JVM", e);
+		}
+	}
+
+	public OutputStream wrap(OutputStream outputStream) {
+		return new DigestOutputStream(new DigestOutputStream(outputStream, md5), sha256);
+	}
+
+	public InputStream wrap(InputStream inputStream) {
+		return new DigestInputStream(new DigestInputStream(inputStream, md5), sha256);
+	}
+
+	/**
+	 * @return the MD5 checksum of the content. The format is the same as the
+	 *         one of the checksums computed with Guava
+	 */
+	public String getChecksum() {
+		complete();
+		return checksum;
+	}
+
+	/**
+	 * @return the SHA-256 hash of the content
+	 */
+	public String getContentHash() {
+		complete();
+		return contentHash;
+	}
+
+	private void complete() {
+		if (checksum == null) {
+			checksum = HashCode.fromBytes(md5.digest()).toString();
+			contentHash = HashCode.fromBytes(sha256.digest()).toString();
+		}
+	}
+}
@@ -106,4 +106,17 @@ public interface ResourceManager {
 	 */
 	void deleteResource(String resourceId);
 
+	/**
+	 * Removes the stored content that isn't referenced by any resource revision
+	 * anymore. This is only required after operations that have been interrupted
+	 * as {@link #deleteResource(String)} already releases the content of the
+	 * deleted revisions
+	 *
+	 * @return the number of removed files
+	 * @throws IOException an IOException occurs during the call
+	 */
+	default int collectUnreferencedContent() throws IOException {
+		return 0;
+	}
+
 }
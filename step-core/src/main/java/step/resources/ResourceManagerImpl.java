@@ -20,7 +20,6 @@ package step.resources;
 
 import ch.exense.commons.io.FileHelper;
 import com.google.common.hash.Hashing;
-import org.apache.commons.io.FileUtils;
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,22 +28,33 @@ import step.core.objectenricher.ObjectEnricher;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 public class ResourceManagerImpl implements ResourceManager {
 
 	private static final String ZIP_EXTENSION = ".zip";
+	protected static final int COPY_BUFFER_SIZE = 64 * 1024;
 	protected final File resourceRootFolder;
 	protected final ResourceAccessor resourceAccessor;
 	protected final ResourceRevisionAccessor resourceRevisionAccessor;
 	protected final Map<String, ResourceType> resourceTypes;
+	protected final ResourceBlobStore blobStore;
+	private final Map<String, CompletableFuture<File>> archiveBuilds = new ConcurrentHashMap<>();
 
 	protected static final Logger logger = LoggerFactory.getLogger(ResourceManagerImpl.class);
 	
@@ -55,11 +65,12 @@ public class ResourceManagerImpl implements ResourceManager {
 		this.resourceAccessor = resourceAccessor;
 		this.resourceRevisionAccessor = resourceRevisionAccessor;
 		this.resourceTypes = new ConcurrentHashMap<>();
+		this.blobStore = new ResourceBlobStore(resourceRootFolder);
 
 		resourceTypes.put(RESOURCE_TYPE_TEMP, new CustomResourceType(true));
 		resourceTypes.put(RESOURCE_TYPE_ATTACHMENT, new CustomResourceType(false));
 		resourceTypes.put(RESOURCE_TYPE_STAGING_CONTEXT_FILES, new CustomResourceType(false));
-		resourceTypes.put(RESOURCE_TYPE_FUNCTIONS, new CustomResourceType(false));
+		resourceTypes.put(RESOURCE_TYPE_FUNCTIONS, new CustomResourceType(false, true));
 		resourceTypes.put(RESOURCE_TYPE_DATASOURCE, new CustomResourceType(false));
 		resourceTypes.put(RESOURCE_TYPE_SECRET, new CustomResourceType(false));
 		resourceTypes.put(RESOURCE_TYPE_PDF_TEST_SCENARIO_FILE, new CustomResourceType(false));
@@ -82,7 +93,7 @@ public class ResourceManagerImpl implements ResourceManager {
 	@Override
 	public Resource createResource(String resourceType, boolean isDirectory, InputStream resourceStream, String resourceFileName, boolean checkForDuplicates, ObjectEnricher objectEnricher) throws IOException, SimilarResourceExistingException, InvalidResourceFormatException {
 		ResourceRevisionContainer resourceContainer = createResourceContainer(resourceType, resourceFileName, isDirectory);
-		FileHelper.copy(resourceStream, resourceContainer.getOutputStream(), 2048);
+		copy(resourceStream, resourceContainer.getOutputStream());
 		resourceContainer.save(checkForDuplicates, objectEnricher);
 		return resourceContainer.getResource();
 	}
@@ -94,9 +105,26 @@ public class ResourceManagerImpl implements ResourceManager {
 	}
 
 	protected void closeResourceContainer(Resource resource, ResourceRevision resourceRevision, boolean checkForDuplicates, ObjectEnricher objectEnricher) throws IOException, SimilarResourceExistingException, InvalidResourceFormatException {
+		closeResourceContainer(resource, resourceRevision, null, checkForDuplicates, objectEnricher);
+	}
+
+	/**
+	 * @param digest the digest of the revision content if it has been computed
+	 *               while writing it or null to compute it from the revision file
+	 */
+	protected void closeResourceContainer(Resource resource, ResourceRevision resourceRevision, ResourceContentDigest digest, boolean checkForDuplicates, ObjectEnricher objectEnricher) throws IOException, SimilarResourceExistingException, InvalidResourceFormatException {
 		File resourceRevisionFile = getResourceRevisionFile(resource, resourceRevision);
-		String checksum = getMD5Checksum(resourceRevisionFile);
-		resourceRevision.setChecksum(checksum);
+		if(digest != null) {
+			resourceRevision.setChecksum(digest.getChecksum());
+			resourceRevision.setContentHash(digest.getContentHash());
+		} else {
+			resourceRevision.setChecksum(getMD5Checksum(resourceRevisionFile));
+			resourceRevision.setContentHash(getContentHash(resourceRevisionFile));
+		}
+
+		if(isShareable(resource)) {
+			blobStore.store(resourceRevision.getContentHash(), resourceRevisionFile);
+		}
 
 		resource.setCurrentRevisionId(resourceRevision.getId());
 
@@ -109,7 +137,7 @@ public class ResourceManagerImpl implements ResourceManager {
 
 		List<Resource> resourcesWithSameChecksum = null;
 		if(checkForDuplicates) {
-			resourcesWithSameChecksum = getSimilarResources(resource, resourceRevision);
+			resourcesWithSameChecksum = getSimilarResources(resourceRevision);
 		}
 
 		if(resource.isDirectory()) {
@@ -132,6 +160,15 @@ public class ResourceManagerImpl implements ResourceManager {
 		}
 	}
 
+	/**
+	 * @return true if the revision files of the provided resource can be shared with identical revisions.
+	 *         Directory resources are unzipped and the resources of mutable types may be written in place
+	 */
+	private boolean isShareable(Resource resource) {
+		ResourceType resourceType = resourceTypes.get(resource.getResourceType());
+		return !resource.isDirectory() && resourceType != null && resourceType.isImmutable();
+	}
+
 	@Override
 	public Resource saveResourceContent(String resourceId, InputStream resourceStream, String resourceFileName) throws IOException, InvalidResourceFormatException {
 		Resource resource = getResource(resourceId);
@@ -147,33 +184,58 @@ public class ResourceManagerImpl implements ResourceManager {
 	public void deleteResource(String resourceId) {
 		Resource resource = getResource(resourceId);
 
-		resourceRevisionAccessor.getResourceRevisionsByResourceId(resourceId).forEachRemaining(
-				revision-> resourceRevisionAccessor.remove(revision.getId()));
+		Set<String> contentHashes = new HashSet<>();
+		resourceRevisionAccessor.getResourceRevisionsByResourceId(resourceId).forEachRemaining(revision-> {
+			if(revision.getContentHash() != null) {
+				contentHashes.add(revision.getContentHash());
+			}
+			resourceRevisionAccessor.remove(revision.getId());
+		});
 
 		File resourceContainer = getResourceContainer(resource);
 		if(resourceContainer.exists()) {
 			FileHelper.deleteFolder(resourceContainer);
 		}
 
+		// Remove the blobs that were only referenced by the deleted revisions
+		contentHashes.forEach(contentHash -> {
+			try {
+				blobStore.release(contentHash, this::isContentReferenced);
+			} catch (IOException e) {
+				logger.warn("Error while releasing the blob "+contentHash+" of the resource "+resourceId, e);
+			}
+		});
+
 		resourceAccessor.remove(resource.getId());
 	}
 
-	private List<Resource> getSimilarResources(Resource actualResource, ResourceRevision actualResourceRevision) {
+	/**
+	 * Removes the blobs of the content addressed store that aren't referenced
+	 * by any resource revision anymore
+	 *
+	 * @return the number of removed blobs
+	 * @throws IOException
+	 */
+	@Override
+	public int collectUnreferencedContent() throws IOException {
+		return blobStore.collectGarbage(this::isContentReferenced);
+	}
+
+	private boolean isContentReferenced(String contentHash) {
+		return resourceRevisionAccessor.getResourceRevisionsByContentHash(contentHash).hasNext();
+	}
+
+	private List<Resource> getSimilarResources(ResourceRevision actualResourceRevision) {
 		List<Resource> result = new ArrayList<>();
-		resourceRevisionAccessor.getResourceRevisionsByChecksum(actualResourceRevision.getChecksum()).forEachRemaining(revision->{
+		// The SHA-256 content hash identifies the content: revisions with the same hash are identical
+		resourceRevisionAccessor.getResourceRevisionsByContentHash(actualResourceRevision.getContentHash()).forEachRemaining(revision->{
 			if(!revision.getId().equals(actualResourceRevision.getId())) {
 				Resource resource = resourceAccessor.get(new ObjectId(revision.getResourceId()));
 				if(resource!=null) {
 					 if (resource.getCurrentRevisionId() != null) {
 						// ensure it is an active revision i.e a revision that is the current revision of a resource
 						if(resource.getCurrentRevisionId().equals(revision.getId())) {
-							try {
-								if(FileUtils.contentEquals(getResourceRevisionFile(resource, revision), getResourceRevisionFile(actualResource, actualResourceRevision))) {
-									result.add(resource);
-								}
-							} catch (IOException e) {
-								logger.warn("Error while comparing resource revisions "+revision.getId()+" and "+actualResourceRevision.getId(), e);
-							}
+							result.add(resource);
 						}
 					} else {
 						logger.warn("Found resource without current revision: "+resource.getId());
@@ -225,8 +287,7 @@ public class ResourceManagerImpl implements ResourceManager {
 		String resourceFileName;
 		File file;
 		if(resource.isDirectory()) {
-			file = Files.createTempFile(resourceRevisionFile.getName(), ZIP_EXTENSION).toFile();
-			FileHelper.zip(resourceRevisionFile.getParentFile(), file);
+			file = getRevisionArchive(resource, resourceRevision);
 			resourceFileName = resourceRevision.getResourceFileName() + ZIP_EXTENSION;
 		} else {
 			file = resourceRevisionFile;
@@ -237,6 +298,62 @@ public class ResourceManagerImpl implements ResourceManager {
 		return new ResourceRevisionContentImpl(this, resource, resourceRevisionStream, resourceFileName);
 	}
 
+	/**
+	 * Returns the archive of a directory revision. The archive is built once per
+	 * revision and stored next to the revision container. Concurrent callers
+	 * requesting the archive of the same revision wait for a single build
+	 */
+	private File getRevisionArchive(Resource resource, ResourceRevision resourceRevision) throws IOException {
+		File revisionContainer = getResourceRevisionContainer(resource, resourceRevision);
+		File archive = new File(revisionContainer.getPath() + ZIP_EXTENSION);
+		if(isArchiveUpToDate(archive, revisionContainer)) {
+			return archive;
+		}
+
+		String revisionId = resourceRevision.getId().toString();
+		CompletableFuture<File> build = new CompletableFuture<>();
+		CompletableFuture<File> inFlightBuild = archiveBuilds.putIfAbsent(revisionId, build);
+		if(inFlightBuild == null) {
+			try {
+				// The archive might have been built by a build that completed in the meantime
+				if(!isArchiveUpToDate(archive, revisionContainer)) {
+					buildArchive(revisionContainer, archive);
+				}
+				build.complete(archive);
+				return archive;
+			} catch (IOException | RuntimeException e) {
+				build.completeExceptionally(e);
+				throw e;
+			} finally {
+				archiveBuilds.remove(revisionId, build);
+			}
+		} else {
+			try {
+				return inFlightBuild.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Interrupted while waiting for the archive of the resource revision " + revisionId, e);
+			} catch (ExecutionException e) {
+				throw new IOException("Error while building the archive of the resource revision " + revisionId, e.getCause());
+			}
+		}
+	}
+
+	private boolean isArchiveUpToDate(File archive, File revisionContainer) {
+		return archive.isFile() && archive.lastModified() >= revisionContainer.lastModified();
+	}
+
+	private void buildArchive(File revisionContainer, File archive) throws IOException {
+		// Build to a temporary file and move it to make the archive visible atomically
+		Path tempArchive = Files.createTempFile(revisionContainer.getParentFile().toPath(), revisionContainer.getName(), ZIP_EXTENSION + ".tmp");
+		try {
+			FileHelper.zip(revisionContainer, tempArchive.toFile());
+			Files.move(tempArchive, archive.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tempArchive);
+		}
+	}
+
 	private ResourceRevision getCurrentResourceRevision(Resource resource) {
 		return getResourceRevision(resource.getCurrentRevisionId());
 	}
@@ -288,9 +405,9 @@ public class ResourceManagerImpl implements ResourceManager {
 	private ResourceRevision createResourceRevisionAndSaveContent(InputStream resourceStream, String contentFilename, Resource resource)
 			throws IOException, InvalidResourceFormatException {
 		ResourceRevision revision = createResourceRevisionContainer(contentFilename, resource);
-		saveResourceRevisionContent(resourceStream, resource, revision);
+		ResourceContentDigest digest = saveResourceRevisionContent(resourceStream, resource, revision);
 		try {
-			closeResourceContainer(resource, revision, false, null);
+			closeResourceContainer(resource, revision, digest, false, null);
 		} catch (SimilarResourceExistingException e) {
 			throw new RuntimeException("Should never occur", e);
 		}
@@ -301,6 +418,21 @@ public class ResourceManagerImpl implements ResourceManager {
 		return com.google.common.io.Files.hash(file, Hashing.md5()).toString();
 	}
 
+	private String getContentHash(File file) throws IOException {
+		return com.google.common.io.Files.hash(file, Hashing.sha256()).toString();
+	}
+
+	protected static long copy(InputStream input, OutputStream output) throws IOException {
+		byte[] buffer = new byte[COPY_BUFFER_SIZE];
+		long count = 0;
+		int read;
+		while ((read = input.read(buffer)) >= 0) {
+			output.write(buffer, 0, read);
+			count += read;
+		}
+		return count;
+	}
+
 	private Resource createResource(String resourceTypeId, String name, boolean isDirectory) {
 		ResourceType resourceType = resourceTypes.get(resourceTypeId);
 		if(resourceType ==  null) {
@@ -331,10 +463,19 @@ public class ResourceManagerImpl implements ResourceManager {
 		return revision;
 	}
 
-	private File saveResourceRevisionContent(InputStream resourceStream, Resource resource, ResourceRevision revision) throws IOException {
+	/**
+	 * Writes the content of the revision and computes its checksum in the same pass
+	 *
+	 * @return the digest of the content
+	 */
+	private ResourceContentDigest saveResourceRevisionContent(InputStream resourceStream, Resource resource, ResourceRevision revision) throws IOException {
 		File resourceFile = getResourceRevisionFile(resource, revision);
-		Files.copy(resourceStream, resourceFile.toPath());
-		return resourceFile;
+		ResourceContentDigest digest = new ResourceContentDigest();
+		// The provided stream is left open as before
+		try (OutputStream output = new FileOutputStream(resourceFile)) {
+			copy(digest.wrap(resourceStream), output);
+		}
+		return digest;
 	}
 
 	@Override
@@ -27,4 +27,6 @@ public interface ResourceRevisionAccessor extends Accessor<ResourceRevision> {
 	public Iterator<ResourceRevision> getResourceRevisionsByResourceId(String resourceId);
 
 	public Iterator<ResourceRevision> getResourceRevisionsByChecksum(String checksum);
+
+	public Iterator<ResourceRevision> getResourceRevisionsByContentHash(String contentHash);
 }
@@ -28,6 +28,12 @@ public class ResourceRevisionAccessorImpl extends AbstractAccessor<ResourceRevis
 
 	public ResourceRevisionAccessorImpl(Collection<ResourceRevision> collectionDriver) {
 		super(collectionDriver);
+		createIndexesIfNeeded();
+	}
+
+	protected void createIndexesIfNeeded() {
+		// Used to look up the revisions sharing a blob and to detect duplicates
+		createOrUpdateIndex("contentHash");
 	}
 
 	@Override
@@ -40,4 +46,9 @@ public class ResourceRevisionAccessorImpl extends AbstractAccessor<ResourceRevis
 		return collectionDriver.find(Filters.equals("checksum", checksum), null, null, null, 0).iterator();
 	}
 
+	@Override
+	public Iterator<ResourceRevision> getResourceRevisionsByContentHash(String contentHash) {
+		return collectionDriver.find(Filters.equals("contentHash", contentHash), null, null, null, 0).iterator();
+	}
+
 }
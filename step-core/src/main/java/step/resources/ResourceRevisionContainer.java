@@ -27,6 +27,7 @@ public class ResourceRevisionContainer {
 	protected final Resource resource;
 	protected final ResourceRevision resourceRevision;
 	protected final OutputStream outputStream;
+	private final ResourceContentDigest digest;
 	private final ResourceManagerImpl resourceManagerImpl;
 
 	protected ResourceRevisionContainer(Resource resource, ResourceRevision resourceRevision, ResourceManagerImpl resourceManagerImpl) throws FileNotFoundException {
@@ -36,7 +37,9 @@ public class ResourceRevisionContainer {
 		this.resourceManagerImpl = resourceManagerImpl;
 
 		File file = resourceManagerImpl.getResourceRevisionFile(resource, resourceRevision);
-		this.outputStream = new FileOutputStream(file);
+		// The checksums are computed while the content is written to avoid reading the file back
+		this.digest = new ResourceContentDigest();
+		this.outputStream = digest.wrap(new FileOutputStream(file));
 	}
 
 	public OutputStream getOutputStream() {
@@ -57,7 +60,7 @@ public class ResourceRevisionContainer {
 		} catch (IOException e) {
 
 		}
-		resourceManagerImpl.closeResourceContainer(resource, resourceRevision, checkForDuplicates, objectEnricher);
+		resourceManagerImpl.closeResourceContainer(resource, resourceRevision, digest, checkForDuplicates, objectEnricher);
 	}
 	
 	public void save(ObjectEnricher objectEnricher) throws IOException, InvalidResourceFormatException {
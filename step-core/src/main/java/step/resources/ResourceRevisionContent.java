@@ -20,6 +20,7 @@ package step.resources;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface ResourceRevisionContent {
 
@@ -29,4 +30,14 @@ public interface ResourceRevisionContent {
 
 	void close() throws IOException;
 
+	/**
+	 * Writes the whole content to the provided stream
+	 *
+	 * @param output the stream to write the content to. It isn't closed by this method
+	 * @throws IOException
+	 */
+	default void transferTo(OutputStream output) throws IOException {
+		getResourceStream().transferTo(output);
+	}
+
 }
@@ -19,8 +19,13 @@
 package step.resources;
 
 import java.io.Closeable;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 
 public class ResourceRevisionContentImpl implements Closeable, ResourceRevisionContent {
@@ -48,6 +53,26 @@ public class ResourceRevisionContentImpl implements Closeable, ResourceRevisionC
 		return resourceName;
 	}
 
+	/**
+	 * Uses {@link FileChannel#transferTo(long, long, WritableByteChannel)} when
+	 * the content is backed by a file to let the OS perform the copy
+	 */
+	@Override
+	public void transferTo(OutputStream output) throws IOException {
+		if(resourceStream instanceof FileInputStream) {
+			FileChannel channel = ((FileInputStream) resourceStream).getChannel();
+			WritableByteChannel target = Channels.newChannel(output);
+			long position = channel.position();
+			long size = channel.size();
+			while(position < size) {
+				position += channel.transferTo(position, size - position, target);
+			}
+			channel.position(position);
+		} else {
+			ResourceManagerImpl.copy(resourceStream, output);
+		}
+	}
+
 	@Override
 	public void close() throws IOException {
 		resourceStream.close();
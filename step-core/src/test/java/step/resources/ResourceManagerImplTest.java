@@ -19,18 +19,27 @@
 package step.resources;
 
 import ch.exense.commons.io.FileHelper;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteStreams;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import step.core.accessors.AbstractOrganizableObject;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -132,6 +141,89 @@ public class ResourceManagerImplTest {
 		assertEquals("TestResource.txt", actualResource.getResourceName());
 	}
 
+	@Test
+	public void testChecksumAndTransfer() throws Exception {
+		// Bigger than the copy buffer to cover multiple iterations
+		byte[] content = new byte[ResourceManagerImpl.COPY_BUFFER_SIZE * 3 + 17];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) (i % 251);
+		}
+		String expectedChecksum = Hashing.md5().hashBytes(content).toString();
+
+		Resource resource = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_FUNCTIONS, new ByteArrayInputStream(content), "content.bin", false, null);
+		ResourceRevision revision = resourceManager.getResourceRevision(resource.getCurrentRevisionId().toString());
+		assertEquals(expectedChecksum, revision.getChecksum());
+
+		// Update through the revision content path
+		resourceManager.saveResourceContent(resource.getId().toString(), new ByteArrayInputStream(content), "content2.bin");
+		resource = resourceManager.getResource(resource.getId().toString());
+		revision = resourceManager.getResourceRevision(resource.getCurrentRevisionId().toString());
+		assertEquals(expectedChecksum, revision.getChecksum());
+
+		ResourceRevisionContent resourceContent = resourceManager.getResourceContent(resource.getId().toString());
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			resourceContent.transferTo(output);
+		} finally {
+			resourceContent.close();
+		}
+		assertArrayEquals(content, output.toByteArray());
+	}
+
+	@Test
+	public void testContentAddressedStore() throws Exception {
+		ResourceManagerImpl resourceManagerImpl = (ResourceManagerImpl) resourceManager;
+		ResourceBlobStore blobStore = resourceManagerImpl.blobStore;
+		Assume.assumeTrue(blobStore.isEnabled());
+
+		Resource resource1 = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_FUNCTIONS, this.getClass().getResourceAsStream("TestResource.txt"), "TestResource.txt", false, null);
+		Resource resource2 = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_FUNCTIONS, this.getClass().getResourceAsStream("TestResource.txt"), "TestResource.txt", false, null);
+
+		ResourceRevision revision1 = resourceManagerImpl.getResourceRevision(resource1.getCurrentRevisionId().toString());
+		ResourceRevision revision2 = resourceManagerImpl.getResourceRevision(resource2.getCurrentRevisionId().toString());
+		assertEquals(revision1.getContentHash(), revision2.getContentHash());
+		assertEquals(Hashing.sha256().hashBytes(ByteStreams.toByteArray(this.getClass().getResourceAsStream("TestResource.txt"))).toString(), revision1.getContentHash());
+
+		// Both revision files are links to the same blob
+		File blobFile = blobStore.getBlobFile(revision1.getContentHash());
+		File revisionFile1 = resourceManagerImpl.getResourceRevisionFile(resource1, revision1);
+		File revisionFile2 = resourceManagerImpl.getResourceRevisionFile(resource2, revision2);
+		assertTrue(Files.isSameFile(blobFile.toPath(), revisionFile1.toPath()));
+		assertTrue(Files.isSameFile(blobFile.toPath(), revisionFile2.toPath()));
+
+		// The blob is kept as long as it is referenced
+		resourceManager.deleteResource(resource1.getId().toString());
+		assertTrue(blobFile.exists());
+		assertResourceContent(resourceManager.getResourceContent(resource2.getId().toString()));
+
+		resourceManager.deleteResource(resource2.getId().toString());
+		assertFalse(blobFile.exists());
+
+		// Blobs left unreferenced by an interrupted deletion are garbage collected
+		Resource resource3 = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_FUNCTIONS, this.getClass().getResourceAsStream("TestResource.txt"), "TestResource.txt", false, null);
+		ResourceRevision revision3 = resourceManagerImpl.getResourceRevision(resource3.getCurrentRevisionId().toString());
+		assertEquals(0, resourceManager.collectUnreferencedContent());
+		resourceRevisionAccessor.remove(revision3.getId());
+		assertEquals(1, resourceManager.collectUnreferencedContent());
+		assertFalse(blobStore.getBlobFile(revision3.getContentHash()).exists());
+	}
+
+	@Test
+	public void testMutableResourcesAreNotShared() throws Exception {
+		ResourceManagerImpl resourceManagerImpl = (ResourceManagerImpl) resourceManager;
+		Resource resource1 = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_DATASOURCE, this.getClass().getResourceAsStream("TestResource.txt"), "TestResource.txt", false, null);
+		Resource resource2 = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_DATASOURCE, this.getClass().getResourceAsStream("TestResource.txt"), "TestResource.txt", false, null);
+		ResourceRevision revision1 = resourceManagerImpl.getResourceRevision(resource1.getCurrentRevisionId().toString());
+		ResourceRevision revision2 = resourceManagerImpl.getResourceRevision(resource2.getCurrentRevisionId().toString());
+		File revisionFile1 = resourceManagerImpl.getResourceRevisionFile(resource1, revision1);
+		File revisionFile2 = resourceManagerImpl.getResourceRevisionFile(resource2, revision2);
+		assertFalse(Files.isSameFile(revisionFile1.toPath(), revisionFile2.toPath()));
+
+		// Write the first resource in place like the Excel data sets do
+		Files.write(revisionFile1.toPath(), "Modified".getBytes(StandardCharsets.UTF_8));
+		assertResourceContent(resourceManager.getResourceContent(resource2.getId().toString()));
+	}
+
 	@Test
 	public void testDuplicateResource() throws Exception {
 		// Create a resource
@@ -264,4 +356,60 @@ public class ResourceManagerImplTest {
 		assertEquals("newName", resourceRevision.getResourceFileName());
 	}
 
+	@Test
+	public void testDirectoryResourceArchiveCache() throws Exception {
+		File tempFolder = FileHelper.createTempFolder();
+		tempFolder.toPath().resolve("TestResource").toFile().mkdir();
+		Files.writeString(tempFolder.toPath().resolve("TestResource/file1"), "content1");
+		File zippedFolder = FileHelper.createTempFile();
+		FileHelper.zip(tempFolder, zippedFolder);
+
+		Resource resource = resourceManager.createResource(ResourceManager.RESOURCE_TYPE_FUNCTIONS, true, new FileInputStream(zippedFolder), "TestResource.zip", false, null);
+		String resourceId = resource.getId().toString();
+
+		// Request the archive concurrently. All requests should get the same archive built once
+		ExecutorService executor = Executors.newFixedThreadPool(5);
+		try {
+			List<Future<byte[]>> futures = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				futures.add(executor.submit(() -> {
+					ResourceRevisionContent resourceContent = resourceManager.getResourceContent(resourceId);
+					ByteArrayOutputStream output = new ByteArrayOutputStream();
+					try {
+						resourceContent.transferTo(output);
+					} finally {
+						resourceContent.close();
+					}
+					return output.toByteArray();
+				}));
+			}
+			byte[] expected = futures.get(0).get();
+			for (Future<byte[]> future : futures) {
+				assertArrayEquals(expected, future.get());
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		// The archive is stored next to the revision container and reused
+		File revisionContainer = resourceManager.getResourceFile(resourceId).getResourceFile().getParentFile();
+		File archive = new File(revisionContainer.getPath() + ".zip");
+		assertTrue(FileHelper.isArchive(archive));
+		long lastModified = archive.lastModified();
+		resourceManager.getResourceContent(resourceId).close();
+		assertEquals(lastModified, archive.lastModified());
+
+		// Updating the resource creates a new revision with its own archive
+		resourceManager.saveResourceContent(resourceId, new FileInputStream(zippedFolder), "TestResource.zip");
+		ResourceRevisionContent resourceContent = resourceManager.getResourceContent(resourceId);
+		resourceContent.close();
+		File newRevisionContainer = resourceManager.getResourceFile(resourceId).getResourceFile().getParentFile();
+		assertNotEquals(revisionContainer, newRevisionContainer);
+		assertTrue(new File(newRevisionContainer.getPath() + ".zip").exists());
+
+		// The archives are deleted with the resource
+		resourceManager.deleteResource(resourceId);
+		assertFalse(archive.exists());
+	}
+
 }
@@ -18,14 +18,29 @@
  ******************************************************************************/
 package step.plugins.functions.types;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.json.JsonObject;
+
+import step.artefacts.handlers.InProcessFunctionExecutor;
 import step.core.AbstractContext;
+import step.core.artefacts.reports.ReportNode;
+import step.core.execution.ExecutionContext;
 import step.core.objectenricher.ObjectHookRegistry;
 import step.core.plans.Plan;
 import step.core.plans.PlanAccessor;
 import step.core.plans.builder.PlanBuilder;
+import step.core.reports.Error;
+import step.core.reports.ErrorType;
+import step.functions.handler.FunctionIOJakartaObjectMapperFactory;
+import step.functions.handler.FunctionIOJavaxObjectMapperFactory;
+import step.functions.io.FunctionInput;
+import step.functions.io.Output;
+import step.functions.io.OutputBuilder;
 import step.functions.type.AbstractFunctionType;
 import step.functions.type.FunctionTypeException;
 import step.functions.type.SetupFunctionException;
@@ -33,7 +48,10 @@ import step.grid.filemanager.FileVersionId;
 import step.planbuilder.BaseArtefacts;
 import step.plugins.functions.types.composite.ArtefactFunctionHandler;
 
-public class CompositeFunctionType extends AbstractFunctionType<CompositeFunction> {
+public class CompositeFunctionType extends AbstractFunctionType<CompositeFunction> implements InProcessFunctionExecutor<CompositeFunction> {
+
+	private static final ObjectMapper jakartaMapper = FunctionIOJakartaObjectMapperFactory.createObjectMapper();
+	private static final ObjectMapper javaxMapper = FunctionIOJavaxObjectMapperFactory.createObjectMapper();
 
 	protected FileVersionId handlerJar;
 
@@ -90,6 +108,32 @@ public class CompositeFunctionType extends AbstractFunctionType<CompositeFunctio
   		function.setPlanId(plan.getId().toString());
 	}
 
+	@Override
+	public Output<JsonObject> executeInProcess(ExecutionContext context, CompositeFunction function,
+			FunctionInput<JsonObject> input, ReportNode parentNode) {
+		OutputBuilder outputBuilder = new OutputBuilder();
+		Output<JsonObject> output = new Output<>();
+		try {
+			Map<String, String> properties = input.getProperties() != null ? input.getProperties() : new HashMap<>();
+			context.getDynamicBeanResolver().evaluate(function, Collections.<String, Object>unmodifiableMap(properties));
+
+			ArtefactFunctionHandler.executeCompositePlan(context, function.getPlanId(), parentNode, input.getPayload(), outputBuilder);
+			
+			// The OutputBuilder of the function API is based on javax.json
+			Output<javax.json.JsonObject> builtOutput = outputBuilder.build();
+			javax.json.JsonObject payload = builtOutput.getPayload();
+			if(payload != null) {
+				output.setPayload(jakartaMapper.readValue(javaxMapper.treeAsTokens(javaxMapper.valueToTree(payload)), JsonObject.class));
+			}
+			output.setError(builtOutput.getError());
+			output.setAttachments(builtOutput.getAttachments());
+			output.setMeasures(builtOutput.getMeasures());
+		} catch (Exception e) {
+			output.setError(new Error(ErrorType.TECHNICAL, "Unexpected error while executing the composite keyword: " + e.getMessage()));
+		}
+		return output;
+	}
+
 	@Override
 	public CompositeFunction copyFunction(CompositeFunction function) throws FunctionTypeException {
 		CompositeFunction copy = super.copyFunction(function);
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.functions.types;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import org.bson.types.ObjectId;
+import org.junit.Assert;
+import org.junit.Test;
+
+import step.artefacts.BaseArtefactPlugin;
+import step.artefacts.Return;
+import step.core.artefacts.reports.ReportNode;
+import step.core.dynamicbeans.DynamicValue;
+import step.core.execution.ExecutionContext;
+import step.core.execution.ExecutionEngine;
+import step.core.plans.Plan;
+import step.core.plans.builder.PlanBuilder;
+import step.functions.io.FunctionInput;
+import step.functions.io.Output;
+import step.planbuilder.BaseArtefacts;
+
+public class CompositeFunctionTypeTest {
+
+	@Test
+	public void testExecuteInProcess() {
+		ExecutionContext context = ExecutionEngine.builder().withPlugin(new BaseArtefactPlugin()).build().newExecutionContext();
+
+		Return r = new Return();
+		r.setOutput(new DynamicValue<>("{\"Result\":{\"dynamic\":true,\"expression\":\"input.Input1\"}}"));
+		Plan compositePlan = PlanBuilder.create().startBlock(BaseArtefacts.sequence()).add(r).endBlock().build();
+		context.getPlanAccessor().save(compositePlan);
+
+		CompositeFunction function = new CompositeFunction();
+		function.setPlanId(compositePlan.getId().toString());
+
+		ReportNode parentNode = new ReportNode();
+		context.getReportNodeAccessor().save(parentNode);
+
+		CompositeFunctionType functionType = new CompositeFunctionType(context.getPlanAccessor(), null);
+		for (int i = 0; i < 2; i++) {
+			FunctionInput<JsonObject> input = new FunctionInput<>();
+			input.setPayload(Json.createObjectBuilder().add("Input1", "InputValue" + i).build());
+			Output<JsonObject> output = functionType.executeInProcess(context, function, input, parentNode);
+
+			Assert.assertNull(output.getError());
+			Assert.assertEquals("InputValue" + i, output.getPayload().getString("Result"));
+		}
+
+		AtomicInteger count = new AtomicInteger(0);
+		context.getReportNodeAccessor().getAll().forEachRemaining(n -> count.incrementAndGet());
+		Assert.assertEquals(5, count.get());
+	}
+
+	@Test
+	public void testExecuteInProcessDynamicValuesAndPayload() {
+		ExecutionContext context = ExecutionEngine.builder().withPlugin(new BaseArtefactPlugin()).build().newExecutionContext();
+
+		Return r = new Return();
+		r.setOutput(new DynamicValue<>("{\"Object\":{\"dynamic\":true,\"expression\":\"input.Object\"},\"Array\":{\"dynamic\":true,\"expression\":\"input.Array\"},\"Number\":{\"dynamic\":true,\"expression\":\"input.Number\"}}"));
+		Plan compositePlan = PlanBuilder.create().startBlock(BaseArtefacts.sequence()).add(r).endBlock().build();
+		context.getPlanAccessor().save(compositePlan);
+
+		CompositeFunction function = new CompositeFunction();
+		function.setPlanId(compositePlan.getId().toString());
+		function.setCallTimeout(new DynamicValue<>("Integer.parseInt(timeout)", ""));
+
+		CompositeFunctionType functionType = new CompositeFunctionType(context.getPlanAccessor(), null);
+		FunctionInput<JsonObject> input = new FunctionInput<>();
+		input.setPayload(Json.createObjectBuilder().add("Object", Json.createObjectBuilder().add("Key", "Value"))
+				.add("Array", Json.createArrayBuilder().add(1).add("Two")).add("Number", 3).build());
+		input.setProperties(Map.of("timeout", "1000"));
+		Output<JsonObject> output = functionType.executeInProcess(context, function, input, context.getReport());
+
+		Assert.assertNull(output.getError());
+		// the dynamic values of the function are evaluated against the properties of the input
+		Assert.assertEquals(1000, (int) function.getCallTimeout().get());
+		JsonObject payload = output.getPayload();
+		Assert.assertEquals("Value", payload.getJsonObject("Object").getString("Key"));
+		Assert.assertEquals(1, payload.getJsonArray("Array").getInt(0));
+		Assert.assertEquals("Two", payload.getJsonArray("Array").getString(1));
+		Assert.assertEquals(3, payload.getInt("Number"));
+	}
+
+	@Test
+	public void testExecuteInProcessMissingPlan() {
+		ExecutionContext context = ExecutionEngine.builder().withPlugin(new BaseArtefactPlugin()).build().newExecutionContext();
+
+		CompositeFunction function = new CompositeFunction();
+		function.setPlanId(new ObjectId().toString());
+
+		CompositeFunctionType functionType = new CompositeFunctionType(context.getPlanAccessor(), null);
+		FunctionInput<JsonObject> input = new FunctionInput<>();
+		input.setPayload(Json.createObjectBuilder().build());
+		Output<JsonObject> output = functionType.executeInProcess(context, function, input, context.getReport());
+
+		Assert.assertNotNull(output.getError());
+	}
+}
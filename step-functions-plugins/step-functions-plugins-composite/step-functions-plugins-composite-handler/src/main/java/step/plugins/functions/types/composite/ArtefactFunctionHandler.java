@@ -20,10 +20,13 @@ package step.plugins.functions.types.composite;
 
 import javax.json.JsonObject;
 
+import step.artefacts.handlers.ResolvedPlanCache;
+import step.artefacts.handlers.ResolvedPlanCache.PlanCacheKey;
 import step.core.artefacts.AbstractArtefact;
 import step.core.artefacts.reports.ReportNode;
 import step.core.artefacts.reports.ReportNodeStatus;
 import step.core.execution.ExecutionContext;
+import step.core.plans.Plan;
 import step.core.reports.Error;
 import step.core.reports.ErrorType;
 import step.core.variables.VariableType;
@@ -64,31 +67,52 @@ public class ArtefactFunctionHandler extends JsonBasedFunctionHandler {
 				//throw new RuntimeException("Parent node id is null. This should never occur");
 			}
 			
-			ReportNode previousCurrentNode = executionContext.getCurrentReportNode();
-			executionContext.setCurrentReportNode(parentNode);
-			executionContext.getReportNodeCache().put(parentNode);
-			
-			AbstractArtefact artefact = executionContext.getPlanAccessor().get(planId).getRoot();
-			
-			executionContext.getVariablesManager().putVariable(parentNode, INPUT, input.getPayload());
-			executionContext.getVariablesManager().putVariable(parentNode, VariableType.IMMUTABLE, OUTPUT, output);
-			
-			try {
-				ReportNode node = executionContext.getArtefactHandlerManager().execute(artefact, parentNode);
-				if(node.getStatus()== ReportNodeStatus.TECHNICAL_ERROR || node.getStatus()== ReportNodeStatus.FAILED) {
-					Error error = new Error();
-					error.setCode(0);
-					error.setMsg("Error in composite keyword");
-					error.setRoot(false);
-					error.setType(node.getStatus().equals(ReportNodeStatus.FAILED)?ErrorType.BUSINESS:ErrorType.TECHNICAL);
-					output.setError(error);
-				}
-			} finally {
-				executionContext.getVariablesManager().removeVariable(parentNode, OUTPUT);
-				executionContext.setCurrentReportNode(previousCurrentNode);
-			}
+			executeCompositePlan(executionContext, planId, parentNode, input.getPayload(), output);
 		}
 		
 		return output.build();
 	}
+
+	/**
+	 * Executes the plan of a composite keyword as child of the provided report node
+	 * 
+	 * @param executionContext the {@link ExecutionContext} to execute the plan in
+	 * @param planId the ID of the plan of the composite keyword
+	 * @param parentNode the report node to attach the plan execution to
+	 * @param input the input of the keyword exposed as variable 'input'
+	 * @param output the {@link OutputBuilder} exposed as variable 'output'
+	 */
+	public static void executeCompositePlan(ExecutionContext executionContext, String planId, ReportNode parentNode, Object input, OutputBuilder output) {
+		// The plan is resolved once per execution
+		Plan plan = ResolvedPlanCache.getOrCreate(executionContext).getPlan(new PlanCacheKey(planId, null, null), () -> {
+			Plan compositePlan = executionContext.getPlanAccessor().get(planId);
+			if(compositePlan == null) {
+				throw new RuntimeException("The plan of the composite keyword with id "+planId+" doesn't exist");
+			}
+			return compositePlan;
+		});
+		AbstractArtefact artefact = plan.getRoot();
+		
+		ReportNode previousCurrentNode = executionContext.getCurrentReportNode();
+		executionContext.setCurrentReportNode(parentNode);
+		executionContext.getReportNodeCache().put(parentNode);
+		
+		executionContext.getVariablesManager().putVariable(parentNode, INPUT, input);
+		executionContext.getVariablesManager().putVariable(parentNode, VariableType.IMMUTABLE, OUTPUT, output);
+		
+		try {
+			ReportNode node = executionContext.getArtefactHandlerManager().execute(artefact, parentNode);
+			if(node.getStatus()== ReportNodeStatus.TECHNICAL_ERROR || node.getStatus()== ReportNodeStatus.FAILED) {
+				Error error = new Error();
+				error.setCode(0);
+				error.setMsg("Error in composite keyword");
+				error.setRoot(false);
+				error.setType(node.getStatus().equals(ReportNodeStatus.FAILED)?ErrorType.BUSINESS:ErrorType.TECHNICAL);
+				output.setError(error);
+			}
+		} finally {
+			executionContext.getVariablesManager().removeVariable(parentNode, OUTPUT);
+			executionContext.setCurrentReportNode(previousCurrentNode);
+		}
+	}
 }
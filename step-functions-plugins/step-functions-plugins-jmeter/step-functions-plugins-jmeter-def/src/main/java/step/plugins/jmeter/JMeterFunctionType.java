@@ -58,6 +58,13 @@ public class JMeterFunctionType extends AbstractFunctionType<JMeterFunction> {
 		Map<String, String> props = new HashMap<>();
 		registerFile(function.getJmeterTestplan(), "$jmeter.testplan.file", props);
 		
+		// Aggregate the samples per label instead of reporting each of them
+		props.put("$jmeter.samples.aggregate", configuration.getProperty("plugins.jmeter.samples.aggregate", "false"));
+		String maxSampleDetails = configuration.getProperty("plugins.jmeter.samples.details.max");
+		if(maxSampleDetails!=null) {
+			props.put("$jmeter.samples.details.max", maxSampleDetails);
+		}
+		
 		String home = configuration.getProperty("plugins.jmeter.home");
 		if(home!=null) {
 			File homeFile = new File(home);
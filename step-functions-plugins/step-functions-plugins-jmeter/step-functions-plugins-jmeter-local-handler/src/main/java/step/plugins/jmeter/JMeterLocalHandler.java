@@ -21,7 +21,6 @@ package step.plugins.jmeter;
 import ch.qos.logback.classic.Logger;
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.engine.StandardJMeterEngine;
-import org.apache.jmeter.save.SaveService;
 import org.apache.jmeter.testelement.TestPlan;
 import org.apache.jmeter.util.JMeterUtils;
 import org.apache.jorphan.collections.HashTree;
@@ -36,6 +35,7 @@ import step.grid.io.AttachmentHelper;
 
 import javax.json.JsonObject;
 import java.io.File;
+import java.util.Map;
 import java.util.Objects;
 
 public class JMeterLocalHandler extends JsonBasedFunctionHandler {
@@ -44,6 +44,14 @@ public class JMeterLocalHandler extends JsonBasedFunctionHandler {
 
 	public static final String JMETER_LIBRARIES = "$jmeter.libraries";
 
+	public static final String JMETER_SAMPLES_AGGREGATE = "$jmeter.samples.aggregate";
+
+	public static final String JMETER_SAMPLES_DETAILS_MAX = "$jmeter.samples.details.max";
+
+	private static final String TEST_PLAN_CACHE = "testPlanCache";
+
+	private static final int TEST_PLAN_CACHE_SIZE = 20;
+
 	protected String jmeterHome;
 	protected Logger rootLogger;
 
@@ -84,10 +92,14 @@ public class JMeterLocalHandler extends JsonBasedFunctionHandler {
 
 		StandardJMeterEngine jmeter = new StandardJMeterEngine();
 
-		HashTree testPlanTree = SaveService.loadTree(testPlanFile);
+		HashTree testPlanTree = getTestPlanTree(context, testPlanFile);
 
 		Arguments arguments = createArguments(message);
-		SampleListenerImpl listener = new SampleListenerImpl(out);
+		Map<String, String> properties = message.getProperties();
+		boolean aggregate = properties != null && Boolean.parseBoolean(properties.get(JMETER_SAMPLES_AGGREGATE));
+		String maxSampleDetails = properties != null ? properties.get(JMETER_SAMPLES_DETAILS_MAX) : null;
+		SampleListenerImpl listener = new SampleListenerImpl(out, aggregate,
+				maxSampleDetails != null ? Integer.parseInt(maxSampleDetails) : (aggregate ? 0 : -1));
 
 		testPlanTree.traverse(new HashTreeTraverser() {
 
@@ -128,6 +140,16 @@ public class JMeterLocalHandler extends JsonBasedFunctionHandler {
 
 	}
 
+	/**
+	 * Returns a copy of the parsed test plan. The parsed test plans are cached
+	 * in the application context
+	 */
+	private HashTree getTestPlanTree(ApplicationContext context, File testPlanFile) throws Exception {
+		JMeterTestPlanCache cache = (JMeterTestPlanCache) context.computeIfAbsent(TEST_PLAN_CACHE,
+				k -> new JMeterTestPlanCache(TEST_PLAN_CACHE_SIZE));
+		return cache.getTestPlanTree(testPlanFile);
+	}
+
 	private Arguments createArguments(Input<?> input) {
 		Arguments arguments = new Arguments();
 		JsonObject inputJson = (JsonObject) input.getPayload();
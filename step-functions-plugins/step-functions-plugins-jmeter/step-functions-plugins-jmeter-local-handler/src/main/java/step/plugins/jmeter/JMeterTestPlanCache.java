@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.jmeter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.jmeter.engine.TreeCloner;
+import org.apache.jmeter.save.SaveService;
+import org.apache.jorphan.collections.HashTree;
+
+/**
+ * LRU cache of parsed JMeter test plans. The test plans are cached per file
+ * version and a copy of the parsed tree is returned for each run as the run
+ * modifies the tree and its elements
+ */
+public class JMeterTestPlanCache {
+
+	private final Map<String, HashTree> cache;
+
+	public JMeterTestPlanCache(int maxSize) {
+		super();
+		cache = Collections.synchronizedMap(new LinkedHashMap<String, HashTree>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, HashTree> eldest) {
+				return size() > maxSize;
+			}
+		});
+	}
+
+	/**
+	 * @param testPlanFile the test plan file
+	 * @return a copy of the parsed test plan
+	 */
+	public HashTree getTestPlanTree(File testPlanFile) throws IOException {
+		String key = testPlanFile.getAbsolutePath() + ":" + testPlanFile.lastModified() + ":" + testPlanFile.length();
+		HashTree parsedTree = cache.get(key);
+		if (parsedTree == null) {
+			parsedTree = loadTree(testPlanFile);
+			cache.put(key, parsedTree);
+		}
+
+		TreeCloner cloner = new TreeCloner(false);
+		synchronized (parsedTree) {
+			parsedTree.traverse(cloner);
+		}
+		return cloner.getClonedTree();
+	}
+
+	protected HashTree loadTree(File testPlanFile) throws IOException {
+		return SaveService.loadTree(testPlanFile);
+	}
+}
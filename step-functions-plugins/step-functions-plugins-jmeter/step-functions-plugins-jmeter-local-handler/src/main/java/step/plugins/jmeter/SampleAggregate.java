@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.jmeter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+import javax.json.JsonObjectBuilder;
+
+/**
+ * Aggregates the elapsed times of the samples of a given label. The times are
+ * recorded in a log-linear histogram: values below 16ms are counted exactly,
+ * larger values in 8 sub-buckets per power of 2 (i.e. with a precision of
+ * 12.5%). This class is thread safe.
+ */
+public class SampleAggregate {
+
+	private static final int LINEAR_BUCKETS = 16;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// 16 linear buckets followed by 8 sub-buckets for each power of 2 from 2^4 to 2^62
+	private static final int BUCKET_COUNT = LINEAR_BUCKETS + (63 - 4) * SUB_BUCKETS;
+
+	private final String label;
+	private final long[] buckets = new long[BUCKET_COUNT];
+	private long count;
+	private long errorCount;
+	private long sum;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	public SampleAggregate(String label) {
+		super();
+		this.label = label;
+	}
+
+	public synchronized void add(long time, int errors) {
+		long value = Math.max(0, time);
+		buckets[bucketIndex(value)]++;
+		count++;
+		errorCount += errors;
+		sum += value;
+		min = Math.min(min, value);
+		max = Math.max(max, value);
+	}
+
+	protected static int bucketIndex(long value) {
+		if (value < LINEAR_BUCKETS) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+		return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + subBucket;
+	}
+
+	protected static long bucketUpperBound(int index) {
+		if (index < LINEAR_BUCKETS) {
+			return index;
+		}
+		int exponent = (index - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+		int subBucket = (index - LINEAR_BUCKETS) % SUB_BUCKETS;
+		long lowerBound = ((long) (SUB_BUCKETS + subBucket)) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public synchronized long getCount() {
+		return count;
+	}
+
+	public synchronized long getErrorCount() {
+		return errorCount;
+	}
+
+	public synchronized long getAverage() {
+		return count > 0 ? sum / count : 0;
+	}
+
+	/**
+	 * @param percentile the percentile between 0 and 100
+	 * @return the upper bound of the bucket containing the requested percentile,
+	 *         capped by the maximum recorded value
+	 */
+	public synchronized long getPercentile(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+		long cumulatedCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			cumulatedCount += buckets[i];
+			if (cumulatedCount >= rank) {
+				return Math.min(bucketUpperBound(i), max);
+			}
+		}
+		return max;
+	}
+
+	/**
+	 * @return the measure data of this aggregate
+	 */
+	public synchronized Map<String, Object> toMeasureData() {
+		Map<String, Object> data = new LinkedHashMap<>();
+		data.put("count", count);
+		data.put("errorCount", errorCount);
+		data.put("min", count > 0 ? min : 0);
+		data.put("max", count > 0 ? max : 0);
+		data.put("p50", getPercentile(50));
+		data.put("p90", getPercentile(90));
+		data.put("p99", getPercentile(99));
+		return data;
+	}
+
+	/**
+	 * @return the JSON representation of this aggregate including the non-empty
+	 *         buckets of the histogram indexed by their upper bound
+	 */
+	public synchronized JsonObject toJson() {
+		JsonObjectBuilder object = Json.createObjectBuilder();
+		object.add("label", label);
+		object.add("avg", getAverage());
+		toMeasureData().forEach((key, value) -> object.add(key, (long) value));
+		JsonObjectBuilder histogram = Json.createObjectBuilder();
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			if (buckets[i] > 0) {
+				histogram.add(Long.toString(bucketUpperBound(i)), buckets[i]);
+			}
+		}
+		object.add("histogram", histogram);
+		return object.build();
+	}
+}
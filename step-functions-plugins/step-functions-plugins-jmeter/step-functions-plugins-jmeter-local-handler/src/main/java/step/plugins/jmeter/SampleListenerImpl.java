@@ -19,6 +19,8 @@
 package step.plugins.jmeter;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import javax.json.Json;
@@ -33,28 +35,65 @@ import org.apache.jmeter.testelement.AbstractTestElement;
 
 import step.functions.io.OutputBuilder;
 
+/**
+ * Collects the samples of a JMeter run. In detailed mode (default) a measure
+ * is added for each sample and each sample is reported in the output payload.
+ * In aggregated mode the samples are summarized per label in {@link SampleAggregate}s:
+ * one measure is added per label and only the first samples are reported in detail.
+ */
 public class SampleListenerImpl extends AbstractTestElement implements SampleListener, Cloneable {
 
 	private static final long serialVersionUID = -4394201534114759490L;
 
 	private OutputBuilder outputBuilder;
-	
-	List<SampleResult> samples = Collections.synchronizedList(new ArrayList<>());
+	private boolean aggregate;
+	private int maxSampleDetails;
+
+	List<Map<String, Object>> samples = Collections.synchronizedList(new ArrayList<>());
+	Map<String, SampleAggregate> aggregates = new ConcurrentHashMap<>();
+	AtomicInteger sampleCount = new AtomicInteger();
 
 	public SampleListenerImpl() {
 		super();
 	}
 
 	public SampleListenerImpl(OutputBuilder outputBuilder) {
+		this(outputBuilder, false, -1);
+	}
+
+	/**
+	 * @param outputBuilder    the {@link OutputBuilder} to report the samples to
+	 * @param aggregate        if the samples have to be aggregated per label
+	 * @param maxSampleDetails the maximum number of samples to be reported in
+	 *                         detail. -1 for no limit
+	 */
+	public SampleListenerImpl(OutputBuilder outputBuilder, boolean aggregate, int maxSampleDetails) {
 		super();
 		this.outputBuilder = outputBuilder;
+		this.aggregate = aggregate;
+		this.maxSampleDetails = maxSampleDetails;
 	}
 
 	@Override
 	public void sampleOccurred(SampleEvent e) {
 		SampleResult result = e.getResult();
-		samples.add(result);
-		outputBuilder.addMeasure(result.getSampleLabel(), result.getTime(), getDataMapForSample(result));
+		String label = result.getSampleLabel();
+		// The aggregates are also used to report the errors in detailed mode
+		aggregates.computeIfAbsent(label, SampleAggregate::new).add(result.getTime(), result.getErrorCount());
+
+		Map<String, Object> data = null;
+		if (!aggregate) {
+			data = getDataMapForSample(result);
+			outputBuilder.addMeasure(label, result.getTime(), data);
+		}
+
+		if (maxSampleDetails < 0 || sampleCount.getAndIncrement() < maxSampleDetails) {
+			// Only the attributes of the sample are kept, not the sample result itself
+			Map<String, Object> sample = new LinkedHashMap<>();
+			sample.put("label", label);
+			sample.putAll(data != null ? data : getDataMapForSample(result));
+			samples.add(sample);
+		}
 	}
 
 	private Map<String, Object> getDataMapForSample(SampleResult sample) {
@@ -82,21 +121,28 @@ public class SampleListenerImpl extends AbstractTestElement implements SampleLis
 
 	public void collect() {
 		JsonArrayBuilder array = Json.createArrayBuilder();
-		Map<String, Long> erroredSamples = new LinkedHashMap<>();
-
-		for(SampleResult sample:samples) {
-			JsonObjectBuilder object = Json.createObjectBuilder();
-			mapSampleAttributesToReturnObject(object, sample);
-			array.add(object.build());
-
-			if (sample.getErrorCount() > 0) {
-				erroredSamples.merge(sample.getSampleLabel(), (long) sample.getErrorCount(), Long::sum);
+		synchronized (samples) {
+			for(Map<String, Object> sample:samples) {
+				JsonObjectBuilder object = Json.createObjectBuilder();
+				mapSampleAttributesToReturnObject(object, sample);
+				array.add(object.build());
 			}
 		}
-
 		outputBuilder.getPayloadBuilder().add("samples", array.build());
 
+		if (aggregate) {
+			JsonArrayBuilder aggregateArray = Json.createArrayBuilder();
+			aggregates.values().stream().sorted(Comparator.comparing(SampleAggregate::getLabel)).forEach(a -> {
+				outputBuilder.addMeasure(a.getLabel(), a.getAverage(), a.toMeasureData());
+				aggregateArray.add(a.toJson());
+			});
+			outputBuilder.getPayloadBuilder().add("aggregates", aggregateArray.build());
+		}
+
 		// We consider the keyword call to be failed (with a business exception) if any sample returned an error.
+		Map<String, Long> erroredSamples = aggregates.values().stream().filter(a -> a.getErrorCount() > 0)
+				.sorted(Comparator.comparing(SampleAggregate::getLabel))
+				.collect(Collectors.toMap(SampleAggregate::getLabel, SampleAggregate::getErrorCount, (a, b) -> a, LinkedHashMap::new));
 		if (!erroredSamples.isEmpty()) {
 			String message = "The following samples returned errors (error count in parentheses): ";
 			message += erroredSamples.entrySet().stream().map(e -> e.getKey() + " (" + e.getValue() + ")").collect(Collectors.joining(", "));
@@ -104,20 +150,26 @@ public class SampleListenerImpl extends AbstractTestElement implements SampleLis
 		}
 	}
 	
-	private void mapSampleAttributesToReturnObject(JsonObjectBuilder object, SampleResult sample) {
-		object.add("label", sample.getSampleLabel());
-		Map<String, Object> attributes = getDataMapForSample(sample);
-		attributes.forEach((key, valueObject) -> {
-			String value = Optional.ofNullable(valueObject).map(Object::toString).orElse("null");
-			object.add(key, value);
+	private void mapSampleAttributesToReturnObject(JsonObjectBuilder object, Map<String, Object> sample) {
+		object.add("label", (String) sample.get("label"));
+		sample.forEach((key, valueObject) -> {
+			if (!key.equals("label")) {
+				String value = Optional.ofNullable(valueObject).map(Object::toString).orElse("null");
+				object.add(key, value);
+			}
 		});
 	}
 
 	@Override
 	public Object clone() {
 		Object clone =  super.clone();
-		((SampleListenerImpl)clone).outputBuilder = outputBuilder;
-		((SampleListenerImpl)clone).samples = samples;
+		SampleListenerImpl listener = (SampleListenerImpl) clone;
+		listener.outputBuilder = outputBuilder;
+		listener.aggregate = aggregate;
+		listener.maxSampleDetails = maxSampleDetails;
+		listener.samples = samples;
+		listener.aggregates = aggregates;
+		listener.sampleCount = sampleCount;
 		return clone;
 	}
 }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.jmeter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.apache.jmeter.config.Arguments;
+import org.apache.jmeter.testelement.TestPlan;
+import org.apache.jorphan.collections.HashTree;
+import org.junit.Test;
+
+public class JMeterTestPlanCacheTest {
+
+	@Test
+	public void test() throws IOException {
+		TestJMeterTestPlanCache cache = new TestJMeterTestPlanCache(1);
+		File testPlan1 = Files.createTempFile("testPlan1", ".jmx").toFile();
+		File testPlan2 = Files.createTempFile("testPlan2", ".jmx").toFile();
+		try {
+			HashTree tree = cache.getTestPlanTree(testPlan1);
+			assertEquals(1, cache.loadCount);
+
+			// Modify the returned copy as a run does
+			TestPlan testPlan = (TestPlan) tree.getArray()[0];
+			testPlan.setName("modified");
+			tree.getTree(testPlan).add(new Arguments());
+
+			// A cache hit returns a new copy of the parsed test plan
+			HashTree tree2 = cache.getTestPlanTree(testPlan1);
+			assertEquals(1, cache.loadCount);
+			TestPlan testPlan2Element = (TestPlan) tree2.getArray()[0];
+			assertNotSame(testPlan, testPlan2Element);
+			assertEquals("testPlan", testPlan2Element.getName());
+			assertEquals(0, tree2.getTree(testPlan2Element).size());
+
+			// The least recently used test plan is evicted
+			cache.getTestPlanTree(testPlan2);
+			assertEquals(2, cache.loadCount);
+			cache.getTestPlanTree(testPlan1);
+			assertEquals(3, cache.loadCount);
+
+			// A new version of the file is parsed again
+			Files.writeString(testPlan1.toPath(), "modified");
+			cache.getTestPlanTree(testPlan1);
+			assertEquals(4, cache.loadCount);
+		} finally {
+			testPlan1.delete();
+			testPlan2.delete();
+		}
+	}
+
+	private static class TestJMeterTestPlanCache extends JMeterTestPlanCache {
+
+		private int loadCount = 0;
+
+		public TestJMeterTestPlanCache(int maxSize) {
+			super(maxSize);
+		}
+
+		@Override
+		protected HashTree loadTree(File testPlanFile) {
+			loadCount++;
+			HashTree tree = new HashTree();
+			tree.add(new TestPlan("testPlan"));
+			return tree;
+		}
+	}
+}
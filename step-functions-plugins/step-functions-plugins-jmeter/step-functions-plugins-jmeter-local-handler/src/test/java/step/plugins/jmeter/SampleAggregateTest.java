@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.jmeter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+public class SampleAggregateTest {
+
+	@Test
+	public void testBucketIndex() {
+		// Values below 16 are counted exactly
+		assertEquals(0, SampleAggregate.bucketIndex(0));
+		assertEquals(0, SampleAggregate.bucketUpperBound(0));
+		assertEquals(15, SampleAggregate.bucketIndex(15));
+		assertEquals(15, SampleAggregate.bucketUpperBound(15));
+		// Larger values are counted in 8 sub-buckets per power of 2
+		assertEquals(16, SampleAggregate.bucketIndex(16));
+		assertEquals(16, SampleAggregate.bucketIndex(17));
+		assertEquals(17, SampleAggregate.bucketUpperBound(16));
+		assertEquals(17, SampleAggregate.bucketIndex(18));
+		assertEquals(23, SampleAggregate.bucketIndex(31));
+		assertEquals(31, SampleAggregate.bucketUpperBound(23));
+		assertEquals(24, SampleAggregate.bucketIndex(32));
+		assertEquals(35, SampleAggregate.bucketUpperBound(24));
+		// The last bucket ends at the largest value
+		int lastBucket = SampleAggregate.bucketIndex(Long.MAX_VALUE);
+		assertEquals(16 + 59 * 8 - 1, lastBucket);
+		assertEquals(Long.MAX_VALUE, SampleAggregate.bucketUpperBound(lastBucket));
+	}
+
+	@Test
+	public void testBucketPrecision() {
+		for (long value = 0; value < 100000; value++) {
+			assertBucketContains(value);
+		}
+		for (long value = 1L << 20; value > 0; value <<= 1) {
+			assertBucketContains(value - 1);
+			assertBucketContains(value);
+			assertBucketContains(value + 1);
+		}
+	}
+
+	private void assertBucketContains(long value) {
+		long upperBound = SampleAggregate.bucketUpperBound(SampleAggregate.bucketIndex(value));
+		assertTrue(upperBound >= value);
+		assertTrue(upperBound - value <= value / 8);
+	}
+
+	@Test
+	public void testPercentiles() {
+		SampleAggregate aggregate = new SampleAggregate("label");
+		assertEquals(0, aggregate.getPercentile(50));
+
+		aggregate.add(17, 0);
+		assertEquals(17, aggregate.getPercentile(0));
+		assertEquals(17, aggregate.getPercentile(50));
+		assertEquals(17, aggregate.getPercentile(100));
+
+		aggregate = new SampleAggregate("label");
+		for (int i = 1; i <= 100; i++) {
+			aggregate.add(i, 0);
+		}
+		assertEquals(1, aggregate.getPercentile(0));
+		assertEquals(15, aggregate.getPercentile(15));
+		// 50 is in the bucket [48,51]
+		assertEquals(51, aggregate.getPercentile(50));
+		// 90 is in the bucket [88,95]
+		assertEquals(95, aggregate.getPercentile(90));
+		// The upper bound of the last bucket is capped by the max
+		assertEquals(100, aggregate.getPercentile(99));
+		assertEquals(100, aggregate.getPercentile(100));
+	}
+
+	@Test
+	public void testMeasureData() {
+		SampleAggregate aggregate = new SampleAggregate("label");
+		Map<String, Object> data = aggregate.toMeasureData();
+		assertEquals(0L, data.get("count"));
+		assertEquals(0L, data.get("min"));
+		assertEquals(0L, data.get("max"));
+
+		aggregate.add(10, 0);
+		aggregate.add(20, 1);
+		aggregate.add(-5, 1);
+		assertEquals(3, aggregate.getCount());
+		assertEquals(2, aggregate.getErrorCount());
+		assertEquals(10, aggregate.getAverage());
+
+		data = aggregate.toMeasureData();
+		assertEquals(3L, data.get("count"));
+		assertEquals(2L, data.get("errorCount"));
+		// Negative times are recorded as 0
+		assertEquals(0L, data.get("min"));
+		assertEquals(20L, data.get("max"));
+		assertEquals(10L, data.get("p50"));
+		assertEquals(20L, data.get("p99"));
+
+		JsonObject json = aggregate.toJson();
+		assertEquals("label", json.getString("label"));
+		assertEquals(10, json.getInt("avg"));
+		JsonObject histogram = json.getJsonObject("histogram");
+		assertEquals(3, histogram.size());
+		assertEquals(1, histogram.getInt("0"));
+		assertEquals(1, histogram.getInt("10"));
+		assertEquals(1, histogram.getInt("21"));
+	}
+}
@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.plugins.jmeter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+
+import org.apache.jmeter.samplers.SampleEvent;
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.Test;
+
+import step.core.reports.Measure;
+import step.functions.io.Output;
+import step.functions.io.OutputBuilder;
+
+public class SampleListenerImplTest {
+
+	@Test
+	public void testDetailedMode() {
+		OutputBuilder outputBuilder = new OutputBuilder();
+		SampleListenerImpl listener = new SampleListenerImpl(outputBuilder);
+		sample(listener, "sample1", 10, true);
+		sample(listener, "sample2", 20, true);
+		sample(listener, "sample1", 30, true);
+		listener.collect();
+
+		Output<JsonObject> output = outputBuilder.build();
+		assertNull(output.getError());
+		// One measure and one detailed sample per sample
+		List<Measure> measures = output.getMeasures();
+		assertEquals(3, measures.size());
+		assertEquals("sample1", measures.get(0).getName());
+		assertEquals(10, measures.get(0).getDuration());
+		assertEquals(30, measures.get(2).getDuration());
+		JsonArray samples = output.getPayload().getJsonArray("samples");
+		assertEquals(3, samples.size());
+		assertEquals("sample2", samples.getJsonObject(1).getString("label"));
+		assertEquals("20", samples.getJsonObject(1).getString("time"));
+		assertNull(output.getPayload().get("aggregates"));
+	}
+
+	@Test
+	public void testAggregatedMode() {
+		OutputBuilder outputBuilder = new OutputBuilder();
+		SampleListenerImpl listener = new SampleListenerImpl(outputBuilder, true, 0);
+		sample(listener, "sample2", 20, true);
+		sample(listener, "sample1", 10, true);
+		sample(listener, "sample1", 30, false);
+		listener.collect();
+
+		Output<JsonObject> output = outputBuilder.build();
+		// One measure per label with the average as duration
+		List<Measure> measures = output.getMeasures();
+		assertEquals(2, measures.size());
+		Measure measure = measures.get(0);
+		assertEquals("sample1", measure.getName());
+		assertEquals(20, measure.getDuration());
+		assertEquals(2L, measure.getData().get("count"));
+		assertEquals(1L, measure.getData().get("errorCount"));
+		assertEquals(10L, measure.getData().get("min"));
+		assertEquals(30L, measure.getData().get("max"));
+		assertEquals("sample2", measures.get(1).getName());
+		assertEquals(20, measures.get(1).getDuration());
+
+		// No sample is reported in detail
+		assertEquals(0, output.getPayload().getJsonArray("samples").size());
+		JsonArray aggregates = output.getPayload().getJsonArray("aggregates");
+		assertEquals(2, aggregates.size());
+		JsonObject aggregate = aggregates.getJsonObject(0);
+		assertEquals("sample1", aggregate.getString("label"));
+		assertEquals(2, aggregate.getInt("count"));
+		assertEquals(20, aggregate.getInt("avg"));
+		assertEquals("sample2", aggregates.getJsonObject(1).getString("label"));
+
+		// The errors are reported as business error
+		assertEquals("The following samples returned errors (error count in parentheses): sample1 (1)",
+				output.getError().getMsg());
+	}
+
+	@Test
+	public void testMaxSampleDetails() {
+		OutputBuilder outputBuilder = new OutputBuilder();
+		SampleListenerImpl listener = new SampleListenerImpl(outputBuilder, true, 2);
+		// The clones created by JMeter for each thread share the collected samples
+		SampleListenerImpl clone = (SampleListenerImpl) listener.clone();
+		sample(listener, "sample1", 10, true);
+		sample(clone, "sample1", 20, true);
+		sample(listener, "sample1", 30, true);
+		sample(clone, "sample1", 40, true);
+		listener.collect();
+
+		Output<JsonObject> output = outputBuilder.build();
+		JsonArray samples = output.getPayload().getJsonArray("samples");
+		assertEquals(2, samples.size());
+		assertEquals("10", samples.getJsonObject(0).getString("time"));
+		assertEquals("20", samples.getJsonObject(1).getString("time"));
+		// All the samples are aggregated
+		JsonObject aggregate = output.getPayload().getJsonArray("aggregates").getJsonObject(0);
+		assertEquals(4, aggregate.getInt("count"));
+		assertEquals(25, aggregate.getInt("avg"));
+
+		// The detailed mode applies the cap too
+		outputBuilder = new OutputBuilder();
+		listener = new SampleListenerImpl(outputBuilder, false, 1);
+		sample(listener, "sample1", 10, true);
+		sample(listener, "sample1", 20, true);
+		listener.collect();
+		output = outputBuilder.build();
+		assertEquals(2, output.getMeasures().size());
+		assertEquals(1, output.getPayload().getJsonArray("samples").size());
+	}
+
+	private void sample(SampleListenerImpl listener, String label, long time, boolean successful) {
+		SampleResult result = new SampleResult(0, time);
+		result.setSampleLabel(label);
+		result.setSuccessful(successful);
+		listener.sampleOccurred(new SampleEvent(result, "threadGroup"));
+	}
+}
@@ -18,7 +18,11 @@
  ******************************************************************************/
 package step.functions.manager;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import org.bson.types.ObjectId;
 
 import step.functions.Function;
 import step.functions.type.FunctionTypeException;
@@ -28,10 +32,35 @@ public interface FunctionManager {
 
 	Function saveFunction(Function function) throws SetupFunctionException, FunctionTypeException;
 
+	/**
+	 * Saves a list of {@link Function}s. Implementations may write the functions
+	 * in bulk and rely on the provided IDs to decide which functions have to be
+	 * set up or updated instead of looking each of them up
+	 * 
+	 * @param functions the {@link Function}s to be saved
+	 * @param existingFunctionIds the IDs of the provided functions that already exist
+	 */
+	default void saveFunctions(List<Function> functions, Set<ObjectId> existingFunctionIds) throws SetupFunctionException, FunctionTypeException {
+		for (Function function : functions) {
+			saveFunction(function);
+		}
+	}
+
 	Function copyFunction(String functionId) throws FunctionTypeException;
 
 	void deleteFunction(String functionId) throws FunctionTypeException;
 
+	/**
+	 * Deletes a list of {@link Function}s
+	 * 
+	 * @param functions the {@link Function}s to be deleted
+	 */
+	default void deleteFunctions(List<Function> functions) throws FunctionTypeException {
+		for (Function function : functions) {
+			deleteFunction(function.getId().toString());
+		}
+	}
+
 	Function newFunction(String functionType);
 	
 	Function getFunctionByAttributes(Map<String, String> attributes);
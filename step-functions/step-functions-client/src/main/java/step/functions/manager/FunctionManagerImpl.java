@@ -18,12 +18,18 @@
  ******************************************************************************/
 package step.functions.manager;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import step.core.accessors.AbstractAccessor;
+import step.core.collections.Filters;
 import step.functions.Function;
 import step.functions.accessor.FunctionAccessor;
 import step.functions.type.AbstractFunctionType;
@@ -55,6 +61,20 @@ public class FunctionManagerImpl implements FunctionManager {
 		return function;
 	}
 
+	@Override
+	public void saveFunctions(List<Function> functions, Set<ObjectId> existingFunctionIds) throws SetupFunctionException, FunctionTypeException {
+		List<Function> preparedFunctions = new ArrayList<>(functions.size());
+		for (Function function : functions) {
+			if(function.getId()==null || !existingFunctionIds.contains(function.getId())) {
+				getFunctionType(function).setupFunction(function);
+				preparedFunctions.add(function);
+			} else {
+				preparedFunctions.add(getFunctionType(function).updateFunction(function));
+			}
+		}
+		functionRepository.save(preparedFunctions);
+	}
+
 	private void setupFunction(Function function) throws SetupFunctionException {
 		AbstractFunctionType<Function> type = getFunctionType(function);
 		type.setupFunction(function);
@@ -90,6 +110,23 @@ public class FunctionManagerImpl implements FunctionManager {
 		type.deleteFunction(function);
 		functionRepository.remove(function.getId());
 	}
+
+	@Override
+	public void deleteFunctions(List<Function> functions) throws FunctionTypeException {
+		for (Function function : functions) {
+			getFunctionType(function).deleteFunction(function);
+		}
+		if(functions.isEmpty()) {
+			return;
+		}
+		if(functionRepository instanceof AbstractAccessor) {
+			// Remove all the functions with a single query if the accessor is backed by a collection
+			functionRepository.getCollectionDriver().remove(Filters.or(functions.stream().map(f -> Filters.id(f.getId())).collect(Collectors.toList())));
+		} else {
+			// Other accessors like the layered ones remove the functions one by one
+			functions.forEach(f -> functionRepository.remove(f.getId()));
+		}
+	}
 	
 	@Override
 	public Function newFunction(String functionType) {
@@ -7,9 +7,12 @@ import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -17,9 +20,12 @@ import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import ch.exense.commons.app.Configuration;
 import step.attachments.FileResolver;
 import step.core.AbstractContext;
+import step.core.accessors.DefaultJacksonMapperProvider;
 import step.core.objectenricher.ObjectEnricher;
 import step.core.objectenricher.ObjectHookRegistry;
 import step.functions.Function;
@@ -54,6 +60,7 @@ public class FunctionPackageManager implements Closeable {
 	private final FileResolver fileResolver;
 	private FunctionPackageChangeWatcher changeWatcher;
 	private final ObjectHookRegistry objectHookRegistry;
+	private final ObjectMapper objectMapper = DefaultJacksonMapperProvider.getObjectMapper();
 
 	private final List<FunctionPackageHandler> packageHandlers = new ArrayList<>();
 	private final Map<String, java.util.function.Function<String, String>> attributeResolvers = new ConcurrentHashMap<>();
@@ -158,6 +165,11 @@ public class FunctionPackageManager implements Closeable {
 		if (changeWatcher != null) {
 			changeWatcher.close();
 		}
+		for (FunctionPackageHandler packageHandler : packageHandlers) {
+			if (packageHandler instanceof Closeable) {
+				((Closeable) packageHandler).close();
+			}
+		}
 	}
 
 	private FunctionPackageHandler getPackageHandler(FunctionPackage functionPackage)
@@ -195,16 +207,13 @@ public class FunctionPackageManager implements Closeable {
 		}
 	}
 
-	private List<Function> deleteFunctions(FunctionPackage previousFunctionPackage) {
-		List<Function> previousFunctions = getPackageFunctions(previousFunctionPackage);
-		previousFunctions.forEach(function -> {
-			try {
-				functionRepository.deleteFunction(function.getId().toString());
-			} catch (FunctionTypeException e) {
-				logger.error("Error while deleting function " + function.getId().toString(), e);
-			}
-		});
-		return previousFunctions;
+	private void deleteFunctions(List<Function> functions) {
+		try {
+			functionRepository.deleteFunctions(functions);
+		} catch (FunctionTypeException e) {
+			logger.error("Error while deleting functions " + functions.stream().map(f -> f.getId().toString())
+					.collect(Collectors.joining(",")), e);
+		}
 	}
 
 	private FunctionPackage addOrUpdateFunctionPackage(FunctionPackage previousFunctionPackage,
@@ -228,17 +237,22 @@ public class FunctionPackageManager implements Closeable {
 		objectHookRegistry.rebuildContext(context, newFunctionPackage);
 		ObjectEnricher objectEnricher = objectHookRegistry.getObjectEnricher(context);
 
-		// Remove functions from previous package
-		List<Function> previousFunctions = null;
+		// Build the Functions with the appropriate handler. The functions of the
+		// previous package are kept until the new ones have been built and saved
+		List<Function> functions = handler.buildFunctions(newFunctionPackage, false, objectEnricher);
+
+		// Index the functions of the previous package by name
+		List<Function> previousFunctions = new ArrayList<>();
+		Map<String, Function> previousFunctionsByName = new HashMap<>();
 		if (previousFunctionPackage != null) {
-			previousFunctions = deleteFunctions(previousFunctionPackage);
+			previousFunctions = getPackageFunctions(previousFunctionPackage);
+			previousFunctions.forEach(f -> previousFunctionsByName.putIfAbsent(f.getAttribute(NAME), f));
 			unregisterWatcher(previousFunctionPackage);
 		}
 
-		// Build the Functions with the appropriate handler
-		List<Function> functions = handler.buildFunctions(newFunctionPackage, false, objectEnricher);
-
 		List<ObjectId> newFunctionIds = new ArrayList<>();
+		List<Function> modifiedFunctions = new ArrayList<>();
+		Set<ObjectId> existingFunctionIds = new HashSet<>();
 		for (Function newFunction : functions) {
 			// apply packageAttributes
 			if (newFunctionPackage.getPackageAttributes() != null) {
@@ -249,9 +263,10 @@ public class FunctionPackageManager implements Closeable {
 
 			// search for an existing function with the same name and reuse its ID
 			// this is needed as long Plans refer to Functions by ID
-			if (previousFunctions != null) {
-				previousFunctions.stream().filter(f -> f.getAttribute(NAME).equals(newFunction.getAttribute(NAME)))
-						.findFirst().ifPresent(oldFunction -> newFunction.setId(oldFunction.getId()));
+			Function previousFunction = previousFunctionsByName.remove(newFunction.getAttribute(NAME));
+			if (previousFunction != null) {
+				newFunction.setId(previousFunction.getId());
+				existingFunctionIds.add(previousFunction.getId());
 			}
 
 			newFunction.setManaged(true);
@@ -260,10 +275,26 @@ public class FunctionPackageManager implements Closeable {
 			newFunction.addCustomField(FunctionPackageEntity.FUNCTION_PACKAGE_ID,
 					newFunctionPackage.getId().toString());
 
-			functionRepository.saveFunction(newFunction);
+			// leave the functions that didn't change untouched
+			if (previousFunction == null || !isSameFunction(previousFunction, newFunction)) {
+				modifiedFunctions.add(newFunction);
+			}
 			newFunctionIds.add(newFunction.getId());
 		}
 
+		// Save the new and modified functions first and then delete the functions
+		// that aren't part of the package anymore. This way existing functions
+		// remain available during the update
+		if (!modifiedFunctions.isEmpty()) {
+			functionRepository.saveFunctions(modifiedFunctions, existingFunctionIds);
+		}
+		Set<ObjectId> newFunctionIdSet = new HashSet<>(newFunctionIds);
+		List<Function> removedFunctions = previousFunctions.stream().filter(f -> !newFunctionIdSet.contains(f.getId()))
+				.collect(Collectors.toList());
+		if (!removedFunctions.isEmpty()) {
+			deleteFunctions(removedFunctions);
+		}
+
 		// keep track of the created functions
 		newFunctionPackage.setFunctions(newFunctionIds);
 
@@ -279,6 +310,11 @@ public class FunctionPackageManager implements Closeable {
 		return newFunctionPackage;
 	}
 
+	private boolean isSameFunction(Function previousFunction, Function newFunction) {
+		return previousFunction.getClass().equals(newFunction.getClass())
+				&& objectMapper.valueToTree(previousFunction).equals(objectMapper.valueToTree(newFunction));
+	}
+
 	private String buildFunctionPackageName(FunctionPackage newFunctionPackage) {
 		String name;
 		String resourceId = getResourceId(newFunctionPackage);
@@ -349,7 +385,7 @@ public class FunctionPackageManager implements Closeable {
 
 	private void remove(ObjectId id) {
 		FunctionPackage functionPackage = functionPackageAccessor.get(id);
-		deleteFunctions(functionPackage);
+		deleteFunctions(getPackageFunctions(functionPackage));
 
 		unregisterWatcher(functionPackage);
 
@@ -5,6 +5,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -30,7 +31,26 @@ public abstract class AbstractFunctionPackageHandler extends FunctionPackageUtil
 
 	protected List<Function> getFunctionsFromDaemon(FunctionPackage functionPackage, ManagedProcess discovererDeamon)
 			throws Exception {
+		DiscovererParameters param = getDiscovererParameters(functionPackage);
 
+		ObjectMapperResolver resolver = new ObjectMapperResolver();
+		ObjectMapper objectMapper = resolver.getContext(FunctionList.class);
+
+		try (OutputStream outputStream = discovererDeamon.getProcessOutputStream()) {
+			String serializedRequest = objectMapper.writeValueAsString(param) + "\n";
+			outputStream.write(serializedRequest.getBytes(StandardCharsets.UTF_8));
+		}
+
+		FunctionList list;
+		try (BufferedReader inputStream = new BufferedReader(
+				new InputStreamReader(discovererDeamon.getProcessInputStream(), StandardCharsets.UTF_8))) {
+			list = readDiscovererResponse(inputStream, objectMapper);
+		}
+
+		return getFunctions(list, functionPackage);
+	}
+
+	protected DiscovererParameters getDiscovererParameters(FunctionPackage functionPackage) throws FileNotFoundException {
 		File packageFile = resolveMandatoryFile(functionPackage.getPackageLocation());
 		File packageLibraryFile = resolveFile(functionPackage.getPackageLibrariesLocation());
 
@@ -45,28 +65,10 @@ public abstract class AbstractFunctionPackageHandler extends FunctionPackageUtil
 		} else {
 			param.packageLibrariesLocation = "";
 		}
+		return param;
+	}
 
-		ObjectMapperResolver resolver = new ObjectMapperResolver();
-		ObjectMapper objectMapper = resolver.getContext(FunctionList.class);
-
-		try (OutputStream outputStream = discovererDeamon.getProcessOutputStream()) {
-			String serializedRequest = objectMapper.writeValueAsString(param);
-			outputStream.write(serializedRequest.getBytes());
-		}
-
-		FunctionList list;
-		try (BufferedReader inputStream = new BufferedReader(
-				new InputStreamReader(discovererDeamon.getProcessInputStream()))) {
-			String res;
-			do {
-				res = inputStream.readLine();
-				if (res==null) {
-					throw new Exception("Unexpected error when starting the function package handler: the process exited before returning the result");
-				}
-			} while (!res.equals(READY_STRING));
-			list = objectMapper.readValue(inputStream, FunctionList.class);
-		}
-
+	protected List<Function> getFunctions(FunctionList list, FunctionPackage functionPackage) throws Exception {
 		if (list.exception == null) {
 			List<Function> functions = list.getFunctions();
 			functions.forEach(f -> {
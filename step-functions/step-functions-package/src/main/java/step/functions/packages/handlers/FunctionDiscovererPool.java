@@ -0,0 +1,210 @@
+package step.functions.packages.handlers;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ch.exense.commons.processes.ExternalJVMLauncher;
+import ch.exense.commons.processes.ManagedProcess;
+import step.functions.packages.handlers.FunctionPackageUtils.DiscovererParameters;
+
+/**
+ * Pool of long-lived discoverer daemons. Each daemon serves the discovery
+ * requests sequentially over its standard input and output (see
+ * {@link JavaFunctionPackageDaemon#main(String[])}). The number of concurrent
+ * daemons is bounded. Daemons are restarted after a maximum number of requests
+ * and stopped after being idle for too long. The idle daemons are checked
+ * periodically by a reaper thread so that they are stopped even if the pool
+ * isn't used anymore.
+ */
+public class FunctionDiscovererPool implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(FunctionDiscovererPool.class);
+
+	private final String name;
+	private final Class<?> daemonClass;
+	private final ExternalJVMLauncher launcher;
+	private final int maxRequestsPerDaemon;
+	private final long maxIdleTimeMs;
+	private final Semaphore permits;
+	private final ObjectMapper objectMapper = new ObjectMapperResolver().getContext(FunctionList.class);
+
+	private final Deque<Discoverer> idleDiscoverers = new ArrayDeque<>();
+	private final ScheduledExecutorService reaper;
+	private boolean closed = false;
+
+	public FunctionDiscovererPool(String name, Class<?> daemonClass, String javaPath, File processLogFolder, int maxDaemons,
+			int maxRequestsPerDaemon, long maxIdleTimeMs) {
+		super();
+		this.name = name;
+		this.daemonClass = daemonClass;
+		this.launcher = new ExternalJVMLauncher(javaPath, processLogFolder);
+		this.maxRequestsPerDaemon = maxRequestsPerDaemon;
+		this.maxIdleTimeMs = maxIdleTimeMs;
+		this.permits = new Semaphore(Math.max(1, maxDaemons), true);
+		this.reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, name + " reaper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long reaperPeriodMs = Math.max(1, maxIdleTimeMs / 2);
+		reaper.scheduleWithFixedDelay(() -> {
+			try {
+				closeExpiredDiscoverers();
+			} catch (Exception e) {
+				logger.error("Error while stopping the idle processes of the " + name, e);
+			}
+		}, reaperPeriodMs, reaperPeriodMs, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Sends a discovery request to an idle daemon of the pool, starting a new
+	 * one if none is available
+	 *
+	 * @param parameters the {@link DiscovererParameters} of the request
+	 * @return the {@link FunctionList} returned by the daemon
+	 * @throws Exception if the daemon couldn't be started or failed to respond
+	 */
+	public FunctionList discover(DiscovererParameters parameters) throws Exception {
+		permits.acquire();
+		try {
+			Discoverer discoverer = pollIdleDiscoverer();
+			if (discoverer != null) {
+				try {
+					return discoverAndRelease(discoverer, parameters);
+				} catch (Exception e) {
+					// The idle daemon might have died in the meantime. Retry once with a new one
+					logger.warn("Error while using idle " + name + ". Retrying with a new process", e);
+				}
+			}
+			return discoverAndRelease(startDiscoverer(), parameters);
+		} finally {
+			permits.release();
+		}
+	}
+
+	private FunctionList discoverAndRelease(Discoverer discoverer, DiscovererParameters parameters) throws Exception {
+		boolean reusable = false;
+		try {
+			FunctionList list = discoverer.discover(parameters);
+			reusable = true;
+			return list;
+		} finally {
+			release(discoverer, reusable);
+		}
+	}
+
+	private Discoverer pollIdleDiscoverer() {
+		closeExpiredDiscoverers();
+		synchronized (idleDiscoverers) {
+			return idleDiscoverers.pollFirst();
+		}
+	}
+
+	private void closeExpiredDiscoverers() {
+		List<Discoverer> expiredDiscoverers = new ArrayList<>();
+		synchronized (idleDiscoverers) {
+			long now = System.currentTimeMillis();
+			// Most recently used daemons are at the head of the queue, the expired ones at the tail
+			while (!idleDiscoverers.isEmpty() && now - idleDiscoverers.peekLast().lastUsed > maxIdleTimeMs) {
+				expiredDiscoverers.add(idleDiscoverers.pollLast());
+			}
+		}
+		expiredDiscoverers.forEach(this::closeDiscoverer);
+	}
+
+	protected int getIdleDiscovererCount() {
+		synchronized (idleDiscoverers) {
+			return idleDiscoverers.size();
+		}
+	}
+
+	private void release(Discoverer discoverer, boolean reusable) {
+		if (reusable && discoverer.requestCount < maxRequestsPerDaemon) {
+			synchronized (idleDiscoverers) {
+				if (!closed) {
+					discoverer.lastUsed = System.currentTimeMillis();
+					idleDiscoverers.addFirst(discoverer);
+					return;
+				}
+			}
+		}
+		closeDiscoverer(discoverer);
+	}
+
+	private Discoverer startDiscoverer() throws Exception {
+		ManagedProcess process = launcher.launchExternalJVM(name, daemonClass, new ArrayList<>(), new ArrayList<>(), false);
+		try {
+			return new Discoverer(process);
+		} catch (Exception e) {
+			process.close();
+			throw e;
+		}
+	}
+
+	private void closeDiscoverer(Discoverer discoverer) {
+		try {
+			discoverer.close();
+		} catch (IOException e) {
+			logger.error("Error while stopping " + name, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		reaper.shutdownNow();
+		List<Discoverer> discoverers;
+		synchronized (idleDiscoverers) {
+			closed = true;
+			discoverers = new ArrayList<>(idleDiscoverers);
+			idleDiscoverers.clear();
+		}
+		discoverers.forEach(this::closeDiscoverer);
+	}
+
+	private class Discoverer implements Closeable {
+
+		private final ManagedProcess process;
+		private final BufferedWriter writer;
+		private final BufferedReader reader;
+		private int requestCount = 0;
+		private long lastUsed;
+
+		private Discoverer(ManagedProcess process) throws Exception {
+			this.process = process;
+			writer = new BufferedWriter(new OutputStreamWriter(process.getProcessOutputStream(), StandardCharsets.UTF_8));
+			reader = new BufferedReader(new InputStreamReader(process.getProcessInputStream(), StandardCharsets.UTF_8));
+		}
+
+		private FunctionList discover(DiscovererParameters parameters) throws Exception {
+			requestCount++;
+			writer.write(objectMapper.writeValueAsString(parameters));
+			writer.newLine();
+			writer.flush();
+			return FunctionPackageUtils.readDiscovererResponse(reader, objectMapper);
+		}
+
+		@Override
+		public void close() throws IOException {
+			process.close();
+		}
+	}
+}
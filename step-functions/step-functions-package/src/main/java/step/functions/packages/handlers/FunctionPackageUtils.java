@@ -1,8 +1,11 @@
 package step.functions.packages.handlers;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import step.attachments.FileResolver;
 
 public class FunctionPackageUtils {
@@ -34,6 +37,26 @@ public class FunctionPackageUtils {
 		return file;
 	}
 
+	/**
+	 * Reads the response of a discoverer daemon: the {@link #READY_STRING}
+	 * followed by the serialized {@link FunctionList}. Lines preceding the
+	 * {@link #READY_STRING} are ignored
+	 */
+	protected static FunctionList readDiscovererResponse(BufferedReader reader, ObjectMapper objectMapper) throws Exception {
+		String res;
+		do {
+			res = reader.readLine();
+			if (res == null) {
+				throw new Exception("Unexpected error when starting the function package handler: the process exited before returning the result");
+			}
+		} while (!res.equals(READY_STRING));
+		String response = reader.readLine();
+		if (response == null) {
+			throw new Exception("Unexpected error in the function package handler: the process exited before returning the result");
+		}
+		return objectMapper.readValue(response, FunctionList.class);
+	}
+
 	public static class DiscovererParameters {
 		public String packageLibrariesLocation;
 		public String packageLocation;
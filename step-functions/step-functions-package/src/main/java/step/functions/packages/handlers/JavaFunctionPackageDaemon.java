@@ -1,11 +1,18 @@
 package step.functions.packages.handlers;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.OutputStreamWriter;
+import java.io.PrintStream;
 import java.io.StringReader;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Set;
 
 import jakarta.json.Json;
@@ -19,6 +26,7 @@ import step.attachments.FileResolver;
 import step.core.accessors.AbstractOrganizableObject;
 import step.core.scanner.AnnotationScanner;
 import step.grid.contextbuilder.ApplicationContextBuilder;
+import step.grid.contextbuilder.ApplicationContextBuilder.ApplicationContext;
 import step.grid.contextbuilder.LocalFileApplicationContextFactory;
 import step.grid.contextbuilder.LocalFolderApplicationContextFactory;
 import step.handlers.javahandler.Keyword;
@@ -31,34 +39,57 @@ public class JavaFunctionPackageDaemon extends FunctionPackageUtils {
 		super(new FileResolver(new LocalResourceManagerImpl()));
 	}
 
+	/**
+	 * Serves discovery requests until the end of the standard input is reached.
+	 * Each request is a {@link DiscovererParameters} serialized on one line. Each
+	 * response is the {@link #READY_STRING} followed by the {@link FunctionList}
+	 * serialized on one line.
+	 */
 	public static void main(String[] args) throws Exception {
 		ObjectMapper objectMapper = new ObjectMapperResolver().getContext(FunctionList.class);
 		
-		try {
-			JavaFunctionPackageDaemon daemon = new JavaFunctionPackageDaemon();
+		// The standard output is reserved for the responses. Anything printed
+		// by the scanned packages is sent to the error output instead
+		PrintStream out = System.out;
+		System.setOut(System.err);
 		
-			DiscovererParameters parameter;
-			try (InputStreamReader reader = new InputStreamReader(System.in)) {
-				parameter = objectMapper.readValue(reader, DiscovererParameters.class);
-			}
-			FunctionList list = daemon.getFunctions(parameter);
-			
-			try (OutputStreamWriter writer = new OutputStreamWriter(System.out)) {
-				writer.write(READY_STRING+"\n");
-				writer.write(objectMapper.writeValueAsString(list));
-			}
-		} catch (Exception e) {
-			FunctionList list = new FunctionList();
-			list.exception = e.getMessage();
-			try (OutputStreamWriter writer = new OutputStreamWriter(System.out)) {
-				writer.write(READY_STRING);
-				writer.write(objectMapper.writeValueAsString(list));
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+				BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+			JavaFunctionPackageDaemon daemon = null;
+			String request;
+			while ((request = reader.readLine()) != null) {
+				if (request.isBlank()) {
+					continue;
+				}
+				FunctionList list;
+				try {
+					if (daemon == null) {
+						daemon = new JavaFunctionPackageDaemon();
+					}
+					DiscovererParameters parameter = objectMapper.readValue(request, DiscovererParameters.class);
+					list = daemon.getFunctions(parameter);
+				} catch (Exception e) {
+					list = new FunctionList();
+					list.exception = e.getMessage();
+				}
+				writeResponse(writer, objectMapper, list);
 			}
 		}
 	}
+
+	private static void writeResponse(BufferedWriter writer, ObjectMapper objectMapper, FunctionList list) throws IOException {
+		writer.write(READY_STRING);
+		writer.newLine();
+		writer.write(objectMapper.writeValueAsString(list));
+		writer.newLine();
+		writer.flush();
+	}
 	
 	protected FunctionList getFunctions(DiscovererParameters parameters) {
 		FunctionList functions = new FunctionList();
+		// The classloaders are created for each request and closed afterwards
+		// to keep the packages isolated from each other in long-lived daemons
+		List<ApplicationContext> contexts = new ArrayList<>();
 		try {
 			File packageLibrariesFile = resolveFile(parameters.getPackageLibrariesLocation());
 			File packageFile = resolveMandatoryFile(parameters.getPackageLocation());
@@ -67,8 +98,10 @@ public class JavaFunctionPackageDaemon extends FunctionPackageUtils {
 			ApplicationContextBuilder applicationContextBuilder = new ApplicationContextBuilder(ClassLoader.getSystemClassLoader());
 			if(packageLibrariesFile != null) {
 				applicationContextBuilder.pushContext(new LocalFolderApplicationContextFactory(packageLibrariesFile));
+				contexts.add(applicationContextBuilder.getCurrentContext());
 			}
 			applicationContextBuilder.pushContext(new LocalFileApplicationContextFactory(packageFile));
+			contexts.add(applicationContextBuilder.getCurrentContext());
 			ClassLoader cl = applicationContextBuilder.getCurrentContext().getClassLoader();
 
 			// Scan package File for Keyword annotations
@@ -123,6 +156,14 @@ public class JavaFunctionPackageDaemon extends FunctionPackageUtils {
 			}
 		} catch (Throwable e) {
 			functions.exception = e.getClass().getName() + ": " + e.getMessage();
+		} finally {
+			for (int i = contexts.size() - 1; i >= 0; i--) {
+				try {
+					contexts.get(i).close();
+				} catch (IOException e) {
+					// ignore: the classloader isn't referenced anymore
+				}
+			}
 		}
 		return functions;
 	}
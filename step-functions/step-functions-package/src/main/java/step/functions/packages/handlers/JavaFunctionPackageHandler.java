@@ -1,14 +1,27 @@
 package step.functions.packages.handlers;
 
+import java.io.Closeable;
 import java.io.File;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.apache.commons.io.FilenameUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import ch.exense.commons.app.Configuration;
-import ch.exense.commons.processes.ExternalJVMLauncher;
-import ch.exense.commons.processes.ManagedProcess;
 import step.attachments.FileResolver;
 import step.core.dynamicbeans.DynamicValue;
 import step.core.objectenricher.ObjectEnricher;
@@ -16,30 +29,109 @@ import step.functions.Function;
 import step.functions.packages.FunctionPackage;
 import step.plugins.java.GeneralScriptFunction;
 
-public class JavaFunctionPackageHandler extends AbstractFunctionPackageHandler {
+public class JavaFunctionPackageHandler extends AbstractFunctionPackageHandler implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(JavaFunctionPackageHandler.class);
+
+	private static final String DISCOVERER_POOL_SIZE = "plugins.FunctionPackagePlugin.discoverer.java.poolsize";
+	private static final String DISCOVERER_MAX_REQUESTS = "plugins.FunctionPackagePlugin.discoverer.java.maxrequests";
+	private static final String DISCOVERER_MAX_IDLE_TIME_MS = "plugins.FunctionPackagePlugin.discoverer.java.maxidletime.ms";
+	private static final String DISCOVERY_CACHE_SIZE = "plugins.FunctionPackagePlugin.discoverer.java.cachesize";
 
-	private File processLogFolder;
-	private String javaPath;
+	private final FunctionDiscovererPool discovererPool;
+	private final ObjectMapper objectMapper = new ObjectMapperResolver().getContext(FunctionList.class);
+	// Serialized discovery results by content hash of the package and its libraries
+	private final Map<String, String> discoveryCache;
 	
 	public JavaFunctionPackageHandler(FileResolver fileResolver, Configuration config) {
+		this(fileResolver, config, newDiscovererPool(config));
+	}
+
+	protected JavaFunctionPackageHandler(FileResolver fileResolver, Configuration config, FunctionDiscovererPool discovererPool) {
 		super(fileResolver);
+		this.discovererPool = discovererPool;
 		
-		javaPath = System.getProperty("java.home")+"/bin/java";
+		int cacheSize = getIntProperty(config, DISCOVERY_CACHE_SIZE, 100);
+		discoveryCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+				return size() > cacheSize;
+			}
+		});
+	}
+
+	private static FunctionDiscovererPool newDiscovererPool(Configuration config) {
+		String javaPath = System.getProperty("java.home")+"/bin/java";
 		
 		String logs = "../log/functionDiscoverer_java";
-		processLogFolder = new File(logs);
+		File processLogFolder = new File(logs);
+		
+		int poolSize = getIntProperty(config, DISCOVERER_POOL_SIZE, 2);
+		int maxRequests = getIntProperty(config, DISCOVERER_MAX_REQUESTS, 100);
+		int maxIdleTimeMs = getIntProperty(config, DISCOVERER_MAX_IDLE_TIME_MS, 300000);
+		return new FunctionDiscovererPool("Java Function Discoverer", JavaFunctionPackageDaemon.class, javaPath,
+				processLogFolder, poolSize, maxRequests, maxIdleTimeMs);
+	}
+
+	private static int getIntProperty(Configuration config, String name, int defaultValue) {
+		return config != null ? config.getPropertyAsInteger(name, defaultValue) : defaultValue;
 	}
 	
 	@Override
 	public List<Function> buildFunctions(FunctionPackage functionPackage, boolean preview, ObjectEnricher objectEnricher) throws Exception {
-		ExternalJVMLauncher launcher = new ExternalJVMLauncher(javaPath, processLogFolder);
+		DiscovererParameters parameters = getDiscovererParameters(functionPackage);
 		
-		List<String> vmargs = new ArrayList<>();
-		List<String> progargs = new ArrayList<>();
-		
-		try (ManagedProcess process = launcher.launchExternalJVM("Java Function Discoverer", JavaFunctionPackageDaemon.class, vmargs, progargs, false)){
-			return getFunctionsFromDaemon(functionPackage, process);
+		String contentHash = getContentHash(parameters);
+		String cachedList = contentHash != null ? discoveryCache.get(contentHash) : null;
+		FunctionList list;
+		if (cachedList != null) {
+			// The functions are deserialized for each call as they are modified by the caller
+			list = objectMapper.readValue(cachedList, FunctionList.class);
+		} else {
+			list = discovererPool.discover(parameters);
+			if (contentHash != null && list.exception == null) {
+				discoveryCache.put(contentHash, objectMapper.writeValueAsString(list));
+			}
 		}
+		return getFunctions(list, functionPackage);
+	}
+
+	/**
+	 * @return a hash of the content of the package file and of its libraries or
+	 *         null if it couldn't be calculated
+	 */
+	private String getContentHash(DiscovererParameters parameters) {
+		try {
+			Hasher hasher = Hashing.sha256().newHasher();
+			putFileContent(hasher, new File(parameters.getPackageLocation()));
+			String librariesLocation = parameters.getPackageLibrariesLocation();
+			if (librariesLocation != null && !librariesLocation.isEmpty()) {
+				File libraries = new File(librariesLocation);
+				if (libraries.isDirectory()) {
+					Path root = libraries.toPath();
+					List<Path> files;
+					try (Stream<Path> stream = Files.walk(root)) {
+						files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+					}
+					for (Path file : files) {
+						hasher.putString(root.relativize(file).toString(), StandardCharsets.UTF_8);
+						putFileContent(hasher, file.toFile());
+					}
+				} else {
+					putFileContent(hasher, libraries);
+				}
+			}
+			return hasher.hash().toString();
+		} catch (IOException e) {
+			logger.warn("Unable to calculate the content hash of the package " + parameters.getPackageLocation()
+					+ ". Skipping the discovery cache", e);
+			return null;
+		}
+	}
+
+	private static void putFileContent(Hasher hasher, File file) throws IOException {
+		hasher.putLong(file.length());
+		hasher.putBytes(com.google.common.io.Files.asByteSource(file).hash(Hashing.sha256()).asBytes());
 	}
 
 	@Override
@@ -57,4 +149,9 @@ public class JavaFunctionPackageHandler extends AbstractFunctionPackageHandler {
 		String extension = FilenameUtils.getExtension(file.getName()).toLowerCase();
 		return extension.equals("jar");
 	}
+
+	@Override
+	public void close() throws IOException {
+		discovererPool.close();
+	}
 }
@@ -25,9 +25,16 @@ import step.core.accessors.AbstractOrganizableObject;
 import step.core.objectenricher.ObjectEnricher;
 import step.core.objectenricher.ObjectHookRegistry;
 import step.functions.Function;
+import step.functions.accessor.InMemoryFunctionAccessorImpl;
 import step.functions.manager.FunctionManager;
+import step.functions.manager.FunctionManagerImpl;
 import step.functions.packages.handlers.JavaFunctionPackageHandler;
+import step.functions.type.AbstractFunctionType;
 import step.functions.type.FunctionTypeException;
+import step.functions.type.FunctionTypeRegistry;
+import step.functions.type.FunctionTypeRegistryImpl;
+import step.functions.type.SetupFunctionException;
+import step.grid.client.MockedGridClientImpl;
 import step.resources.*;
 
 public class FunctionPackageManagerTest {
@@ -224,6 +231,174 @@ public class FunctionPackageManagerTest {
 		Assert.assertThrows(RuntimeException.class, () -> resourceManager.getResource(libraryResource2.getId().toString()));
 	}
 
+	@Test
+	public void testUnchangedFunctions() throws Exception {
+		List<Function> packageManagerFunctions = new ArrayList<Function>();
+		packageManagerFunctions.add(function("f1"));
+		packageManagerFunctions.add(function("f2"));
+		registerPackageHandler(packageManagerFunctions);
+
+		FunctionPackage fp = new FunctionPackage();
+		fp.setId(new ObjectId());
+		fp.setPackageLocation("testLocation.test");
+		pm.addOrUpdateFunctionPackage(fp);
+		assertEquals(2, f.saveCount);
+		List<ObjectId> functionIds = pm.getFunctionPackage(fp.getId().toString()).getFunctions();
+
+		// Rebuild the same functions as new instances
+		packageManagerFunctions.clear();
+		packageManagerFunctions.add(function("f1"));
+		packageManagerFunctions.add(function("f2"));
+		f.saveCount = 0;
+		pm.reloadFunctionPackage(fp.getId().toString());
+
+		// The IDs are reused and the unchanged functions aren't saved again
+		assertEquals(functionIds, pm.getFunctionPackage(fp.getId().toString()).getFunctions());
+		assertEquals(0, f.saveCount);
+		assertEquals(2, f.m.size());
+
+		// Only the modified function is saved
+		packageManagerFunctions.get(1).addAttribute("att3", "newVal");
+		pm.reloadFunctionPackage(fp.getId().toString());
+		assertEquals(1, f.saveCount);
+		assertEquals("newVal", f.getFunctionById(functionIds.get(1).toString()).getAttribute("att3"));
+	}
+
+	@Test
+	public void testUnchangedFunctionsWithFunctionManagerImpl() throws Exception {
+		CountingFunctionAccessor functionAccessor = new CountingFunctionAccessor();
+		FunctionTypeRegistry functionTypeRegistry = new FunctionTypeRegistryImpl(resolver, new MockedGridClientImpl());
+		CountingFunctionType functionType = new CountingFunctionType();
+		functionTypeRegistry.registerFunctionType(functionType);
+		FunctionManagerImpl functionManager = new FunctionManagerImpl(functionAccessor, functionTypeRegistry);
+		pm.close();
+		pm = new FunctionPackageManager(new InMemoryFunctionPackageAccessorImpl(), functionManager, resourceManager,
+				resolver, new Configuration(), new ObjectHookRegistry());
+
+		List<Function> packageManagerFunctions = new ArrayList<Function>();
+		packageManagerFunctions.add(function("f1"));
+		packageManagerFunctions.add(function("f2"));
+		registerPackageHandler(packageManagerFunctions);
+
+		FunctionPackage fp = new FunctionPackage();
+		fp.setId(new ObjectId());
+		fp.setPackageLocation("testLocation.test");
+		pm.addOrUpdateFunctionPackage(fp);
+		// The new functions are set up and saved in one bulk write
+		assertEquals(2, functionType.setupCount);
+		assertEquals(0, functionType.updateCount);
+		assertEquals(1, functionAccessor.bulkSaveCount);
+		assertEquals(0, functionAccessor.saveCount);
+		List<ObjectId> functionIds = pm.getFunctionPackage(fp.getId().toString()).getFunctions();
+
+		// Modify one function and add a new one
+		packageManagerFunctions.clear();
+		packageManagerFunctions.add(function("f1"));
+		Function f2 = function("f2");
+		f2.addAttribute("att3", "newVal");
+		packageManagerFunctions.add(f2);
+		packageManagerFunctions.add(function("f3"));
+		functionType.setupCount = 0;
+		functionAccessor.getCount = 0;
+		pm.reloadFunctionPackage(fp.getId().toString());
+
+		// The previous functions are only read once to be compared with the new ones
+		assertEquals(2, functionAccessor.getCount);
+		// The modified function is updated, the new one set up and both are saved in one bulk write
+		assertEquals(1, functionType.setupCount);
+		assertEquals(1, functionType.updateCount);
+		assertEquals(2, functionAccessor.bulkSaveCount);
+		assertEquals(0, functionAccessor.saveCount);
+		List<ObjectId> newFunctionIds = pm.getFunctionPackage(fp.getId().toString()).getFunctions();
+		assertEquals(functionIds, newFunctionIds.subList(0, 2));
+		assertEquals("newVal", functionAccessor.get(functionIds.get(1)).getAttribute("att3"));
+		assertEquals(3, functionAccessor.stream().count());
+
+		// The functions of a removed package are deleted by their type and removed with a single query
+		pm.removeFunctionPackage(fp.getId().toString());
+		assertEquals(3, functionType.deleteCount);
+		assertEquals(0, functionAccessor.removeCount);
+		assertEquals(0, functionAccessor.stream().count());
+	}
+
+	private static class CountingFunctionAccessor extends InMemoryFunctionAccessorImpl {
+
+		int getCount = 0;
+		int saveCount = 0;
+		int bulkSaveCount = 0;
+		int removeCount = 0;
+
+		@Override
+		public Function get(ObjectId id) {
+			getCount++;
+			return super.get(id);
+		}
+
+		@Override
+		public Function get(String id) {
+			getCount++;
+			return super.get(id);
+		}
+
+		@Override
+		public Function save(Function entity) {
+			saveCount++;
+			return super.save(entity);
+		}
+
+		@Override
+		public void save(Iterable<Function> entities) {
+			bulkSaveCount++;
+			entities.forEach(super::save);
+		}
+
+		@Override
+		public void remove(ObjectId id) {
+			removeCount++;
+			super.remove(id);
+		}
+	}
+
+	private static class CountingFunctionType extends AbstractFunctionType<Function> {
+
+		int setupCount = 0;
+		int updateCount = 0;
+		int deleteCount = 0;
+
+		@Override
+		public String getHandlerChain(Function function) {
+			return null;
+		}
+
+		@Override
+		public Map<String, String> getHandlerProperties(Function function) {
+			return null;
+		}
+
+		@Override
+		public Function newFunction() {
+			return new Function();
+		}
+
+		@Override
+		public void setupFunction(Function function) throws SetupFunctionException {
+			setupCount++;
+			super.setupFunction(function);
+		}
+
+		@Override
+		public Function updateFunction(Function function) throws FunctionTypeException {
+			updateCount++;
+			return super.updateFunction(function);
+		}
+
+		@Override
+		public void deleteFunction(Function function) throws FunctionTypeException {
+			deleteCount++;
+			super.deleteFunction(function);
+		}
+	}
+
 	private void registerPackageHandler(List<Function> packageManagerFunctions) {
 		pm.registerFunctionPackageHandler(new FunctionPackageHandler() {
 			@Override
@@ -276,6 +451,7 @@ public class FunctionPackageManagerTest {
 	public static class TestFunctionRepository implements FunctionManager {
 
 		Map<String, Function> m = new HashMap<>();
+		int saveCount = 0;
 
 		@Override
 		public Function getFunctionByAttributes(Map<String, String> attributes) {
@@ -289,6 +465,7 @@ public class FunctionPackageManagerTest {
 
 		@Override
 		public Function saveFunction(Function function) {
+			saveCount++;
 			m.put(function.getId().toString(), function);
 			return function;
 		}
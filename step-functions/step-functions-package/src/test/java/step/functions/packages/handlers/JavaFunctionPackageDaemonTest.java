@@ -1,12 +1,15 @@
 package step.functions.packages.handlers;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 
 import org.junit.Test;
 
 import ch.exense.commons.io.FileHelper;
+import ch.exense.commons.io.Poller;
 import step.functions.packages.handlers.FunctionPackageUtils.DiscovererParameters;
 
 public class JavaFunctionPackageDaemonTest {
@@ -20,4 +23,53 @@ public class JavaFunctionPackageDaemonTest {
 		FunctionList functions = daemon.getFunctions(discovererParameters);
 		assertEquals(2, functions.getFunctions().size());
 	}
+
+	@Test
+	public void testDiscovererPool() throws Exception {
+		File testResource = FileHelper.getClassLoaderResourceAsFile(this.getClass().getClassLoader(), "TestResource.jar");
+		String javaPath = System.getProperty("java.home") + "/bin/java";
+		try (FunctionDiscovererPool pool = new FunctionDiscovererPool("Java Function Discoverer", JavaFunctionPackageDaemon.class,
+				javaPath, new File("target/functionDiscoverer_java"), 1, 10, 60000)) {
+			DiscovererParameters discovererParameters = new DiscovererParameters();
+			discovererParameters.setPackageLocation(testResource.getAbsolutePath());
+			discovererParameters.setPackageLibrariesLocation("");
+
+			// The same daemon serves the successive requests
+			for (int i = 0; i < 3; i++) {
+				FunctionList functions = pool.discover(discovererParameters);
+				assertNull(functions.getException());
+				assertEquals(2, functions.getFunctions().size());
+			}
+
+			// Errors are reported without breaking the daemon
+			DiscovererParameters invalidParameters = new DiscovererParameters();
+			invalidParameters.setPackageLocation(new File("target/notExisting.jar").getAbsolutePath());
+			FunctionList functions = pool.discover(invalidParameters);
+			assertNotNull(functions.getException());
+
+			functions = pool.discover(discovererParameters);
+			assertEquals(2, functions.getFunctions().size());
+		}
+	}
+
+	@Test
+	public void testDiscovererPoolIdleReaper() throws Exception {
+		File testResource = FileHelper.getClassLoaderResourceAsFile(this.getClass().getClassLoader(), "TestResource.jar");
+		String javaPath = System.getProperty("java.home") + "/bin/java";
+		try (FunctionDiscovererPool pool = new FunctionDiscovererPool("Java Function Discoverer", JavaFunctionPackageDaemon.class,
+				javaPath, new File("target/functionDiscoverer_java"), 1, 10, 500)) {
+			DiscovererParameters discovererParameters = new DiscovererParameters();
+			discovererParameters.setPackageLocation(testResource.getAbsolutePath());
+			discovererParameters.setPackageLibrariesLocation("");
+
+			assertEquals(2, pool.discover(discovererParameters).getFunctions().size());
+			assertEquals(1, pool.getIdleDiscovererCount());
+
+			// The idle daemon is stopped without any further request to the pool
+			Poller.waitFor(() -> pool.getIdleDiscovererCount() == 0, 10000);
+
+			// A new daemon is started on the next request
+			assertEquals(2, pool.discover(discovererParameters).getFunctions().size());
+		}
+	}
 }
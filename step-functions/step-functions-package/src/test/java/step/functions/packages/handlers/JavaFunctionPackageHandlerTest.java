@@ -0,0 +1,128 @@
+package step.functions.packages.handlers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import ch.exense.commons.io.FileHelper;
+import step.attachments.FileResolver;
+import step.functions.Function;
+import step.functions.packages.FunctionPackage;
+import step.functions.packages.handlers.FunctionPackageUtils.DiscovererParameters;
+import step.resources.LocalResourceManagerImpl;
+
+public class JavaFunctionPackageHandlerTest {
+
+	private File folder;
+	private File packageFile;
+	private AtomicInteger discoveryCount;
+	private JavaFunctionPackageHandler handler;
+
+	@Before
+	public void before() throws Exception {
+		folder = Files.createTempDirectory("javaFunctionPackageHandlerTest").toFile();
+		packageFile = new File(folder, "package.jar");
+		File testResource = FileHelper.getClassLoaderResourceAsFile(this.getClass().getClassLoader(), "TestResource.jar");
+		Files.copy(testResource.toPath(), packageFile.toPath());
+
+		discoveryCount = new AtomicInteger();
+		String javaPath = System.getProperty("java.home") + "/bin/java";
+		FunctionDiscovererPool pool = new FunctionDiscovererPool("Java Function Discoverer", JavaFunctionPackageDaemon.class,
+				javaPath, new File("target/functionDiscoverer_java"), 1, 10, 60000) {
+			@Override
+			public FunctionList discover(DiscovererParameters parameters) throws Exception {
+				discoveryCount.incrementAndGet();
+				return super.discover(parameters);
+			}
+		};
+		handler = new JavaFunctionPackageHandler(new FileResolver(new LocalResourceManagerImpl()), null, pool);
+	}
+
+	@After
+	public void after() throws Exception {
+		handler.close();
+		FileHelper.deleteFolder(folder);
+	}
+
+	@Test
+	public void testDiscoveryCacheHit() throws Exception {
+		FunctionPackage functionPackage = newFunctionPackage();
+		List<Function> functions = handler.buildFunctions(functionPackage, false, null);
+		assertEquals(2, functions.size());
+		assertEquals(1, discoveryCount.get());
+
+		// Modifications of the returned functions don't affect the cached result
+		functions.forEach(f -> f.getAttributes().put(Function.NAME, "modified"));
+
+		functions = handler.buildFunctions(functionPackage, false, null);
+		assertEquals(2, functions.size());
+		assertEquals(1, discoveryCount.get());
+		functions.forEach(f -> assertNotEquals("modified", f.getAttributes().get(Function.NAME)));
+	}
+
+	@Test
+	public void testDiscoveryCacheInvalidation() throws Exception {
+		FunctionPackage functionPackage = newFunctionPackage();
+		handler.buildFunctions(functionPackage, false, null);
+		assertEquals(1, discoveryCount.get());
+
+		// Changing the content of the package invalidates the cached result
+		addEntryToPackage("changed.txt", "changed");
+		assertEquals(2, handler.buildFunctions(functionPackage, false, null).size());
+		assertEquals(2, discoveryCount.get());
+		handler.buildFunctions(functionPackage, false, null);
+		assertEquals(2, discoveryCount.get());
+
+		// An empty libraries folder doesn't change the content
+		File libraries = new File(folder, "libraries");
+		libraries.mkdir();
+		functionPackage.setPackageLibrariesLocation(libraries.getAbsolutePath());
+		handler.buildFunctions(functionPackage, false, null);
+		assertEquals(2, discoveryCount.get());
+
+		// Adding a library to the package invalidates the cached result
+		Files.write(new File(libraries, "library.txt").toPath(), "library".getBytes(StandardCharsets.UTF_8));
+		handler.buildFunctions(functionPackage, false, null);
+		assertEquals(3, discoveryCount.get());
+		handler.buildFunctions(functionPackage, false, null);
+		assertEquals(3, discoveryCount.get());
+	}
+
+	private FunctionPackage newFunctionPackage() {
+		FunctionPackage functionPackage = new FunctionPackage();
+		functionPackage.setPackageLocation(packageFile.getAbsolutePath());
+		return functionPackage;
+	}
+
+	private void addEntryToPackage(String name, String content) throws Exception {
+		File newPackageFile = new File(folder, "package.jar.new");
+		try (ZipInputStream in = new ZipInputStream(new FileInputStream(packageFile));
+				ZipOutputStream out = new ZipOutputStream(new FileOutputStream(newPackageFile))) {
+			ZipEntry entry;
+			while ((entry = in.getNextEntry()) != null) {
+				out.putNextEntry(new ZipEntry(entry.getName()));
+				in.transferTo(out);
+				out.closeEntry();
+			}
+			out.putNextEntry(new ZipEntry(name));
+			out.write(content.getBytes(StandardCharsets.UTF_8));
+			out.closeEntry();
+		}
+		Files.move(newPackageFile.toPath(), packageFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+}
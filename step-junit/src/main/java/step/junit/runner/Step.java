@@ -21,24 +21,33 @@ package step.junit.runner;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.file.Files;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.internal.runners.model.EachTestNotifier;
 import org.junit.runner.Description;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.ParentRunner;
 import org.junit.runners.model.InitializationError;
+import org.junit.runners.model.RunnerScheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import step.attachments.FileResolver;
 import step.core.artefacts.reports.ReportNodeStatus;
 import step.core.execution.ExecutionContext;
 import step.core.execution.ExecutionEngine;
+import step.core.execution.ExecutionEngineContext;
 import step.core.plans.Plan;
 import step.core.plans.runner.PlanRunnerResult;
 import step.engine.plugins.AbstractExecutionEnginePlugin;
+import step.junit.runners.annotations.Concurrency;
 import step.junit.runners.annotations.ExecutionParameters;
 import step.resources.LocalResourceManagerImpl;
 import step.resources.ResourceManager;
@@ -52,7 +61,8 @@ public class Step extends ParentRunner<StepClassParserResult> {
 	private final List<StepClassParserResult> listPlans;
 
 	private ExecutionEngine executionEngine;
-	private ResourceManager resourceManager;
+	// The resource manager of the plan being executed by the current thread
+	private final ThreadLocal<LocalResourceManagerImpl> currentResourceManager = new ThreadLocal<>();
 
 	public Step(Class<?> klass) throws InitializationError {
 		super(klass);
@@ -61,14 +71,39 @@ public class Step extends ParentRunner<StepClassParserResult> {
 		try {
 			executionEngine = ExecutionEngine.builder().withPlugin(new AbstractExecutionEnginePlugin() {
 				@Override
-				public void afterExecutionEnd(ExecutionContext context) {
-					resourceManager = context.getResourceManager();
+				public void initializeExecutionContext(ExecutionEngineContext executionEngineContext,
+						ExecutionContext executionContext) {
+					// Each plan gets its own resource manager to allow parallel executions
+					LocalResourceManagerImpl resourceManager = currentResourceManager.get();
+					if (resourceManager != null) {
+						executionContext.setResourceAccessor(resourceManager.getResourceAccessor());
+						executionContext.setResourceManager(resourceManager);
+						executionContext.setFileResolver(new FileResolver(resourceManager));
+					}
 				}
 			}).withPluginsFromClasspath().build();
 			listPlans = classParser.createPlansForClass(klass);
 		} catch (Exception e) {
 			throw new InitializationError(e);
 		}
+
+		Concurrency concurrency = klass.getAnnotation(Concurrency.class);
+		if (concurrency != null && concurrency.value() > 1) {
+			setScheduler(new ParallelScheduler(concurrency.value()));
+		}
+	}
+
+	@Override
+	public void run(RunNotifier notifier) {
+		try {
+			super.run(notifier);
+		} finally {
+			ResourceManager resourceManager = executionEngine.getExecutionEngineContext().getResourceManager();
+			if (resourceManager instanceof LocalResourceManagerImpl) {
+				// Cleanup the resource manager of the engine once all the plans have been executed
+				((LocalResourceManagerImpl) resourceManager).cleanup();
+			}
+		}
 	}
 
 	@Override
@@ -83,11 +118,14 @@ public class Step extends ParentRunner<StepClassParserResult> {
 
 		childNotifier.fireTestStarted();
 
+		LocalResourceManagerImpl resourceManager = null;
 		try {
 			Exception initializingException = child.getInitializingException();
 			if (initializingException == null) {
 				Plan plan = child.getPlan();
 				Map<String, String> executionParameters = getExecutionParametersForClass();
+				resourceManager = new LocalResourceManagerImpl(Files.createTempDirectory("step-junit-resources").toFile());
+				currentResourceManager.set(resourceManager);
 				PlanRunnerResult result = executionEngine.execute(plan, executionParameters);
 				ReportNodeStatus resultStatus = result.getResult();
 
@@ -105,9 +143,10 @@ public class Step extends ParentRunner<StepClassParserResult> {
 		} catch (Exception e) {
 			childNotifier.addFailure(e);
 		} finally {
-			if (resourceManager instanceof LocalResourceManagerImpl) {
+			currentResourceManager.remove();
+			if (resourceManager != null) {
 				// Cleanup resource manager after execution
-				((LocalResourceManagerImpl) resourceManager).cleanup();
+				resourceManager.cleanup();
 			}
 			childNotifier.fireTestFinished();
 		}
@@ -153,4 +192,40 @@ public class Step extends ParentRunner<StepClassParserResult> {
 	protected List<StepClassParserResult> getChildren() {
 		return listPlans;
 	}
+
+	/**
+	 * {@link RunnerScheduler} executing the children of the runner in a fixed
+	 * thread pool. The notifications of each child are fired by the thread
+	 * executing it and thus remain ordered per child
+	 */
+	private class ParallelScheduler implements RunnerScheduler {
+
+		private final ExecutorService executorService;
+
+		public ParallelScheduler(int threads) {
+			super();
+			AtomicInteger threadCount = new AtomicInteger();
+			executorService = Executors.newFixedThreadPool(threads, r -> {
+				Thread thread = new Thread(r, klass.getSimpleName() + "-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		@Override
+		public void schedule(Runnable childStatement) {
+			executorService.execute(childStatement);
+		}
+
+		@Override
+		public void finished() {
+			executorService.shutdown();
+			try {
+				executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+			} catch (InterruptedException e) {
+				executorService.shutdownNow();
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
 }
@@ -19,7 +19,10 @@
 package step.junit.runner;
 
 import java.io.InputStream;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,7 +30,6 @@ import java.util.stream.Collectors;
 
 import step.core.artefacts.AbstractArtefact;
 import step.core.plans.Plan;
-import step.core.scanner.AnnotationScanner;
 import step.handlers.javahandler.Keyword;
 import step.junit.runners.annotations.Plans;
 import step.plans.nl.RootArtefactType;
@@ -64,35 +66,39 @@ public class StepClassParser {
 	}
 
 	private List<StepClassParserResult> getPlanFromAnnotatedMethods(Class<?> klass) {
-		try (AnnotationScanner annotationScanner = AnnotationScanner.forAllClassesFromClassLoader(klass.getClassLoader())) {
-			return annotationScanner.getMethodsWithAnnotation(step.junit.runners.annotations.Plan.class).stream()
-					.filter(m -> m.getDeclaringClass() == klass).map(m -> {
-						String planName = (appendClassnameToPlanName?m.getDeclaringClass().getName()+".":"")+m.getName();
-						Exception exception = null;
-						Plan plan = null;
-						try {
-							String planStr = m.getAnnotation(step.junit.runners.annotations.Plan.class).value();
-							if (planStr.trim().length() == 0) {
-								Keyword keyword = m.getAnnotation(Keyword.class);
-								if (keyword != null) {
-									String name = keyword.name();
-									if (name.trim().length() > 0) {
-										planStr = "\"" + name + "\"";
-									} else {
-										planStr = m.getName();
-									}
+		// Only the methods declared by the class itself are considered. Reading them by reflection
+		// avoids scanning the whole classpath for each test class. Bridge and synthetic methods
+		// generated by the compiler (covariant overrides for instance) carry the annotations of the
+		// method they delegate to and are skipped to avoid duplicated plans
+		return Arrays.stream(klass.getDeclaredMethods())
+				.filter(m -> !m.isBridge() && !m.isSynthetic())
+				.filter(m -> m.isAnnotationPresent(step.junit.runners.annotations.Plan.class))
+				.sorted(Comparator.comparing(Method::getName)).map(m -> {
+					String planName = (appendClassnameToPlanName?m.getDeclaringClass().getName()+".":"")+m.getName();
+					Exception exception = null;
+					Plan plan = null;
+					try {
+						String planStr = m.getAnnotation(step.junit.runners.annotations.Plan.class).value();
+						if (planStr.trim().length() == 0) {
+							Keyword keyword = m.getAnnotation(Keyword.class);
+							if (keyword != null) {
+								String name = keyword.name();
+								if (name.trim().length() > 0) {
+									planStr = "\"" + name + "\"";
 								} else {
-									throw new IllegalStateException("Missing annotation @Keyword on implicit plan method "+m.getName());
+									planStr = m.getName();
 								}
+							} else {
+								throw new IllegalStateException("Missing annotation @Keyword on implicit plan method "+m.getName());
 							}
-							plan = planParser.parse(planStr, RootArtefactType.TestCase);
-							setPlanName(plan, planName);
-						} catch (Exception e) {
-							exception = e;
 						}
-						return new StepClassParserResult(planName, plan, exception);
-					}).collect(Collectors.toList());
-		}
+						plan = planParser.parse(planStr, RootArtefactType.TestCase);
+						setPlanName(plan, planName);
+					} catch (Exception e) {
+						exception = e;
+					}
+					return new StepClassParserResult(planName, plan, exception);
+				}).collect(Collectors.toList());
 	}
 
 	private StepClassParserResult createPlan(Class<?> klass, String name) throws Exception {
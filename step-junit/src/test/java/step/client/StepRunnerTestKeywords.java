@@ -18,13 +18,27 @@
  ******************************************************************************/
 package step.client;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import step.handlers.javahandler.AbstractKeyword;
 import step.handlers.javahandler.Keyword;
 
 public class StepRunnerTestKeywords extends AbstractKeyword {
 	
+	// Released once the 3 parallel plans of StepRunnerWithConcurrencyTest are running at the same time
+	private static final CountDownLatch parallelPlansLatch = new CountDownLatch(3);
+
 	@Keyword
 	public void callExisting() {
 		
 	}
+
+	@Keyword
+	public void awaitParallelPlans() throws InterruptedException {
+		parallelPlansLatch.countDown();
+		if (!parallelPlansLatch.await(10, TimeUnit.SECONDS)) {
+			output.setBusinessError("The plans haven't been executed in parallel");
+		}
+	}
 }
@@ -0,0 +1,57 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.junit.runner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import step.junit.runners.annotations.Plan;
+
+public class StepClassParserTest {
+
+	public static class BasePlans<T> {
+
+		@Plan("Echo \"Base\"")
+		public T covariantPlan() {
+			return null;
+		}
+	}
+
+	public static class CovariantPlans extends BasePlans<String> {
+
+		@Override
+		@Plan("Echo \"Override\"")
+		public String covariantPlan() {
+			return null;
+		}
+	}
+
+	@Test
+	public void testBridgeMethodsAreIgnored() throws Exception {
+		List<StepClassParserResult> results = new StepClassParser(false).createPlansForClass(CovariantPlans.class);
+		assertEquals(1, results.size());
+		StepClassParserResult result = results.get(0);
+		assertEquals("covariantPlan", result.getName());
+		assertNull(result.getInitializingException());
+	}
+}
@@ -57,6 +57,8 @@ import step.functions.execution.FunctionExecutionService;
 import step.functions.handler.AbstractFunctionHandler;
 import step.functions.io.FunctionInput;
 import step.functions.io.Output;
+import step.functions.type.AbstractFunctionType;
+import step.functions.type.FunctionTypeRegistry;
 import step.grid.Token;
 import step.grid.TokenWrapper;
 import step.grid.agent.tokenpool.TokenReservationSession;
@@ -78,10 +80,13 @@ public class CallFunctionHandler extends ArtefactHandler<CallFunction, CallFunct
 	
 	protected FunctionLocator functionLocator;
 	
+	private FunctionTypeRegistry functionTypeRegistry;
+	
 	@Override
 	public void init(ExecutionContext context) {
 		super.init(context);
 		functionExecutionService = context.get(FunctionExecutionService.class);
+		functionTypeRegistry = context.get(FunctionTypeRegistry.class);
 		functionAccessor = context.get(FunctionAccessor.class);
 		functionRouter = context.get(FunctionRouter.class);
 		reportNodeAttachmentManager = new ReportNodeAttachmentManager(context);
@@ -119,7 +124,26 @@ public class CallFunctionHandler extends ArtefactHandler<CallFunction, CallFunct
 		validateInput(input, function);
 
 		Output<JsonObject> output;
-		if(!context.isSimulation()) {		
+		InProcessFunctionExecutor<Function> inProcessFunctionExecutor;
+		if(context.isSimulation()) {
+			output = new Output<>();
+			output.setPayload(JsonProviderCache.createObjectBuilder().build());
+			node.setOutputObject(output.getPayload());
+			node.setOutput(output.getPayload().toString());
+			node.setStatus(ReportNodeStatus.PASSED);
+		} else if((inProcessFunctionExecutor = getInProcessFunctionExecutor(function)) != null) {
+			try {
+				OperationManager.getInstance().enter("Keyword Call", new Object[]{function.getAttributes()}, node.getId().toString());
+				try {
+					output = inProcessFunctionExecutor.executeInProcess(context, function, input, context.getCurrentReportNode());
+				} finally {
+					OperationManager.getInstance().exit();
+				}
+				processOutput(node, testArtefact, function, output);
+			} finally {
+				callChildrenArtefacts(node, testArtefact);
+			}
+		} else {
 			Object o = context.getVariablesManager().getVariable(FunctionGroupHandler.FUNCTION_GROUP_CONTEXT_KEY);
 			boolean releaseTokenAfterExecution = (o==null);
 			
@@ -143,43 +167,7 @@ public class CallFunctionHandler extends ArtefactHandler<CallFunction, CallFunct
 				} finally {
 					OperationManager.getInstance().exit();
 				}
-				executionCallbacks.afterFunctionExecution(context, node, function, output);
-				
-				Error error = output.getError();
-				if(error!=null) {
-					node.setError(error);
-					node.setStatus(error.getType()==ErrorType.TECHNICAL?ReportNodeStatus.TECHNICAL_ERROR:ReportNodeStatus.FAILED);
-				} else {
-					node.setStatus(ReportNodeStatus.PASSED);
-				}
-	
-				if(output.getPayload() != null) {
-					context.getVariablesManager().putVariable(node, "output", output.getPayload());
-					node.setOutput(output.getPayload().toString());
-					node.setOutputObject(output.getPayload());
-					ReportNode parentNode = context.getReportNodeCache().get(node.getParentID());
-					if(parentNode!=null) {
-						context.getVariablesManager().putVariable(parentNode, "previous", output.getPayload());					
-					}
-				}
-				
-				if(output.getAttachments()!=null) {
-					for(Attachment a:output.getAttachments()) {
-						AttachmentMeta attachmentMeta;
-						try {
-							attachmentMeta = reportNodeAttachmentManager.createAttachment(AttachmentHelper.hexStringToByteArray(a.getHexContent()), a.getName());
-							node.addAttachment(attachmentMeta);					
-						} catch (AttachmentQuotaException e) {
-							// attachment has been skipped. Nothing else to do here
-						}
-					}
-				}
-				if(output.getMeasures()!=null) {
-					node.setMeasures(output.getMeasures());
-				}
-				
-				String drainOutputValue = testArtefact.getResultMap().get();
-				drainOutput(drainOutputValue, output);
+				processOutput(node, testArtefact, function, output);
 			} finally {
 				if(releaseTokenAfterExecution) {				
 					functionExecutionService.returnTokenHandle(token.getID());
@@ -187,13 +175,68 @@ public class CallFunctionHandler extends ArtefactHandler<CallFunction, CallFunct
 	
 				callChildrenArtefacts(node, testArtefact);
 			}
+		}
+	}
+
+	private void processOutput(CallFunctionReportNode node, CallFunction testArtefact, Function function, Output<JsonObject> output) {
+		context.getExecutionCallbacks().afterFunctionExecution(context, node, function, output);
+		
+		Error error = output.getError();
+		if(error!=null) {
+			node.setError(error);
+			node.setStatus(error.getType()==ErrorType.TECHNICAL?ReportNodeStatus.TECHNICAL_ERROR:ReportNodeStatus.FAILED);
 		} else {
-			output = new Output<>();
-			output.setPayload(JsonProviderCache.createObjectBuilder().build());
-			node.setOutputObject(output.getPayload());
-			node.setOutput(output.getPayload().toString());
 			node.setStatus(ReportNodeStatus.PASSED);
 		}
+
+		if(output.getPayload() != null) {
+			context.getVariablesManager().putVariable(node, "output", output.getPayload());
+			node.setOutput(output.getPayload().toString());
+			node.setOutputObject(output.getPayload());
+			ReportNode parentNode = context.getReportNodeCache().get(node.getParentID());
+			if(parentNode!=null) {
+				context.getVariablesManager().putVariable(parentNode, "previous", output.getPayload());					
+			}
+		}
+		
+		if(output.getAttachments()!=null) {
+			for(Attachment a:output.getAttachments()) {
+				AttachmentMeta attachmentMeta;
+				try {
+					attachmentMeta = reportNodeAttachmentManager.createAttachment(AttachmentHelper.hexStringToByteArray(a.getHexContent()), a.getName());
+					node.addAttachment(attachmentMeta);					
+				} catch (AttachmentQuotaException e) {
+					// attachment has been skipped. Nothing else to do here
+				}
+			}
+		}
+		if(output.getMeasures()!=null) {
+			node.setMeasures(output.getMeasures());
+		}
+		
+		String drainOutputValue = testArtefact.getResultMap().get();
+		drainOutput(drainOutputValue, output);
+	}
+
+	/**
+	 * @return the {@link InProcessFunctionExecutor} of the provided function or null if
+	 * the function has to be executed through the {@link FunctionExecutionService}
+	 */
+	@SuppressWarnings("unchecked")
+	private InProcessFunctionExecutor<Function> getInProcessFunctionExecutor(Function function) {
+		if(functionTypeRegistry != null && function.isExecuteLocally()) {
+			AbstractFunctionType<Function> functionType;
+			try {
+				functionType = functionTypeRegistry.getFunctionTypeByFunction(function);
+			} catch (RuntimeException e) {
+				// Unknown function type. The error will be reported by the FunctionExecutionService
+				return null;
+			}
+			if(functionType instanceof InProcessFunctionExecutor) {
+				return (InProcessFunctionExecutor<Function>) functionType;
+			}
+		}
+		return null;
 	}
 
 	private void validateInput(FunctionInput<JsonObject> input, Function function) {
@@ -18,18 +18,16 @@
  ******************************************************************************/
 package step.artefacts.handlers;
 
-import java.io.StringReader;
-
 import jakarta.json.JsonObject;
 
 import step.artefacts.CallPlan;
+import step.core.artefacts.AbstractArtefact;
 import step.core.artefacts.handlers.ArtefactHandler;
 import step.core.artefacts.reports.ReportNode;
 import step.core.dynamicbeans.DynamicJsonObjectResolver;
 import step.core.dynamicbeans.DynamicJsonValueResolver;
 import step.core.execution.ExecutionContext;
 import step.core.execution.ExecutionContextBindings;
-import step.core.json.JsonProviderCache;
 import step.core.plans.Plan;
 
 public class CallPlanHandler extends ArtefactHandler<CallPlan, ReportNode> {
@@ -38,11 +36,14 @@ public class CallPlanHandler extends ArtefactHandler<CallPlan, ReportNode> {
 	
 	protected PlanLocator planLocator;
 	
+	protected ResolvedPlanCache resolvedPlanCache;
+	
 	@Override
 	public void init(ExecutionContext context) {
 		super.init(context);
 		dynamicJsonObjectResolver = new DynamicJsonObjectResolver(new DynamicJsonValueResolver(context.getExpressionHandler()));
 		planLocator = new PlanLocator(context.getPlanAccessor(), new SelectorHelper(dynamicJsonObjectResolver));
+		resolvedPlanCache = ResolvedPlanCache.getOrCreate(context);
 	}
 	
 	@Override
@@ -50,14 +51,14 @@ public class CallPlanHandler extends ArtefactHandler<CallPlan, ReportNode> {
 		beforeDelegation(parentNode, testArtefact);
 		Plan a = selectPlan(testArtefact);
 
-		delegateCreateReportSkeleton(a.getRoot(), parentNode);
+		delegateCreateReportSkeleton(getRoot(a), parentNode);
 	}
 
 	private void beforeDelegation(ReportNode parentNode, CallPlan testArtefact) {
 		context.getVariablesManager().putVariable(parentNode, "#placeholder", testArtefact);
 
 		String inputJson = (testArtefact.getInput().get()!=null)?testArtefact.getInput().get():"{}";
-		JsonObject input = JsonProviderCache.createReader(new StringReader(inputJson)).readObject();
+		JsonObject input = resolvedPlanCache.getInput(inputJson);
 		JsonObject resolvedInput = dynamicJsonObjectResolver.evaluate(input, getBindings());		
 		context.getVariablesManager().putVariable(parentNode, "input", resolvedInput);
 	}
@@ -68,13 +69,19 @@ public class CallPlanHandler extends ArtefactHandler<CallPlan, ReportNode> {
 
 		Plan a = selectPlan(testArtefact);
 		
-		ReportNode resultNode = delegateExecute(a.getRoot(), node);
+		ReportNode resultNode = delegateExecute(getRoot(a), node);
 		node.setStatus(resultNode.getStatus());
 	}
 
 	protected Plan selectPlan(CallPlan testArtefact) {
 		return planLocator.selectPlan(testArtefact, context.getObjectPredicate(),
-				ExecutionContextBindings.get(context));
+				ExecutionContextBindings.get(context), resolvedPlanCache);
+	}
+
+	private AbstractArtefact getRoot(Plan plan) {
+		// The plan is shared through the ResolvedPlanCache. Work on a copy of the
+		// root as the dynamic values are evaluated in place
+		return context.getDynamicBeanResolver().cloneDynamicValues(plan.getRoot());
 	}
 
 	@Override
@@ -44,7 +44,14 @@ public class ForBlockHandler extends AbstractSessionArtefactHandler<AbstractForB
 	public void createReportSkeleton_(ForBlockReportNode node, AbstractForBlock testArtefact) {		
 		DataSet<?> dataSet = null;
 		try {
-			dataSet = getDataPool(testArtefact);
+			DataSet<?> newDataSet = newDataPool(testArtefact);
+			if(!newDataSet.isCheapToIterate()) {
+				// Reading the whole data set here would double the I/O as it is read again during execution.
+				// The report nodes of the iterations are created during execution in that case
+				return;
+			}
+			dataSet = newDataSet;
+			initDataPool(dataSet);
 			DataPoolRow nextValue = null;
 			int rowCount = 0;
 			while((nextValue=dataSet.next())!=null) {				
@@ -78,11 +85,18 @@ public class ForBlockHandler extends AbstractSessionArtefactHandler<AbstractForB
 	}
 
 	public DataSet<?> getDataPool(AbstractForBlock testArtefact) {
-		DataSet<?> dataSet;
-		dataSet = DataPoolFactory.getDataPool(testArtefact.getDataSourceType(), testArtefact.getDataSource(), context);
+		DataSet<?> dataSet = newDataPool(testArtefact);
+		initDataPool(dataSet);
+		return dataSet;
+	}
+
+	private DataSet<?> newDataPool(AbstractForBlock testArtefact) {
+		return DataPoolFactory.getDataPool(testArtefact.getDataSourceType(), testArtefact.getDataSource(), context);
+	}
+
+	private void initDataPool(DataSet<?> dataSet) {
 		dataSet.enableRowCommit(true);
 		dataSet.init();
-		return dataSet;
 	}
 
 	@Override
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.artefacts.handlers;
+
+import jakarta.json.JsonObject;
+
+import step.core.artefacts.reports.ReportNode;
+import step.core.execution.ExecutionContext;
+import step.functions.Function;
+import step.functions.io.FunctionInput;
+import step.functions.io.Output;
+
+/**
+ * Function types implementing this interface are executed by the
+ * {@link CallFunctionHandler} directly in the calling thread and execution
+ * context, without token selection and without serialization of the call.
+ * This only applies to functions that are configured to be executed locally.
+ */
+public interface InProcessFunctionExecutor<T extends Function> {
+
+	/**
+	 * @param context    the current {@link ExecutionContext}
+	 * @param function   the function to be executed
+	 * @param input      the input of the function call
+	 * @param parentNode the report node of the function call
+	 * @return the {@link Output} of the function call
+	 */
+	Output<JsonObject> executeInProcess(ExecutionContext context, T function, FunctionInput<JsonObject> input, ReportNode parentNode);
+}
@@ -26,6 +26,7 @@ import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import step.artefacts.CallPlan;
+import step.artefacts.handlers.ResolvedPlanCache.PlanCacheKey;
 import step.core.objectenricher.ObjectPredicate;
 import step.core.plans.Plan;
 import step.core.plans.PlanAccessor;
@@ -50,19 +51,48 @@ public class PlanLocator {
 	 * @return the {@link Plan} referenced by the provided artefact
 	 */
 	public Plan selectPlan(CallPlan artefact, ObjectPredicate objectPredicate, Map<String, Object> bindings) {
+		return selectPlan(artefact, objectPredicate, bindings, null);
+	}
+
+	/**
+	 * Resolve a {@link CallPlan} artefact to the underlying {@link Plan} using the provided cache
+	 * 
+	 * @param artefact the {@link CallPlan} artefact
+	 * @param objectPredicate the predicate to be used to filter the results out
+	 * @param bindings the bindings to be used for the evaluation of dynamic expressions (can be null)
+	 * @param cache the {@link ResolvedPlanCache} to be used (can be null)
+	 * @return the {@link Plan} referenced by the provided artefact
+	 */
+	public Plan selectPlan(CallPlan artefact, ObjectPredicate objectPredicate, Map<String, Object> bindings, ResolvedPlanCache cache) {
 		Objects.requireNonNull(artefact, "The artefact must not be null");
 		Objects.requireNonNull(objectPredicate, "The object predicate must not be null");
 
-		Plan a;
-		if(artefact.getPlanId()!=null) {
-			a =  accessor.get(artefact.getPlanId());
+		String planId = artefact.getPlanId();
+		if(planId!=null) {
+			if(cache != null) {
+				return cache.getPlan(new PlanCacheKey(planId, null, getActiveVersions(bindings)), ()->accessor.get(planId));
+			} else {
+				return accessor.get(planId);
+			}
 		} else {
 			Map<String, String> selectionAttributes = selectorHelper.buildSelectionAttributesMap(artefact.getSelectionAttributes().get(), bindings);
-			Stream<Plan> stream = StreamSupport.stream(accessor.findManyByAttributes(selectionAttributes), false);
-			stream = stream.filter(objectPredicate);
-			List<Plan> matchingFunctions = stream.collect(Collectors.toList());
-			a = matchingFunctions.stream().findFirst().orElseThrow(()->new RuntimeException("Unable to find plan with attributes: "+selectionAttributes.toString()));
+			if(cache != null) {
+				return cache.getPlan(new PlanCacheKey(null, selectionAttributes, getActiveVersions(bindings)), ()->findPlanByAttributes(selectionAttributes, objectPredicate));
+			} else {
+				return findPlanByAttributes(selectionAttributes, objectPredicate);
+			}
 		}
-		return a;
+	}
+
+	private Plan findPlanByAttributes(Map<String, String> selectionAttributes, ObjectPredicate objectPredicate) {
+		Stream<Plan> stream = StreamSupport.stream(accessor.findManyByAttributes(selectionAttributes), false);
+		stream = stream.filter(objectPredicate);
+		List<Plan> matchingFunctions = stream.collect(Collectors.toList());
+		return matchingFunctions.stream().findFirst().orElseThrow(()->new RuntimeException("Unable to find plan with attributes: "+selectionAttributes.toString()));
+	}
+
+	private String getActiveVersions(Map<String, Object> bindings) {
+		Object activeVersions = bindings != null ? bindings.get(FunctionLocator.KEYWORD_ACTIVE_VERSIONS) : null;
+		return activeVersions != null ? activeVersions.toString() : null;
 	}
 }
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.artefacts.handlers;
+
+import java.io.StringReader;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import jakarta.json.JsonObject;
+
+import step.core.execution.ExecutionContext;
+import step.core.json.JsonProviderCache;
+import step.core.plans.ObservablePlanAccessor;
+import step.core.plans.Plan;
+import step.core.plans.PlanAccessor;
+
+/**
+ * Execution scoped cache of the plans resolved by the {@link CallPlanHandler}
+ * and of the parsed input of the CallPlan artefacts.
+ *
+ * The cached plans are shared by all the threads of an execution and must
+ * therefore be considered as immutable. The cache is invalidated each time a
+ * plan is saved or removed through the plan accessor of the execution.
+ */
+public class ResolvedPlanCache {
+
+	protected static final int MAX_ENTRIES = 1000;
+
+	private final Map<PlanCacheKey, Plan> plans = new ConcurrentHashMap<>();
+	private final Map<String, JsonObject> inputs = new ConcurrentHashMap<>();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * @param context the {@link ExecutionContext} to get the cache for
+	 * @return the {@link ResolvedPlanCache} of the provided execution. The
+	 *         cache is created at first call
+	 */
+	public static ResolvedPlanCache getOrCreate(ExecutionContext context) {
+		ResolvedPlanCache cache = context.get(ResolvedPlanCache.class);
+		if (cache == null) {
+			synchronized (context) {
+				cache = context.computeIfAbsent(ResolvedPlanCache.class, k -> {
+					ResolvedPlanCache newCache = new ResolvedPlanCache();
+					PlanAccessor planAccessor = context.getPlanAccessor();
+					if (planAccessor instanceof ObservablePlanAccessor) {
+						// Plans are resolved by attributes, the whole cache is invalidated at each modification
+						((ObservablePlanAccessor) planAccessor).addModificationListener(planId -> newCache.invalidate());
+					}
+					return newCache;
+				});
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the plan cached for the provided key or resolves it using the
+	 * provided supplier
+	 *
+	 * @param key          the key of the plan to be resolved
+	 * @param planSupplier the function used to resolve the plan in case of cache miss
+	 * @return the resolved {@link Plan}
+	 */
+	public Plan getPlan(PlanCacheKey key, Supplier<Plan> planSupplier) {
+		Plan plan = plans.get(key);
+		if (plan != null) {
+			hits.increment();
+		} else {
+			misses.increment();
+			plan = planSupplier.get();
+			// Keys depend on the bindings. Avoid unbounded growth if these are highly dynamic
+			if (plans.size() < MAX_ENTRIES) {
+				plans.put(key, plan);
+			}
+		}
+		return plan;
+	}
+
+	/**
+	 * @param inputJson the resolved JSON input of a CallPlan artefact
+	 * @return the parsed {@link JsonObject}
+	 */
+	public JsonObject getInput(String inputJson) {
+		JsonObject input = inputs.get(inputJson);
+		if (input == null) {
+			input = JsonProviderCache.createReader(new StringReader(inputJson)).readObject();
+			if (inputs.size() < MAX_ENTRIES) {
+				inputs.put(inputJson, input);
+			}
+		}
+		return input;
+	}
+
+	public void invalidate() {
+		plans.clear();
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	public static class PlanCacheKey {
+
+		private final String planId;
+		private final Map<String, String> selectionAttributes;
+		private final String activeVersions;
+
+		public PlanCacheKey(String planId, Map<String, String> selectionAttributes, String activeVersions) {
+			super();
+			this.planId = planId;
+			this.selectionAttributes = selectionAttributes;
+			this.activeVersions = activeVersions;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(planId, selectionAttributes, activeVersions);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (obj == null || getClass() != obj.getClass())
+				return false;
+			PlanCacheKey other = (PlanCacheKey) obj;
+			return Objects.equals(planId, other.planId) && Objects.equals(selectionAttributes, other.selectionAttributes)
+					&& Objects.equals(activeVersions, other.activeVersions);
+		}
+	}
+}
@@ -107,6 +107,11 @@ public class ExcelDataPoolImpl extends DataSet<ExcelDataPool> {
 	public void reset() {
 		resetCursor();
 	}
+	
+	@Override
+	public boolean isCheapToIterate() {
+		return false;
+	}
 
 	private void resetCursor() {
 		if(configuration.getHeaders().get()) {
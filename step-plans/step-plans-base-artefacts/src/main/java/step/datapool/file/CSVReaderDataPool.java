@@ -23,9 +23,12 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -43,7 +46,13 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 	public static final Logger logger = LoggerFactory.getLogger(CSVReaderDataPool.class);
 
 	protected Vector<String> headers;
+	// index of the columns by header name shared by all the rows
+	protected Map<String, Integer> headerIndex;
 	protected String delimiter;
+	// the RFC 4180 tokenizer is used for single character delimiters. Other delimiters
+	// are interpreted as regular expression for backward compatibility
+	protected CSVTokenizer tokenizer;
+	protected int rowNr;
 
 	// indicates if a write operation using RowWrapper.put occurred
 	protected AtomicBoolean hasChanges = new AtomicBoolean(false);
@@ -73,7 +82,7 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 				Iterator<String> iterator = headers.iterator();
 				while (iterator.hasNext()) {
 					String header = iterator.next();
-					tempFileWriter.write(header);
+					tempFileWriter.write(escapeValue(header));
 					if (iterator.hasNext()) {
 						tempFileWriter.write(delimiter);
 					}
@@ -119,9 +128,9 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 				Iterator<String> iterator = headers.iterator();
 				while (iterator.hasNext()) {
 					String header = iterator.next();
-					Object object = csvRow.rowData.get(header);
-					if(object != null) {
-						tempFileWriter.print(object.toString());			
+					String fieldValue = csvRow.get(header);
+					if(fieldValue != null) {
+						tempFileWriter.print(escapeValue(fieldValue));
 					}
 					if (iterator.hasNext()) {
 						tempFileWriter.print(delimiter);
@@ -145,39 +154,69 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 		return isRowCommitEnabled;
 	}
 
-	@Override
-	public Object postProcess(String line) {
+	private String escapeValue(String value) {
+		if (tokenizer != null && (value.indexOf(delimiter.charAt(0)) >= 0 || value.indexOf('"') >= 0
+				|| value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+			return '"' + value.replace("\"", "\"\"") + '"';
+		} else {
+			return value;
+		}
+	}
 
-		HashMap<String, Object> map = new HashMap<String, Object>();
-		try {
-			Vector<String> csv = splitCSV(line);
-			for (int i = 0; i < csv.size(); i++) {
-				map.put(headers.get(i), csv.get(i));
+	@Override
+	public Object next_() {
+		if (tokenizer != null) {
+			String[] fields;
+			try {
+				fields = tokenizer.nextRecord();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read record from file " + this.filePath + ". Error was:" + e.getMessage());
 			}
-		} catch (ArrayIndexOutOfBoundsException e) {
-			throw new RuntimeException(
-					e.getMessage() + " : headers=" + headers + "; row=" + line + "; delimiter=" + delimiter);
+			return fields != null ? newRow(fields) : null;
+		} else {
+			return super.next_();
 		}
+	}
 
-		return new CSVRowWrapper(super.lineNr, map);
+	@Override
+	public Object postProcess(String line) {
+		return newRow(splitCSV(line).toArray(new String[0]));
+	}
+
+	private CSVRowWrapper newRow(String[] fields) {
+		if (fields.length > headers.size()) {
+			throw new RuntimeException("Row " + rowNr + " has more fields than headers: headers=" + headers + "; row="
+					+ Arrays.toString(fields) + "; delimiter=" + delimiter);
+		}
+		return new CSVRowWrapper(++rowNr, fields);
 	}
 
 	public class CSVRowWrapper extends SimpleStringMap {
 
-		private HashMap<String, Object> rowData;
+		private final String[] fields;
+		// values put for keys that aren't part of the headers
+		private Map<String, String> additionalFields;
 
-		public CSVRowWrapper(int rowNum, HashMap<String, Object> row) {
+		public CSVRowWrapper(int rowNum, String[] fields) {
 			super();
 
 			if (rowNum < 1)
 				throw new RuntimeException("Invalid row number:" + rowNum);
-			this.rowData = row;
+			this.fields = Arrays.copyOf(fields, headers.size());
 		}
 
 		@Override
 		public String put(String key, String value) {
 			if (isRowCommitEnabled) {
-				rowData.put(key, value);
+				Integer index = headerIndex.get(key);
+				if (index != null) {
+					fields[index] = value;
+				} else {
+					if (additionalFields == null) {
+						additionalFields = new HashMap<>();
+					}
+					additionalFields.put(key, value);
+				}
 				hasChanges.set(true);
 			} else {
 				throw new RuntimeException(
@@ -188,17 +227,28 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 
 		@Override
 		public String get(String key) {
-			return (String) rowData.get(key);
+			Integer index = headerIndex.get(key);
+			if (index != null) {
+				return fields[index];
+			} else {
+				return additionalFields != null ? additionalFields.get(key) : null;
+			}
 		}
 
 		@Override
 		public int size() {
-			return rowData.size();
+			int size = 0;
+			for (String field : fields) {
+				if (field != null) {
+					size++;
+				}
+			}
+			return additionalFields != null ? size + additionalFields.size() : size;
 		}
 
 		@Override
 		public boolean isEmpty() {
-			return rowData.isEmpty();
+			return size() == 0;
 		}
 
 		@Override
@@ -213,17 +263,50 @@ public class CSVReaderDataPool extends FileReaderDataPool {
 	}
 
 	public Vector<String> splitCSV(String readOneLine) {
-
 		Vector<String> v = new Vector<String>();
-		for (String s : readOneLine.split(this.delimiter, -1))
-			v.add(s);
-
+		if (isSingleCharDelimiter()) {
+			try {
+				String[] fields = new CSVTokenizer(new StringReader(readOneLine), delimiter.charAt(0), Math.max(readOneLine.length(), 1)).nextRecord();
+				if (fields != null) {
+					v.addAll(Arrays.asList(fields));
+				} else {
+					v.add("");
+				}
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+		} else {
+			for (String s : readOneLine.split(this.delimiter, -1))
+				v.add(s);
+		}
 		return v;
 	}
 
+	private boolean isSingleCharDelimiter() {
+		return delimiter.length() == 1;
+	}
+
 	@Override
 	public void doFirst_() {
-		this.headers = getHeaders(readOneLine());
+		rowNr = 0;
+		if (isSingleCharDelimiter()) {
+			tokenizer = new CSVTokenizer(br, delimiter.charAt(0));
+			String[] headerFields;
+			try {
+				headerFields = tokenizer.nextRecord();
+			} catch (IOException e) {
+				throw new RuntimeException("Could not read headers from file " + this.filePath + ". Error was:" + e.getMessage());
+			}
+			this.headers = headerFields != null ? new Vector<>(Arrays.asList(headerFields)) : null;
+		} else {
+			this.headers = getHeaders(readOneLine());
+		}
+		headerIndex = new HashMap<>();
+		if (headers != null) {
+			for (int i = 0; i < headers.size(); i++) {
+				headerIndex.putIfAbsent(headers.get(i), i);
+			}
+		}
 	}
 
 	@Override
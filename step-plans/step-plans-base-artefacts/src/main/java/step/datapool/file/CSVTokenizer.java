@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *
+ * This file is part of STEP
+ *
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.datapool.file;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A streaming CSV tokenizer following RFC 4180: fields may be enclosed in
+ * double quotes, in which case they may contain delimiters, line breaks and
+ * escaped double quotes (""). Records are separated by CRLF, LF or CR.
+ *
+ * This class isn't thread safe.
+ */
+public class CSVTokenizer {
+
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	private static final char QUOTE = '"';
+	private static final char CR = '\r';
+	private static final char LF = '\n';
+	private static final String[] EMPTY_RECORD = new String[0];
+
+	private enum Terminator {
+		DELIMITER,
+		END_OF_RECORD,
+		END_OF_FILE;
+	}
+
+	private final Reader reader;
+	private final char delimiter;
+	private final char[] buffer;
+	private int position;
+	private int limit;
+
+	private Terminator terminator;
+	private final List<String> record = new ArrayList<>();
+	private final StringBuilder unquotedField = new StringBuilder();
+	private final StringBuilder quotedField = new StringBuilder();
+
+	public CSVTokenizer(Reader reader, char delimiter) {
+		this(reader, delimiter, BUFFER_SIZE);
+	}
+
+	public CSVTokenizer(Reader reader, char delimiter, int bufferSize) {
+		super();
+		this.reader = reader;
+		this.delimiter = delimiter;
+		this.buffer = new char[bufferSize];
+	}
+
+	/**
+	 * @return the fields of the next record or null if the end of the stream has been reached
+	 * @throws IOException
+	 */
+	public String[] nextRecord() throws IOException {
+		if (!ensureAvailable()) {
+			return null;
+		}
+		record.clear();
+		do {
+			record.add(readField());
+		} while (terminator == Terminator.DELIMITER);
+		return record.toArray(EMPTY_RECORD);
+	}
+
+	private String readField() throws IOException {
+		if (!ensureAvailable()) {
+			terminator = Terminator.END_OF_FILE;
+			return "";
+		}
+		if (buffer[position] == QUOTE) {
+			position++;
+			return readQuotedField();
+		} else {
+			return readUnquotedField();
+		}
+	}
+
+	private String readUnquotedField() throws IOException {
+		StringBuilder builder = null;
+		while (true) {
+			int start = position;
+			while (position < limit) {
+				char c = buffer[position];
+				if (c == delimiter || c == LF || c == CR) {
+					String value;
+					if (builder == null) {
+						// Fast path: the field is entirely contained in the buffer
+						value = new String(buffer, start, position - start);
+					} else {
+						value = builder.append(buffer, start, position - start).toString();
+					}
+					consumeTerminator(c);
+					return value;
+				}
+				position++;
+			}
+			if (builder == null) {
+				builder = unquotedField;
+				builder.setLength(0);
+			}
+			builder.append(buffer, start, position - start);
+			if (!fill()) {
+				terminator = Terminator.END_OF_FILE;
+				return builder.toString();
+			}
+		}
+	}
+
+	private String readQuotedField() throws IOException {
+		StringBuilder builder = quotedField;
+		builder.setLength(0);
+		while (ensureAvailable()) {
+			int start = position;
+			while (position < limit && buffer[position] != QUOTE) {
+				position++;
+			}
+			builder.append(buffer, start, position - start);
+			if (position < limit) {
+				// skip the quote
+				position++;
+				if (ensureAvailable() && buffer[position] == QUOTE) {
+					// escaped quote
+					builder.append(QUOTE);
+					position++;
+				} else {
+					// closing quote. Characters between the closing quote and the next
+					// delimiter aren't allowed by RFC 4180 but are kept to be lenient
+					String value = builder.toString();
+					String trailing = readUnquotedField();
+					return trailing.isEmpty() ? value : value + trailing;
+				}
+			}
+		}
+		// unterminated quoted field
+		terminator = Terminator.END_OF_FILE;
+		return builder.toString();
+	}
+
+	private void consumeTerminator(char c) throws IOException {
+		position++;
+		if (c == delimiter) {
+			terminator = Terminator.DELIMITER;
+		} else {
+			if (c == CR && ensureAvailable() && buffer[position] == LF) {
+				position++;
+			}
+			terminator = Terminator.END_OF_RECORD;
+		}
+	}
+
+	private boolean ensureAvailable() throws IOException {
+		return position < limit || fill();
+	}
+
+	private boolean fill() throws IOException {
+		int read;
+		do {
+			read = reader.read(buffer, 0, buffer.length);
+		} while (read == 0);
+		position = 0;
+		limit = Math.max(read, 0);
+		return read > 0;
+	}
+}
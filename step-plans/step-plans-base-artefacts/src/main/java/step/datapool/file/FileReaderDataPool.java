@@ -19,9 +19,11 @@
 package step.datapool.file;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +35,8 @@ public abstract class FileReaderDataPool extends DataSet<FileDataPool> {
 
 	private static final Logger logger = LoggerFactory.getLogger(FileReaderDataPool.class);
 	
+	protected static final int READER_BUFFER_SIZE = 64 * 1024;
+	
 	public FileReaderDataPool(FileDataPool configuration) {
 		super(configuration);
 	}
@@ -58,13 +62,13 @@ public abstract class FileReaderDataPool extends DataSet<FileDataPool> {
 	}
 	
 	private void initReader(){
-		FileReader in = null;
+		InputStreamReader in = null;
 		try {
-			in = new FileReader(filePath);
-		} catch (FileNotFoundException e) {
+			in = new InputStreamReader(Files.newInputStream(Paths.get(filePath)), Charset.defaultCharset());
+		} catch (IOException e) {
 			throw new RuntimeException("Could not open file :" + filePath + ". error was:" + e.getMessage());
 		}
-		br = new BufferedReader(in);
+		br = new BufferedReader(in, READER_BUFFER_SIZE);
 		this.lineNr = 1;
 	}
 
@@ -104,6 +108,11 @@ public abstract class FileReaderDataPool extends DataSet<FileDataPool> {
 
 	public abstract Object postProcess(String line);
 
+	@Override
+	public boolean isCheapToIterate() {
+		return false;
+	}
+
 	@Override
 	public void close() {
 		super.close();
@@ -91,6 +91,11 @@ public class GoogleSheetv4DataPool extends DataSet<GoogleSheetv4DataPoolConfigur
 		init();
 	}
 
+	@Override
+	public boolean isCheapToIterate() {
+		return false;
+	}
+
 	@Override
 	public void close() {
 		super.close();
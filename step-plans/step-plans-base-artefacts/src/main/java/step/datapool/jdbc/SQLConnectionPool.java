@@ -0,0 +1,246 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.datapool.jdbc;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A minimal pool of JDBC connections. One pool is maintained per
+ * connection string and user in order to reuse the connections across the
+ * instances of {@link SQLTableDataPool}.
+ * 
+ * Connections are returned to the pool in auto-commit mode. Idle connections
+ * are closed after a maximum idle time and all the pools are closed by
+ * {@link #closeAll()}
+ */
+public class SQLConnectionPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(SQLConnectionPool.class);
+
+	private static final int VALIDATION_TIMEOUT_S = 2;
+	private static final long EVICTION_PERIOD_MS = 10000;
+
+	private static final Map<List<String>, SQLConnectionPool> pools = new ConcurrentHashMap<>();
+	private static ScheduledExecutorService evictor;
+
+	private final String jdbcUrl;
+	private final String user;
+	private final String password;
+	private final int maxIdleConnections;
+	private final long maxIdleTimeMs;
+	// Most recently released connections first. Guarded by the list itself
+	private final List<IdleConnection> idleConnections = new ArrayList<>();
+	private boolean closed = false;
+
+	protected SQLConnectionPool(String jdbcUrl, String user, String password, int maxIdleConnections, long maxIdleTimeMs) {
+		super();
+		this.jdbcUrl = jdbcUrl;
+		this.user = user;
+		this.password = password;
+		this.maxIdleConnections = maxIdleConnections;
+		this.maxIdleTimeMs = maxIdleTimeMs;
+	}
+
+	/**
+	 * @param jdbcUrl the JDBC connection string
+	 * @param user the DB user
+	 * @param password the resolved password of the DB user
+	 * @param maxIdleConnections the maximum number of idle connections to be kept in the pool
+	 * @param maxIdleTimeMs the time in ms after which idle connections are closed
+	 * @return the pool for the provided connection settings
+	 */
+	public static SQLConnectionPool getPool(String jdbcUrl, String user, String password, int maxIdleConnections, long maxIdleTimeMs) {
+		List<String> key = Arrays.asList(jdbcUrl, user);
+		SQLConnectionPool pool = pools.compute(key, (k, existingPool) -> {
+			// The connections of a pool have been opened with its password. Replace the pool if the password changed
+			if (existingPool != null && Objects.equals(existingPool.password, password)) {
+				return existingPool;
+			} else {
+				if (existingPool != null) {
+					existingPool.close();
+				}
+				return new SQLConnectionPool(jdbcUrl, user, password, maxIdleConnections, maxIdleTimeMs);
+			}
+		});
+		startEvictor();
+		return pool;
+	}
+
+	/**
+	 * Closes the idle connections of all the pools. Connections released after
+	 * this call are closed
+	 */
+	public static void closeAll() {
+		synchronized (SQLConnectionPool.class) {
+			if (evictor != null) {
+				evictor.shutdownNow();
+				evictor = null;
+			}
+		}
+		Iterator<SQLConnectionPool> iterator = pools.values().iterator();
+		while (iterator.hasNext()) {
+			iterator.next().close();
+			iterator.remove();
+		}
+	}
+
+	private static synchronized void startEvictor() {
+		if (evictor == null) {
+			evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "SQLConnectionPool evictor");
+				thread.setDaemon(true);
+				return thread;
+			});
+			evictor.scheduleWithFixedDelay(() -> pools.values().forEach(SQLConnectionPool::evictExpiredConnections),
+					EVICTION_PERIOD_MS, EVICTION_PERIOD_MS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * @return an idle connection of the pool or a new connection if no valid idle connection is available
+	 * @throws SQLException
+	 */
+	public Connection getConnection() throws SQLException {
+		Connection connection;
+		while ((connection = pollIdleConnection()) != null) {
+			if (isValid(connection)) {
+				return connection;
+			} else {
+				closeQuietly(connection);
+			}
+		}
+		return DriverManager.getConnection(jdbcUrl, user, password);
+	}
+
+	/**
+	 * Returns a connection to the pool. Uncommitted changes are rolled back
+	 * and the auto-commit mode is restored. The connection is closed if it
+	 * cannot be reset, if the pool is closed or if the maximum number of idle
+	 * connections is reached
+	 * 
+	 * @param connection the connection to be returned
+	 */
+	public void releaseConnection(Connection connection) {
+		if (connection != null) {
+			if (!reset(connection) || !offerIdleConnection(connection)) {
+				closeQuietly(connection);
+			}
+		}
+	}
+
+	protected int getIdleConnectionCount() {
+		synchronized (idleConnections) {
+			return idleConnections.size();
+		}
+	}
+
+	private Connection pollIdleConnection() {
+		synchronized (idleConnections) {
+			return idleConnections.isEmpty() ? null : idleConnections.remove(0).connection;
+		}
+	}
+
+	private boolean offerIdleConnection(Connection connection) {
+		synchronized (idleConnections) {
+			if (!closed && idleConnections.size() < maxIdleConnections) {
+				idleConnections.add(0, new IdleConnection(connection, System.currentTimeMillis()));
+				return true;
+			} else {
+				return false;
+			}
+		}
+	}
+
+	protected void evictExpiredConnections() {
+		List<Connection> expiredConnections = new ArrayList<>();
+		long now = System.currentTimeMillis();
+		synchronized (idleConnections) {
+			// The least recently released connections are at the end of the list
+			while (!idleConnections.isEmpty() && now - idleConnections.get(idleConnections.size() - 1).idleSince >= maxIdleTimeMs) {
+				expiredConnections.add(idleConnections.remove(idleConnections.size() - 1).connection);
+			}
+		}
+		expiredConnections.forEach(this::closeQuietly);
+	}
+
+	private void close() {
+		List<IdleConnection> connections;
+		synchronized (idleConnections) {
+			closed = true;
+			connections = new ArrayList<>(idleConnections);
+			idleConnections.clear();
+		}
+		connections.forEach(c -> closeQuietly(c.connection));
+	}
+
+	private boolean reset(Connection connection) {
+		try {
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			return isValid(connection);
+		} catch (SQLException e) {
+			logger.warn("Error while resetting connection to " + jdbcUrl, e);
+			return false;
+		}
+	}
+
+	private boolean isValid(Connection connection) {
+		try {
+			return connection.isValid(VALIDATION_TIMEOUT_S);
+		} catch (SQLException e) {
+			return false;
+		}
+	}
+
+	private void closeQuietly(Connection connection) {
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			logger.warn("Error while closing connection to " + jdbcUrl, e);
+		}
+	}
+
+	private static class IdleConnection {
+
+		private final Connection connection;
+		private final long idleSince;
+
+		private IdleConnection(Connection connection, long idleSince) {
+			this.connection = connection;
+			this.idleSince = idleSince;
+		}
+	}
+}
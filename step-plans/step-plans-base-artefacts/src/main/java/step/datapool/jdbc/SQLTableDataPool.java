@@ -19,14 +19,18 @@
 package step.datapool.jdbc;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,7 +44,17 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 
 	protected static Logger logger = LoggerFactory.getLogger(SQLTableDataPool.class);
 
+	public static final String DATASETS_SQL_FETCH_SIZE = "datasets.sql.fetchsize";
+	public static final String DATASETS_SQL_BATCH_SIZE = "datasets.sql.batch.size";
+	public static final String DATASETS_SQL_BATCH_INTERVAL_MS = "datasets.sql.batch.interval.ms";
+	public static final String DATASETS_SQL_POOL_MAXIDLE = "datasets.sql.pool.maxidle";
+	public static final String DATASETS_SQL_POOL_MAXIDLETIME_MS = "datasets.sql.pool.maxidletime.ms";
+
+	private SQLConnectionPool connectionPool;
+	// connection of the streamed query
 	private Connection conn1;
+	// connection of the updates. Separated from the connection of the query as some drivers close the open cursors at commit
+	private Connection writeConnection;
 	private Statement smt;
 	private ResultSet rs = null;
 
@@ -54,6 +68,18 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 	private String writePKey;
 
 	private ArrayList<String> cols;
+	// index of the columns by name shared by all the rows
+	private Map<String, Integer> colIndex;
+	private int pkIndex;
+
+	private int fetchSize;
+	private int batchSize;
+	private long batchIntervalMs;
+
+	// pending updates: one prepared statement per updated column
+	private final Map<String, PreparedStatement> updateStatements = new HashMap<>();
+	private volatile int pendingUpdates = 0;
+	private long firstPendingUpdateTime;
 
 	public SQLTableDataPool(SQLTableDataPoolConfiguration configuration){
 		super(configuration);
@@ -88,8 +114,12 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 		String password = context.getResolver().resolve(db_pwd);
 		
 		try {
-			conn1 = DriverManager.getConnection(jdbc_url, db_user, password);
+			int maxIdle = context.getConfiguration().getPropertyAsInteger(DATASETS_SQL_POOL_MAXIDLE, 10);
+			long maxIdleTimeMs = context.getConfiguration().getPropertyAsLong(DATASETS_SQL_POOL_MAXIDLETIME_MS, 60000L);
+			connectionPool = SQLConnectionPool.getPool(jdbc_url, db_user, password, maxIdle, maxIdleTimeMs);
+			conn1 = connectionPool.getConnection();
 			//conn1.setTransactionIsolation(Connection.TRANSACTION_READ_UNCOMMITTED);
+			// Some drivers (like PostgreSQL) only stream the results with a fetch size outside of auto-commit mode
 			conn1.setAutoCommit(false);
 		} catch (SQLException e) {
 			logger.error("Could not connect to the following datapool db :" + jdbc_url + " with user \'" + db_user + "\'", e);
@@ -105,9 +135,13 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 
 	public void executeQuery(){
 		try {
-			smt = conn1.createStatement();
 			if(rs != null && !rs.isClosed())
 				rs.close();
+			if(smt != null && !smt.isClosed())
+				smt.close();
+			// Stream the results instead of materializing them
+			smt = conn1.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			smt.setFetchSize(fetchSize);
 			rs = smt.executeQuery(query);
 		} catch (SQLException e) {
 			logger.error("Could not execute query :" + query, e);
@@ -121,9 +155,19 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 			//get column names
 			int colCount = meta.getColumnCount();
 			cols = new ArrayList<String>();
-			for (int index=1; index<=colCount; index++)
-				cols.add(meta.getColumnName(index));
-
+			colIndex = new HashMap<>();
+			pkIndex = -1;
+			for (int index=1; index<=colCount; index++) {
+				String colName = meta.getColumnName(index);
+				if(colName == null) {
+					logger.error("Null column name.");
+					throw new RuntimeException("Null column name.");
+				}
+				cols.add(colName);
+				colIndex.putIfAbsent(colName, index - 1);
+				if(colName.trim().equalsIgnoreCase(this.writePKey.trim()))
+					pkIndex = index - 1;
+			}
 		} catch (SQLException e) {
 			logger.error("Could not retrieve result set data from query :" + query, e);
 			throw new RuntimeException("Could not retrieve result set data from query :" + query+ ", Underlying exception message:" + e.getMessage());
@@ -132,28 +176,19 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 
 	@Override
 	public Object next_(){
-
-		ConcurrentHashMap<String,Object> row = null;
-
+		flushUpdatesIfIntervalElapsed();
 		try {
 			if(rs.next()){
-				row = new ConcurrentHashMap<String,Object>();
-				Object pkValue = null;
-				for (String colName:cols) {
-					if(colName != null) {
-						Object val = rs.getObject(colName);
-						// Turn null values to empty strings for convenience
-						if(val == null)
-							val = "";
-						row.put(colName,val);
-						if(colName.trim().toLowerCase().equals(this.writePKey.trim().toLowerCase()))
-							pkValue = val;
-					}else {
-						logger.error("Null column name.");
-						throw new RuntimeException("Null column name.");
-					}
+				Object[] values = new Object[cols.size()];
+				for (int i = 0; i < values.length; i++) {
+					Object val = rs.getObject(i + 1);
+					// Turn null values to empty strings for convenience
+					if(val == null)
+						val = "";
+					values[i] = val;
 				}
-				return new SQLRowWrapper(rs.getRow(), row, pkValue);
+				Object pkValue = pkIndex >= 0 ? values[pkIndex] : null;
+				return new SQLRowWrapper(rs.getRow(), values, pkValue);
 			}
 			else
 				return null;
@@ -167,13 +202,63 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 		}
 	}
 
+	private synchronized void addUpdateToBatch(String column, String value, Object pkValue) throws SQLException {
+		PreparedStatement update = updateStatements.get(column);
+		if(update == null) {
+			if(writeConnection == null) {
+				writeConnection = connectionPool.getConnection();
+				writeConnection.setAutoCommit(false);
+			}
+			// Table and column names cannot be bound as parameters. The column has been validated against the columns of the result set
+			update = writeConnection.prepareStatement("UPDATE " + table + " SET " + column + " = ? WHERE " + writePKey + " = ?");
+			update.setQueryTimeout(2);
+			updateStatements.put(column, update);
+		}
+		update.setString(1, value);
+		update.setObject(2, pkValue);
+		update.addBatch();
+		if(pendingUpdates++ == 0) {
+			firstPendingUpdateTime = System.currentTimeMillis();
+		}
+		if(pendingUpdates >= batchSize) {
+			flushUpdates();
+		}
+	}
+
+	private void flushUpdatesIfIntervalElapsed() {
+		if(pendingUpdates > 0 && System.currentTimeMillis() - firstPendingUpdateTime >= batchIntervalMs) {
+			synchronized (this) {
+				try {
+					flushUpdates();
+				} catch (SQLException e) {
+					logger.error("Could not execute batch update", e);
+					throw new RuntimeException("Could not execute batch update, Underlying exception message: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Executes the pending updates and commits them
+	 * @throws SQLException
+	 */
+	protected synchronized void flushUpdates() throws SQLException {
+		if(pendingUpdates > 0) {
+			for (PreparedStatement update : updateStatements.values()) {
+				update.executeBatch();
+			}
+			pendingUpdates = 0;
+			writeConnection.commit();
+		}
+	}
+
 	public class SQLRowWrapper extends SimpleStringMap {
 
 		private final Object pkValue;
 
-		private ConcurrentHashMap<String,Object> rowData;
+		private final Object[] rowData;
 
-		public SQLRowWrapper(int rowNum, ConcurrentHashMap<String,Object> row, Object pkValue) throws Exception {
+		public SQLRowWrapper(int rowNum, Object[] row, Object pkValue) throws Exception {
 			super();
 			this.pkValue = pkValue;
 			if(rowNum < 1)
@@ -182,69 +267,70 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 		}
 
 		@Override
-		//public synchronized String put(String key, String value){
 		public String put(String key, String value){
-			String sql = null;
-			Statement update = null;
-			if(pkValue!=null) {
-				if(pkValue instanceof String)
-					sql = "UPDATE "+table+" SET "+ key +" = \'"+ value + "\' WHERE "+ writePKey + " = '" + pkValue + "'";
-				else
-					sql= "UPDATE "+table+" SET "+ key +" = \'"+ value + "\' WHERE "+ writePKey + " = " + pkValue;				
-			} else {
+			if(pkValue==null) {
 				logger.error("The value of the primary key :" + writePKey + " is null. Unable to update key=" + key + " and value=" + value);
 				throw new RuntimeException("The value of the primary key :" + writePKey + " is null. Unable to update key=" + key + " and value=" + value);
 			}
+			Integer index = colIndex.get(key);
+			if(index == null) {
+				throw new RuntimeException("Unable to update key=" + key + ". The column " + key + " isn't part of the columns returned by the query: " + cols);
+			}
 
 			try {
-				update = conn1.createStatement();
-				update.setQueryTimeout(2);
-				/*int upd_rs = */update.executeUpdate(sql);
+				addUpdateToBatch(key, value, pkValue);
 			} catch (SQLException e) {
 				logger.error("Could not execute update with pk :" + writePKey + " = "+pkValue+", with key=" + key + " and value=" + value, e);
 				throw new RuntimeException("Could not execute update with pk :" + writePKey + " = "+pkValue+", with key=" + key + " and value=" + value + ", Underlying exception message: " + e.getMessage());
-			}finally{
-				try {
-					if(!update.isClosed())
-						update.close();
-				} catch (SQLException e) {
-					logger.error("Could not close update connection", e);
-					throw new RuntimeException("Could not close update connection" + ", Underlying exception message: " + e.getMessage());
-				}
 			}
-			try {
-				conn1.commit();
-			} catch (SQLException e) {
-				logger.error("Could not commit. ", e);
-				throw new RuntimeException("Commit failed"+ ", Underlying exception message: " + e.getMessage());
+			synchronized (rowData) {
+				rowData[index] = value;
 			}
-			rowData.put(key,value);
 			return value;
 		}
 
 		@Override
 		public String get(String key) {
-			return (String) rowData.get(key);
+			Integer index = colIndex.get(key);
+			if(index == null) {
+				return null;
+			}
+			synchronized (rowData) {
+				return (String) rowData[index];
+			}
 		}
 
-		public String toString(){return rowData.toString();}
+		public String toString(){
+			Map<String, Object> map = new LinkedHashMap<>();
+			synchronized (rowData) {
+				for (int i = 0; i < rowData.length; i++) {
+					map.put(cols.get(i), rowData[i]);
+				}
+			}
+			return map.toString();
+		}
 
 		@Override
 		public int size() {
-			return rowData.size();
+			return colIndex.size();
 		}
 
 		@Override
 		public boolean isEmpty() {
-			return rowData.isEmpty();
+			return colIndex.isEmpty();
 		}
 
 		@Override
 		public Set<String> keySet() {
-			return rowData.keySet();
+			return new LinkedHashSet<>(cols);
 		}
 	}
 
+	@Override
+	public boolean isCheapToIterate() {
+		return false;
+	}
+
 	@Override
 	public void addRow(Object row) {
 		throw new RuntimeException("Not implemented");
@@ -254,20 +340,45 @@ public class SQLTableDataPool extends DataSet<SQLTableDataPoolConfiguration> {
 	public void close() {
 		super.close();
 		try {
-			conn1.commit();
-			if(rs != null && !rs.isClosed())
-				rs.close();
-			conn1.close();
+			flushUpdates();
 		} catch (SQLException e) {
 			logger.error("Could not close close dataset properly", e);
 			throw new RuntimeException("Could not close close dataset properly" + ", Underlying exception message: " + e.getMessage());
+		} finally {
+			synchronized (this) {
+				for (PreparedStatement update : updateStatements.values()) {
+					closeQuietly(update);
+				}
+				updateStatements.clear();
+				pendingUpdates = 0;
+			}
+			closeQuietly(rs);
+			closeQuietly(smt);
+			// The pool rolls back what hasn't been committed and restores the auto-commit mode
+			connectionPool.releaseConnection(writeConnection);
+			writeConnection = null;
+			connectionPool.releaseConnection(conn1);
+			conn1 = null;
 		}
 
 	}
 
+	private void closeQuietly(AutoCloseable closeable) {
+		if(closeable != null) {
+			try {
+				closeable.close();
+			} catch (Exception e) {
+				logger.warn("Error while closing " + closeable, e);
+			}
+		}
+	}
+
 	@Override
 	public void init() {
 		super.init();
+		fetchSize = context.getConfiguration().getPropertyAsInteger(DATASETS_SQL_FETCH_SIZE, 100);
+		batchSize = context.getConfiguration().getPropertyAsInteger(DATASETS_SQL_BATCH_SIZE, 100);
+		batchIntervalMs = context.getConfiguration().getPropertyAsInteger(DATASETS_SQL_BATCH_INTERVAL_MS, 1000);
 		connect();
 		executeQuery();
 	}
@@ -42,7 +42,7 @@ public class JUnit4ReportWriter implements ReportWriter {
 	
 	@Override
 	public void writeReport(ReportTreeAccessor reportTreeAccessor, String executionId, File outputFile) throws IOException {
-		ReportTreeVisitor visitor = new ReportTreeVisitor(reportTreeAccessor);
+		ReportTreeVisitor visitor = new ReportTreeVisitor(reportTreeAccessor, true);
 		
 		try(BufferedWriter writer = new BufferedWriter(new FileWriter(outputFile))) {
 			// Using AtomicInteger and StringBuilder because of the "final limitation" in lambdas...
@@ -55,11 +55,11 @@ public class JUnit4ReportWriter implements ReportWriter {
 			
 			// First visit the report tree to get the root node informations and the different counts
 			visitor.visit(executionId, e->{
-				if(e.getStack().size()==0) {
+				if(e.getDepth()==0) {
 					name.append(e.getNode().getName());
 					duration.set(e.getNode().getDuration());
 				}
-				if(e.getStack().size()==1) {
+				if(e.getDepth()==1) {
 					numberOfTests.incrementAndGet();
 					ReportNode node = e.getNode();
 					if(node.getStatus() == ReportNodeStatus.FAILED) {
@@ -84,12 +84,12 @@ public class JUnit4ReportWriter implements ReportWriter {
 					ReportNode node = event.getNode();
 					try {
 						// as a convention report the children of the first level as testcases
-						if(event.getStack().size()==1) {
+						if(event.getDepth()==1) {
 							if(!skipReportNode(node)) {
 								writer.write("<testcase classname=\""+node.getClass().getName()+"\" name=\""+node.getName()+"\" time=\""+formatTime(node.getDuration())+"\">");
 								errorWritten.set(false);
 							}
-						} else if (event.getStack().size()>1) {
+						} else if (event.getDepth()>1) {
 							// report all the errors of the sub nodes (level > 1)
 							if(node.getError() != null) {
 								writeErrorOrFailure(writer, node, errorWritten);
@@ -102,7 +102,7 @@ public class JUnit4ReportWriter implements ReportWriter {
 				
 				@Override
 				public void endReportNode(ReportNodeEvent event) {
-					if(event.getStack().size()==1) {
+					if(event.getDepth()==1) {
 						ReportNode node = event.getNode();
 						if(!skipReportNode(node)) {
 							try {
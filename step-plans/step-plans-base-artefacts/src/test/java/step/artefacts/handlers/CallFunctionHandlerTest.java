@@ -26,6 +26,7 @@ import step.artefacts.CallFunction;
 import step.artefacts.reports.CallFunctionReportNode;
 import step.attachments.AttachmentMeta;
 import step.core.accessors.AbstractOrganizableObject;
+import step.core.artefacts.reports.ReportNode;
 import step.core.artefacts.reports.ReportNodeStatus;
 import step.core.dynamicbeans.DynamicJsonObjectResolver;
 import step.core.dynamicbeans.DynamicJsonValueResolver;
@@ -219,6 +220,28 @@ public class CallFunctionHandlerTest extends AbstractArtefactHandlerTest {
 		assertEquals("My Error", node.getError().getMsg());
 	}
 	
+	@Test
+	public void testInProcessExecution() {
+		ExecutionContext executionContext = buildExecutionContext();
+		executionContext.put(FunctionTypeRegistry.class, getInProcessFunctionTypeRepository());
+		
+		Function function = newFunction(FUNCTION_ID_SUCCESS);
+		function.setExecuteLocally(true);
+		executionContext.get(FunctionAccessor.class).save(function);
+		
+		CallFunctionHandler handler = new CallFunctionHandler();
+		handler.init(executionContext);
+		
+		CallFunction callFunction = FunctionArtefacts.keyword(function.getId().toString());
+		
+		CallFunctionReportNode node = (CallFunctionReportNode) execute(callFunction);
+		
+		// The function has been executed in process without token selection
+		assertNull(node.getTokenId());
+		assertEquals("{\"InProcess\":\"" + node.getId().toString() + "\"}", node.getOutput());
+		assertEquals(ReportNodeStatus.PASSED, node.getStatus());
+	}
+	
 	@Test
 	public void testSimulation() {
 		ExecutionContext executionContext = buildExecutionContext();
@@ -329,6 +352,51 @@ public class CallFunctionHandlerTest extends AbstractArtefactHandlerTest {
 		return token;
 	}
 
+	protected FunctionTypeRegistry getInProcessFunctionTypeRepository() {
+		return new FunctionTypeRegistry() {
+			
+			@Override
+			public void registerFunctionType(AbstractFunctionType<? extends Function> functionType) {
+			}
+			
+			@Override
+			public AbstractFunctionType<Function> getFunctionTypeByFunction(Function function) {
+				return new InProcessFunctionType();
+			}
+			
+			@Override
+			public AbstractFunctionType<Function> getFunctionType(String functionType) {
+				return new InProcessFunctionType();
+			}
+		};
+	}
+	
+	private static class InProcessFunctionType extends AbstractFunctionType<Function> implements InProcessFunctionExecutor<Function> {
+
+		@Override
+		public Output<JsonObject> executeInProcess(ExecutionContext context, Function function,
+				FunctionInput<JsonObject> input, ReportNode parentNode) {
+			Output<JsonObject> output = new Output<>();
+			output.setPayload(Json.createObjectBuilder().add("InProcess", parentNode.getId().toString()).build());
+			return output;
+		}
+
+		@Override
+		public Function newFunction() {
+			return null;
+		}
+
+		@Override
+		public Map<String, String> getHandlerProperties(Function function) {
+			return null;
+		}
+
+		@Override
+		public String getHandlerChain(Function function) {
+			return null;
+		}
+	}
+
 	protected FunctionTypeRegistry getFunctionTypeRepository() {
 		return new FunctionTypeRegistry() {
 			
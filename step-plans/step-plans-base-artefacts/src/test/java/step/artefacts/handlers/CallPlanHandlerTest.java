@@ -19,6 +19,7 @@
 package step.artefacts.handlers;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -26,6 +27,7 @@ import org.junit.Test;
 import step.artefacts.CallPlan;
 import step.core.artefacts.CheckArtefact;
 import step.core.artefacts.reports.ReportNodeStatus;
+import step.core.dynamicbeans.DynamicValue;
 import step.core.plans.Plan;
 import step.core.plans.builder.PlanBuilder;
 
@@ -58,4 +60,40 @@ public class CallPlanHandlerTest extends AbstractArtefactHandlerTest {
 		Assert.assertTrue(getChildren(context.getReport()).get(0).getStatus().equals(ReportNodeStatus.PASSED));
 	}
 
+	@Test
+	public void testResolvedPlanCache() {
+		context = newExecutionContext();
+		
+		AtomicInteger executionCount = new AtomicInteger();
+		CheckArtefact check = new CheckArtefact(c->{
+			context.getCurrentReportNode().setStatus(ReportNodeStatus.PASSED);
+			executionCount.incrementAndGet();
+		});
+		
+		Plan calledPlan = PlanBuilder.create().startBlock(check).endBlock().build();
+		calledPlan.addAttribute("name", "CalledPlan");
+		context.getPlanAccessor().save(calledPlan);
+		
+		CallPlan callPlan = new CallPlan();
+		callPlan.setSelectionAttributes(new DynamicValue<String>("{\"name\":\"CalledPlan\"}"));
+		callPlan.setInput(new DynamicValue<String>("{\"myInput\":\"myValue\"}"));
+		Plan plan = PlanBuilder.create().startBlock(callPlan).endBlock().build();
+		context.getPlanAccessor().save(plan);
+		
+		createSkeleton(plan.getRoot());
+		execute(plan.getRoot());
+		execute(plan.getRoot());
+		
+		Assert.assertEquals(2, executionCount.get());
+		ResolvedPlanCache cache = context.get(ResolvedPlanCache.class);
+		// the plan is resolved once during the skeleton phase and served from the cache afterwards
+		Assert.assertEquals(1, cache.getMissCount());
+		Assert.assertEquals(2, cache.getHitCount());
+		
+		// saving a plan invalidates the cache
+		context.getPlanAccessor().save(calledPlan);
+		execute(plan.getRoot());
+		Assert.assertEquals(3, executionCount.get());
+		Assert.assertEquals(2, cache.getMissCount());
+	}
 }
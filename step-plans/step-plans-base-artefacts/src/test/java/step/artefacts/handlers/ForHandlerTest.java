@@ -20,8 +20,10 @@ package step.artefacts.handlers;
 
 import static junit.framework.Assert.assertEquals;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.file.Files;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -29,16 +31,24 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 import org.junit.Test;
 
+import step.artefacts.BaseArtefactPlugin;
 import step.artefacts.ForBlock;
+import step.artefacts.ForEachBlock;
 import step.artefacts.reports.ForBlockReportNode;
 import step.core.artefacts.CheckArtefact;
+import step.core.artefacts.reports.ReportNode;
 import step.core.artefacts.reports.ReportNodeStatus;
 import step.core.dynamicbeans.DynamicValue;
+import step.core.execution.ExecutionContext;
+import step.core.execution.ExecutionEngine;
 import step.core.plans.Plan;
 import step.core.plans.builder.PlanBuilder;
 import step.core.plans.runner.DefaultPlanRunner;
+import step.datapool.file.CSVDataPool;
 import step.datapool.sequence.IntSequenceDataPool;
+import step.engine.plugins.AbstractExecutionEnginePlugin;
 import step.planbuilder.BaseArtefacts;
+import step.threadpool.ThreadPoolPlugin;
 
 public class ForHandlerTest {
 	
@@ -257,5 +267,41 @@ public class ForHandlerTest {
 		globalCounter.forEach((k,v)->Assert.assertEquals(iterations, v.get()));
 		Assert.assertEquals(iterations*iterations, threadIdMap.get(0).get());
 	}
+	
+	@Test
+	public void testSkeletonOfExpensiveDataSet() throws IOException {
+		File file = File.createTempFile("testSkeletonOfExpensiveDataSet", ".csv");
+		file.deleteOnExit();
+		Files.write(file.toPath(), "Col1\nrow1\nrow2\nrow3\n".getBytes());
+		
+		ForEachBlock f = new ForEachBlock();
+		CSVDataPool conf = new CSVDataPool();
+		conf.setFile(new DynamicValue<String>(file.getAbsolutePath()));
+		f.setDataSource(conf);
+		f.setDataSourceType("csv");
+		
+		AtomicInteger skeletonNodeCount = new AtomicInteger();
+		AtomicInteger executionCount = new AtomicInteger();
+		CheckArtefact check1 = new CheckArtefact(context->{
+			context.getCurrentReportNode().setStatus(ReportNodeStatus.PASSED);
+			executionCount.incrementAndGet();
+		});
+		
+		ExecutionEngine engine = ExecutionEngine.builder().withPlugin(new ThreadPoolPlugin()).withPlugin(new BaseArtefactPlugin()).withPlugin(new AbstractExecutionEnginePlugin() {
+			@Override
+			public void afterReportNodeSkeletonCreation(ExecutionContext context, ReportNode node) {
+				skeletonNodeCount.incrementAndGet();
+			}
+		}).build();
+		
+		Plan plan = PlanBuilder.create().startBlock(f).add(check1).endBlock().build();
+		engine.execute(plan).visitReportNodes(node->{
+			Assert.assertEquals(ReportNodeStatus.PASSED, node.getStatus());
+		});
+		
+		Assert.assertEquals(3, executionCount.get());
+		// The CSV file isn't read during the skeleton phase: only the skeleton node of the ForEach has been created
+		Assert.assertEquals(1, skeletonNodeCount.get());
+	}
 }
 
@@ -21,6 +21,9 @@ package step.datapool.file;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.Arrays;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -57,6 +60,33 @@ public class CSVReaderDataPoolTest extends AbstractArtefactTest {
 	}
 
 	
+	@Test
+	public void testCSVReaderDataPoolQuotedFields() throws IOException {
+		File file = File.createTempFile("testCSVReaderDataPoolQuoted", ".csv");
+		file.deleteOnExit();
+		Files.write(file.toPath(), "Col1,Col2,Col3\r\n\"quoted, with delimiter\",\"multi\r\nline\",\"escaped \"\"quote\"\"\"\r\nplain,,\"\" \n".getBytes());
+		DataSet<?> pool = getDataPool(file, false);
+		SimpleStringMap row = (SimpleStringMap) pool.next().getValue();
+		Assert.assertEquals("quoted, with delimiter", row.get("Col1"));
+		Assert.assertEquals("multi\r\nline", row.get("Col2"));
+		Assert.assertEquals("escaped \"quote\"", row.get("Col3"));
+		row = (SimpleStringMap) pool.next().getValue();
+		Assert.assertEquals("plain", row.get("Col1"));
+		Assert.assertEquals("", row.get("Col2"));
+		Assert.assertEquals(" ", row.get("Col3"));
+		Assert.assertNull(pool.next());
+		pool.close();
+	}
+	
+	@Test
+	public void testCSVTokenizerBufferBoundaries() throws IOException {
+		// use a tiny buffer to force fields and line breaks to span several buffer refills
+		CSVTokenizer tokenizer = new CSVTokenizer(new StringReader("a;\"b;\r\nb\"\"\";ccc\r\n;\r"), ';', 2);
+		Assert.assertEquals(Arrays.asList("a", "b;\r\nb\"", "ccc"), Arrays.asList(tokenizer.nextRecord()));
+		Assert.assertEquals(Arrays.asList("", ""), Arrays.asList(tokenizer.nextRecord()));
+		Assert.assertNull(tokenizer.nextRecord());
+	}
+	
 	@Test
 	public void testCSVReaderDataPoolPut() throws IOException {		
 		File tempFile = FileHelper.extractResourceToTempFile(this.getClass(), "testCSVReaderDataPoolPut.csv");
@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.datapool.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import step.artefacts.AbstractArtefactTest;
+import step.core.dynamicbeans.DynamicValue;
+import step.core.execution.ExecutionContext;
+import step.core.variables.SimpleStringMap;
+import step.datapool.DataPoolFactory;
+import step.datapool.DataPoolRow;
+import step.datapool.DataSet;
+
+public class SQLTableDataPoolTest extends AbstractArtefactTest {
+
+	private static final String JDBC_URL = "jdbc:h2:mem:SQLTableDataPoolTest;DB_CLOSE_DELAY=-1";
+
+	private Connection connection;
+
+	@Before
+	public void before() throws SQLException {
+		connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE MYFRUITS (FRUIT_ID INT PRIMARY KEY, FRUIT_NAME VARCHAR(255))");
+			for (int i = 1; i <= 10; i++) {
+				statement.execute("INSERT INTO MYFRUITS VALUES (" + i + ", 'fruit" + i + "')");
+			}
+		}
+	}
+
+	@After
+	public void after() throws SQLException {
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE MYFRUITS");
+		}
+		connection.close();
+	}
+
+	@Test
+	public void testRead() {
+		DataSet<?> pool = getDataPool(newExecutionContext(), false);
+		for (int i = 1; i <= 10; i++) {
+			SimpleStringMap row = (SimpleStringMap) pool.next().getValue();
+			assertEquals("fruit" + i, row.get("FRUIT_NAME"));
+		}
+		assertNull(pool.next());
+
+		// reset re-executes the query
+		pool.reset();
+		assertEquals("fruit1", ((SimpleStringMap) pool.next().getValue()).get("FRUIT_NAME"));
+		pool.close();
+	}
+
+	@Test
+	public void testBatchedWrite() throws SQLException {
+		ExecutionContext context = newExecutionContext();
+		context.getConfiguration().putProperty(SQLTableDataPool.DATASETS_SQL_BATCH_SIZE, "3");
+		DataSet<?> pool = getDataPool(context, true);
+		DataPoolRow row;
+		while ((row = pool.next()) != null) {
+			SimpleStringMap map = (SimpleStringMap) row.getValue();
+			String name = map.get("FRUIT_NAME");
+			// values are bound as parameters and not concatenated to the statement
+			map.put("FRUIT_NAME", "it's " + name);
+			assertEquals("it's " + name, map.get("FRUIT_NAME"));
+		}
+		pool.close();
+
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT FRUIT_ID, FRUIT_NAME FROM MYFRUITS ORDER BY FRUIT_ID")) {
+			while (rs.next()) {
+				assertEquals("it's fruit" + rs.getInt(1), rs.getString(2));
+			}
+		}
+	}
+
+	@Test(expected = RuntimeException.class)
+	public void testWriteToUnknownColumn() {
+		DataSet<?> pool = getDataPool(newExecutionContext(), true);
+		try {
+			((SimpleStringMap) pool.next().getValue()).put("FRUIT_NAME = 'x' WHERE 1=1 --", "value");
+		} finally {
+			pool.close();
+		}
+	}
+
+	@Test
+	public void testConnectionPooling() throws SQLException {
+		SQLConnectionPool.closeAll();
+		DataSet<?> pool = getDataPool(newExecutionContext(), false);
+		pool.close();
+		SQLConnectionPool connectionPool = SQLConnectionPool.getPool(JDBC_URL, "sa", "", 10, 60000);
+		assertEquals(1, connectionPool.getIdleConnectionCount());
+
+		// the idle connection is reused by the next data pool
+		pool = getDataPool(newExecutionContext(), false);
+		assertEquals(0, connectionPool.getIdleConnectionCount());
+		pool.close();
+		assertEquals(1, connectionPool.getIdleConnectionCount());
+
+		// the updates are written through a second connection. Both are returned in auto-commit mode
+		pool = getDataPool(newExecutionContext(), true);
+		((SimpleStringMap) pool.next().getValue()).put("FRUIT_NAME", "apple");
+		pool.close();
+		assertEquals(2, connectionPool.getIdleConnectionCount());
+		for (int i = 0; i < 2; i++) {
+			Connection pooledConnection = connectionPool.getConnection();
+			assertTrue(pooledConnection.getAutoCommit());
+			pooledConnection.close();
+		}
+
+		// the pool is replaced if the password changes
+		assertNotSame(connectionPool, SQLConnectionPool.getPool(JDBC_URL, "sa", "other", 10, 60000));
+		SQLConnectionPool.closeAll();
+	}
+
+	@Test
+	public void testIdleConnectionEviction() throws SQLException {
+		SQLConnectionPool connectionPool = new SQLConnectionPool(JDBC_URL, "sa", "", 10, 0);
+		Connection pooledConnection = connectionPool.getConnection();
+		connectionPool.releaseConnection(pooledConnection);
+		assertEquals(1, connectionPool.getIdleConnectionCount());
+		connectionPool.evictExpiredConnections();
+		assertEquals(0, connectionPool.getIdleConnectionCount());
+		assertTrue(pooledConnection.isClosed());
+	}
+
+	@Test
+	public void testBatchedWriteWhileStreaming() throws SQLException {
+		// Flush the updates several times while the query is being streamed
+		ExecutionContext context = newExecutionContext();
+		context.getConfiguration().putProperty(SQLTableDataPool.DATASETS_SQL_BATCH_SIZE, "2");
+		context.getConfiguration().putProperty(SQLTableDataPool.DATASETS_SQL_FETCH_SIZE, "1");
+		DataSet<?> pool = getDataPool(context, true);
+		int count = 0;
+		DataPoolRow row;
+		while ((row = pool.next()) != null) {
+			((SimpleStringMap) row.getValue()).put("FRUIT_NAME", "updated");
+			count++;
+		}
+		pool.close();
+		assertEquals(10, count);
+
+		try (Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM MYFRUITS WHERE FRUIT_NAME = 'updated'")) {
+			rs.next();
+			assertEquals(10, rs.getInt(1));
+		}
+	}
+
+	private DataSet<?> getDataPool(ExecutionContext context, boolean enableRowCommit) {
+		SQLTableDataPoolConfiguration conf = new SQLTableDataPoolConfiguration();
+		conf.setConnectionString(new DynamicValue<>(JDBC_URL));
+		conf.setUser(new DynamicValue<>("sa"));
+		conf.setPassword(new DynamicValue<>(""));
+		conf.setDriverClass(new DynamicValue<>("org.h2.Driver"));
+		conf.setQuery(new DynamicValue<>("select FRUIT_ID, FRUIT_NAME from MYFRUITS order by FRUIT_ID"));
+		conf.setWritePKey(new DynamicValue<>("FRUIT_ID"));
+		DataSet<?> pool = DataPoolFactory.getDataPool("sql", conf, context);
+		pool.enableRowCommit(enableRowCommit);
+		pool.init();
+		return pool;
+	}
+}
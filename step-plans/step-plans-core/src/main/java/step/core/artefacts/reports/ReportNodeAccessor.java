@@ -38,6 +38,20 @@ public interface ReportNodeAccessor extends Accessor<ReportNode>, ReportTreeAcce
 
 	Iterator<ReportNode> getReportNodesByExecutionID(String executionID);
 
+	/**
+	 * Returns the report nodes of an execution sorted by execution time. As the
+	 * execution time isn't unique, the report nodes can be paged using the
+	 * execution time of the last returned node as start and excluding the nodes
+	 * already returned for this execution time
+	 * 
+	 * @param executionID       the ID of the execution
+	 * @param fromExecutionTime the minimal execution time of the returned nodes (inclusive). Can be null
+	 * @param excludedIDs       the IDs of the nodes to be excluded. Can be null
+	 * @param limit             the maximal number of nodes to be returned. Can be null
+	 * @return an Iterator of the report nodes
+	 */
+	Iterator<ReportNode> getReportNodesByExecutionID(String executionID, Long fromExecutionTime, List<String> excludedIDs, Integer limit);
+
 	Iterator<ReportNode> getReportNodesByExecutionIDAndClass(String executionID, String class_);
 
 	Iterator<ReportNode> getReportNodesByExecutionIDAndCustomAttribute(String executionID,
@@ -23,6 +23,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.bson.types.ObjectId;
 
@@ -79,8 +80,21 @@ public class ReportNodeAccessorImpl extends AbstractAccessor<ReportNode> impleme
     
 	@Override
 	public Iterator<ReportNode> getReportNodesByExecutionID(String executionID) {
+		return getReportNodesByExecutionID(executionID, null, null, null);
+	}
+	
+	@Override
+	public Iterator<ReportNode> getReportNodesByExecutionID(String executionID, Long fromExecutionTime, List<String> excludedIDs, Integer limit) {
 		assert executionID != null;
-		return collectionDriver.find(Filters.equals("executionID", executionID), new SearchOrder("executionTime", 1), null, null, 0).iterator();
+		List<Filter> filters = new ArrayList<>();
+		filters.add(Filters.equals("executionID", executionID));
+		if(fromExecutionTime != null) {
+			filters.add(Filters.gte("executionTime", fromExecutionTime));
+		}
+		if(excludedIDs != null && !excludedIDs.isEmpty()) {
+			filters.add(Filters.not(Filters.or(excludedIDs.stream().<Filter>map(Filters::id).collect(Collectors.toList()))));
+		}
+		return collectionDriver.find(Filters.and(filters), new SearchOrder("executionTime", 1), null, limit, 0).iterator();
 	}
 	
 	@Override
@@ -37,4 +37,15 @@ public interface ReportTreeAccessor {
 	 * @return an Iterator of the list of children
 	 */
 	public Iterator<ReportNode> getChildren(String parentID);
+	
+	/**
+	 * Returns all the ReportNodes of an execution at once, sorted by execution time.
+	 * This allows to load a whole report tree without querying the children of each node
+	 * 
+	 * @param executionID the ID of the execution
+	 * @return an Iterator of all the ReportNodes of the execution or null if bulk loading isn't supported by this accessor
+	 */
+	public default Iterator<ReportNode> getReportNodesByExecutionID(String executionID) {
+		return null;
+	}
 }
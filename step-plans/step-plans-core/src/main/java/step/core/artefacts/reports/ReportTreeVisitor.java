@@ -18,19 +18,46 @@
  ******************************************************************************/
 package step.core.artefacts.reports;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Stack;
 import java.util.function.Consumer;
 
+import org.bson.types.ObjectId;
+
 public class ReportTreeVisitor {
 	
 	private final ReportTreeAccessor reportTreeAccessor;
+	private final boolean bulkLoading;
+	
+	// The children of all the report nodes of the last loaded execution, indexed by parent ID
+	private String loadedExecutionId;
+	private Map<ObjectId, List<ReportNode>> loadedChildren;
 	
 	public ReportTreeVisitor(ReportTreeAccessor reportTreeAccessor) {
+		this(reportTreeAccessor, false);
+	}
+	
+	/**
+	 * @param reportTreeAccessor the {@link ReportTreeAccessor} to be used
+	 * @param bulkLoading if true and if supported by the accessor, all the report
+	 *                    nodes of the execution are loaded at once with
+	 *                    {@link ReportTreeAccessor#getReportNodesByExecutionID(String)}
+	 *                    instead of querying the children of each node. The
+	 *                    loaded tree is kept by this visitor and reused by the
+	 *                    subsequent visits of the same execution
+	 */
+	public ReportTreeVisitor(ReportTreeAccessor reportTreeAccessor, boolean bulkLoading) {
 		super();
 		this.reportTreeAccessor = reportTreeAccessor;
+		this.bulkLoading = bulkLoading;
 	}
 
 	public ReportNode getRootReportNode(String executionId) {
@@ -47,28 +74,27 @@ public class ReportTreeVisitor {
 	 * @param reportNodeVisitorEventHandler the event handler to be used
 	 */
 	public void visit(String executionId, ReportNodeVisitorEventHandler reportNodeVisitorEventHandler) {
-		try {
-			ReportNode root = getRootReportNode(executionId);
-			Stack<ReportNode> stack = new Stack<>();
-			visitChildrenWithHandler(root, stack, reportNodeVisitorEventHandler);	
-		} catch(NoSuchElementException e) {
-			throw new NoSuchElementException("Unable to find root node for execution "+executionId);
-		}
+		visitTree(executionId, reportNodeVisitorEventHandler);
 	}
 	
 	public void visit(String executionId, Consumer<ReportNodeEvent> consumer) {
-		try {
-			ReportNode root = getRootReportNode(executionId);
-			Stack<ReportNode> stack = new Stack<>();
-			visitChildrenWithEvents(root, stack, consumer);	
-		} catch(NoSuchElementException e) {
-			throw new NoSuchElementException("Unable to find root node for execution "+executionId);
-		}
+		visitTree(executionId, new ReportNodeVisitorEventHandler() {
+			@Override
+			public void startReportNode(ReportNodeEvent reportNodeEvent) {
+				consumer.accept(reportNodeEvent);
+			}
+
+			@Override
+			public void endReportNode(ReportNodeEvent reportNodeEvent) {
+			}
+		});
 	}
 	
 	public static class ReportNodeEvent {
 		
 		protected ReportNode node;
+		// The ancestors of the node. The chain is shared by all the events of the sibling nodes
+		protected Ancestor parent;
 		protected Stack<ReportNode> stack;
 		protected Map<String, Object> userData = new HashMap<>();
 
@@ -76,16 +102,35 @@ public class ReportTreeVisitor {
 			return node;
 		}
 		
+		/**
+		 * @return the ancestors of the node, the root node first. Prefer
+		 *         {@link #getDepth()}, {@link #getParentNode()} or
+		 *         {@link #getRootNode()} which don't require to build the stack
+		 */
 		public Stack<ReportNode> getStack() {
+			if(stack == null) {
+				stack = new Stack<>();
+				for(Ancestor ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+					stack.add(ancestor.node);
+				}
+				Collections.reverse(stack);
+			}
 			return stack;
 		}
 		
+		/**
+		 * @return the number of ancestors of the node. 0 for the root node
+		 */
+		public int getDepth() {
+			return parent != null ? parent.depth + 1 : 0;
+		}
+		
 		public ReportNode getParentNode() {
-			return !stack.isEmpty()?stack.peek():null;
+			return parent != null ? parent.node : null;
 		}
 		
 		public ReportNode getRootNode() {
-			return !stack.isEmpty()?stack.get(0):null;
+			return parent != null ? parent.root : null;
 		}
 
 		public Object getData(Object key) {
@@ -97,30 +142,108 @@ public class ReportTreeVisitor {
 		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	protected void visitChildrenWithEvents(ReportNode root, Stack<ReportNode> stack, Consumer<ReportNodeEvent> consumer) {
-		ReportNodeEvent event = new ReportNodeEvent();
-		event.node = root;
-		event.stack = (Stack<ReportNode>) stack.clone();
-		consumer.accept(event);
-		stack.push(root);
-		reportTreeAccessor.getChildren(root.getId().toString()).forEachRemaining(node-> {
-			visitChildrenWithEvents(node, stack, consumer);
-		});
-		stack.pop();
+	/**
+	 * Immutable element of the chain of ancestors of a node
+	 */
+	protected static class Ancestor {
+		
+		protected final ReportNode node;
+		protected final Ancestor parent;
+		protected final ReportNode root;
+		protected final int depth;
+		
+		protected Ancestor(ReportNode node, Ancestor parent) {
+			this.node = node;
+			this.parent = parent;
+			this.root = parent != null ? parent.root : node;
+			this.depth = parent != null ? parent.depth + 1 : 0;
+		}
+	}
+	
+	private static class Frame {
+		
+		private final ReportNodeEvent event;
+		private final Ancestor ancestor;
+		private final Iterator<ReportNode> children;
+		
+		private Frame(ReportNodeEvent event, Ancestor ancestor, Iterator<ReportNode> children) {
+			this.event = event;
+			this.ancestor = ancestor;
+			this.children = children;
+		}
 	}
 	
-	@SuppressWarnings("unchecked")
-	protected void visitChildrenWithHandler(ReportNode root, Stack<ReportNode> stack, ReportNodeVisitorEventHandler reportNodeVisitorEventHandler) {
+	protected void visitTree(String executionId, ReportNodeVisitorEventHandler reportNodeVisitorEventHandler) {
+		Map<ObjectId, List<ReportNode>> childrenByParent = bulkLoading ? getChildrenByParent(executionId) : null;
+		
+		ReportNode root;
+		try {
+			if(childrenByParent != null) {
+				List<ReportNode> roots = childrenByParent.get(new ObjectId(executionId));
+				if(roots == null) {
+					throw new NoSuchElementException();
+				}
+				root = roots.get(0);
+			} else {
+				root = getRootReportNode(executionId);
+			}
+		} catch(NoSuchElementException e) {
+			throw new NoSuchElementException("Unable to find root node for execution "+executionId);
+		}
+		
+		// The tree is traversed iteratively to support deep trees
+		Deque<Frame> frames = new ArrayDeque<>();
+		frames.push(startNode(root, null, childrenByParent, reportNodeVisitorEventHandler));
+		while(!frames.isEmpty()) {
+			Frame frame = frames.peek();
+			if(frame.children.hasNext()) {
+				frames.push(startNode(frame.children.next(), frame.ancestor, childrenByParent, reportNodeVisitorEventHandler));
+			} else {
+				frames.pop();
+				reportNodeVisitorEventHandler.endReportNode(frame.event);
+			}
+		}
+	}
+	
+	private Frame startNode(ReportNode node, Ancestor parent, Map<ObjectId, List<ReportNode>> childrenByParent, ReportNodeVisitorEventHandler reportNodeVisitorEventHandler) {
 		ReportNodeEvent event = new ReportNodeEvent();
-		event.node = root;
-		event.stack = (Stack<ReportNode>) stack.clone();
-		stack.push(root);
+		event.node = node;
+		event.parent = parent;
 		reportNodeVisitorEventHandler.startReportNode(event);
-		reportTreeAccessor.getChildren(root.getId().toString()).forEachRemaining(node-> {
-			visitChildrenWithHandler(node, stack, reportNodeVisitorEventHandler);
-		});
-		reportNodeVisitorEventHandler.endReportNode(event);
-		stack.pop();
+		
+		Iterator<ReportNode> children;
+		if(childrenByParent != null) {
+			children = childrenByParent.getOrDefault(node.getId(), Collections.emptyList()).iterator();
+		} else {
+			children = reportTreeAccessor.getChildren(node.getId().toString());
+		}
+		return new Frame(event, new Ancestor(node, parent), children);
+	}
+	
+	/**
+	 * Loads all the report nodes of the execution at once and indexes them by parent ID
+	 * 
+	 * @param executionId the ID of the execution
+	 * @return the children of each node by parent ID or null if the accessor
+	 *         doesn't support bulk loading or if the ID doesn't refer to an execution
+	 */
+	protected Map<ObjectId, List<ReportNode>> getChildrenByParent(String executionId) {
+		if(!executionId.equals(loadedExecutionId)) {
+			Iterator<ReportNode> nodes = reportTreeAccessor.getReportNodesByExecutionID(executionId);
+			if(nodes == null) {
+				return null;
+			}
+			Map<ObjectId, List<ReportNode>> childrenByParent = new HashMap<>();
+			// The nodes are sorted by execution time like the children returned by getChildren
+			nodes.forEachRemaining(node -> {
+				if(node.getParentID() != null) {
+					childrenByParent.computeIfAbsent(node.getParentID(), k -> new ArrayList<>()).add(node);
+				}
+			});
+			loadedExecutionId = executionId;
+			loadedChildren = childrenByParent;
+		}
+		// Fall back to the queries per node if the visited node isn't the root of an execution
+		return ObjectId.isValid(executionId) && loadedChildren.containsKey(new ObjectId(executionId)) ? loadedChildren : null;
 	}
 }
@@ -19,11 +19,17 @@
 package step.core.plans;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+import org.bson.types.ObjectId;
+
 import step.core.accessors.LayeredAccessor;
 
-public class LayeredPlanAccessor extends LayeredAccessor<Plan> implements PlanAccessor {
+public class LayeredPlanAccessor extends LayeredAccessor<Plan> implements ObservablePlanAccessor {
+
+	private final List<Consumer<ObjectId>> modificationListeners = new CopyOnWriteArrayList<>();
 
 	public LayeredPlanAccessor() {
 		super();
@@ -37,4 +43,32 @@ public class LayeredPlanAccessor extends LayeredAccessor<Plan> implements PlanAc
 	public Stream<Plan> getVisiblePlans() {
 		throw new RuntimeException("getVisiblePlans not implemented in layered accessor");
 	}
+
+	@Override
+	public void addModificationListener(Consumer<ObjectId> listener) {
+		modificationListeners.add(listener);
+	}
+
+	@Override
+	public Plan save(Plan entity) {
+		Plan result = super.save(entity);
+		notifyModification(result.getId());
+		return result;
+	}
+
+	@Override
+	public void save(Iterable<Plan> entities) {
+		super.save(entities);
+		entities.forEach(entity -> notifyModification(entity.getId()));
+	}
+
+	@Override
+	public void remove(ObjectId id) {
+		super.remove(id);
+		notifyModification(id);
+	}
+
+	private void notifyModification(ObjectId id) {
+		modificationListeners.forEach(listener -> listener.accept(id));
+	}
 }
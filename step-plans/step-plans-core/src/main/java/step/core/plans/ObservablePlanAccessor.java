@@ -0,0 +1,38 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.core.plans;
+
+import org.bson.types.ObjectId;
+
+import java.util.function.Consumer;
+
+/**
+ * A {@link PlanAccessor} notifying the plans saved or removed through it
+ */
+public interface ObservablePlanAccessor extends PlanAccessor {
+
+    /**
+     * Registers a listener that is notified each time a plan is saved or removed
+     * through this accessor
+     *
+     * @param listener the listener to be called with the ID of each saved or removed plan
+     */
+    void addModificationListener(Consumer<ObjectId> listener);
+
+}
@@ -18,13 +18,19 @@
  ******************************************************************************/
 package step.core.plans;
 
+import org.bson.types.ObjectId;
 import step.core.accessors.AbstractAccessor;
 import step.core.collections.Collection;
 import step.core.collections.Filters;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
-public class PlanAccessorImpl extends AbstractAccessor<Plan> implements PlanAccessor {
+public class PlanAccessorImpl extends AbstractAccessor<Plan> implements ObservablePlanAccessor {
+
+	private final List<Consumer<ObjectId>> modificationListeners = new CopyOnWriteArrayList<>();
 
 	public PlanAccessorImpl(Collection<Plan> collectionDriver) {
 		super(collectionDriver);
@@ -34,4 +40,32 @@ public class PlanAccessorImpl extends AbstractAccessor<Plan> implements PlanAcce
 	public Stream<Plan> getVisiblePlans() {
 		return collectionDriver.find(Filters.equals("visible", true), null, null, null, 0);
 	}
+
+	@Override
+	public void addModificationListener(Consumer<ObjectId> listener) {
+		modificationListeners.add(listener);
+	}
+
+	@Override
+	public Plan save(Plan entity) {
+		Plan result = super.save(entity);
+		notifyModification(result.getId());
+		return result;
+	}
+
+	@Override
+	public void save(Iterable<Plan> entities) {
+		super.save(entities);
+		entities.forEach(entity -> notifyModification(entity.getId()));
+	}
+
+	@Override
+	public void remove(ObjectId id) {
+		super.remove(id);
+		notifyModification(id);
+	}
+
+	private void notifyModification(ObjectId id) {
+		modificationListeners.forEach(listener -> listener.accept(id));
+	}
 }
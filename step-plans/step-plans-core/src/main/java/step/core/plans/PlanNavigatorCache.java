@@ -0,0 +1,132 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.core.plans;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.bson.types.ObjectId;
+
+import step.core.artefacts.AbstractArtefact;
+import step.core.execution.AbstractExecutionEngineContext;
+
+/**
+ * Context scoped cache of {@link PlanNavigator} per plan ID. It allows the
+ * services looking up artefacts by ID in persisted plans to share the artefact
+ * index of each plan instead of loading and traversing the plan at each lookup.
+ *
+ * The navigator of a plan is evicted each time the plan is saved or removed
+ * through the plan accessor of the context. Nothing is cached if the accessor
+ * doesn't notify these modifications (see {@link ObservablePlanAccessor}). The
+ * cached plans and artefacts are shared and must therefore be considered as
+ * immutable.
+ */
+public class PlanNavigatorCache {
+
+	protected static final int MAX_ENTRIES = 100;
+
+	private final PlanAccessor planAccessor;
+	private final boolean cacheEnabled;
+	private final Map<String, PlanNavigator> navigators = new LinkedHashMap<>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, PlanNavigator> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+	// Incremented at each invalidation to avoid caching plans loaded before a modification
+	private long generation = 0;
+
+	public PlanNavigatorCache(PlanAccessor planAccessor) {
+		super();
+		this.planAccessor = planAccessor;
+		cacheEnabled = planAccessor instanceof ObservablePlanAccessor;
+		if (cacheEnabled) {
+			((ObservablePlanAccessor) planAccessor).addModificationListener(this::invalidate);
+		}
+	}
+
+	/**
+	 * @param context the {@link AbstractExecutionEngineContext} to get the cache for
+	 * @return the {@link PlanNavigatorCache} of the provided context. The cache
+	 *         is created at first call
+	 */
+	public static PlanNavigatorCache getOrCreate(AbstractExecutionEngineContext context) {
+		PlanNavigatorCache cache = context.get(PlanNavigatorCache.class);
+		if (cache == null) {
+			synchronized (context) {
+				cache = context.computeIfAbsent(PlanNavigatorCache.class, k -> new PlanNavigatorCache(context.getPlanAccessor()));
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * @param planId the ID of the plan
+	 * @return the {@link PlanNavigator} of the plan with the provided ID or null
+	 *         if the plan doesn't exist
+	 */
+	public PlanNavigator getPlanNavigator(String planId) {
+		if (!cacheEnabled) {
+			Plan plan = planAccessor.get(planId);
+			return plan != null ? new PlanNavigator(plan) : null;
+		}
+		long currentGeneration;
+		synchronized (navigators) {
+			PlanNavigator navigator = navigators.get(planId);
+			if (navigator != null) {
+				return navigator;
+			}
+			currentGeneration = generation;
+		}
+		Plan plan = planAccessor.get(planId);
+		if (plan == null) {
+			return null;
+		}
+		PlanNavigator navigator = new PlanNavigator(plan);
+		synchronized (navigators) {
+			if (currentGeneration == generation) {
+				navigators.put(planId, navigator);
+			}
+		}
+		return navigator;
+	}
+
+	/**
+	 * @param planId     the ID of the plan
+	 * @param artefactId the ID of the artefact
+	 * @return the artefact with the provided ID in the plan with the provided ID
+	 *         or null if the plan or the artefact doesn't exist
+	 */
+	public AbstractArtefact findArtefactById(String planId, String artefactId) {
+		PlanNavigator navigator = getPlanNavigator(planId);
+		return navigator != null ? navigator.findArtefactById(artefactId) : null;
+	}
+
+	/**
+	 * Evicts the {@link PlanNavigator} of the plan with the provided ID
+	 *
+	 * @param planId the ID of the plan
+	 */
+	public void invalidate(ObjectId planId) {
+		synchronized (navigators) {
+			generation++;
+			navigators.remove(planId.toString());
+		}
+	}
+}
@@ -112,7 +112,7 @@ public class PlanRunnerResult {
 	}
 
 	protected ReportTreeVisitor getReportTreeVisitor() {
-		return new ReportTreeVisitor(reportTreeAccessor);
+		return new ReportTreeVisitor(reportTreeAccessor, true);
 	}
 	
 	/**
@@ -169,7 +169,7 @@ public class PlanRunnerResult {
 		BufferedWriter bWriter = new BufferedWriter(writer);
 		visitReportTree(event->{
 			try {
-				for(int i=0;i<event.getStack().size();i++) {
+				for(int i=0;i<event.getDepth();i++) {
 						bWriter.write(" ");
 				}
 				ReportNode node = event.getNode();
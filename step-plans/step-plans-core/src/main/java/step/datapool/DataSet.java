@@ -128,6 +128,18 @@ public abstract class DataSet<T extends DataPoolConfiguration> {
 		return false;
 	}
 	
+	/**
+	 * Indicates if the rows of this data set can be read at low cost, typically
+	 * because they are held in memory. ForEach only reads the data set during the
+	 * creation of the report skeleton if this is the case. Otherwise the report
+	 * nodes of the iterations are only created during execution.
+	 * 
+	 * @return true if reading all the rows of this data set is cheap
+	 */
+	public boolean isCheapToIterate() {
+		return true;
+	}
+	
 	public final synchronized DataPoolRow next() {
 		Object nextValue = next_();
 		DataPoolRow dataPoolRow = nextValue!=null?new DataPoolRow(nextValue):null;
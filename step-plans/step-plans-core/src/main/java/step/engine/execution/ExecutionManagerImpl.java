@@ -19,7 +19,9 @@
 package step.engine.execution;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Consumer;
 
 import step.core.accessors.AbstractOrganizableObject;
@@ -34,11 +36,22 @@ import step.core.repositories.ImportResult;
 public class ExecutionManagerImpl implements ExecutionManager {
 	
 	private final ExecutionAccessor accessor;
+	private final List<Consumer<Execution>> statusListeners = new CopyOnWriteArrayList<>();
 	
 	public ExecutionManagerImpl(ExecutionAccessor accessor) {
 		super();
 		this.accessor = accessor;
 	}
+	
+	/**
+	 * Registers a listener that is notified each time the status of an
+	 * execution has been persisted through this manager
+	 * 
+	 * @param listener the listener to be called with the persisted {@link Execution}
+	 */
+	public void addStatusListener(Consumer<Execution> listener) {
+		statusListeners.add(listener);
+	}
 
 	@Override
 	public void updateParameters(ExecutionContext context, Map<String, String> params) {
@@ -71,6 +84,7 @@ public class ExecutionManagerImpl implements ExecutionManager {
 				}
 			}
 			saveExecution(execution);
+			statusListeners.forEach(listener->listener.accept(execution));
 		});
 	}
 	
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (C) 2020, exense GmbH
+ *  
+ * This file is part of STEP
+ *  
+ * STEP is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *  
+ * STEP is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *  
+ * You should have received a copy of the GNU Affero General Public License
+ * along with STEP.  If not, see <http://www.gnu.org/licenses/>.
+ ******************************************************************************/
+package step.core.plans;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.bson.types.ObjectId;
+import org.junit.Test;
+
+import step.core.accessors.LayeredAccessor;
+import step.core.artefacts.AbstractArtefact;
+import step.core.artefacts.CheckArtefact;
+import step.core.plans.builder.PlanBuilder;
+
+public class PlanNavigatorCacheTest {
+
+	@Test
+	public void testPlanNavigator() {
+		CheckArtefact root = new CheckArtefact();
+		CheckArtefact child1 = new CheckArtefact();
+		CheckArtefact child2 = new CheckArtefact();
+		CheckArtefact grandChild = new CheckArtefact();
+		Plan plan = PlanBuilder.create().startBlock(root).add(child1).startBlock(child2).add(grandChild).endBlock().endBlock().build();
+
+		PlanNavigator planNavigator = new PlanNavigator(plan);
+		assertSame(root, planNavigator.findArtefactById(root.getId().toString()));
+		assertSame(child1, planNavigator.findArtefactById(child1.getId()));
+		assertSame(grandChild, planNavigator.findArtefactById(grandChild.getId().toString()));
+		assertNull(planNavigator.findArtefactById(new ObjectId()));
+		assertNull(planNavigator.findArtefactById("invalid"));
+		assertNull(planNavigator.findArtefactById((String) null));
+
+		assertNull(planNavigator.findParentById(root.getId()));
+		assertSame(root, planNavigator.findParentById(child1.getId()));
+		assertSame(child2, planNavigator.findParentById(grandChild.getId()));
+	}
+
+	@Test
+	public void testPlanNavigatorCache() {
+		InMemoryPlanAccessor planAccessor = new InMemoryPlanAccessor();
+		CheckArtefact child = new CheckArtefact();
+		Plan plan = PlanBuilder.create().startBlock(new CheckArtefact()).add(child).endBlock().build();
+		planAccessor.save(plan);
+		String planId = plan.getId().toString();
+
+		PlanNavigatorCache cache = new PlanNavigatorCache(planAccessor);
+		PlanNavigator planNavigator = cache.getPlanNavigator(planId);
+		assertSame(planNavigator, cache.getPlanNavigator(planId));
+		assertEquals(child.getId(), cache.findArtefactById(planId, child.getId().toString()).getId());
+		assertNull(cache.getPlanNavigator(new ObjectId().toString()));
+		assertNull(cache.findArtefactById(new ObjectId().toString(), child.getId().toString()));
+
+		// Saving another plan should keep the cached navigator
+		Plan otherPlan = PlanBuilder.create().startBlock(new CheckArtefact()).endBlock().build();
+		planAccessor.save(otherPlan);
+		PlanNavigator otherPlanNavigator = cache.getPlanNavigator(otherPlan.getId().toString());
+		assertSame(planNavigator, cache.getPlanNavigator(planId));
+
+		// Saving the plan should evict its navigator only
+		CheckArtefact newChild = new CheckArtefact();
+		plan.getRoot().addChild(newChild);
+		planAccessor.save(plan);
+		assertNotSame(planNavigator, cache.getPlanNavigator(planId));
+		assertSame(otherPlanNavigator, cache.getPlanNavigator(otherPlan.getId().toString()));
+		AbstractArtefact artefact = cache.findArtefactById(planId, newChild.getId().toString());
+		assertEquals(newChild.getId(), artefact.getId());
+
+		// Removing the plan should invalidate the cache
+		planAccessor.remove(plan.getId());
+		assertNull(cache.getPlanNavigator(planId));
+		assertSame(otherPlanNavigator, cache.getPlanNavigator(otherPlan.getId().toString()));
+	}
+
+	@Test
+	public void testPlanNavigatorCacheWithoutModificationListener() {
+		InMemoryPlanAccessor inMemoryPlanAccessor = new InMemoryPlanAccessor();
+		Plan plan = PlanBuilder.create().startBlock(new CheckArtefact()).endBlock().build();
+		inMemoryPlanAccessor.save(plan);
+		String planId = plan.getId().toString();
+
+		// The modifications of this accessor cannot be tracked. The plans shouldn't be cached
+		PlanAccessor planAccessor = new NonObservablePlanAccessor(inMemoryPlanAccessor);
+		PlanNavigatorCache cache = new PlanNavigatorCache(planAccessor);
+		PlanNavigator planNavigator = cache.getPlanNavigator(planId);
+		assertEquals(plan.getRoot().getId(), planNavigator.findArtefactById(plan.getRoot().getId()).getId());
+		assertNotSame(planNavigator, cache.getPlanNavigator(planId));
+
+		inMemoryPlanAccessor.remove(plan.getId());
+		assertNull(cache.getPlanNavigator(planId));
+	}
+
+	private static class NonObservablePlanAccessor extends LayeredAccessor<Plan> implements PlanAccessor {
+
+		public NonObservablePlanAccessor(PlanAccessor planAccessor) {
+			super(List.of(planAccessor));
+		}
+
+		@Override
+		public Stream<Plan> getVisiblePlans() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -51,12 +51,17 @@ public class PlanParser {
 
 	protected Configuration configuration;
 	
+	// The StepsParser and its step parsers are stateless and reused for all the plans
+	private final StepsParser stepsParser;
+	
 	public PlanParser() {
-		this.configuration = new Configuration();
+		this(new Configuration());
 	}
 	
 	public PlanParser(Configuration configuration)  {
 		this.configuration = configuration;
+		this.stepsParser = StepsParser.builder().withConfiguration(configuration).withExtensionsFromClasspath()
+				.withStepParsers(new PlanStepParser()).build();
 	}
 
 	/**
@@ -86,9 +91,6 @@ public class PlanParser {
 	private static final Pattern DYNAMIC_NAME_PATTERN = Pattern.compile("[ ]*\\|(.+?)\\|[ ]*");
 
 	protected Plan parse(Reader contentReader, RootArtefactType rootType) throws ParsingException {
-		StepsParser stepsParser = StepsParser.builder().withConfiguration(configuration).withExtensionsFromClasspath()
-				.withStepParsers(new PlanStepParser()).build();
-
 		BufferedReader reader = new BufferedReader(contentReader);
 		
 		List<PlanStep> descriptionSteps = new ArrayList<>();
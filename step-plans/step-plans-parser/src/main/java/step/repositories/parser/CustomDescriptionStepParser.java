@@ -55,6 +55,23 @@ import step.repositories.parser.steps.DescriptionStep;
 @StepParserExtension
 public class CustomDescriptionStepParser implements StepParser<DescriptionStep> {
 
+	private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener() {
+		@Override
+		public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+				int charPositionInLine, String msg, RecognitionException e) {
+			throw new IllegalStateException(msg, e);
+		}
+	};
+
+	// The lexer and parser are reused for all the steps parsed by a thread
+	private final ThreadLocal<DescriptionStepParser> parsers = ThreadLocal.withInitial(() -> {
+		DescriptionStepLexer lexer = new DescriptionStepLexer(new ANTLRInputStream(""));
+		lexer.addErrorListener(ERROR_LISTENER);
+		DescriptionStepParser parser = new DescriptionStepParser(new CommonTokenStream(lexer));
+		parser.addErrorListener(ERROR_LISTENER);
+		return parser;
+	});
+
 	@Override
 	public int getParserScoreForStep(AbstractStep step) {
 		return (step instanceof DescriptionStep) ? 10 : 0;
@@ -73,18 +90,11 @@ public class CustomDescriptionStepParser implements StepParser<DescriptionStep>
 	}
 
 	private ParseContext parse(String expression) {
-		BaseErrorListener baseErrorListener = new BaseErrorListener() {
-			@Override
-			public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
-					int charPositionInLine, String msg, RecognitionException e) {
-				throw new IllegalStateException(msg, e);
-			}
-		};
-
-		DescriptionStepLexer lexer = new DescriptionStepLexer(new ANTLRInputStream(expression));
-		lexer.addErrorListener(baseErrorListener);
-		DescriptionStepParser parser = new DescriptionStepParser(new CommonTokenStream(lexer));
-		parser.addErrorListener(baseErrorListener);
+		DescriptionStepParser parser = parsers.get();
+		DescriptionStepLexer lexer = (DescriptionStepLexer) parser.getTokenStream().getTokenSource();
+		// Setting the input and the token stream resets the state left by the previous step
+		lexer.setInputStream(new ANTLRInputStream(expression));
+		parser.setTokenStream(new CommonTokenStream(lexer));
 		return parser.parse();
 	}
 
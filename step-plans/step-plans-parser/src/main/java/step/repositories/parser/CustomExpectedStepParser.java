@@ -46,6 +46,20 @@ import step.repositories.parser.steps.ExpectedStep;
 @StepParserExtension
 public class CustomExpectedStepParser implements StepParser<ExpectedStep> {
 
+	private static final BaseErrorListener ERROR_LISTENER = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
+            throw new IllegalStateException("failed to parse at line " + line + " due to " + msg, e);
+        }
+    };
+
+	// The lexer and parser are reused for all the steps parsed by a thread
+	private final ThreadLocal<ExpectedStepParser> parsers = ThreadLocal.withInitial(() -> {
+		ExpectedStepParser parser = new ExpectedStepParser(new CommonTokenStream(new ExpectedStepLexer(new ANTLRInputStream(""))));
+		parser.addErrorListener(ERROR_LISTENER);
+		return parser;
+	});
+
 	@Override
 	public int getParserScoreForStep(AbstractStep step) {
 		return (step instanceof ExpectedStep)?10:0;
@@ -67,16 +81,12 @@ public class CustomExpectedStepParser implements StepParser<ExpectedStep> {
 	}
 	
 	private ParseContext parse(String expression) {
-		ExpectedStepLexer lexer = new ExpectedStepLexer(new ANTLRInputStream(expression));
-		ExpectedStepParser parser = new ExpectedStepParser(new CommonTokenStream(lexer));
-		parser.addErrorListener(new BaseErrorListener() {
-	        @Override
-	        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
-	            throw new IllegalStateException("failed to parse at line " + line + " due to " + msg, e);
-	        }
-	    });
+		ExpectedStepParser parser = parsers.get();
+		ExpectedStepLexer lexer = (ExpectedStepLexer) parser.getTokenStream().getTokenSource();
+		// Setting the input and the token stream resets the state left by the previous step
+		lexer.setInputStream(new ANTLRInputStream(expression));
+		parser.setTokenStream(new CommonTokenStream(lexer));
 		return parser.parse();
-		
 	}
 	
 	public static class Visitor extends ExpectedStepBaseVisitor<Object> {
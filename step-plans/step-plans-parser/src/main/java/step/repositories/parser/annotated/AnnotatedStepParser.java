@@ -24,8 +24,11 @@ import java.lang.reflect.Parameter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.regex.MatchResult;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -40,6 +43,12 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 	
 	LinkedList<Entry> entries = new LinkedList<>();
 
+	// Index of the entries by the literal prefix of their pattern
+	private final PrefixNode prefixIndex = new PrefixNode();
+	
+	// The last match found by getParserScoreForStep, reused by parseStep to avoid matching the step twice
+	private final ThreadLocal<StepMatch> lastMatch = new ThreadLocal<>();
+
 	int score = 1;
 	
 	public AnnotatedStepParser(Class<T> stepClass) {
@@ -54,6 +63,9 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 		int priority;
 		
 		Method method;
+		
+		// The position of the entry in the list of entries sorted by priority
+		int rank;
 
 		public Entry(Pattern pattern, int priority, Method method) {
 			super();
@@ -63,6 +75,29 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 		}
 		
 	}
+	
+	private class PrefixNode {
+		
+		final Map<Character, PrefixNode> children = new HashMap<>();
+		
+		final List<Entry> entries = new ArrayList<>();
+	}
+	
+	private class StepMatch {
+		
+		final String expression;
+		
+		final Entry entry;
+		
+		final MatchResult matchResult;
+
+		public StepMatch(String expression, Entry entry, MatchResult matchResult) {
+			super();
+			this.expression = expression;
+			this.entry = entry;
+			this.matchResult = matchResult;
+		}
+	}
 
 	protected void parseClass() {
 		for(Method method:this.getClass().getMethods()) {
@@ -82,13 +117,75 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 				return -Integer.compare(o1.priority, o2.priority);
 			}
 		});
+		
+		int rank = 0;
+		for(Entry e:entries) {
+			e.rank = rank++;
+			PrefixNode node = prefixIndex;
+			for(char c:getLiteralPrefix(e.pattern.pattern()).toCharArray()) {
+				node = node.children.computeIfAbsent(c, k -> new PrefixNode());
+			}
+			node.entries.add(e);
+		}
+	}
+	
+	/**
+	 * @param expression a regular expression
+	 * @return the literal prefix that all the strings matching the expression start with.
+	 *         The prefix is determined conservatively and may be shorter than the actual one
+	 */
+	protected static String getLiteralPrefix(String expression) {
+		if(expression.contains("|")) {
+			// Alternatives may start with different prefixes
+			return "";
+		}
+		int start = expression.startsWith("^") ? 1 : 0;
+		int end = start;
+		while(end < expression.length() && "\\[](){}.*+?^$".indexOf(expression.charAt(end)) < 0) {
+			end++;
+		}
+		if(end < expression.length() && "*+?{".indexOf(expression.charAt(end)) >= 0 && end > start) {
+			// The last literal character is quantified and thus optional or repeated
+			end--;
+		}
+		return expression.substring(start, end);
+	}
+	
+	/**
+	 * @param expression the expression of the step
+	 * @return the entries whose literal prefix matches the expression, sorted by priority
+	 */
+	private List<Entry> getCandidateEntries(String expression) {
+		List<Entry> candidates = new ArrayList<>(prefixIndex.entries);
+		PrefixNode node = prefixIndex;
+		for(int i=0;i<expression.length();i++) {
+			node = node.children.get(expression.charAt(i));
+			if(node == null) {
+				break;
+			}
+			candidates.addAll(node.entries);
+		}
+		candidates.sort(Comparator.comparingInt(e -> e.rank));
+		return candidates;
+	}
+	
+	private StepMatch findMatch(String expression) {
+		for(Entry e:getCandidateEntries(expression)) {
+			Matcher m = e.pattern.matcher(expression);
+			if(m.matches()) {
+				return new StepMatch(expression, e, m.toMatchResult());
+			}
+		}
+		return null;
 	}
 
 	@Override
 	public int getParserScoreForStep(AbstractStep step_) {
 		if(stepClass.isAssignableFrom(step_.getClass())) {
 			SingleValueStep step = (SingleValueStep)step_;
-			if(hasMatchingMethod(step.getValue())) {
+			StepMatch match = findMatch(step.getValue());
+			lastMatch.set(match);
+			if(match != null) {
 				return score;
 			}
 		}
@@ -96,13 +193,7 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 	}
 	
 	protected boolean hasMatchingMethod(String expression) {
-		for(Entry e:entries) {
-			Matcher m = e.pattern.matcher(expression);
-			if(m.matches()) {
-				return true;
-			}
-		}
-		return false;
+		return findMatch(expression) != null;
 	}
 
 	@Override
@@ -113,39 +204,41 @@ public class AnnotatedStepParser<T extends SingleValueStep> implements StepParse
 
 
 	private void findAndInvokeMatchingMethod(ParsingContext parsingContext, String expression) {
-		for(Entry e:entries) {
-			Matcher m = e.pattern.matcher(expression);
-			if(m.matches()) {
-				List<String> groups = new ArrayList<>();
-				for(int i=1;i<=m.groupCount();i++) {
-					groups.add(m.group(i));
-				}
-				Method method = e.method;
-				
-				Object[] arguments = new Object[method.getParameters().length];
-				
-				int groupCount = 0;
-				
-				for(int i=0;i<method.getParameters().length;i++) {
-					Parameter p = method.getParameters()[i];
-					Class<?> parameterClass = p.getType();
-					if(ParsingContext.class.isAssignableFrom(parameterClass)) {
-						arguments[i] = parsingContext;
-					} else {
-						arguments[i] = convert(groups.get(groupCount), parameterClass);
-						groupCount++;
-					}
-					
-				}
-				
-				try {
-					method.invoke(null, arguments);
-				} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e1) {
-					Throwable cause = e1.getCause()!=null?e1.getCause():e1;
-					parsingContext.addParsingError(cause.getMessage());						
+		StepMatch match = lastMatch.get();
+		// The match is consumed here as the invoked method may parse further steps
+		lastMatch.remove();
+		if(match == null || !match.expression.equals(expression)) {
+			match = findMatch(expression);
+		}
+		if(match != null) {
+			MatchResult m = match.matchResult;
+			List<String> groups = new ArrayList<>();
+			for(int i=1;i<=m.groupCount();i++) {
+				groups.add(m.group(i));
+			}
+			Method method = match.entry.method;
+			
+			Object[] arguments = new Object[method.getParameters().length];
+			
+			int groupCount = 0;
+			
+			for(int i=0;i<method.getParameters().length;i++) {
+				Parameter p = method.getParameters()[i];
+				Class<?> parameterClass = p.getType();
+				if(ParsingContext.class.isAssignableFrom(parameterClass)) {
+					arguments[i] = parsingContext;
+				} else {
+					arguments[i] = convert(groups.get(groupCount), parameterClass);
+					groupCount++;
 				}
 				
-				break;
+			}
+			
+			try {
+				method.invoke(null, arguments);
+			} catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e1) {
+				Throwable cause = e1.getCause()!=null?e1.getCause():e1;
+				parsingContext.addParsingError(cause.getMessage());						
 			}
 		}
 	}
@@ -167,4 +167,24 @@ public class PlanParserTest {
 				"End", null);
 		Assert.assertEquals(ForEachBlock.class, plan.getRoot().getClass());
 	}
+
+	@Test
+	public void testParserReuse() throws IOException, ParsingException {
+		PlanParser parser = new PlanParser();
+		Plan plan = parser.parse("Sequence\nEcho 'test'\nMyKeyword param = \"value\"\nAssert output = \"value\"\nEnd", null);
+		Assert.assertEquals(Sequence.class, plan.getRoot().getClass());
+		Assert.assertEquals(2, plan.getRoot().getChildren().size());
+
+		// A syntax error mustn't affect the next plans parsed by the same parser
+		try {
+			parser.parse("MyKeyword param = ", null);
+			Assert.fail("A ParsingException should have been thrown");
+		} catch (ParsingException e) {
+			Assert.assertEquals(1, e.getErrors().size());
+		}
+
+		plan = parser.parse("MyKeyword param = \"value\"\nAssert output = \"value\"", RootArtefactType.TestCase);
+		CallFunction callFunction = (CallFunction) plan.getRoot().getChildren().get(0);
+		Assert.assertEquals(step.artefacts.Assert.class, callFunction.getChildren().get(0).getClass());
+	}
 }